@@ -0,0 +1,125 @@
+#!/usr/bin/env bash
+#
+# Compara el arranque y la memoria de la aplicacion en estas variantes:
+#   jvm        java -jar                                (arranque normal)
+#   jvm-aot    java -Dspring.aot.enabled=true -jar      (mismo jar con el contexto generado por AOT)
+#   jlink      jar extraido por capas sobre el runtime de jlink, sin archivo CDS de la aplicacion
+#   jlink-cds  lo mismo con el archivo AppCDS del entrenamiento (como arranca la imagen del Dockerfile)
+#   nativo     ejecutable de GraalVM
+#
+# Primero generar los artefactos (el jar del perfil native ya incluye las clases AOT):
+#   mvn -Pnative -DskipTests package
+#   scripts/preparar-arranque.sh
+# y despues, con una bd accesible:
+#   SPRING_DATASOURCE_URL=jdbc:postgresql://localhost:5432/megastore \
+#   SPRING_DATASOURCE_USERNAME=... SPRING_DATASOURCE_PASSWORD=... scripts/comparar-arranque.sh
+#
+# Para cada variante se hacen REPETICIONES arranques y se informa la mediana de:
+#   arranque_ms   desde que se lanza el proceso hasta que /actuator/health responde 200
+#   spring_ms     el "Started BackApplication in X seconds" del log
+#   rss_mb        memoria residente del proceso recien arrancado
+#   rss_carga_mb  memoria residente despues de PETICIONES lecturas de /products/colores
+#
+# Variables opcionales: JAR, NATIVO, ARRANQUE (target/arranque), PUERTO (8085), REPETICIONES (5),
+# PETICIONES (2000), VARIANTES y OPCIONES_JVM (se agregan a las variantes con JVM, por ejemplo
+# "-XX:MaxRAMPercentage=75" para medir con las mismas opciones que el contenedor).
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+JAR=${JAR:-$(ls target/mega_store-*.jar 2>/dev/null | grep -v original | head -1 || true)}
+NATIVO=${NATIVO:-target/mega_store}
+ARRANQUE=${ARRANQUE:-target/arranque}
+PUERTO=${PUERTO:-8085}
+REPETICIONES=${REPETICIONES:-5}
+PETICIONES=${PETICIONES:-2000}
+VARIANTES=${VARIANTES:-"jvm jvm-aot jlink jlink-cds nativo"}
+OPCIONES_JVM=${OPCIONES_JVM:-}
+LOGS=target/comparar-arranque
+mkdir -p "$LOGS"
+
+if [[ -z "${SPRING_DATASOURCE_URL:-}" ]]; then
+    echo "Falta SPRING_DATASOURCE_URL (y usuario/clave) de la bd a usar" >&2
+    exit 1
+fi
+
+# El archivo CDS guarda las rutas de los jars del entrenamiento: se usan las mismas (absolutas)
+APP_EXTRAIDA=$(cd "$ARRANQUE/app" 2> /dev/null && pwd || true)
+
+comando() {
+    case "$1" in
+        jvm)       echo "java $OPCIONES_JVM -jar $JAR" ;;
+        jvm-aot)   echo "java $OPCIONES_JVM -Dspring.aot.enabled=true -jar $JAR" ;;
+        jlink)     echo "$ARRANQUE/runtime/bin/java $OPCIONES_JVM -jar $APP_EXTRAIDA/application.jar" ;;
+        jlink-cds) echo "$ARRANQUE/runtime/bin/java $OPCIONES_JVM -XX:SharedArchiveFile=$APP_EXTRAIDA/application.jsa -jar $APP_EXTRAIDA/application.jar" ;;
+        nativo)    echo "$NATIVO" ;;
+    esac
+}
+
+disponible() {
+    case "$1" in
+        jvm|jvm-aot) [[ -n "$JAR" && -f "$JAR" ]] ;;
+        jlink)       [[ -x "$ARRANQUE/runtime/bin/java" && -f "$APP_EXTRAIDA/application.jar" ]] ;;
+        jlink-cds)   [[ -x "$ARRANQUE/runtime/bin/java" && -f "$APP_EXTRAIDA/application.jsa" ]] ;;
+        nativo)      [[ -x "$NATIVO" ]] ;;
+    esac
+}
+
+ahora_ms() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+rss_mb() {
+    awk '/^VmRSS:/ { printf "%.1f", $2 / 1024 }' "/proc/$1/status"
+}
+
+mediana() {
+    sort -n | awk '{ v[NR] = $1 } END { if (NR == 0) { print "-" } else if (NR % 2) { print v[(NR + 1) / 2] } else { printf "%.1f", (v[NR / 2] + v[NR / 2 + 1]) / 2 } }'
+}
+
+medir() {
+    local variante=$1 repeticion=$2
+    local log="$LOGS/$variante-$repeticion.log"
+    local inicio pid listo
+    inicio=$(ahora_ms)
+    # shellcheck disable=SC2046
+    $(comando "$variante") --server.port="$PUERTO" --spring.main.banner-mode=off > "$log" 2>&1 &
+    pid=$!
+    until curl -sf "http://localhost:$PUERTO/actuator/health" > /dev/null; do
+        if ! kill -0 "$pid" 2> /dev/null; then
+            echo "La variante $variante termino antes de arrancar, ver $log" >&2
+            exit 1
+        fi
+        sleep 0.05
+    done
+    listo=$(ahora_ms)
+    local rss spring rss_carga
+    rss=$(rss_mb "$pid")
+    spring=$(sed -n 's/.*Started BackApplication in \([0-9.]*\) seconds.*/\1/p' "$log" | awk '{ printf "%d", $1 * 1000 }')
+    for _ in $(seq "$PETICIONES"); do
+        curl -s -o /dev/null "http://localhost:$PUERTO/products/colores"
+    done
+    rss_carga=$(rss_mb "$pid")
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+    echo "$((listo - inicio)) $spring $rss $rss_carga"
+}
+
+printf "%-10s %12s %10s %8s %13s\n" variante arranque_ms spring_ms rss_mb rss_carga_mb
+for variante in $VARIANTES; do
+    if ! disponible "$variante"; then
+        printf "%-10s %s\n" "$variante" "(no se encontro el artefacto, se omite)"
+        continue
+    fi
+    resultados="$LOGS/$variante.txt"
+    : > "$resultados"
+    for repeticion in $(seq "$REPETICIONES"); do
+        medir "$variante" "$repeticion" >> "$resultados"
+    done
+    printf "%-10s %12s %10s %8s %13s\n" "$variante" \
+        "$(cut -d' ' -f1 "$resultados" | mediana)" \
+        "$(cut -d' ' -f2 "$resultados" | mediana)" \
+        "$(cut -d' ' -f3 "$resultados" | mediana)" \
+        "$(cut -d' ' -f4 "$resultados" | mediana)"
+done
@@ -0,0 +1,79 @@
+#!/bin/sh
+#
+# Prepara lo necesario para arrancar la aplicacion con un runtime reducido y AppCDS:
+#   capas    extrae el jar por capas de Spring Boot (dependencies, spring-boot-loader,
+#            snapshot-dependencies, application) en $DESTINO/capas y las junta en $APP
+#   runtime  arma con jlink un runtime con solo los modulos que usa la aplicacion (jdeps) en $RUNTIME
+#   cds      arranque de entrenamiento: levanta el contexto, sale (spring.context.exit=onRefresh) y
+#            vuelca las clases cargadas en $APP/application.jsa
+#
+# Sin argumentos hace los tres pasos. Lo usa el Dockerfile (capas y runtime al compilar, cds en la
+# imagen final) y sirve para medir lo mismo localmente con scripts/comparar-arranque.sh:
+#   mvn -DskipTests package && scripts/preparar-arranque.sh
+#
+# El archivo CDS solo vale para el mismo runtime y las mismas rutas de los jars: si cambia algo hay
+# que volver a entrenar. Si no coincide la JVM lo ignora y arranca normal (mas lento).
+#
+# Variables opcionales: JAR, DESTINO (target/arranque), APP ($DESTINO/app), RUNTIME ($DESTINO/runtime),
+# JAVA (java del entrenamiento, por defecto el de $RUNTIME), MODULOS_EXTRA.
+
+set -eu
+
+cd "$(dirname "$0")/.."
+
+JAR=${JAR:-$(ls target/mega_store-*.jar 2>/dev/null | grep -v original | head -1 || true)}
+DESTINO=${DESTINO:-target/arranque}
+APP=${APP:-$DESTINO/app}
+RUNTIME=${RUNTIME:-$DESTINO/runtime}
+# jdeps no ve los modulos que se cargan por ServiceLoader: las curvas elipticas del TLS con la bd y
+# jcmd para poder sacar un volcado JFR del contenedor
+MODULOS_EXTRA=${MODULOS_EXTRA:-jdk.crypto.ec,jdk.jcmd}
+
+capas() {
+    if [ -z "$JAR" ] || [ ! -f "$JAR" ]; then
+        echo "No se encontro el jar, ejecutar antes mvn -DskipTests package" >&2
+        exit 1
+    fi
+    rm -rf "$DESTINO/capas" "$APP"
+    java -Djarmode=tools -jar "$JAR" extract --layers \
+        --application-filename application.jar --destination "$DESTINO/capas"
+    mkdir -p "$APP"
+    for capa in dependencies spring-boot-loader snapshot-dependencies application; do
+        cp -R "$DESTINO/capas/$capa/." "$APP/"
+    done
+}
+
+runtime() {
+    modulos=$(jdeps --ignore-missing-deps -q --recursive --multi-release 21 --print-module-deps \
+        --class-path "$APP/lib/*" "$APP/application.jar")
+    rm -rf "$RUNTIME"
+    jlink --add-modules "$modulos,$MODULOS_EXTRA" \
+        --strip-debug --no-man-pages --no-header-files --compress=zip-6 \
+        --generate-cds-archive --output "$RUNTIME"
+    echo "Runtime en $RUNTIME con $modulos,$MODULOS_EXTRA"
+}
+
+cds() {
+    app=$(cd "$APP" && pwd)
+    # No necesita la bd: Hibernate no consulta los metadatos de la conexion y el pool no se abre
+    # hasta la primera consulta. Las propiedades van por linea de comando para que valgan tambien
+    # cuando el contenedor las recibe por variables de entorno.
+    "${JAVA:-$RUNTIME/bin/java}" -XX:ArchiveClassesAtExit="$app/application.jsa" -Xlog:cds=error \
+        -Dspring.context.exit=onRefresh -jar "$app/application.jar" \
+        --spring.main.banner-mode=off \
+        --spring.datasource.url=jdbc:postgresql://localhost:5432/entrenamiento \
+        --spring.jpa.properties.hibernate.boot.allow_jdbc_metadata_access=false \
+        --spring.jpa.properties.jakarta.persistence.database-product-name=PostgreSQL \
+        --spring.jpa.hibernate.ddl-auto=none
+    echo "Archivo CDS en $app/application.jsa"
+}
+
+if [ $# -eq 0 ]; then
+    set -- capas runtime cds
+fi
+for paso in "$@"; do
+    case "$paso" in
+        capas|runtime|cds) "$paso" ;;
+        *) echo "Paso desconocido: $paso (capas, runtime o cds)" >&2; exit 1 ;;
+    esac
+done
@@ -0,0 +1,51 @@
+package com.tpi_pais.mega_store.carga;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+ * Catalogo sobre el que se ejecutan las operaciones: rutas de sus endpoints y los ids conocidos
+ * (cargados al inicio y creados durante la prueba) para elegir registros al azar.
+ * */
+class Catalogo {
+
+    static final Catalogo[] TODOS = {
+            new Catalogo("color", "colores"),
+            new Catalogo("marca", "marcas"),
+            new Catalogo("talle", "talles"),
+            new Catalogo("categoria", "categorias"),
+            new Catalogo("sucursal", "sucursales"),
+    };
+
+    final String singular;
+    final String plural;
+
+    private int[] ids = new int[1024];
+    private int cantidad;
+
+    // Ultimo ETag recibido en el listado, para las peticiones con If-None-Match
+    volatile String etag;
+
+    Catalogo(String singular, String plural) {
+        this.singular = singular;
+        this.plural = plural;
+    }
+
+    synchronized void agregarId(int id) {
+        if (cantidad == ids.length) {
+            ids = Arrays.copyOf(ids, ids.length * 2);
+        }
+        ids[cantidad++] = id;
+    }
+
+    synchronized int idAleatorio() {
+        if (cantidad == 0) {
+            return 1;
+        }
+        return ids[ThreadLocalRandom.current().nextInt(cantidad)];
+    }
+
+    synchronized int cantidadIds() {
+        return cantidad;
+    }
+}
@@ -0,0 +1,29 @@
+package com.tpi_pais.mega_store.carga;
+
+/*
+ * Genera nombres validos (solo letras) y distintos entre hilos para las altas y modificaciones.
+ * Cada hilo usa su propia instancia.
+ * */
+class GeneradorNombres {
+
+    private final String prefijo;
+    private long contador;
+
+    GeneradorNombres(String prefijo) {
+        this.prefijo = prefijo;
+    }
+
+    String siguiente() {
+        return prefijo + " " + palabra(contador++);
+    }
+
+    // Convierte el numero en una palabra de letras: a, b, ..., z, ba, bb, ...
+    static String palabra(long numero) {
+        StringBuilder sb = new StringBuilder();
+        do {
+            sb.append((char) ('a' + numero % 26));
+            numero /= 26;
+        } while (numero > 0);
+        return sb.reverse().toString();
+    }
+}
@@ -0,0 +1,143 @@
+package com.tpi_pais.mega_store.carga;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.StringJoiner;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+ * Operaciones de la mezcla, una por endpoint de los controladores Get/Post/Put/Delete de cada
+ * catalogo. peso es la frecuencia relativa dentro de las lecturas o de las escrituras.
+ * */
+enum Operacion {
+    LISTAR(false, 30) {
+        HttpRequest.Builder peticion(String base, Catalogo catalogo, GeneradorNombres nombres) {
+            return HttpRequest.newBuilder(URI.create(base + "/products/" + catalogo.plural)).GET();
+        }
+    },
+    LISTAR_GZIP(false, 10) {
+        HttpRequest.Builder peticion(String base, Catalogo catalogo, GeneradorNombres nombres) {
+            return LISTAR.peticion(base, catalogo, nombres).header("Accept-Encoding", "gzip");
+        }
+    },
+    LISTAR_ETAG(false, 20) {
+        HttpRequest.Builder peticion(String base, Catalogo catalogo, GeneradorNombres nombres) {
+            HttpRequest.Builder builder = LISTAR.peticion(base, catalogo, nombres);
+            String etag = catalogo.etag;
+            return etag != null ? builder.header("If-None-Match", etag) : builder;
+        }
+    },
+    PAGINA(false, 10) {
+        HttpRequest.Builder peticion(String base, Catalogo catalogo, GeneradorNombres nombres) {
+            return HttpRequest.newBuilder(URI.create(base + "/products/" + catalogo.plural
+                    + "?limit=50&after=" + catalogo.idAleatorio())).GET();
+        }
+    },
+    BUSCAR_POR_ID(false, 28) {
+        HttpRequest.Builder peticion(String base, Catalogo catalogo, GeneradorNombres nombres) {
+            return HttpRequest.newBuilder(URI.create(base + "/products/" + catalogo.singular + "/"
+                    + catalogo.idAleatorio())).GET();
+        }
+    },
+    EXPORTAR(false, 2) {
+        HttpRequest.Builder peticion(String base, Catalogo catalogo, GeneradorNombres nombres) {
+            return HttpRequest.newBuilder(URI.create(base + "/products/" + catalogo.plural + "/export")).GET();
+        }
+    },
+    CREAR(true, 25) {
+        HttpRequest.Builder peticion(String base, Catalogo catalogo, GeneradorNombres nombres) {
+            return json(base + "/products/" + catalogo.singular)
+                    .POST(cuerpo("{\"nombre\":\"" + nombres.siguiente() + "\"}"));
+        }
+    },
+    CREAR_LOTE(true, 5) {
+        HttpRequest.Builder peticion(String base, Catalogo catalogo, GeneradorNombres nombres) {
+            StringJoiner lote = new StringJoiner(",", "[", "]");
+            for (int i = 0; i < TAMANO_LOTE; i++) {
+                lote.add("{\"nombre\":\"" + nombres.siguiente() + "\"}");
+            }
+            return json(base + "/products/" + catalogo.plural + "/batch").POST(cuerpo(lote.toString()));
+        }
+    },
+    ACTUALIZAR(true, 25) {
+        HttpRequest.Builder peticion(String base, Catalogo catalogo, GeneradorNombres nombres) {
+            String cuerpo = "{\"id\":" + catalogo.idAleatorio() + ",\"nombre\":\"" + nombres.siguiente() + "\"}";
+            return json(base + "/products/" + catalogo.singular).PUT(cuerpo(cuerpo));
+        }
+    },
+    ELIMINAR(true, 15) {
+        HttpRequest.Builder peticion(String base, Catalogo catalogo, GeneradorNombres nombres) {
+            return HttpRequest.newBuilder(URI.create(base + "/products/" + catalogo.singular + "/"
+                    + catalogo.idAleatorio())).DELETE();
+        }
+    },
+    RECUPERAR(true, 20) {
+        HttpRequest.Builder peticion(String base, Catalogo catalogo, GeneradorNombres nombres) {
+            return HttpRequest.newBuilder(URI.create(base + "/products/" + catalogo.singular + "/recuperar/"
+                    + catalogo.idAleatorio())).PUT(HttpRequest.BodyPublishers.noBody());
+        }
+    },
+    ELIMINAR_LOTE(true, 5) {
+        HttpRequest.Builder peticion(String base, Catalogo catalogo, GeneradorNombres nombres) {
+            return json(base + "/products/" + catalogo.plural + "/eliminar").PUT(cuerpo(idsAleatorios(catalogo)));
+        }
+    },
+    RECUPERAR_LOTE(true, 5) {
+        HttpRequest.Builder peticion(String base, Catalogo catalogo, GeneradorNombres nombres) {
+            return json(base + "/products/" + catalogo.plural + "/recuperar").PUT(cuerpo(idsAleatorios(catalogo)));
+        }
+    };
+
+    static final int TAMANO_LOTE = 20;
+
+    final boolean escritura;
+    final int peso;
+
+    Operacion(boolean escritura, int peso) {
+        this.escritura = escritura;
+        this.peso = peso;
+    }
+
+    abstract HttpRequest.Builder peticion(String base, Catalogo catalogo, GeneradorNombres nombres);
+
+    /*
+     * Elige una operacion al azar respetando los pesos. porcentajeEscrituras indica que porcentaje
+     * de las operaciones son escrituras.
+     * */
+    static Operacion elegir(int porcentajeEscrituras) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        boolean escritura = random.nextInt(100) < porcentajeEscrituras;
+        int total = 0;
+        for (Operacion operacion : values()) {
+            if (operacion.escritura == escritura) {
+                total += operacion.peso;
+            }
+        }
+        int valor = random.nextInt(total);
+        for (Operacion operacion : values()) {
+            if (operacion.escritura == escritura) {
+                valor -= operacion.peso;
+                if (valor < 0) {
+                    return operacion;
+                }
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private static HttpRequest.Builder json(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).header("Content-Type", "application/json");
+    }
+
+    private static HttpRequest.BodyPublisher cuerpo(String json) {
+        return HttpRequest.BodyPublishers.ofString(json);
+    }
+
+    private static String idsAleatorios(Catalogo catalogo) {
+        StringJoiner ids = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < TAMANO_LOTE; i++) {
+            ids.add(String.valueOf(catalogo.idAleatorio()));
+        }
+        return ids.toString();
+    }
+}
@@ -0,0 +1,197 @@
+package com.tpi_pais.mega_store.carga;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tpi_pais.mega_store.BackApplication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Prueba de carga de la api /products.
+ * 1) Levanta un Postgres embebido y BackApplication en un puerto libre (o usa carga.url si se indica).
+ * 2) Carga carga.registros registros en cada catalogo con los endpoints /batch.
+ * 3) carga.hilos hilos ejecutan operaciones al azar (ver Operacion) durante carga.calentamiento
+ *    segundos sin medir y luego carga.duracion segundos midiendo. carga.escrituras es el porcentaje
+ *    de escrituras de la mezcla.
+ * 4) Informa cantidad, throughput y percentiles de latencia por operacion y guarda la distribucion
+ *    completa de cada una en carga.resultados.
+ * Cada hilo espera la respuesta antes de enviar la siguiente peticion (modelo cerrado), por lo que
+ * los percentiles no incluyen el tiempo que una peticion habria esperado para salir.
+ * */
+public class PruebaCarga {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final int LOTE_CARGA = 1000;
+
+    private final HttpClient cliente = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final Resultados resultados = new Resultados();
+    private final String base;
+    private final int porcentajeEscrituras;
+
+    private volatile boolean detener;
+
+    PruebaCarga(String base, int porcentajeEscrituras) {
+        this.base = base;
+        this.porcentajeEscrituras = porcentajeEscrituras;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int registros = Integer.getInteger("carga.registros", 1000);
+        int hilos = Integer.getInteger("carga.hilos", 16);
+        int calentamiento = Integer.getInteger("carga.calentamiento", 10);
+        int duracion = Integer.getInteger("carga.duracion", 60);
+        int escrituras = Integer.getInteger("carga.escrituras", 20);
+        String url = System.getProperty("carga.url", "");
+        Path directorioResultados = Path.of(System.getProperty("carga.resultados", "target/carga"));
+
+        EmbeddedPostgres postgres = null;
+        ConfigurableApplicationContext contexto = null;
+        try {
+            if (url.isBlank()) {
+                postgres = EmbeddedPostgres.builder().start();
+                contexto = iniciarAplicacion(postgres);
+                url = "http://localhost:" + contexto.getEnvironment().getProperty("local.server.port");
+            }
+            PruebaCarga prueba = new PruebaCarga(url, escrituras);
+            System.out.printf("Cargando %d registros por catalogo en %s%n", registros, url);
+            prueba.cargarCatalogos(registros);
+            System.out.printf("%d hilos, %d%% escrituras, %ds de calentamiento y %ds de medicion%n",
+                    hilos, escrituras, calentamiento, duracion);
+            prueba.ejecutar(hilos, calentamiento, duracion);
+            prueba.resultados.informar(System.out, duracion);
+            prueba.resultados.guardar(directorioResultados);
+            System.out.println("Distribuciones guardadas en " + directorioResultados.toAbsolutePath());
+        } finally {
+            if (contexto != null) {
+                contexto.close();
+            }
+            if (postgres != null) {
+                postgres.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext iniciarAplicacion(EmbeddedPostgres postgres) {
+        return new SpringApplicationBuilder(BackApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                        "spring.datasource.username=postgres",
+                        "spring.datasource.password=postgres",
+                        "spring.jpa.hibernate.ddl-auto=create",
+                        "spring.jpa.open-in-view=false",
+                        "logging.level.root=WARN",
+                        "logging.level.org.hibernate.engine.jdbc.spi.SqlExceptionHelper=ERROR")
+                .run();
+    }
+
+    private void cargarCatalogos(int registros) throws IOException, InterruptedException {
+        GeneradorNombres nombres = new GeneradorNombres("Inicial");
+        for (Catalogo catalogo : Catalogo.TODOS) {
+            for (int desde = 0; desde < registros; desde += LOTE_CARGA) {
+                StringJoiner lote = new StringJoiner(",", "[", "]");
+                for (int i = desde; i < Math.min(registros, desde + LOTE_CARGA); i++) {
+                    lote.add("{\"nombre\":\"" + nombres.siguiente() + "\"}");
+                }
+                HttpRequest peticion = HttpRequest.newBuilder(URI.create(base + "/products/" + catalogo.plural + "/batch"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(lote.toString()))
+                        .build();
+                HttpResponse<byte[]> respuesta = cliente.send(peticion, HttpResponse.BodyHandlers.ofByteArray());
+                if (respuesta.statusCode() != 200) {
+                    throw new IllegalStateException("No se pudo cargar " + catalogo.plural + ": "
+                            + new String(respuesta.body()));
+                }
+                registrarIdsCreados(catalogo, respuesta.body());
+            }
+        }
+    }
+
+    private void ejecutar(int hilos, int calentamiento, int duracion) throws InterruptedException {
+        List<Thread> trabajadores = new ArrayList<>();
+        for (int i = 0; i < hilos; i++) {
+            GeneradorNombres nombres = new GeneradorNombres("Carga " + GeneradorNombres.palabra(i));
+            Thread hilo = new Thread(() -> trabajar(nombres), "carga-" + i);
+            hilo.start();
+            trabajadores.add(hilo);
+        }
+        TimeUnit.SECONDS.sleep(calentamiento);
+        resultados.reiniciar();
+        TimeUnit.SECONDS.sleep(duracion);
+        detener = true;
+        for (Thread hilo : trabajadores) {
+            hilo.join();
+        }
+    }
+
+    private void trabajar(GeneradorNombres nombres) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (!detener) {
+            Catalogo catalogo = Catalogo.TODOS[random.nextInt(Catalogo.TODOS.length)];
+            Operacion operacion = Operacion.elegir(porcentajeEscrituras);
+            HttpRequest peticion = operacion.peticion(base, catalogo, nombres)
+                    .timeout(Duration.ofSeconds(30))
+                    .build();
+            long inicio = System.nanoTime();
+            try {
+                HttpResponse<byte[]> respuesta = cliente.send(peticion, HttpResponse.BodyHandlers.ofByteArray());
+                resultados.registrar(operacion, inicio, respuesta.statusCode());
+                procesarRespuesta(operacion, catalogo, respuesta);
+            } catch (IOException e) {
+                resultados.registrar(operacion, inicio, -1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void procesarRespuesta(Operacion operacion, Catalogo catalogo, HttpResponse<byte[]> respuesta)
+            throws IOException {
+        if (respuesta.statusCode() != 200) {
+            return;
+        }
+        switch (operacion) {
+            case LISTAR:
+                respuesta.headers().firstValue("ETag").ifPresent(etag -> catalogo.etag = etag);
+                break;
+            case CREAR:
+            case CREAR_LOTE:
+                registrarIdsCreados(catalogo, respuesta.body());
+                break;
+            default:
+                break;
+        }
+    }
+
+    // Agrega a catalogo los ids de la respuesta de un alta individual o por lotes
+    private static void registrarIdsCreados(Catalogo catalogo, byte[] cuerpo) throws IOException {
+        JsonNode datos = OBJECT_MAPPER.readTree(cuerpo).path("data");
+        if (datos.isArray()) {
+            for (JsonNode item : datos) {
+                if ("CREADO".equals(item.path("estado").asText())) {
+                    catalogo.agregarId(item.path("id").asInt());
+                }
+            }
+        } else if (datos.hasNonNull("id")) {
+            catalogo.agregarId(datos.path("id").asInt());
+        }
+    }
+}
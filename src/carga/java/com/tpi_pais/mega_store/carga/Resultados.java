@@ -0,0 +1,101 @@
+package com.tpi_pais.mega_store.carga;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Latencias (en microsegundos) y contadores por operacion.
+ * rechazadas son las respuestas 4xx de la api (por ejemplo eliminar un registro ya eliminado,
+ * algo esperable con ids elegidos al azar) y errores son las respuestas 5xx o fallas de conexion.
+ * */
+class Resultados {
+
+    private static final long LATENCIA_MAXIMA = TimeUnit.MINUTES.toMicros(1);
+
+    private final Map<Operacion, Histogram> latencias = new EnumMap<>(Operacion.class);
+    private final Map<Operacion, LongAdder> rechazadas = new EnumMap<>(Operacion.class);
+    private final Map<Operacion, LongAdder> errores = new EnumMap<>(Operacion.class);
+
+    Resultados() {
+        for (Operacion operacion : Operacion.values()) {
+            latencias.put(operacion, new ConcurrentHistogram(LATENCIA_MAXIMA, 3));
+            rechazadas.put(operacion, new LongAdder());
+            errores.put(operacion, new LongAdder());
+        }
+    }
+
+    void registrar(Operacion operacion, long inicioNanos, int status) {
+        long micros = Math.min(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - inicioNanos), LATENCIA_MAXIMA);
+        latencias.get(operacion).recordValue(micros);
+        if (status >= 500 || status < 0) {
+            errores.get(operacion).increment();
+        } else if (status >= 400) {
+            rechazadas.get(operacion).increment();
+        }
+    }
+
+    // Descarta lo medido durante el calentamiento
+    void reiniciar() {
+        for (Operacion operacion : Operacion.values()) {
+            latencias.get(operacion).reset();
+            rechazadas.get(operacion).reset();
+            errores.get(operacion).reset();
+        }
+    }
+
+    void informar(PrintStream salida, double segundos) {
+        salida.printf("%-16s %10s %10s %10s %10s %10s %10s %10s %10s%n",
+                "operacion", "cantidad", "ops/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "rechazos", "errores");
+        Histogram total = new Histogram(LATENCIA_MAXIMA, 3);
+        long totalRechazadas = 0;
+        long totalErrores = 0;
+        for (Operacion operacion : Operacion.values()) {
+            Histogram histograma = latencias.get(operacion);
+            if (histograma.getTotalCount() == 0) {
+                continue;
+            }
+            total.add(histograma);
+            totalRechazadas += rechazadas.get(operacion).sum();
+            totalErrores += errores.get(operacion).sum();
+            imprimir(salida, operacion.name(), histograma, rechazadas.get(operacion).sum(),
+                    errores.get(operacion).sum(), segundos);
+        }
+        imprimir(salida, "TOTAL", total, totalRechazadas, totalErrores, segundos);
+    }
+
+    private static void imprimir(PrintStream salida, String nombre, Histogram histograma, long rechazadas,
+                                 long errores, double segundos) {
+        salida.printf("%-16s %10d %10.1f %10.2f %10.2f %10.2f %10.2f %10d %10d%n",
+                nombre,
+                histograma.getTotalCount(),
+                histograma.getTotalCount() / segundos,
+                histograma.getValueAtPercentile(50) / 1000.0,
+                histograma.getValueAtPercentile(99) / 1000.0,
+                histograma.getValueAtPercentile(99.9) / 1000.0,
+                histograma.getMaxValue() / 1000.0,
+                rechazadas,
+                errores);
+    }
+
+    // Distribucion completa de cada operacion en formato .hgrm (se puede graficar con HdrHistogram plotter)
+    void guardar(Path directorio) throws FileNotFoundException {
+        directorio.toFile().mkdirs();
+        for (Operacion operacion : Operacion.values()) {
+            Histogram histograma = latencias.get(operacion);
+            if (histograma.getTotalCount() == 0) {
+                continue;
+            }
+            try (PrintStream salida = new PrintStream(directorio.resolve(operacion.name() + ".hgrm").toFile())) {
+                histograma.outputPercentileDistribution(salida, 1000.0);
+            }
+        }
+    }
+}
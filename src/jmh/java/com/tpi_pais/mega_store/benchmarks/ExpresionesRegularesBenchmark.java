@@ -0,0 +1,106 @@
+package com.tpi_pais.mega_store.benchmarks;
+
+import com.tpi_pais.mega_store.utils.ExpresionesRegulares;
+import com.tpi_pais.mega_store.utils.NormalizadorNombre;
+import com.tpi_pais.mega_store.utils.StringUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Validaciones y correcciones de nombres. Cada operacion recorre toda la muestra de Nombres,
+ * por lo que el tiempo informado es el de Nombres.MUESTRA.length llamadas.
+ * */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ExpresionesRegularesBenchmark {
+
+    private final ExpresionesRegulares expReg = new ExpresionesRegulares();
+    private final StringUtils stringUtils = new StringUtils();
+    private final String[] nombres = Nombres.MUESTRA;
+    private final String[] numeros = {"1", "42", "1234567890", "12a", ""};
+
+    @Benchmark
+    public void verificarNumeros(Blackhole bh) {
+        for (String numero : numeros) {
+            bh.consume(expReg.verificarNumeros(numero));
+        }
+    }
+
+    @Benchmark
+    public void verificarTexto(Blackhole bh) {
+        for (String nombre : nombres) {
+            bh.consume(expReg.verificarTexto(nombre));
+        }
+    }
+
+    @Benchmark
+    public void verificarTextoAlfanumerico(Blackhole bh) {
+        for (String nombre : nombres) {
+            bh.consume(expReg.verificarTextoAlfanumerico(nombre));
+        }
+    }
+
+    @Benchmark
+    public void verificarCaracteres(Blackhole bh) {
+        for (String nombre : nombres) {
+            bh.consume(expReg.verificarCaracteres(nombre));
+        }
+    }
+
+    @Benchmark
+    public void verificarTextoConEspacios(Blackhole bh) {
+        for (String nombre : nombres) {
+            bh.consume(expReg.verificarTextoConEspacios(nombre));
+        }
+    }
+
+    @Benchmark
+    public void corregirCadena(Blackhole bh) {
+        for (String nombre : nombres) {
+            bh.consume(expReg.corregirCadena(nombre));
+        }
+    }
+
+    @Benchmark
+    public void limpiarEspacios(Blackhole bh) {
+        for (String nombre : nombres) {
+            bh.consume(ExpresionesRegulares.limpiarEspacios(nombre));
+        }
+    }
+
+    @Benchmark
+    public void capitalizeWords(Blackhole bh) {
+        for (String nombre : nombres) {
+            bh.consume(stringUtils.capitalizeWords(nombre));
+        }
+    }
+
+    // Secuencia completa que hacian los controladores antes de NormalizadorNombre
+    @Benchmark
+    public void secuenciaOriginal(Blackhole bh) {
+        for (String nombre : nombres) {
+            if (!expReg.verificarCaracteres(nombre)) {
+                bh.consume(false);
+                continue;
+            }
+            String corregido = nombre;
+            if (!expReg.verificarTextoConEspacios(corregido)) {
+                corregido = expReg.corregirCadena(corregido);
+            }
+            bh.consume(stringUtils.capitalizeWords(corregido));
+        }
+    }
+
+    @Benchmark
+    public void normalizadorNombre(Blackhole bh) {
+        for (String nombre : nombres) {
+            bh.consume(NormalizadorNombre.normalizar(nombre));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.tpi_pais.mega_store.benchmarks;
+
+import com.tpi_pais.mega_store.utils.facetas.IndiceFacetas;
+import com.tpi_pais.mega_store.utils.facetas.ResultadoFacetas;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/*
+ * Filtros del indice de facetas de productos, sin bd: se cargan productos registros con valores al
+ * azar (200 marcas, 50 categorias, 30 colores, 10 talles) y el 5% eliminados. Los ids van de paso en
+ * paso: con 1 (por defecto) quedan como los de la secuencia de productos. Con -p paso=50 quedan como
+ * los de las bd que todavia tienen la secuencia de a 50 (ver db/productos.sql); con 5000000
+ * productos el indice ya no entra en -Xmx2g.
+ * Cada filtro devuelve la primera pagina de 50 ids, el total y los conteos de las cuatro facetas.
+ * */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@State(Scope.Benchmark)
+public class FacetasBenchmark {
+
+    private static final int[] CANTIDAD_VALORES = {200, 50, 30, 10};
+    private static final int PAGINA = 50;
+
+    @Param({"1000000", "5000000"})
+    private int productos;
+
+    @Param({"1"})
+    private int paso;
+
+    private IndiceFacetas indice;
+    private SplittableRandom azar;
+    // Cada modificacion registra una version nueva, como las escrituras de ProductoService
+    private int version;
+
+    @Setup
+    public void preparar() {
+        azar = new SplittableRandom(42);
+        indice = new IndiceFacetas("marca", "categoria", "color", "talle");
+        indice.cargar(() -> IntStream.range(0, productos).mapToObj(i -> 1 + i * paso), id -> id, id -> 0,
+                id -> valoresAlAzar(), id -> azar.nextInt(100) < 5);
+    }
+
+    private int[] valoresAlAzar() {
+        int[] valores = new int[CANTIDAD_VALORES.length];
+        for (int f = 0; f < valores.length; f++) {
+            valores[f] = 1 + azar.nextInt(CANTIDAD_VALORES[f]);
+        }
+        return valores;
+    }
+
+    // Todos los productos activos: los conteos salen de los contadores del indice
+    @Benchmark
+    public ResultadoFacetas sinFiltro() {
+        return indice.filtrar(new int[4][], 0, PAGINA);
+    }
+
+    // marca en {1, 2}
+    @Benchmark
+    public ResultadoFacetas unaFaceta() {
+        return indice.filtrar(new int[][]{{1, 2}, null, null, null}, 0, PAGINA);
+    }
+
+    // marca en {1, 2}, color 3 y talle 4
+    @Benchmark
+    public ResultadoFacetas tresFacetas() {
+        return indice.filtrar(new int[][]{{1, 2}, null, {3}, {4}}, 0, PAGINA);
+    }
+
+    // Una categoria y cinco talles: pocas facetas seleccionadas pero muchos resultados
+    @Benchmark
+    public ResultadoFacetas filtroAmplio() {
+        return indice.filtrar(new int[][]{null, {7}, null, {1, 2, 3, 4, 5}}, 0, PAGINA);
+    }
+
+    // Modificacion de un producto existente (cambia de marca y de estado)
+    @Benchmark
+    public void registrar() {
+        int id = 1 + azar.nextInt(productos) * paso;
+        indice.registrar(id, ++version, valoresAlAzar(), azar.nextInt(100) < 5);
+    }
+}
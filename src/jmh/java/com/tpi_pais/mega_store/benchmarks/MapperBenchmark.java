@@ -0,0 +1,112 @@
+package com.tpi_pais.mega_store.benchmarks;
+
+import com.tpi_pais.mega_store.products.dto.*;
+import com.tpi_pais.mega_store.products.mapper.*;
+import com.tpi_pais.mega_store.products.model.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Conversiones entidad <-> DTO de los cinco catalogos.
+ * */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MapperBenchmark {
+
+    private Color color;
+    private ColorDTO colorDTO;
+    private Marca marca;
+    private MarcaDTO marcaDTO;
+    private Talle talle;
+    private TalleDTO talleDTO;
+    private Categoria categoria;
+    private CategoriaDTO categoriaDTO;
+    private Sucursal sucursal;
+    private SucursalDTO sucursalDTO;
+
+    @Setup
+    public void preparar() {
+        LocalDateTime fecha = LocalDateTime.of(2024, 10, 1, 12, 30);
+        color = new Color();
+        color.setId(1);
+        color.setNombre("Rojo Oscuro");
+        color.setFechaEliminacion(fecha);
+        colorDTO = ColorMapper.toDTO(color);
+        marca = new Marca();
+        marca.setId(1);
+        marca.setNombre("Marca Nacional");
+        marca.setFechaEliminacion(fecha);
+        marcaDTO = MarcaMapper.toDTO(marca);
+        talle = new Talle();
+        talle.setId(1);
+        talle.setNombre("Xl");
+        talle.setFechaEliminacion(fecha);
+        talleDTO = TalleMapper.toDTO(talle);
+        categoria = new Categoria();
+        categoria.setId(1);
+        categoria.setNombre("Camisetas");
+        categoria.setFechaEliminacion(fecha);
+        categoriaDTO = CategoriaMapper.toDTO(categoria);
+        sucursal = new Sucursal();
+        sucursal.setId(1);
+        sucursal.setNombre("Sucursal Centro");
+        sucursal.setFechaEliminacion(fecha);
+        sucursalDTO = SucursalMapper.toDTO(sucursal);
+    }
+
+    @Benchmark
+    public ColorDTO colorToDTO() {
+        return ColorMapper.toDTO(color);
+    }
+
+    @Benchmark
+    public Color colorToEntity() {
+        return ColorMapper.toEntity(colorDTO);
+    }
+
+    @Benchmark
+    public MarcaDTO marcaToDTO() {
+        return MarcaMapper.toDTO(marca);
+    }
+
+    @Benchmark
+    public Marca marcaToEntity() {
+        return MarcaMapper.toEntity(marcaDTO);
+    }
+
+    @Benchmark
+    public TalleDTO talleToDTO() {
+        return TalleMapper.toDTO(talle);
+    }
+
+    @Benchmark
+    public Talle talleToEntity() {
+        return TalleMapper.toEntity(talleDTO);
+    }
+
+    @Benchmark
+    public CategoriaDTO categoriaToDTO() {
+        return CategoriaMapper.toDTO(categoria);
+    }
+
+    @Benchmark
+    public Categoria categoriaToEntity() {
+        return CategoriaMapper.toEntity(categoriaDTO);
+    }
+
+    @Benchmark
+    public SucursalDTO sucursalToDTO() {
+        return SucursalMapper.toDTO(sucursal);
+    }
+
+    @Benchmark
+    public Sucursal sucursalToEntity() {
+        return SucursalMapper.toEntity(sucursalDTO);
+    }
+}
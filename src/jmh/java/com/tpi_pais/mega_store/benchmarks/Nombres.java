@@ -0,0 +1,54 @@
+package com.tpi_pais.mega_store.benchmarks;
+
+import java.util.Random;
+
+/*
+ * Nombres de ejemplo para los benchmarks, parecidos a los que llegan en las peticiones:
+ * nombres ya normalizados, en minuscula, con espacios de mas, empezando con espacio,
+ * con numeros y con caracteres no permitidos.
+ * */
+final class Nombres {
+
+    static final String[] MUESTRA = {
+            "Rojo",
+            "rojo oscuro",
+            "AZUL   MARINO",
+            " verde  agua ",
+            "Talle 42",
+            " 2 negro",
+            "Camisetas de algodón",
+            "Sucursal Córdoba Centro",
+            "zapatillas-running",
+            "  ",
+    };
+
+    private Nombres() {
+    }
+
+    static String[] generar(int cantidad, String prefijo) {
+        String[] nombres = new String[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            nombres[i] = prefijo + " " + palabra(i);
+        }
+        return nombres;
+    }
+
+    // Convierte el numero en una palabra de letras (a, b, ..., z, ba, bb, ...) para que el nombre sea valido
+    static String palabra(int numero) {
+        StringBuilder sb = new StringBuilder();
+        do {
+            sb.append((char) ('a' + numero % 26));
+            numero /= 26;
+        } while (numero > 0);
+        return sb.reverse().toString();
+    }
+
+    static int[] indicesAleatorios(int cantidad, int limite, long semilla) {
+        Random random = new Random(semilla);
+        int[] indices = new int[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            indices[i] = random.nextInt(limite);
+        }
+        return indices;
+    }
+}
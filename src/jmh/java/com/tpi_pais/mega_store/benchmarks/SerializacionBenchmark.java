@@ -0,0 +1,95 @@
+package com.tpi_pais.mega_store.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tpi_pais.mega_store.products.dto.*;
+import com.tpi_pais.mega_store.utils.ApiResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Serializacion con Jackson de la respuesta de los listados (ApiResponse<List<XDTO>>), con el
+ * mismo ObjectMapper que arma Spring Boot. tamano es la cantidad de registros del catalogo.
+ * */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializacionBenchmark {
+
+    @Param({"color", "marca", "talle", "categoria", "sucursal"})
+    public String catalogo;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int tamano;
+
+    private ObjectMapper objectMapper;
+    private ApiResponse<List<?>> respuesta;
+
+    @Setup
+    public void preparar() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        List<Object> datos = new ArrayList<>(tamano);
+        String[] nombres = Nombres.generar(tamano, catalogo);
+        for (int i = 0; i < tamano; i++) {
+            // Uno de cada diez registros eliminado, para que tambien se serialicen fechas
+            LocalDateTime fecha = i % 10 == 0 ? LocalDateTime.of(2024, 10, 1, 12, 30) : null;
+            datos.add(crearDTO(i + 1, nombres[i], fecha));
+        }
+        respuesta = new ApiResponse<>(200, "OK", datos, null);
+    }
+
+    private Object crearDTO(Integer id, String nombre, LocalDateTime fechaEliminacion) {
+        switch (catalogo) {
+            case "color": {
+                ColorDTO dto = new ColorDTO();
+                dto.setId(id);
+                dto.setNombre(nombre);
+                dto.setFechaEliminacion(fechaEliminacion);
+                return dto;
+            }
+            case "marca": {
+                MarcaDTO dto = new MarcaDTO();
+                dto.setId(id);
+                dto.setNombre(nombre);
+                dto.setFechaEliminacion(fechaEliminacion);
+                return dto;
+            }
+            case "talle": {
+                TalleDTO dto = new TalleDTO();
+                dto.setId(id);
+                dto.setNombre(nombre);
+                dto.setFechaEliminacion(fechaEliminacion);
+                return dto;
+            }
+            case "categoria": {
+                CategoriaDTO dto = new CategoriaDTO();
+                dto.setId(id);
+                dto.setNombre(nombre);
+                dto.setFechaEliminacion(fechaEliminacion);
+                return dto;
+            }
+            case "sucursal": {
+                SucursalDTO dto = new SucursalDTO();
+                dto.setId(id);
+                dto.setNombre(nombre);
+                dto.setFechaEliminacion(fechaEliminacion);
+                return dto;
+            }
+            default:
+                throw new IllegalArgumentException("Catalogo desconocido: " + catalogo);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializar() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(respuesta);
+    }
+}
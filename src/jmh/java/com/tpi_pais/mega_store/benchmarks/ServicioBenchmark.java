@@ -0,0 +1,187 @@
+package com.tpi_pais.mega_store.benchmarks;
+
+import com.tpi_pais.mega_store.BackApplication;
+import com.tpi_pais.mega_store.products.dto.*;
+import com.tpi_pais.mega_store.products.service.*;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/*
+ * listar, buscarPorId y buscarPorNombre de los servicios de catalogos contra un Postgres embebido
+ * (no hace falta el application.yml ni una bd instalada). Antes de medir se cargan tamano registros
+ * en el catalogo con guardarLote.
+ * */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServicioBenchmark {
+
+    private static final int CONSULTAS = 1024;
+
+    @Param({"color", "marca", "talle", "categoria", "sucursal"})
+    public String catalogo;
+
+    @Param({"100", "1000"})
+    public int tamano;
+
+    private EmbeddedPostgres postgres;
+    private ConfigurableApplicationContext contexto;
+
+    private Supplier<List<?>> listar;
+    private IntFunction<Object> buscarPorId;
+    private Function<String, Object> buscarPorNombre;
+
+    private final List<Integer> ids = new ArrayList<>();
+    private String[] nombres;
+    private int[] indices;
+    private int siguiente;
+
+    @Setup(Level.Trial)
+    public void iniciar() throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        contexto = new SpringApplicationBuilder(BackApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                        "spring.datasource.username=postgres",
+                        "spring.datasource.password=postgres",
+                        "spring.jpa.hibernate.ddl-auto=create",
+                        "spring.jpa.open-in-view=false",
+                        "logging.level.root=WARN",
+                        "logging.level.org.hibernate.engine.jdbc.spi.SqlExceptionHelper=ERROR")
+                .run();
+        nombres = Nombres.generar(tamano, catalogo);
+        prepararCatalogo();
+        indices = Nombres.indicesAleatorios(CONSULTAS, tamano, 42L);
+    }
+
+    @TearDown(Level.Trial)
+    public void detener() throws IOException {
+        contexto.close();
+        postgres.close();
+    }
+
+    private void prepararCatalogo() {
+        switch (catalogo) {
+            case "color": {
+                IColorService servicio = contexto.getBean(IColorService.class);
+                List<ColorDTO> lote = new ArrayList<>();
+                for (String nombre : nombres) {
+                    ColorDTO dto = new ColorDTO();
+                    dto.setNombre(nombre);
+                    lote.add(dto);
+                }
+                registrarIds(servicio.guardarLote(lote));
+                listar = servicio::listar;
+                buscarPorId = servicio::buscarPorId;
+                buscarPorNombre = servicio::buscarPorNombre;
+                break;
+            }
+            case "marca": {
+                IMarcaService servicio = contexto.getBean(IMarcaService.class);
+                List<MarcaDTO> lote = new ArrayList<>();
+                for (String nombre : nombres) {
+                    MarcaDTO dto = new MarcaDTO();
+                    dto.setNombre(nombre);
+                    lote.add(dto);
+                }
+                registrarIds(servicio.guardarLote(lote));
+                listar = servicio::listar;
+                buscarPorId = servicio::buscarPorId;
+                buscarPorNombre = servicio::buscarPorNombre;
+                break;
+            }
+            case "talle": {
+                ITalleService servicio = contexto.getBean(ITalleService.class);
+                List<TalleDTO> lote = new ArrayList<>();
+                for (String nombre : nombres) {
+                    TalleDTO dto = new TalleDTO();
+                    dto.setNombre(nombre);
+                    lote.add(dto);
+                }
+                registrarIds(servicio.guardarLote(lote));
+                listar = servicio::listar;
+                buscarPorId = servicio::buscarPorId;
+                buscarPorNombre = servicio::buscarPorNombre;
+                break;
+            }
+            case "categoria": {
+                ICategoriaService servicio = contexto.getBean(ICategoriaService.class);
+                List<CategoriaDTO> lote = new ArrayList<>();
+                for (String nombre : nombres) {
+                    CategoriaDTO dto = new CategoriaDTO();
+                    dto.setNombre(nombre);
+                    lote.add(dto);
+                }
+                registrarIds(servicio.guardarLote(lote));
+                listar = servicio::listar;
+                buscarPorId = servicio::buscarPorId;
+                buscarPorNombre = servicio::buscarPorNombre;
+                break;
+            }
+            case "sucursal": {
+                ISucursalService servicio = contexto.getBean(ISucursalService.class);
+                List<SucursalDTO> lote = new ArrayList<>();
+                for (String nombre : nombres) {
+                    SucursalDTO dto = new SucursalDTO();
+                    dto.setNombre(nombre);
+                    lote.add(dto);
+                }
+                registrarIds(servicio.guardarLote(lote));
+                listar = servicio::listar;
+                buscarPorId = servicio::buscarPorId;
+                buscarPorNombre = servicio::buscarPorNombre;
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Catalogo desconocido: " + catalogo);
+        }
+    }
+
+    private void registrarIds(List<ResultadoItemDTO> resultados) {
+        for (ResultadoItemDTO resultado : resultados) {
+            if (resultado.getEstado() != ResultadoItemDTO.Estado.CREADO) {
+                throw new IllegalStateException("No se pudo cargar el catalogo: " + resultado);
+            }
+            ids.add(resultado.getId());
+        }
+        // guardarLote devuelve los nombres normalizados, que son los que se guardan
+        for (int i = 0; i < resultados.size(); i++) {
+            nombres[i] = resultados.get(i).getNombre();
+        }
+    }
+
+    private int siguienteIndice() {
+        siguiente = (siguiente + 1) % CONSULTAS;
+        return indices[siguiente];
+    }
+
+    @Benchmark
+    public List<?> listar() {
+        return listar.get();
+    }
+
+    @Benchmark
+    public Object buscarPorId() {
+        return buscarPorId.apply(ids.get(siguienteIndice()));
+    }
+
+    @Benchmark
+    public Object buscarPorNombre() {
+        return buscarPorNombre.apply(nombres[siguienteIndice()]);
+    }
+}
@@ -1,9 +1,12 @@
 package com.tpi_pais.mega_store;
 
+import com.tpi_pais.mega_store.config.PistasNativas;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints(PistasNativas.class)
 public class BackApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,81 @@
+package com.tpi_pais.mega_store.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Marca en el hilo actual el metodo de repositorio o de servicio que se esta ejecutando, para que
+ * RegistroConsultas le asigne las consultas que hace Hibernate, y mide cuanto tarda cada llamada.
+ * De los metodos de repositorio registra ademas las filas devueltas y si fueron consultas lentas.
+ * */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+@ConditionalOnProperty(name = "megastore.hibernate.estadisticas.habilitado", havingValue = "true")
+public class ConsultasAspect {
+
+    private final RegistroConsultas registro;
+    // Nombre del repositorio o servicio por clase, para no recalcularlo en cada llamada
+    private final Map<Class<?>, String> nombres = new ConcurrentHashMap<>();
+
+    public ConsultasAspect(RegistroConsultas registro) {
+        this.registro = registro;
+    }
+
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object marcarRepositorio(ProceedingJoinPoint joinPoint) throws Throwable {
+        String origen = nombreRepositorio(joinPoint.getThis()) + "." + joinPoint.getSignature().getName();
+        String anterior = registro.marcarOrigen(origen);
+        long inicio = System.nanoTime();
+        Object resultado = null;
+        try {
+            resultado = joinPoint.proceed();
+            return resultado;
+        } finally {
+            long nanos = System.nanoTime() - inicio;
+            registro.registrarInvocacion(origen, nanos);
+            registro.registrarRepositorio(origen, resultado, nanos);
+            registro.restaurarOrigen(anterior);
+        }
+    }
+
+    @Around("execution(public * com.tpi_pais.mega_store.products.service.*Service.*(..))")
+    public Object marcarServicio(ProceedingJoinPoint joinPoint) throws Throwable {
+        String servicio = nombres.computeIfAbsent(joinPoint.getTarget().getClass(),
+                c -> ClassUtils.getUserClass(c).getSimpleName());
+        return marcar(servicio + "." + joinPoint.getSignature().getName(), joinPoint);
+    }
+
+    private Object marcar(String origen, ProceedingJoinPoint joinPoint) throws Throwable {
+        String anterior = registro.marcarOrigen(origen);
+        long inicio = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            registro.registrarInvocacion(origen, System.nanoTime() - inicio);
+            registro.restaurarOrigen(anterior);
+        }
+    }
+
+    // El proxy del repositorio implementa la interfaz propia (ColorRepository) ademas de las de Spring Data
+    private String nombreRepositorio(Object proxy) {
+        return nombres.computeIfAbsent(proxy.getClass(), c -> {
+            for (Class<?> interfaz : AopProxyUtils.proxiedUserInterfaces(proxy)) {
+                if (interfaz.getName().startsWith("com.tpi_pais.")) {
+                    return interfaz.getSimpleName();
+                }
+            }
+            return c.getSimpleName();
+        });
+    }
+}
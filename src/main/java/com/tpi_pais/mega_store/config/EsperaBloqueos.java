@@ -0,0 +1,19 @@
+package com.tpi_pais.mega_store.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/*
+ * Marca los metodos de repositorio cuya sentencia espera, por diseño, bloqueos de filas que tienen
+ * otras transacciones (stock, reservas, bajas de catalogos). Su duracion mide la contencion sobre
+ * esas filas y no la capacidad de la bd, por eso LimitadorRepositoriosAspect no la usa como muestra
+ * de latencia (igual toman el permiso del limitador).
+ * */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface EsperaBloqueos {
+}
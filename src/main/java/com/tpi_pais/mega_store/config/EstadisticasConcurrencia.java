@@ -0,0 +1,16 @@
+package com.tpi_pais.mega_store.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class EstadisticasConcurrencia {
+    private boolean hilosVirtuales;
+    private EstadisticasLimitador limitador;   // null si el limitador esta deshabilitado
+    private long eventosPinning;
+    private double duracionPinningMs;
+    private Map<String, Long> pinningPorOrigen;
+}
@@ -0,0 +1,21 @@
+package com.tpi_pais.mega_store.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class EstadisticasConsultas {
+    private String origen;              // Metodo del repositorio o del servicio (ColorRepository.findById)
+    private long invocaciones;          // 0 para "sin origen" (consultas fuera de un repositorio o servicio)
+    private double tiempoTotalMs;
+    private double tiempoMaximoMs;
+    private long sentencias;            // Sentencias JDBC preparadas por Hibernate
+    private long consultas;             // Las que son SELECT o WITH
+    private long filas;                 // Filas devueltas por los metodos de repositorio
+    private long entidadesCargadas;     // Entidades leidas de la bd (findById, el SELECT de save/merge)
+    private long escrituras;            // INSERT, UPDATE y DELETE de entidades
+    private long consultasLentas;       // Metodos de repositorio que superaron el umbral
+    private long consultaMasLentaMs;
+    private String consultaMasLenta;    // SQL de la consulta lenta que mas tardo
+}
@@ -0,0 +1,18 @@
+package com.tpi_pais.mega_store.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class EstadisticasLimitador {
+    private int limite;
+    private int minimo;
+    private int maximo;
+    private int enCurso;
+    private int esperando;
+    private long permisos;
+    private long rechazos;
+    private double latenciaRecienteMs;
+    private double latenciaLargoPlazoMs;
+}
@@ -0,0 +1,164 @@
+package com.tpi_pais.mega_store.config;
+
+import com.tpi_pais.mega_store.exception.ServicioNoDisponibleExcepcion;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Limita la cantidad de operaciones de bd en curso y ajusta ese limite segun la latencia observada.
+ * Las muestras de latencia se registran aparte de los permisos (registrarMuestra): un permiso puede
+ * cubrir varias sentencias, o ninguna que convenga medir.
+ *
+ * Cada ventana de muestras se compara la latencia promedio reciente (rttCorto) con un promedio de
+ * largo plazo (rttLargo). Mientras rttCorto no supere TOLERANCIA veces a rttLargo el limite crece;
+ * cuando la bd se pone lenta el limite baja en la misma proporcion en que subio la latencia
+ * (como minimo a la mitad por ventana). Asi, con hilos virtuales, las peticiones de mas esperan
+ * aca en lugar de acumularse en el pool de Hikari.
+ *
+ * Se usa ReentrantLock y no synchronized porque un hilo virtual que espera dentro de un bloque
+ * synchronized queda fijado (pinned) a su hilo portador.
+ * */
+public class LimitadorConcurrencia {
+
+    private static final double TOLERANCIA = 2.0;
+    private static final double SUAVIZADO = 0.2;
+    private static final int MUESTRAS_POR_VENTANA = 50;
+    private static final int VENTANAS_LARGO_PLAZO = 100;
+
+    private final int minimo;
+    private final int maximo;
+    private final long esperaMaximaNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition hayLugar = lock.newCondition();
+
+    // Todos los campos siguientes se acceden con lock tomado
+    private double limite;
+    private int enCurso;
+    private int esperando;
+    private int maximoEnCursoVentana;
+    private long muestrasVentana;
+    private long sumaVentanaNanos;
+    private double rttCortoNanos;
+    private double rttLargoNanos;
+    private long permisos;
+    private long rechazos;
+
+    public LimitadorConcurrencia(int minimo, int maximo, long esperaMaximaMillis) {
+        if (minimo < 1 || maximo < minimo) {
+            throw new IllegalArgumentException("Limites invalidos: minimo " + minimo + ", maximo " + maximo);
+        }
+        this.minimo = minimo;
+        this.maximo = maximo;
+        this.esperaMaximaNanos = TimeUnit.MILLISECONDS.toNanos(esperaMaximaMillis);
+        this.limite = maximo;
+    }
+
+    /*
+     * Espera hasta que haya lugar y toma un permiso, que hay que devolver con liberar. Si no hay
+     * lugar dentro de la espera maxima lanza ServicioNoDisponibleExcepcion.
+     * */
+    public void adquirir() {
+        lock.lock();
+        try {
+            long restante = esperaMaximaNanos;
+            esperando++;
+            try {
+                while (enCurso >= (int) limite) {
+                    if (restante <= 0) {
+                        rechazos++;
+                        throw new ServicioNoDisponibleExcepcion(
+                                "La base de datos esta saturada, intente nuevamente en unos segundos.");
+                    }
+                    restante = hayLugar.awaitNanos(restante);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ServicioNoDisponibleExcepcion("Se interrumpio la espera de la base de datos.");
+            } finally {
+                esperando--;
+            }
+            enCurso++;
+            permisos++;
+            maximoEnCursoVentana = Math.max(maximoEnCursoVentana, enCurso);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void liberar() {
+        lock.lock();
+        try {
+            enCurso--;
+            // Se libero un solo lugar: alcanza con despertar a uno de los que esperan
+            hayLugar.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Registra la duracion de una sentencia; al completar una ventana se recalcula el limite
+    public void registrarMuestra(long rtt) {
+        lock.lock();
+        try {
+            int anterior = (int) limite;
+            ajustar(rtt);
+            // Si el limite crecio se despierta a tantos como lugares nuevos hay, no a todos
+            for (int lugares = Math.min((int) limite - anterior, esperando); lugares > 0; lugares--) {
+                hayLugar.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void ajustar(long rtt) {
+        muestrasVentana++;
+        sumaVentanaNanos += rtt;
+        if (muestrasVentana < MUESTRAS_POR_VENTANA) {
+            return;
+        }
+        rttCortoNanos = (double) sumaVentanaNanos / muestrasVentana;
+        if (rttLargoNanos == 0) {
+            rttLargoNanos = rttCortoNanos;
+        } else {
+            rttLargoNanos += (rttCortoNanos - rttLargoNanos) / VENTANAS_LARGO_PLAZO;
+        }
+        // Si la latencia se mantiene alta mucho tiempo el promedio largo se acerca mas rapido,
+        // para no quedar con el limite al minimo cuando la bd ya se normalizo en otro nivel
+        if (rttLargoNanos > 2 * rttCortoNanos) {
+            rttLargoNanos *= 0.95;
+        }
+        double gradiente = Math.max(0.5, Math.min(1.0, TOLERANCIA * rttLargoNanos / rttCortoNanos));
+        double nuevo = limite * gradiente;
+        // Solo se agranda el limite si en la ventana realmente se lo uso; si no, seguiria creciendo sin medir nada
+        if (gradiente == 1.0 && maximoEnCursoVentana >= (int) limite) {
+            nuevo += Math.sqrt(limite);
+        }
+        limite = Math.max(minimo, Math.min(maximo, limite * (1 - SUAVIZADO) + nuevo * SUAVIZADO));
+        muestrasVentana = 0;
+        sumaVentanaNanos = 0;
+        maximoEnCursoVentana = enCurso;
+    }
+
+    public EstadisticasLimitador estadisticas() {
+        lock.lock();
+        try {
+            return new EstadisticasLimitador(
+                    (int) limite,
+                    minimo,
+                    maximo,
+                    enCurso,
+                    esperando,
+                    permisos,
+                    rechazos,
+                    rttCortoNanos / 1_000_000.0,
+                    rttLargoNanos / 1_000_000.0
+            );
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.tpi_pais.mega_store.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Pone el LimitadorConcurrencia delante de los repositorios.
+ *
+ * El permiso se toma antes de que se abra la transaccion (y por lo tanto antes de pedir una conexion
+ * a Hikari) y se mantiene hasta que termina: los metodos @Transactional de los servicios lo toman
+ * para todas sus consultas, y las llamadas a repositorios fuera de una transaccion lo toman solo
+ * para esa llamada. Como el maximo del limitador no supera el tamano del pool, un hilo con una
+ * conexion nunca queda esperando un permiso que tienen hilos esperando conexiones.
+ *
+ * Las muestras de latencia son las llamadas a repositorios (una sentencia cada una), no la duracion
+ * del metodo que tiene el permiso: una exportacion NDJSON tiene el permiso (y la conexion) mientras
+ * dura el envio, pero solo aporta la muestra de la consulta que abre el cursor. Tampoco se toman
+ * muestras de los metodos marcados con @EsperaBloqueos.
+ * */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "megastore.limitador.habilitado", havingValue = "true", matchIfMissing = true)
+public class LimitadorRepositoriosAspect {
+
+    // Profundidad de llamadas protegidas en el hilo actual, solo la mas externa toma el permiso
+    private static final ThreadLocal<int[]> PROFUNDIDAD = ThreadLocal.withInitial(() -> new int[1]);
+
+    private final LimitadorConcurrencia limitador;
+
+    // Si cada metodo de repositorio aporta muestras de latencia (no tiene @EsperaBloqueos)
+    private final Map<Method, Boolean> muestreados = new ConcurrentHashMap<>();
+
+    public LimitadorRepositoriosAspect(@Value("${megastore.limitador.minimo:2}") int minimo,
+                                       @Value("${megastore.limitador.maximo:${spring.datasource.hikari.maximum-pool-size:10}}") int maximo,
+                                       @Value("${megastore.limitador.espera-maxima-ms:5000}") long esperaMaximaMillis) {
+        this.limitador = new LimitadorConcurrencia(minimo, maximo, esperaMaximaMillis);
+    }
+
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..)) || "
+            + "(@annotation(org.springframework.transaction.annotation.Transactional) "
+            + "&& within(com.tpi_pais.mega_store..service..*))")
+    public Object limitar(ProceedingJoinPoint joinPoint) throws Throwable {
+        int[] profundidad = PROFUNDIDAD.get();
+        boolean externa = profundidad[0] == 0;
+        if (externa) {
+            limitador.adquirir();
+        }
+        profundidad[0]++;
+        long inicio = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            long duracion = System.nanoTime() - inicio;
+            profundidad[0]--;
+            if (muestreado(joinPoint)) {
+                limitador.registrarMuestra(duracion);
+            }
+            if (externa) {
+                limitador.liberar();
+            }
+        }
+    }
+
+    private boolean muestreado(ProceedingJoinPoint joinPoint) {
+        if (!(joinPoint.getTarget() instanceof Repository<?, ?>)) {
+            return false;
+        }
+        Method metodo = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        return muestreados.computeIfAbsent(metodo,
+                m -> AnnotationUtils.findAnnotation(m, EsperaBloqueos.class) == null);
+    }
+
+    public LimitadorConcurrencia getLimitador() {
+        return limitador;
+    }
+}
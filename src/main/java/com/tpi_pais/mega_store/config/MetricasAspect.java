@@ -0,0 +1,164 @@
+package com.tpi_pais.mega_store.config;
+
+import com.tpi_pais.mega_store.utils.ApiResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+ * Timers con histograma de percentiles para las tres capas:
+ * - megastore.controlador: cada mapping de los controladores, con tags catalogo, operacion (metodo
+ *   del controlador) y status (el status del ApiResponse devuelto o, si la respuesta no es un
+ *   ApiResponse, el status HTTP). En las exportaciones NDJSON solo se mide hasta que empieza el envio.
+ * - megastore.servicio: cada metodo publico de los servicios, con tags catalogo, metodo y excepcion.
+ * - megastore.repositorio: cada llamada a un repositorio, con tags repositorio, metodo y excepcion.
+ * Se ejecuta despues del limitador de concurrencia, asi la espera por un permiso no se suma
+ * al tiempo de los servicios y repositorios.
+ * */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class MetricasAspect {
+
+    private static final Pattern PATRON_CONTROLADOR = Pattern.compile("^(?:Get|Post|Put|Delete)(\\w+)Controller$");
+    private static final Pattern PATRON_SERVICIO = Pattern.compile("^(\\w+)Service$");
+    private static final Duration MINIMO_ESPERADO = Duration.ofMillis(1);
+    private static final Duration MAXIMO_ESPERADO = Duration.ofSeconds(10);
+    private static final String SIN_EXCEPCION = "none";
+
+    private final MeterRegistry registry;
+    // Nombre de catalogo o de repositorio por clase, para no recalcularlo en cada llamada
+    private final Map<Class<?>, String> nombres = new ConcurrentHashMap<>();
+    private final Map<ClaveTimer, Timer> timers = new ConcurrentHashMap<>();
+
+    private record ClaveTimer(String metrica, Class<?> clase, String metodo, String resultado) {
+    }
+
+    public MetricasAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("within(com.tpi_pais.mega_store.products.controller..*) && ("
+            + "@annotation(org.springframework.web.bind.annotation.GetMapping) || "
+            + "@annotation(org.springframework.web.bind.annotation.PostMapping) || "
+            + "@annotation(org.springframework.web.bind.annotation.PutMapping) || "
+            + "@annotation(org.springframework.web.bind.annotation.DeleteMapping))")
+    public Object medirControlador(ProceedingJoinPoint joinPoint) throws Throwable {
+        long inicio = System.nanoTime();
+        String status = "excepcion";
+        try {
+            Object respuesta = joinPoint.proceed();
+            status = status(respuesta);
+            return respuesta;
+        } finally {
+            Class<?> clase = joinPoint.getTarget().getClass();
+            String operacion = joinPoint.getSignature().getName();
+            String resultado = status;
+            timer("megastore.controlador", "Duracion de los endpoints de los controladores", clase, operacion, resultado,
+                    () -> new String[]{"catalogo", nombre(clase, PATRON_CONTROLADOR), "operacion", operacion, "status", resultado})
+                    .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Around("execution(public * com.tpi_pais.mega_store.products.service.*Service.*(..))")
+    public Object medirServicio(ProceedingJoinPoint joinPoint) throws Throwable {
+        long inicio = System.nanoTime();
+        String excepcion = SIN_EXCEPCION;
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            excepcion = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            Class<?> clase = joinPoint.getTarget().getClass();
+            String metodo = joinPoint.getSignature().getName();
+            String resultado = excepcion;
+            timer("megastore.servicio", "Duracion de los metodos de los servicios", clase, metodo, resultado,
+                    () -> new String[]{"catalogo", nombre(clase, PATRON_SERVICIO), "metodo", metodo, "excepcion", resultado})
+                    .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object medirRepositorio(ProceedingJoinPoint joinPoint) throws Throwable {
+        long inicio = System.nanoTime();
+        String excepcion = SIN_EXCEPCION;
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            excepcion = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            Object proxy = joinPoint.getThis();
+            String metodo = joinPoint.getSignature().getName();
+            String resultado = excepcion;
+            timer("megastore.repositorio", "Duracion de las llamadas a los repositorios", proxy.getClass(), metodo, resultado,
+                    () -> new String[]{"repositorio", nombreRepositorio(proxy), "metodo", metodo, "excepcion", resultado})
+                    .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /*
+     * Devuelve el timer de la clase, metodo y resultado, creandolo y registrandolo solo la primera
+     * vez: armar el Timer.Builder y buscarlo en el registry en cada llamada costaba mas que la
+     * propia medicion. Los tags se calculan solo al crearlo.
+     * */
+    private Timer timer(String nombre, String descripcion, Class<?> clase, String metodo, String resultado,
+                        Supplier<String[]> tags) {
+        return timers.computeIfAbsent(new ClaveTimer(nombre, clase, metodo, resultado), clave ->
+                Timer.builder(nombre)
+                        .description(descripcion)
+                        .tags(tags.get())
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(MINIMO_ESPERADO)
+                        .maximumExpectedValue(MAXIMO_ESPERADO)
+                        .register(registry));
+    }
+
+    private static String status(Object respuesta) {
+        if (respuesta instanceof ResponseEntity<?> entidad) {
+            if (entidad.getBody() instanceof ApiResponse<?> apiResponse) {
+                return String.valueOf(apiResponse.getStatus());
+            }
+            return String.valueOf(entidad.getStatusCode().value());
+        }
+        return "200";
+    }
+
+    // GetColorController -> color, ColorService -> color
+    private String nombre(Class<?> clase, Pattern patron) {
+        return nombres.computeIfAbsent(clase, c -> {
+            String simple = ClassUtils.getUserClass(c).getSimpleName();
+            Matcher matcher = patron.matcher(simple);
+            return matcher.matches() ? matcher.group(1).toLowerCase() : simple;
+        });
+    }
+
+    // El proxy del repositorio implementa la interfaz propia (ColorRepository) ademas de las de Spring Data
+    private String nombreRepositorio(Object proxy) {
+        return nombres.computeIfAbsent(proxy.getClass(), c -> {
+            for (Class<?> interfaz : AopProxyUtils.proxiedUserInterfaces(proxy)) {
+                if (interfaz.getName().startsWith("com.tpi_pais.")) {
+                    return interfaz.getSimpleName();
+                }
+            }
+            return c.getSimpleName();
+        });
+    }
+}
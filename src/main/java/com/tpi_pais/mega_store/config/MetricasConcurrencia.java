@@ -0,0 +1,50 @@
+package com.tpi_pais.mega_store.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/*
+ * Publica en Micrometer el estado del limitador de concurrencia y los eventos de pinning de hilos
+ * virtuales (los mismos datos que GET /products/concurrencia).
+ * */
+@Component
+public class MetricasConcurrencia implements MeterBinder {
+
+    @Autowired(required = false)
+    private LimitadorRepositoriosAspect limitadorRepositorios;
+    @Autowired(required = false)
+    private MonitorPinning monitorPinning;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (limitadorRepositorios != null) {
+            LimitadorConcurrencia limitador = limitadorRepositorios.getLimitador();
+            Gauge.builder("megastore.limitador.limite", limitador, l -> l.estadisticas().getLimite())
+                    .description("Operaciones de bd en curso permitidas")
+                    .register(registry);
+            Gauge.builder("megastore.limitador.en.curso", limitador, l -> l.estadisticas().getEnCurso())
+                    .description("Operaciones de bd en curso")
+                    .register(registry);
+            Gauge.builder("megastore.limitador.esperando", limitador, l -> l.estadisticas().getEsperando())
+                    .description("Operaciones esperando un permiso del limitador")
+                    .register(registry);
+            FunctionCounter.builder("megastore.limitador.rechazos", limitador, l -> l.estadisticas().getRechazos())
+                    .description("Operaciones rechazadas por superar la espera maxima")
+                    .register(registry);
+        }
+        if (monitorPinning != null) {
+            FunctionCounter.builder("megastore.hilos.virtuales.pinning", monitorPinning, MonitorPinning::getEventos)
+                    .description("Eventos jdk.VirtualThreadPinned que superaron el umbral")
+                    .register(registry);
+            FunctionCounter.builder("megastore.hilos.virtuales.pinning.duracion", monitorPinning,
+                            MonitorPinning::getDuracionTotalMs)
+                    .description("Duracion total de los eventos de pinning")
+                    .baseUnit("milliseconds")
+                    .register(registry);
+        }
+    }
+}
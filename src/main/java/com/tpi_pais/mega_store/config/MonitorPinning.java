@@ -0,0 +1,94 @@
+package com.tpi_pais.mega_store.config;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Escucha con JFR los eventos jdk.VirtualThreadPinned (un hilo virtual que se bloquea sin poder
+ * liberar su hilo portador, por ejemplo dentro de un synchronized) y los cuenta por el metodo
+ * de la aplicacion donde ocurrieron. Solo se activa con hilos virtuales habilitados.
+ * */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class MonitorPinning {
+
+    private static final int MAXIMO_ORIGENES = 100;
+
+    private final Duration umbral;
+    private final LongAdder eventos = new LongAdder();
+    private final LongAdder duracionTotalNanos = new LongAdder();
+    private final Map<String, LongAdder> porOrigen = new ConcurrentHashMap<>();
+    private RecordingStream stream;
+
+    public MonitorPinning(@Value("${megastore.pinning.umbral-ms:20}") long umbralMillis) {
+        this.umbral = Duration.ofMillis(umbralMillis);
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        stream = new RecordingStream();
+        stream.enable("jdk.VirtualThreadPinned").withThreshold(umbral).withStackTrace();
+        stream.onEvent("jdk.VirtualThreadPinned", this::registrar);
+        stream.startAsync();
+    }
+
+    @PreDestroy
+    public void detener() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    private void registrar(RecordedEvent evento) {
+        eventos.increment();
+        duracionTotalNanos.add(evento.getDuration().toNanos());
+        String origen = origen(evento);
+        LongAdder contador = porOrigen.get(origen);
+        if (contador == null && porOrigen.size() < MAXIMO_ORIGENES) {
+            contador = porOrigen.computeIfAbsent(origen, k -> new LongAdder());
+        }
+        if (contador != null) {
+            contador.increment();
+        }
+    }
+
+    // Primer metodo de la aplicacion en la pila, o el primero de la pila si no hay ninguno
+    private static String origen(RecordedEvent evento) {
+        if (evento.getStackTrace() == null || evento.getStackTrace().getFrames().isEmpty()) {
+            return "desconocido";
+        }
+        RecordedFrame primero = evento.getStackTrace().getFrames().get(0);
+        for (RecordedFrame frame : evento.getStackTrace().getFrames()) {
+            if (frame.getMethod().getType().getName().startsWith("com.tpi_pais.")) {
+                primero = frame;
+                break;
+            }
+        }
+        return primero.getMethod().getType().getName() + "." + primero.getMethod().getName();
+    }
+
+    public long getEventos() {
+        return eventos.sum();
+    }
+
+    public double getDuracionTotalMs() {
+        return duracionTotalNanos.sum() / 1_000_000.0;
+    }
+
+    public Map<String, Long> getEventosPorOrigen() {
+        Map<String, Long> resultado = new ConcurrentHashMap<>();
+        porOrigen.forEach((origen, contador) -> resultado.put(origen, contador.sum()));
+        return resultado;
+    }
+}
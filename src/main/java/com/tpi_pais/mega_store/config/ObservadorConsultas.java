@@ -0,0 +1,50 @@
+package com.tpi_pais.mega_store.config;
+
+import org.hibernate.Interceptor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.type.Type;
+
+/*
+ * Recibe de Hibernate cada sentencia SQL que prepara (StatementInspector) y cada entidad que carga,
+ * inserta, actualiza o borra (Interceptor), y se las pasa a RegistroConsultas para asignarlas al
+ * origen marcado en el hilo actual. Solo usa contratos publicos de Hibernate: la sentencia se
+ * devuelve sin cambios y ningun metodo modifica el estado de las entidades.
+ * */
+class ObservadorConsultas implements StatementInspector, Interceptor {
+
+    private final transient RegistroConsultas registro;
+
+    ObservadorConsultas(RegistroConsultas registro) {
+        this.registro = registro;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        registro.registrarSentencia(sql);
+        return sql;
+    }
+
+    @Override
+    public boolean onLoad(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+        registro.registrarEntidadCargada();
+        return false;
+    }
+
+    @Override
+    public boolean onSave(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+        registro.registrarEscritura();
+        return false;
+    }
+
+    @Override
+    public boolean onFlushDirty(Object entity, Object id, Object[] currentState, Object[] previousState,
+                                String[] propertyNames, Type[] types) {
+        registro.registrarEscritura();
+        return false;
+    }
+
+    @Override
+    public void onDelete(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+        registro.registrarEscritura();
+    }
+}
@@ -0,0 +1,91 @@
+package com.tpi_pais.mega_store.config;
+
+import com.tpi_pais.mega_store.utils.ApiResponse;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.type.filter.TypeFilter;
+import org.springframework.data.projection.TargetAware;
+import org.springframework.data.repository.Repository;
+import org.springframework.util.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Pistas de reflexion y proxies para la imagen nativa (perfil native del pom). Se ejecuta solo durante
+ * el procesamiento AOT del build, por eso puede recorrer el classpath: las clases nuevas de los
+ * paquetes de abajo quedan cubiertas sin tocar esta clase.
+ *
+ * - DTOs y estadisticas (Estadisticas*, ApiResponse): los controladores devuelven ResponseEntity<?> y
+ *   ApiResponse<Object>, asi que AOT no puede deducir que tipos serializa Jackson. Se registran los
+ *   getters/setters que genera Lombok y los tipos de sus campos.
+ * - Entidades: Hibernate accede a los campos y al constructor sin argumentos por reflexion.
+ * - Proyecciones de las consultas nativas de los repositorios (interfaces como ResultadoEscritura):
+ *   Spring Data las implementa con un proxy JDK que hay que declarar de antemano. Los records del
+ *   mismo paquete (FacetasProducto) se arman con "select new" y necesitan su constructor.
+ * */
+public class PistasNativas implements RuntimeHintsRegistrar {
+
+    private static final String PAQUETE_BASE = "com.tpi_pais.mega_store";
+
+    private final BindingReflectionHintsRegistrar binding = new BindingReflectionHintsRegistrar();
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (Class<?> dto : buscar(classLoader, PAQUETE_BASE + ".products.dto", false)) {
+            binding.registerReflectionHints(hints.reflection(), dto);
+        }
+        for (Class<?> clase : buscar(classLoader, PAQUETE_BASE, false)) {
+            if (clase.getSimpleName().startsWith("Estadisticas")) {
+                binding.registerReflectionHints(hints.reflection(), clase);
+            }
+        }
+        binding.registerReflectionHints(hints.reflection(), ApiResponse.class);
+
+        for (Class<?> entidad : buscar(classLoader, PAQUETE_BASE + ".products.model", false)) {
+            hints.reflection().registerType(entidad,
+                    MemberCategory.DECLARED_FIELDS,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.INVOKE_DECLARED_METHODS);
+        }
+
+        for (Class<?> proyeccion : buscar(classLoader, PAQUETE_BASE + ".products.repository", true)) {
+            if (proyeccion.isRecord()) {
+                // Filas de consultas JPQL con "select new": Hibernate invoca el constructor
+                hints.reflection().registerType(proyeccion, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+                continue;
+            }
+            if (!proyeccion.isInterface() || Repository.class.isAssignableFrom(proyeccion)) {
+                continue;
+            }
+            hints.proxies().registerJdkProxy(AopProxyUtils.completeJdkProxyInterfaces(proyeccion, TargetAware.class));
+            hints.reflection().registerType(proyeccion, MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+    }
+
+    // Clases de primer nivel del paquete (y subpaquetes); con interfaces=true tambien las interfaces
+    private static List<Class<?>> buscar(ClassLoader classLoader, String paquete, boolean interfaces) {
+        ClassPathScanningCandidateComponentProvider escaner = new ClassPathScanningCandidateComponentProvider(false) {
+            @Override
+            protected boolean isCandidateComponent(AnnotatedBeanDefinition definicion) {
+                return definicion.getMetadata().isIndependent()
+                        && (interfaces || !definicion.getMetadata().isInterface());
+            }
+        };
+        TypeFilter todas = (lector, fabrica) -> true;
+        escaner.addIncludeFilter(todas);
+        escaner.setResourceLoader(new DefaultResourceLoader(classLoader));
+        List<Class<?>> clases = new ArrayList<>();
+        for (BeanDefinition definicion : escaner.findCandidateComponents(paquete)) {
+            clases.add(ClassUtils.resolveClassName(definicion.getBeanClassName(), classLoader));
+        }
+        return clases;
+    }
+}
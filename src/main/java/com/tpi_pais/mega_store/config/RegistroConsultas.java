@@ -0,0 +1,204 @@
+package com.tpi_pais.mega_store.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.BaseStream;
+
+/*
+ * Estadisticas de Hibernate agrupadas por el metodo que origino cada consulta.
+ *
+ * Registra ObservadorConsultas como StatementInspector e Interceptor de Hibernate, que le avisa a
+ * este registro de cada sentencia preparada y de cada entidad cargada o escrita. ConsultasAspect
+ * marca el origen (ColorRepository.findById, ColorService.guardar, ...) en el hilo actual y al
+ * terminar cada metodo de repositorio registra su duracion, las filas que devolvio y, si supero el
+ * umbral, la ultima sentencia que preparo como consulta lenta. Lo que Hibernate ejecuta al hacer
+ * flush al final de una transaccion de un servicio queda asignado al metodo del servicio. Asi se ven
+ * las consultas ocultas, por ejemplo el SELECT que hace save() antes del UPDATE de una entidad que
+ * no esta en la sesion. Los contadores son LongAdder y la consulta mas lenta se reemplaza con un
+ * AtomicReference, asi ningun hilo espera a otro para registrar.
+ * */
+@Component
+@ConditionalOnProperty(name = "megastore.hibernate.estadisticas.habilitado", havingValue = "true")
+public class RegistroConsultas implements HibernatePropertiesCustomizer {
+
+    static final String SIN_ORIGEN = "sin origen";
+
+    private static final ThreadLocal<String> ORIGEN = new ThreadLocal<>();
+    // Ultima sentencia preparada en el hilo desde que se marco el origen, para las consultas lentas
+    private static final ThreadLocal<String> ULTIMA_SENTENCIA = new ThreadLocal<>();
+
+    private final long umbralLentaMillis;
+    private final Map<String, Acumulador> porOrigen = new ConcurrentHashMap<>();
+
+    public RegistroConsultas(@Value("${megastore.consultas.lentas-ms:500}") long umbralLentaMillis) {
+        this.umbralLentaMillis = umbralLentaMillis;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        ObservadorConsultas observador = new ObservadorConsultas(this);
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, observador);
+        hibernateProperties.put(AvailableSettings.INTERCEPTOR, observador);
+    }
+
+    /*
+     * Marca el origen de las consultas del hilo actual y devuelve el anterior, que se tiene que
+     * restaurar con restaurarOrigen al terminar. El origen mas interno es el que queda.
+     * */
+    String marcarOrigen(String origen) {
+        String anterior = ORIGEN.get();
+        ORIGEN.set(origen);
+        ULTIMA_SENTENCIA.remove();
+        return anterior;
+    }
+
+    void restaurarOrigen(String anterior) {
+        if (anterior == null) {
+            ORIGEN.remove();
+        } else {
+            ORIGEN.set(anterior);
+        }
+    }
+
+    void registrarInvocacion(String origen, long nanos) {
+        Acumulador acumulador = acumulador(origen);
+        acumulador.invocaciones.increment();
+        acumulador.tiempoTotalNanos.add(nanos);
+        acumulador.tiempoMaximoNanos.accumulate(nanos);
+    }
+
+    void registrarSentencia(String sql) {
+        Acumulador acumulador = acumulador(origenActual());
+        acumulador.sentencias.increment();
+        if (esConsulta(sql)) {
+            acumulador.consultas.increment();
+        }
+        ULTIMA_SENTENCIA.set(sql);
+    }
+
+    /*
+     * Filas y consultas lentas de un metodo de repositorio que termino. Las filas se cuentan sobre
+     * el resultado devuelto; un Stream todavia no se leyo al volver del repositorio y cuenta 0.
+     * */
+    void registrarRepositorio(String origen, Object resultado, long nanos) {
+        Acumulador acumulador = acumulador(origen);
+        acumulador.filas.add(filas(resultado));
+        long millis = nanos / 1_000_000;
+        if (millis >= umbralLentaMillis) {
+            acumulador.consultasLentas.increment();
+            String sql = ULTIMA_SENTENCIA.get();
+            ConsultaLenta nueva = new ConsultaLenta(millis, sql != null ? sql : origen);
+            acumulador.consultaMasLenta.accumulateAndGet(nueva,
+                    (actual, candidata) -> actual == null || candidata.millis() > actual.millis() ? candidata : actual);
+        }
+    }
+
+    void registrarEntidadCargada() {
+        acumulador(origenActual()).entidadesCargadas.increment();
+    }
+
+    void registrarEscritura() {
+        acumulador(origenActual()).escrituras.increment();
+    }
+
+    // Ordenadas por tiempo total, primero las que mas tiempo llevan
+    public List<EstadisticasConsultas> estadisticas() {
+        List<EstadisticasConsultas> resultado = new ArrayList<>(porOrigen.size());
+        porOrigen.forEach((origen, acumulador) -> resultado.add(acumulador.estadisticas(origen)));
+        resultado.sort(Comparator.comparingDouble(EstadisticasConsultas::getTiempoTotalMs).reversed()
+                .thenComparing(EstadisticasConsultas::getOrigen));
+        return resultado;
+    }
+
+    public void reiniciar() {
+        porOrigen.clear();
+    }
+
+    public long getUmbralLentaMillis() {
+        return umbralLentaMillis;
+    }
+
+    private static String origenActual() {
+        String origen = ORIGEN.get();
+        return origen != null ? origen : SIN_ORIGEN;
+    }
+
+    // Sentencias que devuelven filas: las de Hibernate empiezan con select y las nativas con SELECT o WITH
+    private static boolean esConsulta(String sql) {
+        String sentencia = sql.stripLeading();
+        return sentencia.regionMatches(true, 0, "select", 0, 6) || sentencia.regionMatches(true, 0, "with", 0, 4);
+    }
+
+    private static long filas(Object resultado) {
+        if (resultado == null) {
+            return 0;
+        }
+        if (resultado instanceof Collection<?> coleccion) {
+            return coleccion.size();
+        }
+        if (resultado instanceof Slice<?> pagina) {
+            return pagina.getNumberOfElements();
+        }
+        if (resultado instanceof Optional<?> opcional) {
+            return opcional.isPresent() ? 1 : 0;
+        }
+        if (resultado instanceof BaseStream<?, ?>) {
+            return 0;
+        }
+        return 1;
+    }
+
+    private Acumulador acumulador(String origen) {
+        Acumulador acumulador = porOrigen.get(origen);
+        return acumulador != null ? acumulador : porOrigen.computeIfAbsent(origen, k -> new Acumulador());
+    }
+
+    private static final class Acumulador {
+        private final LongAdder invocaciones = new LongAdder();
+        private final LongAdder tiempoTotalNanos = new LongAdder();
+        private final LongAccumulator tiempoMaximoNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder sentencias = new LongAdder();
+        private final LongAdder consultas = new LongAdder();
+        private final LongAdder filas = new LongAdder();
+        private final LongAdder entidadesCargadas = new LongAdder();
+        private final LongAdder escrituras = new LongAdder();
+        private final LongAdder consultasLentas = new LongAdder();
+        private final AtomicReference<ConsultaLenta> consultaMasLenta = new AtomicReference<>();
+
+        private EstadisticasConsultas estadisticas(String origen) {
+            ConsultaLenta masLenta = consultaMasLenta.get();
+            return new EstadisticasConsultas(
+                    origen,
+                    invocaciones.sum(),
+                    tiempoTotalNanos.sum() / 1_000_000.0,
+                    tiempoMaximoNanos.get() / 1_000_000.0,
+                    sentencias.sum(),
+                    consultas.sum(),
+                    filas.sum(),
+                    entidadesCargadas.sum(),
+                    escrituras.sum(),
+                    consultasLentas.sum(),
+                    masLenta != null ? masLenta.millis() : 0,
+                    masLenta != null ? masLenta.sql() : null
+            );
+        }
+    }
+
+    private record ConsultaLenta(long millis, String sql) {
+    }
+}
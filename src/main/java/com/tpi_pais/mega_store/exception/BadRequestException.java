@@ -3,9 +3,13 @@ package com.tpi_pais.mega_store.exception;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+/*
+ * Sin stack trace ni supresiones: es un resultado esperado que se convierte en una respuesta
+ * en ManejadorGlobalExcepciones, la traza no aporta nada y capturarla es lo mas caro de la excepcion.
+ * */
 @ResponseStatus(value = HttpStatus.BAD_REQUEST)
 public class BadRequestException extends RuntimeException {
     public BadRequestException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
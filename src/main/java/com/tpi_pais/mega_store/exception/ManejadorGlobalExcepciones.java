@@ -0,0 +1,77 @@
+package com.tpi_pais.mega_store.exception;
+
+import com.tpi_pais.mega_store.utils.ApiResponse;
+import com.tpi_pais.mega_store.utils.Respuestas;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.ErrorResponse;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+
+/*
+ * Unico lugar donde las excepciones de los controladores se convierten en ApiResponse.
+ *
+ * Las validaciones de los controladores no usan excepciones: los servicios devuelven un
+ * ResultadoEscrituraDTO con el estado y los ids de la url se convierten con Enteros.parsear, asi que
+ * aca solo llegan los cuerpos JSON mal formados, los parametros de query de tipo incorrecto, la bd
+ * saturada (ServicioNoDisponibleExcepcion) y los errores inesperados.
+ * */
+@RestControllerAdvice(basePackages = "com.tpi_pais.mega_store")
+public class ManejadorGlobalExcepciones {
+
+    private static final Logger log = LoggerFactory.getLogger(ManejadorGlobalExcepciones.class);
+
+    // Segundos que se le sugiere al cliente esperar cuando la bd esta saturada
+    private static final String REINTENTAR_EN = "1";
+
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<ApiResponse<Object>> tipoInvalido(MethodArgumentTypeMismatchException ex) {
+        if ("id".equals(ex.getName())) {
+            return Respuestas.ID_INVALIDO;
+        }
+        return Respuestas.error(400, "Error de tipo de argumento",
+                "El parámetro '" + ex.getName() + "' debe ser un número entero válido.");
+    }
+
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<ApiResponse<Object>> cuerpoInvalido(HttpMessageNotReadableException ex) {
+        return Respuestas.CUERPO_INVALIDO;
+    }
+
+    @ExceptionHandler(BadRequestException.class)
+    public ResponseEntity<ApiResponse<Object>> badRequest(BadRequestException ex) {
+        return Respuestas.badRequest(ex.getMessage());
+    }
+
+    @ExceptionHandler(RecursoNoEncontradoExcepcion.class)
+    public ResponseEntity<ApiResponse<Object>> noEncontrado(RecursoNoEncontradoExcepcion ex) {
+        return Respuestas.error(HttpStatus.NOT_FOUND, Respuestas.NOT_FOUND, ex.getMessage());
+    }
+
+    @ExceptionHandler(ServicioNoDisponibleExcepcion.class)
+    public ResponseEntity<ApiResponse<Object>> servicioNoDisponible(ServicioNoDisponibleExcepcion ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, REINTENTAR_EN)
+                .body(new ApiResponse<>(503, "Error: Service Unavailable.", null, ex.getMessage()));
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<ApiResponse<Object>> inesperado(Exception ex) {
+        // Las excepciones propias de Spring MVC (metodo no soportado, media type, ...) conservan su status
+        if (ex instanceof ErrorResponse errorResponse) {
+            int status = errorResponse.getStatusCode().value();
+            HttpStatus conocido = HttpStatus.resolve(status);
+            String mensaje = conocido != null ? "Error: " + conocido.getReasonPhrase() + "." : "Error.";
+            return ResponseEntity.status(status)
+                    .headers(errorResponse.getHeaders())
+                    .body(new ApiResponse<>(status, mensaje, null, errorResponse.getBody().getDetail()));
+        }
+        log.error("Error inesperado atendiendo la peticion", ex);
+        return Respuestas.error(400, "Error: Error inesperado.", "" + ex);
+    }
+}
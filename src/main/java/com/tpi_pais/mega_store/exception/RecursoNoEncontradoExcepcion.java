@@ -3,9 +3,10 @@ package com.tpi_pais.mega_store.exception;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+// Sin stack trace, igual que BadRequestException
 @ResponseStatus(value = HttpStatus.NOT_FOUND)
 public class RecursoNoEncontradoExcepcion extends RuntimeException{
     public RecursoNoEncontradoExcepcion(String mensaje){
-        super(mensaje);
+        super(mensaje, null, false, false);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,12 @@
+package com.tpi_pais.mega_store.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// Sin stack trace, igual que BadRequestException: se lanza en rafagas cuando la bd esta saturada
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE)
+public class ServicioNoDisponibleExcepcion extends RuntimeException {
+    public ServicioNoDisponibleExcepcion(String mensaje) {
+        super(mensaje, null, false, false);
+    }
+}
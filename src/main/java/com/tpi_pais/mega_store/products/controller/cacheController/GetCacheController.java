@@ -0,0 +1,48 @@
+package com.tpi_pais.mega_store.products.controller.cacheController;
+
+import com.tpi_pais.mega_store.products.service.*;
+import com.tpi_pais.mega_store.utils.ApiResponse;
+import com.tpi_pais.mega_store.utils.cache.EstadisticasCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@CrossOrigin(origins = "http://localhost:5173")
+@RestController
+@RequestMapping("/products")
+public class GetCacheController {
+    @Autowired
+    private IColorService colorService;
+    @Autowired
+    private ITalleService talleService;
+    @Autowired
+    private IMarcaService marcaService;
+    @Autowired
+    private ICategoriaService categoriaService;
+    @Autowired
+    private ISucursalService sucursalService;
+
+    @GetMapping("/cache")
+    public ResponseEntity<?> getEstadisticas() {
+        /*
+         * Devuelve los contadores de aciertos, fallos y reconstrucciones de la cache
+         * de listados de cada catalogo.
+         * */
+        List<EstadisticasCache> estadisticas = List.of(
+                colorService.estadisticasCache(),
+                talleService.estadisticasCache(),
+                marcaService.estadisticasCache(),
+                categoriaService.estadisticasCache(),
+                sucursalService.estadisticasCache()
+        );
+        ApiResponse<Object> response = new ApiResponse<>(
+                200,
+                "OK",
+                estadisticas,
+                null
+        );
+        return ResponseEntity.ok().body(response);
+    }
+}
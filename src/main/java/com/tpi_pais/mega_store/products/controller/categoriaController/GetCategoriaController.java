@@ -1,114 +1,165 @@
 package com.tpi_pais.mega_store.products.controller.categoriaController;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tpi_pais.mega_store.products.dto.CategoriaDTO;
 import com.tpi_pais.mega_store.products.mapper.CategoriaMapper;
 import com.tpi_pais.mega_store.products.model.Categoria;
 import com.tpi_pais.mega_store.products.service.ICategoriaService;
 import com.tpi_pais.mega_store.utils.ApiResponse;
+import com.tpi_pais.mega_store.utils.Enteros;
+import com.tpi_pais.mega_store.utils.EscritorNdjson;
+import com.tpi_pais.mega_store.utils.Etags;
+import com.tpi_pais.mega_store.utils.Pagina;
+import com.tpi_pais.mega_store.utils.Respuestas;
+import com.tpi_pais.mega_store.utils.cache.CuerpoCodificado;
+import com.tpi_pais.mega_store.utils.cache.Instantanea;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 @CrossOrigin(origins = "http://localhost:5173")
 @RestController
 @RequestMapping("/products")
 public class GetCategoriaController {
+    private static final ResponseEntity<ApiResponse<Object>> SIN_REGISTROS =
+            Respuestas.error(400, "Bad request", "No hay categorías creadas.");
+    private static final ResponseEntity<ApiResponse<Object>> NO_ENCONTRADO =
+            Respuestas.error(404, "Error: Not Found", "No se encontró la categoría con el ID.");
+    private static final ResponseEntity<ApiResponse<Object>> ELIMINADO =
+            Respuestas.badRequest("No se puede traer un objeto que este eliminado.");
+
     @Autowired
     private ICategoriaService modelService;
+    @Autowired
+    private ObjectMapper objectMapper;
     @GetMapping({"/categorias"})
-    public ResponseEntity<?> getAll() {
-        List<CategoriaDTO> categorias = modelService.listar();
+    public ResponseEntity<?> getAll(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                    @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                    @RequestParam(required = false) Integer limit,
+                                    @RequestParam(required = false) Integer after) {
+        if (limit != null || after != null) {
+            return getPagina(limit, after);
+        }
+        /*
+         * Si el cliente ya tiene la version actual del listado (If-None-Match coincide con el ETag)
+         * se responde 304 sin consultar la bd ni serializar el listado. Un catalogo vacio no tiene
+         * ETag (responde SIN_REGISTROS), por eso nunca se le responde 304.
+         * */
+        String etag = modelService.etag();
+        if (Etags.coincide(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(Etags.CACHE_CATALOGO)
+                    .build();
+        }
+        Instantanea<CategoriaDTO> instantanea = modelService.instantanea();
+        List<CategoriaDTO> categorias = instantanea.getDatos();
         if (categorias.isEmpty()) {
-            ApiResponse<Object> response = new ApiResponse<>(
-                    400,
-                    "Bad request",
-                    null,
-                    "No hay categorías creadas."
-            );
-            return ResponseEntity.badRequest().body(response);
+            return SIN_REGISTROS;
         }else {
-            ApiResponse<Object> response = new ApiResponse<>(
-                    200,
-                    "OK",
-                    categorias,
-                    null
-            );
-            return ResponseEntity.ok().body(response);
+            /*
+             * El listado se serializa y comprime una sola vez por version del catalogo,
+             * las lecturas siguientes escriben directamente los bytes guardados.
+             * */
+            CuerpoCodificado cuerpo = instantanea.cuerpoCodificado(() -> CuerpoCodificado.codificar(
+                    objectMapper,
+                    new ApiResponse<>(
+                            200,
+                            "OK",
+                            categorias,
+                            null
+                    )
+            ));
+            return cuerpo.respuesta(acceptEncoding, instantanea.getEtag(), Etags.CACHE_CATALOGO);
         }
+    }
+
+    private ResponseEntity<?> getPagina(Integer limit, Integer after) {
+        /*
+         * Listado paginado por keyset: /categorias?limit=50&after=120 devuelve hasta 50 elementos
+         * con id mayor a 120. El campo nextCursor de la respuesta es el valor de after para la
+         * pagina siguiente y no se envia en la ultima pagina.
+         * Validaciones:
+         * 1) Que limit este entre 1 y Pagina.LIMITE_MAXIMO. Si no se envia se usa Pagina.LIMITE_POR_DEFECTO.
+         * 2) Que after no sea negativo. Si no se envia se empieza desde el principio.
+         * */
+        int limite = limit == null ? Pagina.LIMITE_POR_DEFECTO : limit;
+        if (limite < 1 || limite > Pagina.LIMITE_MAXIMO) {
+            return Respuestas.LIMIT_INVALIDO;
+        }
+        int cursor = after == null ? 0 : after;
+        if (cursor < 0) {
+            return Respuestas.AFTER_NEGATIVO;
+        }
+        Pagina<CategoriaDTO> pagina = modelService.listarPagina(cursor, limite);
+        ApiResponse<Object> response = new ApiResponse<>(
+                200,
+                "OK",
+                pagina.getDatos(),
+                null,
+                pagina.getSiguienteCursor()
+        );
+        return ResponseEntity.ok().body(response);
+    }
 
+    @GetMapping("/categorias/export")
+    public ResponseEntity<StreamingResponseBody> exportar() {
+        /*
+         * Exporta todos los registros, incluidos los eliminados, como NDJSON (un objeto por linea).
+         * Las filas se leen de la bd con un cursor y se escriben a medida que llegan, por lo que
+         * la memoria usada no depende del tamaño de la tabla.
+         * */
+        StreamingResponseBody cuerpo = salida -> {
+            try (EscritorNdjson escritor = new EscritorNdjson(objectMapper, salida)) {
+                modelService.exportar(escritor);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(cuerpo);
     }
 
     @GetMapping("/categoria/{id}")
-    public ResponseEntity<?> getPorId(@PathVariable Integer id){
+    public ResponseEntity<?> getPorId(@PathVariable("id") String parametroId){
         /*
          * Validaciones:
          * 1) Que el id se haya enviado.
-         *   En caso que falle se ejecuta el @ExceptionHandler
+         *   En caso que falle responde el ManejadorGlobalExcepciones
          * 2) Que el id sea un entero.
-         *   En caso que falle se ejecuta el @ExceptionHandler
+         *   En caso que falle se retorna una badrequest
          * 3) Que exista una categoria con dicho id.
          *   Se realiza la busqueda del obj y si el mismo retorna null se devuelve el badrequest
          * 4) Que la categoria encontrada no este eliminada.
          *   Si se encuentra la categoria, y la misma esta elimianda se retorna un badrequest.
          * En caso de que pase todas las verificacioens devuelve el recurso encontrado.
          * */
+        Integer id = Enteros.parsear(parametroId);
+        if (id == null) {
+            return Respuestas.ID_INVALIDO;
+        }
 
-        try {
-            Categoria model = modelService.buscarPorId(id);
-
-            if (model == null) {
-                ApiResponse<Object> response = new ApiResponse<>(
-                        404,
-                        "Error: Not Found",
-                        null,
-                        "No se encontró la categoría con el ID."
-                );
-                return ResponseEntity.badRequest().body(response);
-            }
-
-            if (model.esEliminado()) {
-                ApiResponse<Object> response = new ApiResponse<>(
-                        400,
-                        "Error: Bad Request.",
-                        null,
-                        "No se puede traer un objeto que este eliminado."
-                );
-                return ResponseEntity.badRequest().body(response);
-            }
+        Categoria model = modelService.buscarPorId(id);
 
-            CategoriaDTO modelDTO = CategoriaMapper.toDTO(model);
-            ApiResponse<Object> response = new ApiResponse<>(
-                    200,
-                    "OK",
-                    modelDTO,
-                    null
-            );
-            return ResponseEntity.ok().body(response);
+        if (model == null) {
+            return NO_ENCONTRADO;
+        }
 
-        } catch (Exception e) {
-            ApiResponse<Object> response = new ApiResponse<>(
-                    400,
-                    "Error: Error inesperado.",
-                    null,
-                    ""+e
-            );
-            return ResponseEntity.badRequest().body(response);
+        if (model.esEliminado()) {
+            return ELIMINADO;
         }
 
-    }
-    // Manejador de excepciones para cuando el parámetro no es del tipo esperado (ej. no es un entero)
-    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
-    public ResponseEntity<?> handleTypeMismatch(MethodArgumentTypeMismatchException ex) {
-        // Creamos una respuesta en formato JSON con el error
-        String error = String.format("El parámetro '%s' debe ser un número entero válido.", ex.getName());
+        CategoriaDTO modelDTO = CategoriaMapper.toDTO(model);
         ApiResponse<Object> response = new ApiResponse<>(
-                400,
-                "Error de tipo de argumento",
-                null,
-                error
+                200,
+                "OK",
+                modelDTO,
+                null
         );
+        return ResponseEntity.ok().body(response);
 
-        return ResponseEntity.badRequest().body(response);
-    }
-}
+
+    }}
@@ -2,19 +2,29 @@ package com.tpi_pais.mega_store.products.controller.colorController;
 
 import com.tpi_pais.mega_store.utils.ApiResponse;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.ExceptionHandler;
-import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import com.tpi_pais.mega_store.products.dto.ResultadoEscrituraDTO;
+import com.tpi_pais.mega_store.products.dto.ResultadoItemDTO;
 import com.tpi_pais.mega_store.products.dto.ColorDTO;
-import com.tpi_pais.mega_store.products.model.Color;
 import com.tpi_pais.mega_store.products.service.IColorService;
-import com.tpi_pais.mega_store.utils.ExpresionesRegulares;
+import com.tpi_pais.mega_store.utils.NormalizadorNombre;
+import com.tpi_pais.mega_store.utils.Respuestas;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @CrossOrigin(origins = "http://localhost:5173")
 @RestController
 @RequestMapping("/products")
 public class PostColorController {
+    private static final int LOTE_MAXIMO = 1000;
+    private static final ResponseEntity<ApiResponse<Object>> SIN_NOMBRE =
+            Respuestas.badRequest("No se envio un nombre para la color.");
+    private static final ResponseEntity<ApiResponse<Object>> DUPLICADO =
+            Respuestas.badRequest("Ya existe una color con este nombre.");
+    private static final ResponseEntity<ApiResponse<Object>> LOTE_INVALIDO =
+            Respuestas.badRequest("Se debe enviar una lista de entre 1 y " + LOTE_MAXIMO + " elementos.");
+
     @Autowired
     private IColorService modelService;
 
@@ -23,7 +33,7 @@ public class PostColorController {
         /*
          * Validaciones:
          * 1) Que se haya enviado un ColorDTO
-         *   En caso que falle se ejecuta el @ExceptionHandler
+         *   En caso que falle responde el ManejadorGlobalExcepciones
          * 2) Que el dto enviado tenga un nombre distinto de null o ""
          *   En caso que falle se retorna una badrequest
          * 3) En caso de que contenga un nombre verifico si coincide con la expresion regular determinada.
@@ -35,90 +45,55 @@ public class PostColorController {
          * 4) Que no exista una color con el nombre.
          *
          * */
-        try {
-            if (model.noTieneNombre()) {
-                ApiResponse<Object> response = new ApiResponse<>(
-                        400,
-                        "Error: Bad Request.",
-                        null,
-                        "No se envio un nombre para la color."
-                );
-                return ResponseEntity.badRequest().body(response);
-            };
-            ExpresionesRegulares expReg = new ExpresionesRegulares();
-            if (!expReg.verificarCaracteres(model.getNombre())){
-                ApiResponse<Object> response = new ApiResponse<>(
-                        400,
-                        "Error: Bad Request.",
-                        null,
-                        "El nombre debe estar formado únicamente por letras y números."
-                );
-                return ResponseEntity.badRequest().body(response);
-            }
-            if (!expReg.verificarTextoConEspacios(model.getNombre())){
-                model.setNombre(expReg.corregirCadena(model.getNombre()));
-                if (model.getNombre() == ""){
-                    ApiResponse<Object> response = new ApiResponse<>(
-                            400,
-                            "Error: Bad Request.",
-                            null,
-                            "El nombre debe estar formado unicamente por letras y numeros."
-                    );
-                    return ResponseEntity.badRequest().body(response);
-                }
-            }
-            model.capitalizarNombre();
-            Color aux = modelService.buscarPorNombre(model.getNombre());
-            if (aux != null){
-                if (aux.esEliminado()){
-                    modelService.recuperar(aux);
-                    ApiResponse<Object> response = new ApiResponse<>(
-                            201,
-                            "Created.",
-                            aux,
-                            null
-                    );
-                    return ResponseEntity.ok().body(response);
-                } else {
-                    ApiResponse<Object> response = new ApiResponse<>(
-                            400,
-                            "Error: Bad Request.",
-                            null,
-                            "Ya existe una color con este nombre."
-                    );
-                    return ResponseEntity.badRequest().body(response);
-                }
-            } else {
-                ColorDTO modelGuardado = modelService.guardar(model);
-                ApiResponse<Object> response = new ApiResponse<>(
-                        201,
-                        "Created.",
-                        modelGuardado,
-                        null
-                );
-                return ResponseEntity.ok().body(response);
-            }
-        } catch (Exception e){
-            ApiResponse<Object> response = new ApiResponse<>(
-                    400,
-                    "Error: Error inesperado.",
-                    null,
-                    ""+e
-            );
-            return ResponseEntity.badRequest().body(response);
+        if (model.noTieneNombre()) {
+            return SIN_NOMBRE;
+        };
+        /*
+         * Validacion, correccion de espacios y capitalizacion del nombre en una sola pasada.
+         * */
+        String nombre = NormalizadorNombre.normalizar(model.getNombre());
+        if (nombre == null){
+            return Respuestas.nombreInvalido(model.getNombre());
         }
+        model.setNombre(nombre);
+        /*
+         * La validacion 4 y la recuperacion de un registro eliminado con el mismo nombre se
+         * resuelven en la bd con un unico INSERT ... ON CONFLICT.
+         * */
+        ResultadoEscrituraDTO<ColorDTO> resultado = modelService.crearORecuperar(model);
+        if (resultado.getEstado() == ResultadoEscrituraDTO.Estado.DUPLICADO){
+            return DUPLICADO;
+        }
+        ApiResponse<Object> response = new ApiResponse<>(
+                201,
+                "Created.",
+                resultado.getModelo(),
+                null
+        );
+        return ResponseEntity.ok().body(response);
     }
-    // Manejador de excepciones para cuando el parámetro no es del tipo esperado (ej. no es un entero)
-    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
-    public ResponseEntity<?> handleTypeMismatch(MethodArgumentTypeMismatchException ex) {
-        // Creamos una respuesta en formato JSON con el error
-        String error = String.format("El parámetro '%s' debe ser un DTO de Color valido.", ex.getName());
+
+    @PostMapping("/colores/batch")
+    public ResponseEntity<?> guardarLote(@RequestBody List<ColorDTO> modelos){
+        /*
+         * Alta de varios registros en una sola peticion.
+         * Validaciones:
+         * 1) Que se haya enviado una lista con entre 1 y LOTE_MAXIMO elementos.
+         *   En caso que falle se retorna una badrequest
+         * Cada nombre se valida y normaliza igual que en el alta individual. El resultado indica,
+         * para cada elemento del lote, si se creo, se recupero (estaba eliminado), estaba duplicado
+         * o era invalido.
+         * */
+        if (modelos == null || modelos.isEmpty() || modelos.size() > LOTE_MAXIMO) {
+            return LOTE_INVALIDO;
+        }
+        List<ResultadoItemDTO> resultados = modelService.guardarLote(modelos);
         ApiResponse<Object> response = new ApiResponse<>(
-                400,
-                "Error de tipo de argumento",
-                null,
-                error
+                200,
+                "OK.",
+                resultados,
+                null
         );
-        return ResponseEntity.badRequest().body(response);
+        return ResponseEntity.ok().body(response);
     }
 }
\ No newline at end of file
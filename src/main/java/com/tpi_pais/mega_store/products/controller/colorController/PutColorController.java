@@ -1,17 +1,39 @@
 package com.tpi_pais.mega_store.products.controller.colorController;
 import com.tpi_pais.mega_store.products.dto.ColorDTO;
-import com.tpi_pais.mega_store.products.model.Color;
+import com.tpi_pais.mega_store.products.dto.ResultadoEscrituraDTO;
+import com.tpi_pais.mega_store.products.dto.ResultadoMasivoDTO;
 import com.tpi_pais.mega_store.products.service.IColorService;
 import com.tpi_pais.mega_store.utils.ApiResponse;
-import com.tpi_pais.mega_store.utils.ExpresionesRegulares;
+import com.tpi_pais.mega_store.utils.Enteros;
+import com.tpi_pais.mega_store.utils.NormalizadorNombre;
+import com.tpi_pais.mega_store.utils.Respuestas;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+
+import java.util.List;
 @CrossOrigin(origins = "http://localhost:5173")
 @RestController
 @RequestMapping("/products")
 public class PutColorController {
+    private static final int LOTE_MAXIMO = 1000;
+    private static final ResponseEntity<ApiResponse<Object>> SIN_NOMBRE =
+            Respuestas.badRequest("La color debe tener un nombre.");
+    private static final ResponseEntity<ApiResponse<Object>> SIN_ID =
+            Respuestas.badRequest("La color a modificar debe tener un id distinto de 0.");
+    private static final ResponseEntity<ApiResponse<Object>> NO_ENCONTRADO =
+            Respuestas.notFound("El id no corresponde a ninguna color, se debe enviar el id de una color existente.");
+    private static final ResponseEntity<ApiResponse<Object>> ELIMINADO =
+            Respuestas.badRequest("La color no se puede modificar debido a que se encuentra eliminada.");
+    private static final ResponseEntity<ApiResponse<Object>> DUPLICADO =
+            Respuestas.badRequest("Ya existe una color con este nombre, no pueden haber 2 colors con el mismo nombre.");
+    private static final ResponseEntity<ApiResponse<Object>> RECUPERAR_NO_ENCONTRADO =
+            Respuestas.notFound("El id no corresponde a ninguna color, se debe enviar el id de una color existente..");
+    private static final ResponseEntity<ApiResponse<Object>> NO_ELIMINADO =
+            Respuestas.badRequest("La color ya no se encuentra eliminada, se debe enviar el id de una color eliminada.");
+    private static final ResponseEntity<ApiResponse<Object>> LOTE_IDS_INVALIDO =
+            Respuestas.badRequest("Se debe enviar una lista de entre 1 y " + LOTE_MAXIMO + " ids.");
+
     @Autowired
     private IColorService modelService;
 
@@ -20,7 +42,7 @@ public class PutColorController {
         /*
          * Validaciones:
          * 1) Que se haya enviado un ColorDTO
-         *   En caso que falle se ejecuta el @ExceptionHandler
+         *   En caso que falle responde el ManejadorGlobalExcepciones
          * 2) Que el dto enviado tenga un id distinto de null o 0
          *   En caso que falle se retorna una badrequest
          * 3) Que el id enviado corresponda a un objeto Color y que el mismo no este eliminado
@@ -37,156 +59,96 @@ public class PutColorController {
          *   En caso que falle se retorna una badrequest
          * */
 
-        try{
-            Color colorModificar = modelService.buscarPorId(model.getId());
-            if (colorModificar == null){
-                ApiResponse<Object> response = new ApiResponse<>(
-                        404,
-                        "Error: Not Found.",
-                        null,
-                        "El id no corresponde a ninguna color, se debe enviar el id de una color existente."
-                );
-                return ResponseEntity.badRequest().body(response);
-            } else {
-                if (colorModificar.esEliminado()){
-                    ApiResponse<Object> response = new ApiResponse<>(
-                            400,
-                            "Error: Bad Request.",
-                            null,
-                            "La color no se puede modificar debido a que se encuentra eliminada."
-                    );
-                    return ResponseEntity.badRequest().body(response);
-                }
-            }
-
-            if (model.noTieneNombre()) {
-                ApiResponse<Object> response = new ApiResponse<>(
-                        400,
-                        "Error: Bad Request.",
-                        null,
-                        "La color debe tener un nombre."
-                );
-                return ResponseEntity.badRequest().body(response);
-            };
-            ExpresionesRegulares expReg = new ExpresionesRegulares();
-            if (!expReg.verificarCaracteres(model.getNombre())){
-                ApiResponse<Object> response = new ApiResponse<>(
-                        400,
-                        "Error: Bad Request.",
-                        null,
-                        "El nombre debe estar formado únicamente por letras y números."
-                );
-                return ResponseEntity.badRequest().body(response);
-            }
-            if (!expReg.verificarTextoConEspacios(model.getNombre())){
-                model.setNombre(expReg.corregirCadena(model.getNombre()));
-                if (model.getNombre() == ""){
-                    ApiResponse<Object> response = new ApiResponse<>(
-                            400,
-                            "Error: Bad Request.",
-                            null,
-                            "El nombre debe estar formado unicamente por letras y numeros."
-                    );
-                    return ResponseEntity.badRequest().body(response);
-                }
-            }
-            model.capitalizarNombre();
-            Color aux = modelService.buscarPorNombre(model.getNombre());
-            if (aux != null){
-                ApiResponse<Object> response = new ApiResponse<>(
-                        400,
-                        "Error: Bad Request.",
-                        null,
-                        "Ya existe una color con este nombre, no pueden haber 2 colors con el mismo nombre."
-                );
-                return ResponseEntity.badRequest().body(response);
-            }
-            ColorDTO modelGuardado = modelService.guardar(model);
-            ApiResponse<Object> response = new ApiResponse<>(
-                    201,
-                    "Created.",
-                    modelGuardado,
-                    null
-            );
-            return ResponseEntity.ok().body(response);
-
-        }catch (Exception e){
-            ApiResponse<Object> response = new ApiResponse<>(
-                    400,
-                    "Error: Error inesperado.",
-                    null,
-                    ""+e
-            );
-            return ResponseEntity.badRequest().body(response);
+        if (model.getId() == null || model.getId() == 0) {
+            return SIN_ID;
         }
-
+        if (model.noTieneNombre()) {
+            return SIN_NOMBRE;
+        };
+        /*
+         * Validacion, correccion de espacios y capitalizacion del nombre en una sola pasada.
+         * */
+        String nombre = NormalizadorNombre.normalizar(model.getNombre());
+        if (nombre == null){
+            return Respuestas.nombreInvalido(model.getNombre());
+        }
+        model.setNombre(nombre);
+        /*
+         * Las validaciones 3 y 6 se resuelven en la bd con un unico UPDATE condicional,
+         * el estado devuelto indica cual fallo.
+         * */
+        ResultadoEscrituraDTO<ColorDTO> resultado = modelService.actualizar(model);
+        if (resultado.getEstado() == ResultadoEscrituraDTO.Estado.NO_ENCONTRADO){
+            return NO_ENCONTRADO;
+        }
+        if (resultado.getEstado() == ResultadoEscrituraDTO.Estado.ELIMINADO){
+            return ELIMINADO;
+        }
+        if (resultado.getEstado() == ResultadoEscrituraDTO.Estado.DUPLICADO){
+            return DUPLICADO;
+        }
+        ColorDTO modelGuardado = resultado.getModelo();
+        ApiResponse<Object> response = new ApiResponse<>(
+                201,
+                "Created.",
+                modelGuardado,
+                null
+        );
+        return ResponseEntity.ok().body(response);
     }
     @PutMapping("/color/recuperar/{id}")
-    public ResponseEntity<?> recuperar(@PathVariable Integer id) {
+    public ResponseEntity<?> recuperar(@PathVariable("id") String parametroId) {
         /*
          * Validaciones:
          * 1) Que el id se haya enviado.
-         *   En caso que falle se ejecuta el @ExceptionHandler
+         *   En caso que falle responde el ManejadorGlobalExcepciones
          * 2) Que el id sea un entero.
-         *   En caso que falle se ejecuta el @ExceptionHandler
+         *   En caso que falle se retorna una badrequest
          * 3) Que exista una color con dicho id.
          *   Se realiza la busqueda del obj y si el mismo retorna null se devuelve el badrequest
          * 4) Que la color encontrada este eliminada.
          *   Si se encuentra la color, y la misma no esta elimianda se retorna un badrequest.
          * En caso de que pase todas las verificacioens se cambia el la fechaEliminacion por el valor null.
          * */
-        try {
-            Color model = modelService.buscarPorId(id);
-            if (model == null) {
-                ApiResponse<Object> response = new ApiResponse<>(
-                        404,
-                        "Error: Not Found.",
-                        null,
-                        "El id no corresponde a ninguna color, se debe enviar el id de una color existente.."
-                );
-                return ResponseEntity.badRequest().body(response);
-            }
-            if (model.getFechaEliminacion() == null) {
-                ApiResponse<Object> response = new ApiResponse<>(
-                        400,
-                        "Error: Bad Request.",
-                        null,
-                        "La color ya no se encuentra eliminada, se debe enviar el id de una color eliminada."
-                );
-                return ResponseEntity.badRequest().body(response);
-            }
-            model.recuperar();
-            modelService.recuperar(model);
-            ApiResponse<Object> response = new ApiResponse<>(
-                    200,
-                    "OK.",
-                    model,
-                    null
-            );
-            return ResponseEntity.ok().body(response);
-        } catch (Exception e){
-            ApiResponse<Object> response = new ApiResponse<>(
-                    400,
-                    "Error: Error inesperado.",
-                    null,
-                    ""+e
-            );
-            return ResponseEntity.badRequest().body(response);
+        Integer id = Enteros.parsear(parametroId);
+        if (id == null) {
+            return Respuestas.ID_INVALIDO;
+        }
+        ResultadoEscrituraDTO<ColorDTO> resultado = modelService.recuperarPorId(id);
+        if (resultado.getEstado() == ResultadoEscrituraDTO.Estado.NO_ENCONTRADO) {
+            return RECUPERAR_NO_ENCONTRADO;
         }
+        if (resultado.getEstado() == ResultadoEscrituraDTO.Estado.NO_ELIMINADO) {
+            return NO_ELIMINADO;
+        }
+        ApiResponse<Object> response = new ApiResponse<>(
+                200,
+                "OK.",
+                resultado.getModelo(),
+                null
+        );
+        return ResponseEntity.ok().body(response);
     }
 
-    // Manejador de excepciones para cuando el parámetro no es del tipo esperado (ej. no es un entero)
-    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
-    public ResponseEntity<?> handleTypeMismatch(MethodArgumentTypeMismatchException ex) {
-        // Creamos una respuesta en formato JSON con el error
-        String error = String.format("El parámetro '%s' debe ser un número entero válido.", ex.getName());
+    @PutMapping("/colores/recuperar")
+    public ResponseEntity<?> recuperarLote(@RequestBody List<Integer> ids) {
+        /*
+         * Recuperacion masiva: se ejecuta un unico UPDATE para todos los ids.
+         * Validaciones:
+         * 1) Que se haya enviado una lista con entre 1 y LOTE_MAXIMO ids, ninguno null.
+         *   En caso que falle se retorna una badrequest
+         * La respuesta indica que ids se modificaron, cuales ya estaban en ese estado y cuales no existen.
+         * */
+        if (ids == null || ids.isEmpty() || ids.size() > LOTE_MAXIMO || ids.contains(null)) {
+            return LOTE_IDS_INVALIDO;
+        }
+        ResultadoMasivoDTO resultado = modelService.recuperarPorIds(ids);
         ApiResponse<Object> response = new ApiResponse<>(
-                400,
-                "Error de tipo de argumento",
-                null,
-                error
+                200,
+                "OK.",
+                resultado,
+                null
         );
-
-        return ResponseEntity.badRequest().body(response);
+        return ResponseEntity.ok().body(response);
     }
 }
@@ -0,0 +1,46 @@
+package com.tpi_pais.mega_store.products.controller.concurrenciaController;
+
+import com.tpi_pais.mega_store.config.EstadisticasConcurrencia;
+import com.tpi_pais.mega_store.config.LimitadorRepositoriosAspect;
+import com.tpi_pais.mega_store.config.MonitorPinning;
+import com.tpi_pais.mega_store.utils.ApiResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@CrossOrigin(origins = "http://localhost:5173")
+@RestController
+@RequestMapping("/products")
+public class GetConcurrenciaController {
+    @Autowired(required = false)
+    private LimitadorRepositoriosAspect limitadorRepositorios;
+    @Autowired(required = false)
+    private MonitorPinning monitorPinning;
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean hilosVirtuales;
+
+    @GetMapping("/concurrencia")
+    public ResponseEntity<?> getEstadisticas() {
+        /*
+         * Devuelve el estado del limitador de concurrencia de la bd (limite actual, operaciones en curso,
+         * en espera y rechazadas) y los eventos de pinning de hilos virtuales registrados.
+         * */
+        EstadisticasConcurrencia estadisticas = new EstadisticasConcurrencia(
+                hilosVirtuales,
+                limitadorRepositorios != null ? limitadorRepositorios.getLimitador().estadisticas() : null,
+                monitorPinning != null ? monitorPinning.getEventos() : 0,
+                monitorPinning != null ? monitorPinning.getDuracionTotalMs() : 0,
+                monitorPinning != null ? monitorPinning.getEventosPorOrigen() : Map.of()
+        );
+        ApiResponse<Object> response = new ApiResponse<>(
+                200,
+                "OK",
+                estadisticas,
+                null
+        );
+        return ResponseEntity.ok().body(response);
+    }
+}
@@ -0,0 +1,40 @@
+package com.tpi_pais.mega_store.products.controller.consultasController;
+
+import com.tpi_pais.mega_store.config.RegistroConsultas;
+import com.tpi_pais.mega_store.utils.ApiResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@CrossOrigin(origins = "http://localhost:5173")
+@RestController
+@RequestMapping("/products")
+public class DeleteConsultasController {
+    @Autowired(required = false)
+    private RegistroConsultas registroConsultas;
+
+    @DeleteMapping("/consultas")
+    public ResponseEntity<?> reiniciar() {
+        /*
+         * Pone en cero las estadisticas por metodo, para medir un escenario concreto.
+         * */
+        if (registroConsultas == null) {
+            ApiResponse<Object> response = new ApiResponse<>(
+                    404,
+                    "Error: Not Found.",
+                    null,
+                    "Las estadisticas de Hibernate estan deshabilitadas (megastore.hibernate.estadisticas.habilitado)."
+            );
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+        registroConsultas.reiniciar();
+        ApiResponse<Object> response = new ApiResponse<>(
+                200,
+                "OK",
+                null,
+                null
+        );
+        return ResponseEntity.ok().body(response);
+    }
+}
@@ -0,0 +1,42 @@
+package com.tpi_pais.mega_store.products.controller.consultasController;
+
+import com.tpi_pais.mega_store.config.RegistroConsultas;
+import com.tpi_pais.mega_store.utils.ApiResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@CrossOrigin(origins = "http://localhost:5173")
+@RestController
+@RequestMapping("/products")
+public class GetConsultasController {
+    @Autowired(required = false)
+    private RegistroConsultas registroConsultas;
+
+    @GetMapping("/consultas")
+    public ResponseEntity<?> getEstadisticas() {
+        /*
+         * Devuelve, por cada metodo de repositorio o de servicio, las invocaciones, el tiempo total y
+         * maximo, y lo que Hibernate ejecuto dentro: sentencias JDBC, consultas, filas devueltas,
+         * entidades cargadas y escritas, y consultas lentas (ver megastore.consultas.lentas-ms).
+         * Solo esta disponible con megastore.hibernate.estadisticas.habilitado=true.
+         * */
+        if (registroConsultas == null) {
+            ApiResponse<Object> response = new ApiResponse<>(
+                    404,
+                    "Error: Not Found.",
+                    null,
+                    "Las estadisticas de Hibernate estan deshabilitadas (megastore.hibernate.estadisticas.habilitado)."
+            );
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+        ApiResponse<Object> response = new ApiResponse<>(
+                200,
+                "OK",
+                registroConsultas.estadisticas(),
+                null
+        );
+        return ResponseEntity.ok().body(response);
+    }
+}
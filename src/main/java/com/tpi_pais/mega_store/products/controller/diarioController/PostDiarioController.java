@@ -0,0 +1,81 @@
+package com.tpi_pais.mega_store.products.controller.diarioController;
+
+import com.tpi_pais.mega_store.products.dto.MovimientoDiarioDTO;
+import com.tpi_pais.mega_store.products.dto.ResultadoEscrituraDTO;
+import com.tpi_pais.mega_store.products.model.MovimientoDiario;
+import com.tpi_pais.mega_store.products.service.IDiarioStockService;
+import com.tpi_pais.mega_store.utils.ApiResponse;
+import com.tpi_pais.mega_store.utils.Enteros;
+import com.tpi_pais.mega_store.utils.Respuestas;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Arrays;
+
+@CrossOrigin(origins = "http://localhost:5173")
+@RestController
+@RequestMapping("/products")
+public class PostDiarioController {
+    private static final ResponseEntity<ApiResponse<Object>> SIN_PRODUCTO =
+            Respuestas.badRequest("Se debe enviar el id del producto.");
+    private static final ResponseEntity<ApiResponse<Object>> CANTIDAD_INVALIDA =
+            Respuestas.badRequest("Se debe enviar una cantidad mayor a 0.");
+    private static final ResponseEntity<ApiResponse<Object>> TIPO_INVALIDO =
+            Respuestas.badRequest("El tipo del movimiento debe ser uno de " + Arrays.stream(MovimientoDiario.Tipo.values())
+                    .filter(MovimientoDiario.Tipo::esManual).map(Enum::name).toList() + ".");
+    private static final ResponseEntity<ApiResponse<Object>> REFERENCIA_INVALIDA =
+            Respuestas.badRequest("La sucursal o el producto no existen o se encuentran eliminados.");
+
+    @Autowired
+    private IDiarioStockService modelService;
+
+    @PostMapping("/sucursal/{sucursalId}/movimiento")
+    public ResponseEntity<?> registrar(@PathVariable("sucursalId") String parametroSucursal,
+                                       @RequestBody MovimientoDiarioDTO model) {
+        /*
+         * Registra un movimiento manual en el diario de stock de la sucursal: una devolucion de un
+         * cliente, que vuelve al stock de la sucursal en la misma sentencia que registra el movimiento.
+         * Se responde recien cuando el movimiento quedo guardado en la bd (ver DiarioStockService).
+         * Las ventas, reposiciones, reservas y transferencias las registra el servicio que cambia el
+         * stock, no este endpoint.
+         * Validaciones:
+         * 1) Que el id de la sucursal sea un entero.
+         *   En caso que falle se retorna una badrequest
+         * 2) Que se haya enviado el id del producto, un tipo manual (sin importar mayusculas ni
+         *   espacios) y una cantidad mayor a 0.
+         *   En caso que falle se retorna una badrequest
+         * 3) Que la sucursal y el producto existan y no esten eliminados.
+         *   Se verifica en la bd en la misma sentencia que devuelve el stock e inserta el movimiento.
+         * Si hay demasiados movimientos pendientes o falla la escritura se responde 503.
+         * */
+        Integer sucursalId = Enteros.parsear(parametroSucursal);
+        if (sucursalId == null) {
+            return Respuestas.ID_INVALIDO;
+        }
+        if (model.noTieneProducto()) {
+            return SIN_PRODUCTO;
+        }
+        if (model.getTipo() != null) {
+            model.setTipo(model.getTipo().trim().toUpperCase());
+        }
+        if (model.tipoInvalido()) {
+            return TIPO_INVALIDO;
+        }
+        if (model.cantidadInvalida()) {
+            return CANTIDAD_INVALIDA;
+        }
+        model.setSucursalId(sucursalId);
+        ResultadoEscrituraDTO<MovimientoDiarioDTO> resultado = modelService.registrar(model);
+        if (resultado.getEstado() == ResultadoEscrituraDTO.Estado.REFERENCIA_INVALIDA) {
+            return REFERENCIA_INVALIDA;
+        }
+        ApiResponse<Object> response = new ApiResponse<>(
+                201,
+                "Created.",
+                resultado.getModelo(),
+                null
+        );
+        return ResponseEntity.ok().body(response);
+    }
+}
@@ -1,95 +1,101 @@
 package com.tpi_pais.mega_store.products.controller.marcaController;
 
-import com.tpi_pais.mega_store.products.model.Marca;
+import com.tpi_pais.mega_store.products.dto.MarcaDTO;
+import com.tpi_pais.mega_store.products.dto.ResultadoEscrituraDTO;
+import com.tpi_pais.mega_store.products.dto.ResultadoMasivoDTO;
 import com.tpi_pais.mega_store.products.service.IMarcaService;
 import com.tpi_pais.mega_store.utils.ApiResponse;
+import com.tpi_pais.mega_store.utils.Enteros;
+import com.tpi_pais.mega_store.utils.Respuestas;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+
+import java.util.List;
 @CrossOrigin(origins = "http://localhost:5173")
 @RestController
 @RequestMapping("/products")
 
 public class DeleteMarcaController {
+    private static final int LOTE_MAXIMO = 1000;
+    private static final ResponseEntity<ApiResponse<Object>> NO_ENCONTRADO =
+            Respuestas.notFound("El id no corresponde a ninguna marca, se debe enviar el id de una marca existente.");
+    private static final ResponseEntity<ApiResponse<Object>> ELIMINADO =
+            Respuestas.badRequest("La marca ya se encuentra eliminada, se debe enviar el id de una marca no eliminada.");
+    private static final ResponseEntity<ApiResponse<Object>> LOTE_IDS_INVALIDO =
+            Respuestas.badRequest("Se debe enviar una lista de entre 1 y " + LOTE_MAXIMO + " ids.");
+    private static final ResponseEntity<ApiResponse<Object>> EN_USO =
+            Respuestas.badRequest("La marca no se puede eliminar porque hay productos que la usan, se debe modificar o eliminar esos productos antes.");
+
     @Autowired
     private IMarcaService modelService;
 
     @DeleteMapping("/marca/{id}")
-    public ResponseEntity<?> eliminar(@PathVariable Integer id) {
+    public ResponseEntity<?> eliminar(@PathVariable("id") String parametroId) {
         /*
          * Validaciones:
          * 1) Que el id se haya enviado.
-         *   En caso que falle se ejecuta el @ExceptionHandler
+         *   En caso que falle responde el ManejadorGlobalExcepciones
          * 2) Que el id sea un entero.
-         *   En caso que falle se ejecuta el @ExceptionHandler
+         *   En caso que falle se retorna una badrequest
          * 3) Que exista una categoria con dicho id.
          *   Se realiza la busqueda del obj y si el mismo retorna null se devuelve el badrequest
          * 4) Que la categoria encontrada no este eliminada.
          *   Si se encuentra la categoria, y la misma esta elimianda se retorna un badrequest.
+         * 5) Que la marca no tenga productos no eliminados que la usen.
+         *   Se consulta el contador de referencias_catalogo con el registro bloqueado, asi un alta o
+         *   modificacion de producto concurrente no puede empezar a usarla mientras tanto.
+         *   Si esta en uso se retorna un badrequest.
          * En caso de que pase todas las verificacioens se cambia el la fechaEliminacion por el valor actual de tiempo.
          * Validaciones Futuras:
-         * 1) Que la categoria que no tenga asociado ningun producto para poder eliminarlo.
-         * 2) Fixear, la exp reg debe recibir cualquier caracter no solo letras
-         * 3) Ademas si la exp falla debe poder resolverlo, por ejemplo si hay espacios
+         * 1) Fixear, la exp reg debe recibir cualquier caracter no solo letras
+         * 2) Ademas si la exp falla debe poder resolverlo, por ejemplo si hay espacios
          * demas los debe quitar.
          * */
-        try {
-            Marca model = modelService.buscarPorId(id);
-            if (model == null) {
-                ApiResponse<Object> response = new ApiResponse<>(
-                        404,
-                        "Error: Not Found.",
-                        null,
-                        "El id no corresponde a ninguna marca, se debe enviar el id de una marca existente."
-                );
-                return ResponseEntity.badRequest().body(response);
-            }
-            if (model.getFechaEliminacion() != null) {
-                ApiResponse<Object> response = new ApiResponse<>(
-                        400,
-                        "Error: Bad Request.",
-                        null,
-                        "La marca ya se encuentra eliminada, se debe enviar el id de una marca no eliminada."
-                );
-                return ResponseEntity.badRequest().body(response);
-            }
-            //Queda pendiente la validacion de si esta asociada algun producto no se puede eliminar
-
-            model.eliminar();
-            modelService.eliminar(model);
-            ApiResponse<Object> response = new ApiResponse<>(
-                    200,
-                    "OK.",
-                    model,
-                    null
-            );
-            return ResponseEntity.ok().body(response);
-        } catch (Exception e){
-            ApiResponse<Object> response = new ApiResponse<>(
-                    400,
-                    "Error: Error inesperado.",
-                    null,
-                    ""+e
-            );
-            return ResponseEntity.badRequest().body(response);
+        Integer id = Enteros.parsear(parametroId);
+        if (id == null) {
+            return Respuestas.ID_INVALIDO;
         }
-
+        ResultadoEscrituraDTO<MarcaDTO> resultado = modelService.eliminarPorId(id);
+        if (resultado.getEstado() == ResultadoEscrituraDTO.Estado.NO_ENCONTRADO) {
+            return NO_ENCONTRADO;
+        }
+        if (resultado.getEstado() == ResultadoEscrituraDTO.Estado.ELIMINADO) {
+            return ELIMINADO;
+        }
+        if (resultado.getEstado() == ResultadoEscrituraDTO.Estado.EN_USO) {
+            return EN_USO;
+        }
+        ApiResponse<Object> response = new ApiResponse<>(
+                200,
+                "OK.",
+                resultado.getModelo(),
+                null
+        );
+        return ResponseEntity.ok().body(response);
     }
 
 
-    // Manejador de excepciones para cuando el parámetro no es del tipo esperado (ej. no es un entero)
-    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
-    public ResponseEntity<?> handleTypeMismatch(MethodArgumentTypeMismatchException ex) {
-        // Creamos una respuesta en formato JSON con el error
-        String error = String.format("El parámetro '%s' debe ser un número entero válido.", ex.getName());
+    @PutMapping("/marcas/eliminar")
+    public ResponseEntity<?> eliminarLote(@RequestBody List<Integer> ids) {
+        /*
+         * Baja logica masiva: se ejecuta un unico UPDATE para todos los ids.
+         * Validaciones:
+         * 1) Que se haya enviado una lista con entre 1 y LOTE_MAXIMO ids, ninguno null.
+         *   En caso que falle se retorna una badrequest
+         * La respuesta indica que ids se modificaron, cuales ya estaban en ese estado, cuales no existen
+         * y cuales no se eliminaron porque hay productos que los usan (enUso).
+         * */
+        if (ids == null || ids.isEmpty() || ids.size() > LOTE_MAXIMO || ids.contains(null)) {
+            return LOTE_IDS_INVALIDO;
+        }
+        ResultadoMasivoDTO resultado = modelService.eliminarPorIds(ids);
         ApiResponse<Object> response = new ApiResponse<>(
-                400,
-                "Error de tipo de argumento",
-                null,
-                error
+                200,
+                "OK.",
+                resultado,
+                null
         );
-
-        return ResponseEntity.badRequest().body(response);
+        return ResponseEntity.ok().body(response);
     }
 }
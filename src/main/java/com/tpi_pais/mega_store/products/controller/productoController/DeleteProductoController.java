@@ -0,0 +1,54 @@
+package com.tpi_pais.mega_store.products.controller.productoController;
+
+import com.tpi_pais.mega_store.products.dto.ProductoDTO;
+import com.tpi_pais.mega_store.products.dto.ResultadoEscrituraDTO;
+import com.tpi_pais.mega_store.products.service.IProductoService;
+import com.tpi_pais.mega_store.utils.ApiResponse;
+import com.tpi_pais.mega_store.utils.Enteros;
+import com.tpi_pais.mega_store.utils.Respuestas;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@CrossOrigin(origins = "http://localhost:5173")
+@RestController
+@RequestMapping("/products")
+public class DeleteProductoController {
+    private static final ResponseEntity<ApiResponse<Object>> NO_ENCONTRADO =
+            Respuestas.notFound("El id no corresponde a ningun producto, se debe enviar el id de un producto existente.");
+    private static final ResponseEntity<ApiResponse<Object>> ELIMINADO =
+            Respuestas.badRequest("El producto ya se encuentra eliminado, se debe enviar el id de un producto no eliminado.");
+
+    @Autowired
+    private IProductoService modelService;
+
+    @DeleteMapping("/producto/{id}")
+    public ResponseEntity<?> eliminar(@PathVariable("id") String parametroId) {
+        /*
+         * Validaciones:
+         * 1) Que el id sea un entero.
+         *   En caso que falle se retorna una badrequest
+         * 2) Que exista un producto con dicho id y que no este eliminado.
+         *   Se verifica en la bd con un unico UPDATE condicional.
+         * En caso de que pase todas las verificaciones se cambia la fechaEliminacion por el valor actual de tiempo.
+         * */
+        Integer id = Enteros.parsear(parametroId);
+        if (id == null) {
+            return Respuestas.ID_INVALIDO;
+        }
+        ResultadoEscrituraDTO<ProductoDTO> resultado = modelService.eliminarPorId(id);
+        if (resultado.getEstado() == ResultadoEscrituraDTO.Estado.NO_ENCONTRADO) {
+            return NO_ENCONTRADO;
+        }
+        if (resultado.getEstado() == ResultadoEscrituraDTO.Estado.ELIMINADO) {
+            return ELIMINADO;
+        }
+        ApiResponse<Object> response = new ApiResponse<>(
+                200,
+                "OK.",
+                resultado.getModelo(),
+                null
+        );
+        return ResponseEntity.ok().body(response);
+    }
+}
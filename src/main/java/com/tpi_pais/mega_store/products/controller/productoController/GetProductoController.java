@@ -0,0 +1,121 @@
+package com.tpi_pais.mega_store.products.controller.productoController;
+
+import com.tpi_pais.mega_store.products.dto.ProductoDTO;
+import com.tpi_pais.mega_store.products.dto.ProductosFiltradosDTO;
+import com.tpi_pais.mega_store.products.mapper.ProductoMapper;
+import com.tpi_pais.mega_store.products.model.Producto;
+import com.tpi_pais.mega_store.products.service.IProductoService;
+import com.tpi_pais.mega_store.utils.ApiResponse;
+import com.tpi_pais.mega_store.utils.Enteros;
+import com.tpi_pais.mega_store.utils.Pagina;
+import com.tpi_pais.mega_store.utils.Respuestas;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+@CrossOrigin(origins = "http://localhost:5173")
+@RestController
+@RequestMapping("/products")
+public class GetProductoController {
+    private static final ResponseEntity<ApiResponse<Object>> NO_ENCONTRADO =
+            Respuestas.error(404, "Error: Not Found", "No se encontró el producto con el ID.");
+    private static final ResponseEntity<ApiResponse<Object>> ELIMINADO =
+            Respuestas.badRequest("No se puede traer un objeto que este eliminado.");
+
+    @Autowired
+    private IProductoService modelService;
+
+    @GetMapping("/productos")
+    public ResponseEntity<?> filtrar(@RequestParam(required = false) List<Integer> marca,
+                                     @RequestParam(required = false) List<Integer> categoria,
+                                     @RequestParam(required = false) List<Integer> color,
+                                     @RequestParam(required = false) List<Integer> talle,
+                                     @RequestParam(required = false) Integer limit,
+                                     @RequestParam(required = false) Integer after) {
+        /*
+         * Listado de productos filtrado por facetas, por ejemplo
+         * /productos?marca=1,2&talle=3&color=5 devuelve los productos de la marca 1 o 2, talle 3 y
+         * color 5. Cada parametro acepta uno o varios ids (separados por coma o repitiendo el
+         * parametro); sin parametros se listan todos los productos no eliminados.
+         * La respuesta trae el total, la pagina pedida y, para cada faceta, cuantos productos hay
+         * de cada id con los filtros de las demas facetas.
+         * Se pagina por keyset igual que los catalogos: nextCursor es el valor de after para la
+         * pagina siguiente y no se envia en la ultima pagina.
+         * Validaciones:
+         * 1) Que los ids de las facetas sean enteros.
+         *   En caso que falle responde el ManejadorGlobalExcepciones
+         * 2) Que limit este entre 1 y Pagina.LIMITE_MAXIMO. Si no se envia se usa Pagina.LIMITE_POR_DEFECTO.
+         * 3) Que after no sea negativo. Si no se envia se empieza desde el principio.
+         * */
+        int limite = limit == null ? Pagina.LIMITE_POR_DEFECTO : limit;
+        if (limite < 1 || limite > Pagina.LIMITE_MAXIMO) {
+            return Respuestas.LIMIT_INVALIDO;
+        }
+        int cursor = after == null ? 0 : after;
+        if (cursor < 0) {
+            return Respuestas.AFTER_NEGATIVO;
+        }
+        ProductosFiltradosDTO resultado = modelService.filtrar(marca, categoria, color, talle, cursor, limite);
+        ApiResponse<Object> response = new ApiResponse<>(
+                200,
+                "OK",
+                resultado,
+                null,
+                resultado.getSiguienteCursor()
+        );
+        return ResponseEntity.ok().body(response);
+    }
+
+    @GetMapping("/productos/indice")
+    public ResponseEntity<?> getEstadisticasIndice() {
+        /*
+         * Devuelve el estado del indice de facetas: si ya se cargo, cuantos productos tiene y
+         * cuanta memoria ocupan los bitmaps.
+         * */
+        ApiResponse<Object> response = new ApiResponse<>(
+                200,
+                "OK",
+                modelService.estadisticasIndice(),
+                null
+        );
+        return ResponseEntity.ok().body(response);
+    }
+
+    @GetMapping("/producto/{id}")
+    public ResponseEntity<?> getPorId(@PathVariable("id") String parametroId){
+        /*
+         * Validaciones:
+         * 1) Que el id sea un entero.
+         *   En caso que falle se retorna una badrequest
+         * 2) Que exista un producto con dicho id.
+         *   Se realiza la busqueda del obj y si el mismo retorna null se devuelve el badrequest
+         * 3) Que el producto encontrado no este eliminado.
+         *   Si se encuentra el producto, y el mismo esta eliminado se retorna un badrequest.
+         * En caso de que pase todas las verificaciones devuelve el recurso encontrado.
+         * */
+        Integer id = Enteros.parsear(parametroId);
+        if (id == null) {
+            return Respuestas.ID_INVALIDO;
+        }
+
+        Producto model = modelService.buscarPorId(id);
+
+        if (model == null) {
+            return NO_ENCONTRADO;
+        }
+
+        if (model.esEliminado()) {
+            return ELIMINADO;
+        }
+
+        ProductoDTO modelDTO = ProductoMapper.toDTO(model);
+        ApiResponse<Object> response = new ApiResponse<>(
+                200,
+                "OK",
+                modelDTO,
+                null
+        );
+        return ResponseEntity.ok().body(response);
+    }
+}
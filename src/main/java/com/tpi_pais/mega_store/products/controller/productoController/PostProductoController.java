@@ -0,0 +1,96 @@
+package com.tpi_pais.mega_store.products.controller.productoController;
+
+import com.tpi_pais.mega_store.products.dto.ProductoDTO;
+import com.tpi_pais.mega_store.products.dto.ResultadoEscrituraDTO;
+import com.tpi_pais.mega_store.products.service.IProductoService;
+import com.tpi_pais.mega_store.utils.ApiResponse;
+import com.tpi_pais.mega_store.utils.NormalizadorNombre;
+import com.tpi_pais.mega_store.utils.Respuestas;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+@CrossOrigin(origins = "http://localhost:5173")
+@RestController
+@RequestMapping("/products")
+public class PostProductoController {
+    private static final ResponseEntity<ApiResponse<Object>> SIN_NOMBRE =
+            Respuestas.badRequest("No se envio un nombre para el producto.");
+    private static final ResponseEntity<ApiResponse<Object>> PRECIO_INVALIDO =
+            Respuestas.badRequest("Se debe enviar el precio del producto y no puede ser negativo.");
+    // Por catalogo referenciado (ProductoDTO.referenciaFaltante y el estado REFERENCIA_INVALIDA)
+    private static final Map<String, ResponseEntity<ApiResponse<Object>>> REFERENCIA_FALTANTE = Map.of(
+            "marca", Respuestas.badRequest("Se debe enviar el id de la marca del producto."),
+            "categoria", Respuestas.badRequest("Se debe enviar el id de la categoria del producto."),
+            "color", Respuestas.badRequest("Se debe enviar el id del color del producto."),
+            "talle", Respuestas.badRequest("Se debe enviar el id del talle del producto."));
+    private static final Map<String, ResponseEntity<ApiResponse<Object>>> REFERENCIA_INVALIDA = Map.of(
+            "marca", Respuestas.badRequest("La marca enviada no existe o se encuentra eliminada."),
+            "categoria", Respuestas.badRequest("La categoria enviada no existe o se encuentra eliminada."),
+            "color", Respuestas.badRequest("El color enviado no existe o se encuentra eliminado."),
+            "talle", Respuestas.badRequest("El talle enviado no existe o se encuentra eliminado."));
+
+    @Autowired
+    private IProductoService modelService;
+
+    @PostMapping("/producto")
+    public ResponseEntity<?> guardar(@RequestBody ProductoDTO model){
+        /*
+         * Validaciones:
+         * 1) Que se haya enviado un ProductoDTO
+         *   En caso que falle responde el ManejadorGlobalExcepciones
+         * 2) Que el dto enviado tenga un nombre valido, igual que los catalogos.
+         *   En caso que falle se retorna una badrequest
+         * 3) Que tenga un precio y no sea negativo.
+         *   En caso que falle se retorna una badrequest
+         * 4) Que tenga los ids de la marca, la categoria, el color y el talle.
+         *   En caso que falle se retorna una badrequest
+         * 5) Que la marca, la categoria, el color y el talle existan y no esten eliminados.
+         *   Se verifica en la bd en la misma sentencia del alta.
+         * */
+        if (model.noTieneNombre()) {
+            return SIN_NOMBRE;
+        }
+        String nombre = NormalizadorNombre.normalizar(model.getNombre());
+        if (nombre == null){
+            return Respuestas.nombreInvalido(model.getNombre());
+        }
+        model.setNombre(nombre);
+        if (model.precioInvalido()) {
+            return PRECIO_INVALIDO;
+        }
+        String faltante = model.referenciaFaltante();
+        if (faltante != null) {
+            return REFERENCIA_FALTANTE.get(faltante);
+        }
+        ResultadoEscrituraDTO<ProductoDTO> resultado = modelService.crear(model);
+        if (resultado.getEstado() == ResultadoEscrituraDTO.Estado.REFERENCIA_INVALIDA){
+            return REFERENCIA_INVALIDA.get(resultado.getReferencia());
+        }
+        ApiResponse<Object> response = new ApiResponse<>(
+                201,
+                "Created.",
+                resultado.getModelo(),
+                null
+        );
+        return ResponseEntity.ok().body(response);
+    }
+
+    @PostMapping("/productos/referencias/reconstruir")
+    public ResponseEntity<?> reconstruirReferencias() {
+        /*
+         * Recalcula los contadores de productos por catalogo que usan las bajas de marcas, categorias,
+         * colores y talles. Solo hace falta si se modificaron productos por fuera de la aplicacion o al
+         * crear la tabla referencias_catalogo sobre una bd con productos.
+         * */
+        int enUso = modelService.reconstruirReferencias();
+        ApiResponse<Object> response = new ApiResponse<>(
+                200,
+                "OK.",
+                Map.of("enUso", enUso),
+                null
+        );
+        return ResponseEntity.ok().body(response);
+    }
+}
@@ -0,0 +1,136 @@
+package com.tpi_pais.mega_store.products.controller.productoController;
+
+import com.tpi_pais.mega_store.products.dto.ProductoDTO;
+import com.tpi_pais.mega_store.products.dto.ResultadoEscrituraDTO;
+import com.tpi_pais.mega_store.products.service.IProductoService;
+import com.tpi_pais.mega_store.utils.ApiResponse;
+import com.tpi_pais.mega_store.utils.Enteros;
+import com.tpi_pais.mega_store.utils.NormalizadorNombre;
+import com.tpi_pais.mega_store.utils.Respuestas;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+@CrossOrigin(origins = "http://localhost:5173")
+@RestController
+@RequestMapping("/products")
+public class PutProductoController {
+    private static final ResponseEntity<ApiResponse<Object>> SIN_ID =
+            Respuestas.badRequest("Se debe enviar el id del producto a modificar.");
+    private static final ResponseEntity<ApiResponse<Object>> SIN_NOMBRE =
+            Respuestas.badRequest("El producto debe tener un nombre.");
+    private static final ResponseEntity<ApiResponse<Object>> PRECIO_INVALIDO =
+            Respuestas.badRequest("Se debe enviar el precio del producto y no puede ser negativo.");
+    private static final ResponseEntity<ApiResponse<Object>> NO_ENCONTRADO =
+            Respuestas.notFound("El id no corresponde a ningun producto, se debe enviar el id de un producto existente.");
+    private static final ResponseEntity<ApiResponse<Object>> ELIMINADO =
+            Respuestas.badRequest("El producto no se puede modificar debido a que se encuentra eliminado.");
+    private static final ResponseEntity<ApiResponse<Object>> NO_ELIMINADO =
+            Respuestas.badRequest("El producto ya no se encuentra eliminado, se debe enviar el id de un producto eliminado.");
+    // Por catalogo referenciado (ProductoDTO.referenciaFaltante y el estado REFERENCIA_INVALIDA)
+    private static final Map<String, ResponseEntity<ApiResponse<Object>>> REFERENCIA_FALTANTE = Map.of(
+            "marca", Respuestas.badRequest("Se debe enviar el id de la marca del producto."),
+            "categoria", Respuestas.badRequest("Se debe enviar el id de la categoria del producto."),
+            "color", Respuestas.badRequest("Se debe enviar el id del color del producto."),
+            "talle", Respuestas.badRequest("Se debe enviar el id del talle del producto."));
+    private static final Map<String, ResponseEntity<ApiResponse<Object>>> REFERENCIA_INVALIDA = Map.of(
+            "marca", Respuestas.badRequest("La marca enviada no existe o se encuentra eliminada."),
+            "categoria", Respuestas.badRequest("La categoria enviada no existe o se encuentra eliminada."),
+            "color", Respuestas.badRequest("El color enviado no existe o se encuentra eliminado."),
+            "talle", Respuestas.badRequest("El talle enviado no existe o se encuentra eliminado."));
+    private static final Map<String, ResponseEntity<ApiResponse<Object>>> REFERENCIA_ELIMINADA = Map.of(
+            "marca", Respuestas.badRequest("La marca del producto se encuentra eliminada, se debe recuperar antes."),
+            "categoria", Respuestas.badRequest("La categoria del producto se encuentra eliminada, se debe recuperar antes."),
+            "color", Respuestas.badRequest("El color del producto se encuentra eliminado, se debe recuperar antes."),
+            "talle", Respuestas.badRequest("El talle del producto se encuentra eliminado, se debe recuperar antes."));
+
+    @Autowired
+    private IProductoService modelService;
+
+    @PutMapping("/producto")
+    public ResponseEntity<?> actualizar(@RequestBody ProductoDTO model){
+        /*
+         * Validaciones:
+         * 1) Que se haya enviado un ProductoDTO con id.
+         *   En caso que falle se retorna una badrequest
+         * 2) Que tenga un nombre valido, un precio no negativo y los ids de la marca, la categoria,
+         *   el color y el talle, igual que en el alta.
+         *   En caso que falle se retorna una badrequest
+         * 3) Que el producto exista y no este eliminado, y que los catalogos referenciados existan
+         *   y no esten eliminados.
+         *   Se verifica en la bd con un unico UPDATE condicional, el estado devuelto indica cual fallo.
+         * */
+        if (model.getId() == null) {
+            return SIN_ID;
+        }
+        if (model.noTieneNombre()) {
+            return SIN_NOMBRE;
+        }
+        String nombre = NormalizadorNombre.normalizar(model.getNombre());
+        if (nombre == null){
+            return Respuestas.nombreInvalido(model.getNombre());
+        }
+        model.setNombre(nombre);
+        if (model.precioInvalido()) {
+            return PRECIO_INVALIDO;
+        }
+        String faltante = model.referenciaFaltante();
+        if (faltante != null) {
+            return REFERENCIA_FALTANTE.get(faltante);
+        }
+        ResultadoEscrituraDTO<ProductoDTO> resultado = modelService.actualizar(model);
+        if (resultado.getEstado() == ResultadoEscrituraDTO.Estado.NO_ENCONTRADO){
+            return NO_ENCONTRADO;
+        }
+        if (resultado.getEstado() == ResultadoEscrituraDTO.Estado.ELIMINADO){
+            return ELIMINADO;
+        }
+        if (resultado.getEstado() == ResultadoEscrituraDTO.Estado.REFERENCIA_INVALIDA){
+            return REFERENCIA_INVALIDA.get(resultado.getReferencia());
+        }
+        ApiResponse<Object> response = new ApiResponse<>(
+                201,
+                "Created.",
+                resultado.getModelo(),
+                null
+        );
+        return ResponseEntity.ok().body(response);
+    }
+
+    @PutMapping("/producto/recuperar/{id}")
+    public ResponseEntity<?> recuperar(@PathVariable("id") String parametroId) {
+        /*
+         * Validaciones:
+         * 1) Que el id sea un entero.
+         *   En caso que falle se retorna una badrequest
+         * 2) Que exista un producto con dicho id y que este eliminado.
+         *   Se verifica en la bd con un unico UPDATE condicional.
+         * 3) Que su marca, categoria, color y talle no esten eliminados (mientras el producto estaba
+         *   eliminado no contaba como uso del catalogo, asi que se pudieron eliminar).
+         *   En caso que falle se retorna una badrequest indicando cual.
+         * En caso de que pase todas las verificaciones se cambia la fechaEliminacion por el valor null.
+         * */
+        Integer id = Enteros.parsear(parametroId);
+        if (id == null) {
+            return Respuestas.ID_INVALIDO;
+        }
+        ResultadoEscrituraDTO<ProductoDTO> resultado = modelService.recuperarPorId(id);
+        if (resultado.getEstado() == ResultadoEscrituraDTO.Estado.NO_ENCONTRADO) {
+            return NO_ENCONTRADO;
+        }
+        if (resultado.getEstado() == ResultadoEscrituraDTO.Estado.NO_ELIMINADO) {
+            return NO_ELIMINADO;
+        }
+        if (resultado.getEstado() == ResultadoEscrituraDTO.Estado.REFERENCIA_INVALIDA) {
+            return REFERENCIA_ELIMINADA.get(resultado.getReferencia());
+        }
+        ApiResponse<Object> response = new ApiResponse<>(
+                200,
+                "OK.",
+                resultado.getModelo(),
+                null
+        );
+        return ResponseEntity.ok().body(response);
+    }
+}
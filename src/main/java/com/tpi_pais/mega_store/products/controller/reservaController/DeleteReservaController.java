@@ -0,0 +1,50 @@
+package com.tpi_pais.mega_store.products.controller.reservaController;
+
+import com.tpi_pais.mega_store.products.dto.ResultadoEscrituraDTO;
+import com.tpi_pais.mega_store.products.service.IReservaService;
+import com.tpi_pais.mega_store.utils.ApiResponse;
+import com.tpi_pais.mega_store.utils.Enteros;
+import com.tpi_pais.mega_store.utils.Respuestas;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@CrossOrigin(origins = "http://localhost:5173")
+@RestController
+@RequestMapping("/products")
+public class DeleteReservaController {
+    private static final ResponseEntity<ApiResponse<Object>> NO_ENCONTRADO =
+            Respuestas.notFound("La reserva no existe en la sucursal o ya vencio.");
+
+    @Autowired
+    private IReservaService modelService;
+
+    @DeleteMapping("/sucursal/{sucursalId}/reserva/{id}")
+    public ResponseEntity<?> cancelar(@PathVariable("sucursalId") String parametroSucursal,
+                                      @PathVariable("id") String parametroId) {
+        /*
+         * Cancela la reserva y devuelve su stock a la sucursal.
+         * Validaciones:
+         * 1) Que los ids sean enteros.
+         *   En caso que falle se retorna una badrequest
+         * 2) Que la reserva exista en la sucursal.
+         *   En caso que falle se retorna un notfound
+         * */
+        Integer sucursalId = Enteros.parsear(parametroSucursal);
+        Integer id = Enteros.parsear(parametroId);
+        if (sucursalId == null || id == null) {
+            return Respuestas.ID_INVALIDO;
+        }
+        ResultadoEscrituraDTO<Integer> resultado = modelService.cancelar(sucursalId, id);
+        if (resultado.getEstado() == ResultadoEscrituraDTO.Estado.NO_ENCONTRADO) {
+            return NO_ENCONTRADO;
+        }
+        ApiResponse<Object> response = new ApiResponse<>(
+                200,
+                "OK.",
+                resultado.getModelo(),
+                null
+        );
+        return ResponseEntity.ok().body(response);
+    }
+}
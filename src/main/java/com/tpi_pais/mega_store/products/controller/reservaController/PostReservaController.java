@@ -0,0 +1,94 @@
+package com.tpi_pais.mega_store.products.controller.reservaController;
+
+import com.tpi_pais.mega_store.products.dto.ReservaDTO;
+import com.tpi_pais.mega_store.products.dto.ResultadoEscrituraDTO;
+import com.tpi_pais.mega_store.products.service.IReservaService;
+import com.tpi_pais.mega_store.utils.ApiResponse;
+import com.tpi_pais.mega_store.utils.Enteros;
+import com.tpi_pais.mega_store.utils.Respuestas;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@CrossOrigin(origins = "http://localhost:5173")
+@RestController
+@RequestMapping("/products")
+public class PostReservaController {
+    private static final ResponseEntity<ApiResponse<Object>> SIN_PRODUCTO =
+            Respuestas.badRequest("Se debe enviar el id del producto.");
+    private static final ResponseEntity<ApiResponse<Object>> CANTIDAD_INVALIDA =
+            Respuestas.badRequest("Se debe enviar una cantidad mayor a 0.");
+    private static final ResponseEntity<ApiResponse<Object>> SIN_STOCK =
+            Respuestas.badRequest("La sucursal no tiene stock suficiente del producto.");
+    private static final ResponseEntity<ApiResponse<Object>> NO_ENCONTRADO =
+            Respuestas.notFound("La reserva no existe en la sucursal o ya vencio.");
+
+    @Autowired
+    private IReservaService modelService;
+
+    @PostMapping("/sucursal/{sucursalId}/reserva")
+    public ResponseEntity<?> reservar(@PathVariable("sucursalId") String parametroSucursal,
+                                      @RequestBody ReservaDTO model) {
+        /*
+         * Reserva stock del producto en la sucursal por megastore.reservas.duracion-segundos.
+         * Validaciones:
+         * 1) Que el id de la sucursal sea un entero.
+         *   En caso que falle se retorna una badrequest
+         * 2) Que se haya enviado el id del producto y una cantidad mayor a 0.
+         *   En caso que falle se retorna una badrequest
+         * 3) Que haya stock suficiente (igual que al descontar stock).
+         *   En caso que falle se retorna una badrequest
+         * */
+        Integer sucursalId = Enteros.parsear(parametroSucursal);
+        if (sucursalId == null) {
+            return Respuestas.ID_INVALIDO;
+        }
+        if (model.noTieneProducto()) {
+            return SIN_PRODUCTO;
+        }
+        if (model.cantidadInvalida()) {
+            return CANTIDAD_INVALIDA;
+        }
+        model.setSucursalId(sucursalId);
+        ResultadoEscrituraDTO<ReservaDTO> resultado = modelService.crear(model);
+        if (resultado.getEstado() == ResultadoEscrituraDTO.Estado.SIN_STOCK) {
+            return SIN_STOCK;
+        }
+        ApiResponse<Object> response = new ApiResponse<>(
+                201,
+                "Created.",
+                resultado.getModelo(),
+                null
+        );
+        return ResponseEntity.ok().body(response);
+    }
+
+    @PostMapping("/sucursal/{sucursalId}/reserva/{id}/confirmar")
+    public ResponseEntity<?> confirmar(@PathVariable("sucursalId") String parametroSucursal,
+                                       @PathVariable("id") String parametroId) {
+        /*
+         * Confirma la reserva (el pago se completo): el stock reservado queda vendido.
+         * Validaciones:
+         * 1) Que los ids sean enteros.
+         *   En caso que falle se retorna una badrequest
+         * 2) Que la reserva exista en la sucursal y no haya vencido.
+         *   En caso que falle se retorna un notfound
+         * */
+        Integer sucursalId = Enteros.parsear(parametroSucursal);
+        Integer id = Enteros.parsear(parametroId);
+        if (sucursalId == null || id == null) {
+            return Respuestas.ID_INVALIDO;
+        }
+        ResultadoEscrituraDTO<Integer> resultado = modelService.confirmar(sucursalId, id);
+        if (resultado.getEstado() == ResultadoEscrituraDTO.Estado.NO_ENCONTRADO) {
+            return NO_ENCONTRADO;
+        }
+        ApiResponse<Object> response = new ApiResponse<>(
+                200,
+                "OK.",
+                resultado.getModelo(),
+                null
+        );
+        return ResponseEntity.ok().body(response);
+    }
+}
@@ -0,0 +1,44 @@
+package com.tpi_pais.mega_store.products.controller.stockController;
+
+import com.tpi_pais.mega_store.products.dto.StockDTO;
+import com.tpi_pais.mega_store.products.service.IStockService;
+import com.tpi_pais.mega_store.utils.ApiResponse;
+import com.tpi_pais.mega_store.utils.Enteros;
+import com.tpi_pais.mega_store.utils.Respuestas;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@CrossOrigin(origins = "http://localhost:5173")
+@RestController
+@RequestMapping("/products")
+public class GetStockController {
+
+    @Autowired
+    private IStockService modelService;
+
+    @GetMapping("/stock/{sucursalId}/{productoId}")
+    public ResponseEntity<?> consultar(@PathVariable("sucursalId") String parametroSucursal,
+                                       @PathVariable("productoId") String parametroProducto) {
+        /*
+         * Devuelve el stock del producto en la sucursal (total y por franja), leido de la bd.
+         * Validaciones:
+         * 1) Que los ids sean enteros.
+         *   En caso que falle se retorna una badrequest
+         * Si el producto nunca se repuso en la sucursal el stock es 0.
+         * */
+        Integer sucursalId = Enteros.parsear(parametroSucursal);
+        Integer productoId = Enteros.parsear(parametroProducto);
+        if (sucursalId == null || productoId == null) {
+            return Respuestas.ID_INVALIDO;
+        }
+        StockDTO stock = modelService.consultar(sucursalId, productoId);
+        ApiResponse<Object> response = new ApiResponse<>(
+                200,
+                "OK",
+                stock,
+                null
+        );
+        return ResponseEntity.ok().body(response);
+    }
+}
@@ -0,0 +1,99 @@
+package com.tpi_pais.mega_store.products.controller.stockController;
+
+import com.tpi_pais.mega_store.products.dto.MovimientoStockDTO;
+import com.tpi_pais.mega_store.products.dto.ResultadoEscrituraDTO;
+import com.tpi_pais.mega_store.products.dto.StockDTO;
+import com.tpi_pais.mega_store.products.service.IStockService;
+import com.tpi_pais.mega_store.utils.ApiResponse;
+import com.tpi_pais.mega_store.utils.Respuestas;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@CrossOrigin(origins = "http://localhost:5173")
+@RestController
+@RequestMapping("/products")
+public class PostStockController {
+    private static final ResponseEntity<ApiResponse<Object>> CANTIDAD_INVALIDA =
+            Respuestas.badRequest("Se debe enviar una cantidad mayor a 0.");
+    private static final ResponseEntity<ApiResponse<Object>> SIN_STOCK =
+            Respuestas.badRequest("La sucursal no tiene stock suficiente del producto.");
+    private static final Map<String, ResponseEntity<ApiResponse<Object>>> DATO_FALTANTE = Map.of(
+            "sucursal", Respuestas.badRequest("Se debe enviar el id de la sucursal."),
+            "producto", Respuestas.badRequest("Se debe enviar el id del producto."));
+    private static final Map<String, ResponseEntity<ApiResponse<Object>>> REFERENCIA_INVALIDA = Map.of(
+            "sucursal", Respuestas.badRequest("La sucursal enviada no existe o se encuentra eliminada."),
+            "producto", Respuestas.badRequest("El producto enviado no existe o se encuentra eliminado."));
+
+    @Autowired
+    private IStockService modelService;
+
+    @PostMapping("/stock/descontar")
+    public ResponseEntity<?> descontar(@RequestBody MovimientoStockDTO model) {
+        /*
+         * Descuenta stock (una venta) del producto en la sucursal.
+         * Validaciones:
+         * 1) Que se haya enviado el id de la sucursal y el del producto.
+         *   En caso que falle se retorna una badrequest
+         * 2) Que la cantidad sea mayor a 0.
+         *   En caso que falle se retorna una badrequest
+         * 3) Que haya stock suficiente.
+         *   Se verifica en la bd con el mismo UPDATE que descuenta, nunca queda stock negativo.
+         *   En caso que falle se retorna una badrequest
+         * */
+        ResponseEntity<ApiResponse<Object>> invalido = validar(model);
+        if (invalido != null) {
+            return invalido;
+        }
+        ResultadoEscrituraDTO<MovimientoStockDTO> resultado = modelService.descontar(model);
+        if (resultado.getEstado() == ResultadoEscrituraDTO.Estado.SIN_STOCK) {
+            return SIN_STOCK;
+        }
+        ApiResponse<Object> response = new ApiResponse<>(
+                200,
+                "OK.",
+                resultado.getModelo(),
+                null
+        );
+        return ResponseEntity.ok().body(response);
+    }
+
+    @PostMapping("/stock/reponer")
+    public ResponseEntity<?> reponer(@RequestBody MovimientoStockDTO model) {
+        /*
+         * Suma stock del producto en la sucursal y devuelve el stock resultante.
+         * Validaciones:
+         * 1) y 2) Igual que al descontar.
+         * 3) Que la sucursal y el producto existan y no esten eliminados.
+         *   Se verifica en la bd en la misma sentencia que repone.
+         * */
+        ResponseEntity<ApiResponse<Object>> invalido = validar(model);
+        if (invalido != null) {
+            return invalido;
+        }
+        ResultadoEscrituraDTO<StockDTO> resultado = modelService.reponer(model);
+        if (resultado.getEstado() == ResultadoEscrituraDTO.Estado.REFERENCIA_INVALIDA) {
+            return REFERENCIA_INVALIDA.get(resultado.getReferencia());
+        }
+        ApiResponse<Object> response = new ApiResponse<>(
+                200,
+                "OK.",
+                resultado.getModelo(),
+                null
+        );
+        return ResponseEntity.ok().body(response);
+    }
+
+    private static ResponseEntity<ApiResponse<Object>> validar(MovimientoStockDTO model) {
+        String faltante = model.datoFaltante();
+        if (faltante != null) {
+            return DATO_FALTANTE.get(faltante);
+        }
+        if (model.cantidadInvalida()) {
+            return CANTIDAD_INVALIDA;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,81 @@
+package com.tpi_pais.mega_store.products.controller.transferenciaController;
+
+import com.tpi_pais.mega_store.products.dto.ResultadoEscrituraDTO;
+import com.tpi_pais.mega_store.products.dto.TransferenciaDTO;
+import com.tpi_pais.mega_store.products.service.ITransferenciaService;
+import com.tpi_pais.mega_store.utils.ApiResponse;
+import com.tpi_pais.mega_store.utils.Respuestas;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@CrossOrigin(origins = "http://localhost:5173")
+@RestController
+@RequestMapping("/products")
+public class PostTransferenciaController {
+    private static final int LOTE_MAXIMO = 1000;
+    private static final Map<String, ResponseEntity<ApiResponse<Object>>> DATO_FALTANTE = Map.of(
+            "origen", Respuestas.badRequest("Se debe enviar el id de la sucursal de origen."),
+            "destino", Respuestas.badRequest("Se debe enviar el id de la sucursal de destino."));
+    private static final ResponseEntity<ApiResponse<Object>> MISMA_SUCURSAL =
+            Respuestas.badRequest("La sucursal de origen y la de destino deben ser distintas.");
+    private static final ResponseEntity<ApiResponse<Object>> ITEMS_INVALIDOS =
+            Respuestas.badRequest("Se debe enviar una lista de entre 1 y " + LOTE_MAXIMO
+                    + " items, cada uno con el id de un producto y una cantidad mayor a 0.");
+    private static final ResponseEntity<ApiResponse<Object>> CANTIDAD_EXCEDIDA =
+            Respuestas.badRequest("La suma de las cantidades de la transferencia no puede superar " + Integer.MAX_VALUE + ".");
+    private static final ResponseEntity<ApiResponse<Object>> DESTINO_INVALIDO =
+            Respuestas.badRequest("La sucursal de destino no existe o se encuentra eliminada.");
+
+    @Autowired
+    private ITransferenciaService modelService;
+
+    @PostMapping("/transferencia")
+    public ResponseEntity<?> transferir(@RequestBody TransferenciaDTO model) {
+        /*
+         * Transfiere stock de varios productos de la sucursal de origen a la de destino, todo o nada.
+         * Validaciones:
+         * 1) Que se hayan enviado las dos sucursales y sean distintas.
+         *   En caso que falle se retorna una badrequest
+         * 2) Que se haya enviado una lista de entre 1 y LOTE_MAXIMO items, con producto y cantidad
+         *   mayor a 0. Los items repetidos de un mismo producto se suman.
+         *   En caso que falle se retorna una badrequest
+         * 3) Que la suma de todas las cantidades entre en un int, como el stock de cada franja.
+         *   En caso que falle se retorna una badrequest
+         * 4) Que el origen tenga stock suficiente de todos los productos.
+         *   En caso que falle se retorna una badrequest con los productos sin stock
+         * 5) Que la sucursal de destino exista y no este eliminada.
+         *   En caso que falle se retorna una badrequest
+         * */
+        String faltante = model.datoFaltante();
+        if (faltante != null) {
+            return DATO_FALTANTE.get(faltante);
+        }
+        if (model.getOrigenId().equals(model.getDestinoId())) {
+            return MISMA_SUCURSAL;
+        }
+        if (model.itemsInvalidos(LOTE_MAXIMO)) {
+            return ITEMS_INVALIDOS;
+        }
+        if (model.cantidadTotal() > Integer.MAX_VALUE) {
+            return CANTIDAD_EXCEDIDA;
+        }
+        ResultadoEscrituraDTO<TransferenciaDTO> resultado = modelService.transferir(model);
+        if (resultado.getEstado() == ResultadoEscrituraDTO.Estado.SIN_STOCK) {
+            return Respuestas.badRequest("La sucursal de origen no tiene stock suficiente de los productos: "
+                    + resultado.getReferencia() + ".");
+        }
+        if (resultado.getEstado() == ResultadoEscrituraDTO.Estado.REFERENCIA_INVALIDA) {
+            return DESTINO_INVALIDO;
+        }
+        ApiResponse<Object> response = new ApiResponse<>(
+                200,
+                "OK.",
+                resultado.getModelo(),
+                null
+        );
+        return ResponseEntity.ok().body(response);
+    }
+}
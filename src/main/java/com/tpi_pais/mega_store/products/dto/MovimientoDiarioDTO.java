@@ -0,0 +1,48 @@
+package com.tpi_pais.mega_store.products.dto;
+
+import com.tpi_pais.mega_store.products.model.MovimientoDiario;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Movimiento del diario de stock de una sucursal; la sucursal llega en la url
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MovimientoDiarioDTO {
+
+    private Integer sucursalId;
+    private Integer productoId;
+    private String tipo;
+    private Integer cantidad;
+    private LocalDateTime fecha;
+
+    public boolean noTieneProducto (){
+        return this.getProductoId() == null;
+    }
+
+    public boolean cantidadInvalida (){
+        return this.getCantidad() == null || this.getCantidad() < 1;
+    }
+
+    // true si el tipo no es uno de los MovimientoDiario.Tipo manuales; no lo normaliza
+    public boolean tipoInvalido (){
+        if (this.getTipo() == null) {
+            return true;
+        }
+        for (MovimientoDiario.Tipo tipo : MovimientoDiario.Tipo.values()) {
+            if (tipo.esManual() && tipo.name().equals(this.getTipo())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Movimiento de un servicio de stock, para aplicar y registrar en el diario
+    public static MovimientoDiarioDTO de(Integer sucursalId, Integer productoId,
+                                         MovimientoDiario.Tipo tipo, Integer cantidad) {
+        return new MovimientoDiarioDTO(sucursalId, productoId, tipo.name(), cantidad, null);
+    }
+}
@@ -0,0 +1,31 @@
+package com.tpi_pais.mega_store.products.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Descuento (venta) o reposicion de stock de un producto en una sucursal
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MovimientoStockDTO {
+
+    private Integer sucursalId;
+    private Integer productoId;
+    private Integer cantidad;
+
+    // Devuelve el nombre del primer dato que no se envio, o null si se enviaron todos
+    public String datoFaltante (){
+        if (this.getSucursalId() == null) {
+            return "sucursal";
+        }
+        if (this.getProductoId() == null) {
+            return "producto";
+        }
+        return null;
+    }
+
+    public boolean cantidadInvalida (){
+        return this.getCantidad() == null || this.getCantidad() < 1;
+    }
+}
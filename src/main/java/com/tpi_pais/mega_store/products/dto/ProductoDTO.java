@@ -0,0 +1,45 @@
+package com.tpi_pais.mega_store.products.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+public class ProductoDTO {
+
+    private Integer id;
+    private String nombre;
+    private BigDecimal precio;
+    private Integer marcaId;
+    private Integer categoriaId;
+    private Integer colorId;
+    private Integer talleId;
+    private LocalDateTime fechaEliminacion;
+
+    public boolean noTieneNombre (){
+        return this.getNombre() == null || this.getNombre().isEmpty();
+    }
+
+    public boolean precioInvalido (){
+        return this.getPrecio() == null || this.getPrecio().signum() < 0;
+    }
+
+    // Devuelve el nombre del primer catalogo que no se envio, o null si se enviaron todos
+    public String referenciaFaltante (){
+        if (this.getMarcaId() == null) {
+            return "marca";
+        }
+        if (this.getCategoriaId() == null) {
+            return "categoria";
+        }
+        if (this.getColorId() == null) {
+            return "color";
+        }
+        if (this.getTalleId() == null) {
+            return "talle";
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,29 @@
+package com.tpi_pais.mega_store.products.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Resultado del filtro de productos por facetas:
+ * - total: cantidad de productos que cumplen el filtro (no solo los de la pagina).
+ * - productos: la pagina pedida, ordenada por id.
+ * - facetas: por cada faceta (marca, categoria, color, talle), la cantidad de productos de cada
+ *   id del catalogo, calculada con los filtros de las demas facetas.
+ * - siguienteCursor: id del ultimo producto de la pagina, o null si no hay mas.
+ * */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductosFiltradosDTO {
+    private int total;
+    private List<ProductoDTO> productos;
+    private Map<String, Map<Integer, Integer>> facetas;
+    // Va en el nextCursor del ApiResponse, no dentro de los datos
+    @JsonIgnore
+    private Integer siguienteCursor;
+}
@@ -0,0 +1,28 @@
+package com.tpi_pais.mega_store.products.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Reserva de stock de un producto en una sucursal; la sucursal llega en la url
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReservaDTO {
+
+    private Integer id;
+    private Integer sucursalId;
+    private Integer productoId;
+    private Integer cantidad;
+    private LocalDateTime vence;
+
+    public boolean noTieneProducto (){
+        return this.getProductoId() == null;
+    }
+
+    public boolean cantidadInvalida (){
+        return this.getCantidad() == null || this.getCantidad() < 1;
+    }
+}
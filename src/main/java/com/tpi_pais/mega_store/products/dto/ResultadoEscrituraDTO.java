@@ -0,0 +1,41 @@
+package com.tpi_pais.mega_store.products.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * Resultado de una escritura condicional (crear, actualizar, eliminar, recuperar) resuelta con una
+ * unica sentencia en la bd. modelo solo se informa cuando la escritura se realizo.
+ * */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ResultadoEscrituraDTO<T> {
+    public enum Estado {
+        OK,
+        CREADO,         // Alta: se inserto un registro nuevo
+        RECUPERADO,     // Alta: el nombre pertenecia a un registro eliminado y se recupero
+        NO_ENCONTRADO,  // El id no corresponde a ningun registro
+        ELIMINADO,      // El registro esta eliminado y la operacion requiere que no lo este
+        NO_ELIMINADO,   // El registro no esta eliminado y la operacion requiere que lo este
+        DUPLICADO,      // Ya existe un registro con el nombre
+        REFERENCIA_INVALIDA, // Un catalogo referenciado (por ejemplo la marca de un producto) no existe o esta eliminado
+        EN_USO,         // Baja de un catalogo: hay productos no eliminados que lo usan
+        SIN_STOCK       // Descuento de stock: la sucursal no tiene la cantidad pedida del producto
+    }
+
+    private Estado estado;
+    private T modelo;
+    // Con REFERENCIA_INVALIDA, el catalogo que fallo (marca, categoria, color, talle, sucursal o producto).
+    // Con SIN_STOCK en una transferencia, los ids de los productos sin stock suficiente.
+    private String referencia;
+
+    public ResultadoEscrituraDTO(Estado estado, T modelo) {
+        this(estado, modelo, null);
+    }
+
+    public boolean esOk() {
+        return this.modelo != null;
+    }
+}
@@ -0,0 +1,27 @@
+package com.tpi_pais.mega_store.products.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * Resultado de procesar un elemento de una operacion por lotes.
+ * indice es la posicion del elemento en el lote recibido.
+ * */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ResultadoItemDTO {
+    public enum Estado {
+        CREADO,
+        RECUPERADO,
+        DUPLICADO,
+        INVALIDO
+    }
+
+    private int indice;
+    private String nombre;
+    private Estado estado;
+    private Integer id;
+    private String error;
+}
@@ -0,0 +1,67 @@
+package com.tpi_pais.mega_store.products.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/*
+ * Resultado de una baja o recuperacion masiva:
+ * - modificados: ids que cambiaron de estado.
+ * - sinCambios: ids que existen pero ya estaban en el estado pedido.
+ * - noEncontrados: ids que no corresponden a ningun registro.
+ * - enUso: en las bajas de catalogos, ids que no se eliminaron porque hay productos que los usan.
+ * */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ResultadoMasivoDTO {
+    private List<Integer> modificados;
+    private List<Integer> sinCambios;
+    private List<Integer> noEncontrados;
+    private List<Integer> enUso = List.of();
+
+    /*
+     * Clasifica los ids pedidos a partir de los ids que modifico el UPDATE. Solo si quedan ids sin
+     * modificar se consulta cuales de ellos existen, para separar "sin cambios" de "no encontrados".
+     * */
+    public static ResultadoMasivoDTO clasificar(Collection<Integer> ids, List<Integer> modificados,
+                                                Function<Collection<Integer>, List<Integer>> buscarExistentes) {
+        Set<Integer> restantes = new TreeSet<>(ids);
+        restantes.removeAll(modificados);
+        List<Integer> sinCambios = new ArrayList<>();
+        List<Integer> noEncontrados = new ArrayList<>();
+        if (!restantes.isEmpty()) {
+            Set<Integer> existentes = new HashSet<>(buscarExistentes.apply(restantes));
+            for (Integer id : restantes) {
+                if (existentes.contains(id)) {
+                    sinCambios.add(id);
+                } else {
+                    noEncontrados.add(id);
+                }
+            }
+        }
+        return new ResultadoMasivoDTO(new ArrayList<>(new TreeSet<>(modificados)), sinCambios, noEncontrados, List.of());
+    }
+
+    /*
+     * Igual que clasificar, pero los ids en uso (que existen y no se modificaron por tener productos)
+     * se informan aparte en vez de en sinCambios.
+     * */
+    public static ResultadoMasivoDTO clasificar(Collection<Integer> ids, List<Integer> modificados, List<Integer> enUso,
+                                                Function<Collection<Integer>, List<Integer>> buscarExistentes) {
+        ResultadoMasivoDTO resultado = clasificar(ids, modificados, buscarExistentes);
+        if (!enUso.isEmpty()) {
+            resultado.getSinCambios().removeAll(new HashSet<>(enUso));
+            resultado.setEnUso(new ArrayList<>(new TreeSet<>(enUso)));
+        }
+        return resultado;
+    }
+}
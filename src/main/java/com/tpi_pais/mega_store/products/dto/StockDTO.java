@@ -0,0 +1,21 @@
+package com.tpi_pais.mega_store.products.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/*
+ * Stock de un producto en una sucursal: cantidad es el total y franjas lo que hay en cada franja
+ * (ver model.StockFranja).
+ * */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockDTO {
+    private Integer sucursalId;
+    private Integer productoId;
+    private int cantidad;
+    private List<Integer> franjas;
+}
@@ -0,0 +1,59 @@
+package com.tpi_pais.mega_store.products.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Transferencia de stock de varios productos de una sucursal a otra
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransferenciaDTO {
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Item {
+        private Integer productoId;
+        private Integer cantidad;
+    }
+
+    private Integer origenId;
+    private Integer destinoId;
+    private List<Item> items;
+
+    // Devuelve el nombre del primer dato que no se envio, o null si se enviaron todos
+    public String datoFaltante (){
+        if (this.getOrigenId() == null) {
+            return "origen";
+        }
+        if (this.getDestinoId() == null) {
+            return "destino";
+        }
+        return null;
+    }
+
+    // true si no hay items, hay mas de maximo o alguno no tiene producto o tiene cantidad menor a 1
+    public boolean itemsInvalidos (int maximo){
+        if (this.getItems() == null || this.getItems().isEmpty() || this.getItems().size() > maximo) {
+            return true;
+        }
+        for (Item item : this.getItems()) {
+            if (item == null || item.getProductoId() == null || item.getCantidad() == null || item.getCantidad() < 1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Suma de las cantidades de todos los items en un long, para detectar si supera el maximo sin desbordar
+    public long cantidadTotal (){
+        long total = 0;
+        for (Item item : this.getItems()) {
+            total += item.getCantidad();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,27 @@
+package com.tpi_pais.mega_store.products.mapper;
+
+import com.tpi_pais.mega_store.products.dto.MovimientoDiarioDTO;
+import com.tpi_pais.mega_store.products.model.MovimientoDiario;
+
+public class MovimientoDiarioMapper {
+    public static MovimientoDiarioDTO toDTO(MovimientoDiario model) {
+        MovimientoDiarioDTO dto = new MovimientoDiarioDTO();
+        dto.setSucursalId(model.getSucursalId());
+        dto.setProductoId(model.getProductoId());
+        dto.setTipo(model.getTipo().name());
+        dto.setCantidad(model.getCantidad());
+        dto.setFecha(model.getFecha());
+        return dto;
+    }
+
+    // El tipo ya debe estar validado (ver MovimientoDiarioDTO.tipoInvalido)
+    public static MovimientoDiario toEntity(MovimientoDiarioDTO dto) {
+        MovimientoDiario model = new MovimientoDiario();
+        model.setSucursalId(dto.getSucursalId());
+        model.setProductoId(dto.getProductoId());
+        model.setTipo(MovimientoDiario.Tipo.valueOf(dto.getTipo()));
+        model.setCantidad(dto.getCantidad());
+        model.setFecha(dto.getFecha());
+        return model;
+    }
+}
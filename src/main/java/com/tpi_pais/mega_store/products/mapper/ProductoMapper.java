@@ -0,0 +1,23 @@
+package com.tpi_pais.mega_store.products.mapper;
+
+import com.tpi_pais.mega_store.products.dto.ProductoDTO;
+import com.tpi_pais.mega_store.products.model.Producto;
+
+public class ProductoMapper {
+    /*
+     * Solo se mapea de la entidad al DTO: las escrituras de productos son sentencias nativas que
+     * reciben los ids de los catalogos (ver ProductoRepository).
+     * */
+    public static ProductoDTO toDTO(Producto model) {
+        ProductoDTO dto = new ProductoDTO();
+        dto.setId(model.getId());
+        dto.setNombre(model.getNombre());
+        dto.setPrecio(model.getPrecio());
+        dto.setMarcaId(model.getMarca().getId());
+        dto.setCategoriaId(model.getCategoria().getId());
+        dto.setColorId(model.getColor().getId());
+        dto.setTalleId(model.getTalle().getId());
+        dto.setFechaEliminacion(model.getFechaEliminacion());
+        return dto;
+    }
+}
@@ -0,0 +1,26 @@
+package com.tpi_pais.mega_store.products.mapper;
+
+import com.tpi_pais.mega_store.products.dto.ReservaDTO;
+import com.tpi_pais.mega_store.products.model.Reserva;
+
+public class ReservaMapper {
+    public static ReservaDTO toDTO(Reserva model) {
+        ReservaDTO dto = new ReservaDTO();
+        dto.setId(model.getId());
+        dto.setSucursalId(model.getSucursalId());
+        dto.setProductoId(model.getProductoId());
+        dto.setCantidad(model.getCantidad());
+        dto.setVence(model.getVence());
+        return dto;
+    }
+
+    public static Reserva toEntity(ReservaDTO dto) {
+        Reserva model = new Reserva();
+        model.setId(dto.getId());
+        model.setSucursalId(dto.getSucursalId());
+        model.setProductoId(dto.getProductoId());
+        model.setCantidad(dto.getCantidad());
+        model.setVence(dto.getVence());
+        return model;
+    }
+}
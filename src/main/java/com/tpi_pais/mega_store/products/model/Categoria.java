@@ -5,7 +5,9 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Null;
 import jakarta.validation.constraints.Size;
@@ -14,13 +16,14 @@ import lombok.ToString;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "categorias")
+@Table(name = "categorias", uniqueConstraints = @UniqueConstraint(name = "categorias_nombre_key", columnNames = "nombre"))
 @Data
 @ToString
 public class Categoria {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "categorias_id_seq")
+    @SequenceGenerator(name = "categorias_id_seq", sequenceName = "categorias_id_seq", allocationSize = 50)
     private Integer id;
 
     @Size(min = 1, max = 100, message = "El nombre de la categoria debe tener menos de 100 caracteres")
@@ -5,7 +5,9 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
@@ -14,13 +16,14 @@ import java.time.LocalDateTime;
 
 
 @Entity
-@Table(name = "colores")
+@Table(name = "colores", uniqueConstraints = @UniqueConstraint(name = "colores_nombre_key", columnNames = "nombre"))
 @Data
 @ToString
 public class Color {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "colores_id_seq")
+    @SequenceGenerator(name = "colores_id_seq", sequenceName = "colores_id_seq", allocationSize = 50)
     private Integer id;
 
     @Size(min = 1, max = 100, message = "El nombre del color debe tener menos de 100 caracteres")
@@ -9,13 +9,14 @@ import lombok.ToString;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "marcas")
+@Table(name = "marcas", uniqueConstraints = @UniqueConstraint(name = "marcas_nombre_key", columnNames = "nombre"))
 @Data
 @ToString
 public class Marca {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "marcas_id_seq")
+    @SequenceGenerator(name = "marcas_id_seq", sequenceName = "marcas_id_seq", allocationSize = 50)
     private Integer id;
 
     @Size(min = 1, max = 100, message = "El nombre de la marca debe tener menos de 100 caracteres")
@@ -0,0 +1,77 @@
+package com.tpi_pais.mega_store.products.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.ToString;
+import org.hibernate.annotations.Check;
+
+import java.time.LocalDateTime;
+
+/*
+ * Un movimiento de stock registrado en el diario de una sucursal (venta, devolucion, reposicion,
+ * reserva o transferencia). Solo se agregan filas, siempre en la misma transaccion que el cambio de
+ * stock: las escriben con SQL DiarioStockEscritor y las sentencias de reservas y transferencias,
+ * por eso el id es una columna identity y no una secuencia de Hibernate.
+ * */
+@Entity
+@Table(name = "diario_stock", indexes = @Index(name = "diario_stock_sucursal_id_idx", columnList = "sucursal_id"))
+@Check(constraints = "cantidad > 0")
+@Data
+@ToString
+public class MovimientoDiario {
+
+    /*
+     * Las ventas, reposiciones y devoluciones las aplica al stock el escritor del diario
+     * (DiarioStockService), en la misma sentencia que inserta el movimiento y agrupadas en lotes.
+     * Las reservas y transferencias cambian varias filas en una transaccion propia y registran sus
+     * movimientos en esa misma transaccion. Por el endpoint del diario solo se registran los
+     * manuales: devoluciones de clientes, que vuelven al stock de la sucursal.
+     * */
+    public enum Tipo {
+        VENTA(false, true),
+        DEVOLUCION(true, true),
+        REPOSICION(false, true),
+        RESERVA(false, false),
+        RESERVA_CANCELADA(false, false),
+        RESERVA_VENCIDA(false, false),
+        TRANSFERENCIA_SALIDA(false, false),
+        TRANSFERENCIA_ENTRADA(false, false);
+
+        private final boolean manual;
+        private final boolean porLotes;
+
+        Tipo(boolean manual, boolean porLotes) {
+            this.manual = manual;
+            this.porLotes = porLotes;
+        }
+
+        public boolean esManual() {
+            return manual;
+        }
+
+        // true si lo aplica al stock el escritor del diario (ver DiarioStockEscritor.aplicar)
+        public boolean seAplicaPorLotes() {
+            return porLotes;
+        }
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sucursal_id", nullable = false)
+    private Integer sucursalId;
+
+    @Column(name = "producto_id", nullable = false)
+    private Integer productoId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo", nullable = false, length = 30)
+    private Tipo tipo;
+
+    @Column(name = "cantidad", nullable = false)
+    private Integer cantidad;
+
+    @Column(name = "fecha", nullable = false)
+    private LocalDateTime fecha;
+}
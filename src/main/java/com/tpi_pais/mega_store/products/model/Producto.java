@@ -0,0 +1,94 @@
+package com.tpi_pais.mega_store.products.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/*
+ * Producto del catalogo. Referencia una marca, una categoria, un color y un talle, que son las
+ * facetas por las que se filtran los productos (ver ProductoService).
+ * Las referencias son lazy: para armar el DTO solo se usa el id, que Hibernate conoce sin
+ * inicializar el proxy.
+ * */
+@Entity
+@Table(name = "productos", indexes = {
+        @Index(name = "productos_marca_id_idx", columnList = "marca_id"),
+        @Index(name = "productos_categoria_id_idx", columnList = "categoria_id"),
+        @Index(name = "productos_color_id_idx", columnList = "color_id"),
+        @Index(name = "productos_talle_id_idx", columnList = "talle_id")
+})
+@Data
+@ToString
+public class Producto {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "productos_id_seq")
+    @SequenceGenerator(name = "productos_id_seq", sequenceName = "productos_id_seq", allocationSize = 1)
+    private Integer id;
+
+    @Size(min = 1, max = 100, message = "El nombre del producto debe tener menos de 100 caracteres")
+    @NotNull
+    @Column(name = "nombre")
+    private String nombre;
+
+    @PositiveOrZero
+    @NotNull
+    @Column(name = "precio", precision = 12, scale = 2)
+    private BigDecimal precio;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "marca_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Marca marca;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "categoria_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Categoria categoria;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "color_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Color color;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "talle_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Talle talle;
+
+    @Column(name = "fecha_eliminacion")
+    private LocalDateTime fechaEliminacion;
+
+    /*
+     * Version de la fila: empieza en 0 y cada escritura la incrementa en la misma sentencia (ver
+     * ProductoRepository). El indice de facetas la usa para descartar escrituras que le llegan
+     * desordenadas.
+     * */
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Integer version;
+
+    public void eliminar() {
+        this.fechaEliminacion = LocalDateTime.now();
+    }
+
+    public void recuperar() {
+        this.setFechaEliminacion(null);
+    }
+
+    public boolean esEliminado() { return this.fechaEliminacion != null; }
+
+}
@@ -0,0 +1,47 @@
+package com.tpi_pais.mega_store.products.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.io.Serializable;
+
+/*
+ * Cantidad de productos no eliminados que usan cada registro de un catalogo (catalogo es "marca",
+ * "categoria", "color" o "talle"). La mantienen las escrituras de ProductoRepository en la misma
+ * sentencia que modifica el producto, y la consultan las bajas de los catalogos para no eliminar
+ * uno en uso sin contar productos. Se puede reconstruir desde la tabla de productos
+ * (POST /products/productos/referencias/reconstruir).
+ * */
+@Entity
+@Table(name = "referencias_catalogo")
+@IdClass(ReferenciaCatalogo.Clave.class)
+@Data
+@ToString
+public class ReferenciaCatalogo {
+
+    @Id
+    @Column(name = "catalogo", length = 20)
+    private String catalogo;
+
+    @Id
+    @Column(name = "catalogo_id")
+    private Integer catalogoId;
+
+    @Column(name = "productos", nullable = false)
+    private Integer productos;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Clave implements Serializable {
+        private String catalogo;
+        private Integer catalogoId;
+    }
+}
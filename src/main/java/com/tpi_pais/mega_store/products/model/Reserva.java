@@ -0,0 +1,38 @@
+package com.tpi_pais.mega_store.products.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.ToString;
+import org.hibernate.annotations.Check;
+
+import java.time.LocalDateTime;
+
+/*
+ * Stock reservado de un producto en una sucursal mientras se completa el pago. Al reservar la
+ * cantidad ya se desconto de las franjas (ver StockFranja): confirmar la reserva la borra y el
+ * stock queda vendido, cancelarla o que venza la borra y devuelve la cantidad (ver ReservaService).
+ * */
+@Entity
+@Table(name = "reservas_stock", indexes = @Index(name = "reservas_stock_sucursal_id_idx", columnList = "sucursal_id"))
+@Check(constraints = "cantidad > 0")
+@Data
+@ToString
+public class Reserva {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reservas_stock_id_seq")
+    @SequenceGenerator(name = "reservas_stock_id_seq", sequenceName = "reservas_stock_id_seq", allocationSize = 50)
+    private Integer id;
+
+    @Column(name = "sucursal_id", nullable = false)
+    private Integer sucursalId;
+
+    @Column(name = "producto_id", nullable = false)
+    private Integer productoId;
+
+    @Column(name = "cantidad", nullable = false)
+    private Integer cantidad;
+
+    @Column(name = "vence", nullable = false)
+    private LocalDateTime vence;
+}
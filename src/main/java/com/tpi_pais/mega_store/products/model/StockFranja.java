@@ -0,0 +1,53 @@
+package com.tpi_pais.mega_store.products.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Check;
+
+import java.io.Serializable;
+
+/*
+ * Una franja del stock de un producto en una sucursal. El stock de cada (sucursal, producto) se
+ * reparte en varias filas (franjas 0, 1, ...) y el total es la suma: asi los descuentos concurrentes
+ * del mismo producto actualizan filas distintas y no esperan todos por el bloqueo de una sola fila
+ * (ver StockService). El color y el talle son los del producto.
+ * */
+@Entity
+@Table(name = "stock_franjas")
+@IdClass(StockFranja.Clave.class)
+@Check(constraints = "cantidad >= 0")
+@Data
+@ToString
+public class StockFranja {
+
+    @Id
+    @Column(name = "sucursal_id")
+    private Integer sucursalId;
+
+    @Id
+    @Column(name = "producto_id")
+    private Integer productoId;
+
+    @Id
+    @Column(name = "franja")
+    private Integer franja;
+
+    @Column(name = "cantidad", nullable = false)
+    private Integer cantidad;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Clave implements Serializable {
+        private Integer sucursalId;
+        private Integer productoId;
+        private Integer franja;
+    }
+}
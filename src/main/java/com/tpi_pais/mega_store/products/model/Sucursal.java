@@ -9,13 +9,14 @@ import lombok.ToString;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "sucursales")
+@Table(name = "sucursales", uniqueConstraints = @UniqueConstraint(name = "sucursales_nombre_key", columnNames = "nombre"))
 @Data
 @ToString
 
 public class Sucursal {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sucursales_id_seq")
+    @SequenceGenerator(name = "sucursales_id_seq", sequenceName = "sucursales_id_seq", allocationSize = 50)
     private Integer id;
 
     @Size(min = 1, max = 100, message = "El nombre de la categoria debe tener menos de 100 caracteres")
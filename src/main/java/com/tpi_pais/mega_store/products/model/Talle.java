@@ -9,13 +9,14 @@ import lombok.ToString;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "talles")
+@Table(name = "talles", uniqueConstraints = @UniqueConstraint(name = "talles_nombre_key", columnNames = "nombre"))
 @Data
 @ToString
 public class Talle {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "talles_id_seq")
+    @SequenceGenerator(name = "talles_id_seq", sequenceName = "talles_id_seq", allocationSize = 50)
     private Integer id;
 
     @Size(min = 1, max = 100, message = "El nombre del talle debe tener menos de 100 caracteres")
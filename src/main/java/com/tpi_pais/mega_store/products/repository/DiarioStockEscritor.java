@@ -0,0 +1,138 @@
+package com.tpi_pais.mega_store.products.repository;
+
+import com.tpi_pais.mega_store.products.model.MovimientoDiario;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/*
+ * Escritura del diario de movimientos de stock con JdbcTemplate. No es un repositorio de Spring Data
+ * a proposito: aplicar lo usa solo el hilo escritor de DiarioStockService, que ya agrupa las
+ * escrituras, y no debe esperar en el limitador de concurrencia de los repositorios.
+ *
+ * Cada movimiento es una unica sentencia que cambia el stock y, solo si lo cambio, inserta el
+ * movimiento en el diario: el stock y el diario no pueden quedar distintos aunque la aplicacion se
+ * caiga. Todas las sentencias tienen el movimiento como primeros parametros (CTE movimiento) y la
+ * sentencia principal es el INSERT del diario, asi la cantidad de filas de cada una dice si se aplico.
+ * */
+@Repository
+public class DiarioStockEscritor {
+
+    private static final String MOVIMIENTO = "WITH movimiento AS (SELECT CAST(? AS integer) AS sucursal_id, " +
+            "    CAST(? AS integer) AS producto_id, CAST(? AS varchar) AS tipo, CAST(? AS integer) AS cantidad, " +
+            "    CAST(? AS timestamp) AS fecha, CAST(? AS integer) AS franjas) ";
+
+    private static final String DIARIO = "INSERT INTO diario_stock (sucursal_id, producto_id, tipo, cantidad, fecha) " +
+            "SELECT sucursal_id, producto_id, tipo, cantidad, fecha FROM movimiento ";
+
+    /*
+     * Venta: bloquea las franjas del producto en orden y, si entre todas tienen la cantidad, la
+     * descuenta de las primeras hasta completarla (igual que StockFranjaRepository.descontarRepartido).
+     * Si no alcanza no se modifica nada y no se inserta el movimiento.
+     * */
+    private static final String VENDER = MOVIMIENTO + ", " +
+            "franjas AS (SELECT s.franja, s.cantidad FROM stock_franjas s, movimiento m " +
+            "    WHERE s.sucursal_id = m.sucursal_id AND s.producto_id = m.producto_id ORDER BY s.franja FOR UPDATE OF s), " +
+            "reparto AS (SELECT f.franja, f.cantidad, sum(f.cantidad) OVER () AS total, " +
+            "    least(f.cantidad, greatest(0, m.cantidad - (sum(f.cantidad) OVER (ORDER BY f.franja) - f.cantidad))) AS quita " +
+            "    FROM franjas f, movimiento m), " +
+            "escrito AS (UPDATE stock_franjas s SET cantidad = r.cantidad - r.quita FROM reparto r, movimiento m " +
+            "    WHERE r.total >= m.cantidad AND r.quita > 0 AND s.sucursal_id = m.sucursal_id " +
+            "    AND s.producto_id = m.producto_id AND s.franja = r.franja RETURNING s.franja) " +
+            DIARIO + "WHERE EXISTS (SELECT 1 FROM escrito)";
+
+    /*
+     * Reposicion o devolucion: si la sucursal y el producto existen y no estan eliminados, suma la
+     * cantidad repartida en partes iguales entre las franjas que ya tiene el par, o entre las
+     * configuradas si no tiene ninguna (igual que StockFranjaRepository.transferirEntrada).
+     * */
+    private static final String REPONER = MOVIMIENTO + ", " +
+            "referencias AS (SELECT " +
+            "    (SELECT fecha_eliminacion IS NULL FROM sucursales WHERE id = m.sucursal_id FOR KEY SHARE) AS sucursal, " +
+            "    (SELECT fecha_eliminacion IS NULL FROM productos WHERE id = m.producto_id FOR KEY SHARE) AS producto, " +
+            "    coalesce((SELECT max(s.franja) + 1 FROM stock_franjas s " +
+            "        WHERE s.sucursal_id = m.sucursal_id AND s.producto_id = m.producto_id), m.franjas) AS n " +
+            "    FROM movimiento m), " +
+            "escrito AS (INSERT INTO stock_franjas (sucursal_id, producto_id, franja, cantidad) " +
+            "    SELECT m.sucursal_id, m.producto_id, f, m.cantidad / r.n + CASE WHEN f < m.cantidad % r.n THEN 1 ELSE 0 END " +
+            "    FROM movimiento m, referencias r, generate_series(0, r.n - 1) AS f WHERE r.sucursal AND r.producto " +
+            "    ORDER BY f " +
+            "    ON CONFLICT (sucursal_id, producto_id, franja) " +
+            "    DO UPDATE SET cantidad = stock_franjas.cantidad + EXCLUDED.cantidad RETURNING franja) " +
+            DIARIO + "WHERE EXISTS (SELECT 1 FROM escrito)";
+
+    // Solo el movimiento, para los cambios de stock que se aplican en la transaccion de otro servicio
+    private static final String REGISTRAR = MOVIMIENTO + DIARIO;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    // Cantidad de franjas de los productos que se reponen; los que ya tienen franjas las conservan
+    @Value("${megastore.stock.franjas:8}")
+    private int franjas;
+
+    /*
+     * Aplica los movimientos (de tipos que se aplican por lotes) en la transaccion actual y devuelve
+     * cuantas filas del diario inserto cada uno: 1, o 0 si no se aplico (venta sin stock suficiente,
+     * o reposicion o devolucion con una referencia invalida).
+     * Se aplican ordenados por sucursal y producto, el orden en que bloquean las franjas las demas
+     * escrituras de stock: la transaccion retiene los bloqueos de todo el lote y, en otro orden, podria
+     * quedar esperando a una transferencia que espera una franja que ya bloqueo el lote. Los de un
+     * mismo par quedan en el orden en que llegaron. Los seguidos del mismo tipo de sentencia van en un
+     * solo batch JDBC.
+     * */
+    public int[] aplicar(List<MovimientoDiario> movimientos) {
+        List<Integer> orden = new ArrayList<>(IntStream.range(0, movimientos.size()).boxed().toList());
+        orden.sort(Comparator.<Integer, Integer>comparing(i -> movimientos.get(i).getSucursalId())
+                .thenComparing(i -> movimientos.get(i).getProductoId()));
+        int[] filas = new int[movimientos.size()];
+        int desde = 0;
+        while (desde < orden.size()) {
+            String sentencia = sentencia(movimientos.get(orden.get(desde)).getTipo());
+            int hasta = desde + 1;
+            while (hasta < orden.size() && sentencia(movimientos.get(orden.get(hasta)).getTipo()).equals(sentencia)) {
+                hasta++;
+            }
+            List<Integer> parte = orden.subList(desde, hasta);
+            int[] resultado = jdbc.batchUpdate(sentencia, parte, parte.size(),
+                    (ps, i) -> parametros(ps, movimientos.get(i)))[0];
+            for (int j = 0; j < parte.size(); j++) {
+                filas[parte.get(j)] = resultado[j];
+            }
+            desde = hasta;
+        }
+        return filas;
+    }
+
+    /*
+     * Inserta el movimiento sin condiciones en la transaccion actual, que es la que ya cambio el
+     * stock (por ejemplo el alta de una reserva). Si falla, falla esa transaccion.
+     * */
+    public void registrar(MovimientoDiario movimiento) {
+        jdbc.update(REGISTRAR, ps -> parametros(ps, movimiento));
+    }
+
+    private static String sentencia(MovimientoDiario.Tipo tipo) {
+        return switch (tipo) {
+            case VENTA -> VENDER;
+            case REPOSICION, DEVOLUCION -> REPONER;
+            default -> throw new IllegalArgumentException("El movimiento " + tipo + " no se aplica por lotes");
+        };
+    }
+
+    private void parametros(java.sql.PreparedStatement ps, MovimientoDiario movimiento) throws java.sql.SQLException {
+        ps.setInt(1, movimiento.getSucursalId());
+        ps.setInt(2, movimiento.getProductoId());
+        ps.setString(3, movimiento.getTipo().name());
+        ps.setInt(4, movimiento.getCantidad());
+        ps.setTimestamp(5, Timestamp.valueOf(movimiento.getFecha()));
+        ps.setInt(6, franjas);
+    }
+}
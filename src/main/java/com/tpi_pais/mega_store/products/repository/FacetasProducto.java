@@ -0,0 +1,21 @@
+package com.tpi_pais.mega_store.products.repository;
+
+import java.time.LocalDateTime;
+
+/*
+ * Fila que lee ProductoRepository.streamFacetas para cargar el indice de facetas: solo el id,
+ * la version, los ids de los catalogos y la fecha de eliminacion. Es un record (y no una proyeccion por
+ * interfaz) porque se leen todos los productos y asi Hibernate no arma un proxy por fila.
+ * */
+public record FacetasProducto(Integer id, Integer version, Integer marcaId, Integer categoriaId, Integer colorId,
+                              Integer talleId, LocalDateTime fechaEliminacion) {
+
+    // En el orden de ProductoService.FACETAS
+    public int[] valores() {
+        return new int[]{marcaId, categoriaId, colorId, talleId};
+    }
+
+    public boolean eliminado() {
+        return fechaEliminacion != null;
+    }
+}
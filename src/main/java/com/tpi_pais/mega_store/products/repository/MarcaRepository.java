@@ -1,14 +1,145 @@
 package com.tpi_pais.mega_store.products.repository;
 
+import com.tpi_pais.mega_store.config.EsperaBloqueos;
 import com.tpi_pais.mega_store.products.model.Marca;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface MarcaRepository extends JpaRepository<Marca,Integer> {
 
     List<Marca> findByFechaEliminacionIsNullOrderByIdAsc();
 
+    List<Marca> findByFechaEliminacionIsNullAndIdGreaterThanOrderByIdAsc(Integer id, Limit limit);
+
     Optional<Marca> findByNombre(String nombre);
+
+    List<Marca> findByNombreIn(Collection<String> nombres);
+
+    /*
+     * Recorre todos los registros (incluidos los eliminados) sin cargarlos en una lista.
+     * Se debe consumir dentro de una transaccion y cerrar el Stream al terminar.
+     * */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select m from Marca m order by m.id")
+    Stream<Marca> streamAllByOrderByIdAsc();
+
+    @Query("select m.id from Marca m where m.id in :ids")
+    List<Integer> buscarIdsExistentes(@Param("ids") Collection<Integer> ids);
+
+    /*
+     * Bloqueo previo a las bajas: espera a las escrituras de productos que estan usando los registros
+     * (toman FOR KEY SHARE, ver ProductoRepository.REFERENCIAS) y frena las nuevas hasta confirmar.
+     * La baja se ejecuta despues en otra sentencia, que ya ve los contadores de referencias_catalogo
+     * de esas escrituras. Los ids se bloquean ordenados para que dos bajas masivas no se bloqueen
+     * entre si.
+     * */
+    @EsperaBloqueos
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Query(value = "SELECT id FROM marcas WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Integer bloquearPorId(@Param("id") Integer id);
+
+    @EsperaBloqueos
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Query(value = "SELECT id FROM marcas WHERE id IN (:ids) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<Integer> bloquearPorIds(@Param("ids") Collection<Integer> ids);
+
+    /*
+     * Bajas y recuperaciones masivas: un unico UPDATE que devuelve los ids que efectivamente
+     * cambiaron de estado. No llevan @Modifying porque el RETURNING hace que devuelvan filas.
+     * Las bajas no modifican los registros que tienen productos (ver bloquearPorIds).
+     * */
+    @Transactional
+    @Query(value = "UPDATE marcas SET fecha_eliminacion = :fecha " +
+            "WHERE id IN (:ids) AND fecha_eliminacion IS NULL " +
+            "AND NOT EXISTS (SELECT 1 FROM referencias_catalogo r " +
+            "    WHERE r.catalogo = 'marca' AND r.catalogo_id = marcas.id AND r.productos > 0) " +
+            "RETURNING id", nativeQuery = true)
+    List<Integer> eliminarPorIds(@Param("ids") Collection<Integer> ids, @Param("fecha") LocalDateTime fecha);
+
+    @Transactional
+    @Query(value = "UPDATE marcas SET fecha_eliminacion = NULL " +
+            "WHERE id IN (:ids) AND fecha_eliminacion IS NOT NULL RETURNING id", nativeQuery = true)
+    List<Integer> recuperarPorIds(@Param("ids") Collection<Integer> ids);
+
+    /*
+     * Escrituras condicionales: cada una es una unica sentencia que verifica en la bd que el
+     * registro exista, su estado de eliminacion y (al actualizar) que el nombre no este en uso.
+     * El CTE objetivo permite informar por que no se modifico ninguna fila.
+     * */
+    @Transactional
+    @Query(value = "WITH objetivo AS (SELECT fecha_eliminacion FROM marcas WHERE id = :id), " +
+            "actualizado AS (UPDATE marcas SET nombre = :nombre " +
+            "    WHERE id = :id AND fecha_eliminacion IS NULL " +
+            "    AND NOT EXISTS (SELECT 1 FROM marcas WHERE nombre = :nombre) " +
+            "    RETURNING id, nombre) " +
+            "SELECT CASE WHEN EXISTS (SELECT 1 FROM actualizado) THEN 'OK' " +
+            "    WHEN NOT EXISTS (SELECT 1 FROM objetivo) THEN 'NO_ENCONTRADO' " +
+            "    WHEN (SELECT fecha_eliminacion FROM objetivo) IS NOT NULL THEN 'ELIMINADO' " +
+            "    ELSE 'DUPLICADO' END AS estado, " +
+            "(SELECT id FROM actualizado) AS id, (SELECT nombre FROM actualizado) AS nombre", nativeQuery = true)
+    ResultadoEscritura actualizarNombre(@Param("id") Integer id, @Param("nombre") String nombre);
+
+    // Baja condicional: ademas no se elimina si algun producto lo usa (ver bloquearPorId)
+    @Transactional
+    @Query(value = "WITH objetivo AS (SELECT fecha_eliminacion FROM marcas WHERE id = :id), " +
+            "en_uso AS (SELECT 1 FROM referencias_catalogo " +
+            "    WHERE catalogo = 'marca' AND catalogo_id = :id AND productos > 0), " +
+            "actualizado AS (UPDATE marcas SET fecha_eliminacion = :fecha " +
+            "    WHERE id = :id AND fecha_eliminacion IS NULL AND NOT EXISTS (SELECT 1 FROM en_uso) " +
+            "    RETURNING id, nombre) " +
+            "SELECT CASE WHEN EXISTS (SELECT 1 FROM actualizado) THEN 'OK' " +
+            "    WHEN NOT EXISTS (SELECT 1 FROM objetivo) THEN 'NO_ENCONTRADO' " +
+            "    WHEN (SELECT fecha_eliminacion FROM objetivo) IS NOT NULL THEN 'ELIMINADO' " +
+            "    ELSE 'EN_USO' END AS estado, " +
+            "(SELECT id FROM actualizado) AS id, (SELECT nombre FROM actualizado) AS nombre", nativeQuery = true)
+    ResultadoEscritura eliminarPorId(@Param("id") Integer id, @Param("fecha") LocalDateTime fecha);
+
+    @Transactional
+    @Query(value = "WITH objetivo AS (SELECT id FROM marcas WHERE id = :id), " +
+            "actualizado AS (UPDATE marcas SET fecha_eliminacion = NULL " +
+            "    WHERE id = :id AND fecha_eliminacion IS NOT NULL RETURNING id, nombre) " +
+            "SELECT CASE WHEN EXISTS (SELECT 1 FROM actualizado) THEN 'OK' " +
+            "    WHEN NOT EXISTS (SELECT 1 FROM objetivo) THEN 'NO_ENCONTRADO' " +
+            "    ELSE 'NO_ELIMINADO' END AS estado, " +
+            "(SELECT id FROM actualizado) AS id, (SELECT nombre FROM actualizado) AS nombre", nativeQuery = true)
+    ResultadoEscritura recuperarPorId(@Param("id") Integer id);
+
+    /*
+     * Alta o recuperacion en una unica sentencia: si el nombre pertenece a un registro eliminado se
+     * recupera, si no existe se inserta y si pertenece a uno activo no se modifica nada (DUPLICADO).
+     * nextval solo se evalua cuando el nombre no existe: la secuencia avanza de a 50 por las altas
+     * por lotes, y pedirla en cada duplicado gastaba 50 ids por intento. Si otra alta del mismo
+     * nombre gana la carrera, el indice unico hace que el INSERT no haga nada y el resultado es
+     * DUPLICADO. El id sale de la misma secuencia que usa Hibernate; nextval nunca devuelve un valor
+     * que Hibernate ya haya reservado, asi que no hay colisiones con las altas por lotes.
+     * */
+    @Transactional
+    @Query(value = "WITH recuperado AS (UPDATE marcas SET fecha_eliminacion = NULL " +
+            "    WHERE nombre = :nombre AND fecha_eliminacion IS NOT NULL RETURNING id, nombre), " +
+            "creado AS (INSERT INTO marcas (id, nombre, fecha_eliminacion) " +
+            "    SELECT nextval('marcas_id_seq'), :nombre, NULL " +
+            "    WHERE NOT EXISTS (SELECT 1 FROM marcas WHERE nombre = :nombre) " +
+            "    ON CONFLICT (nombre) DO NOTHING RETURNING id, nombre) " +
+            "SELECT CASE WHEN EXISTS (SELECT 1 FROM creado) THEN 'CREADO' " +
+            "    WHEN EXISTS (SELECT 1 FROM recuperado) THEN 'RECUPERADO' " +
+            "    ELSE 'DUPLICADO' END AS estado, " +
+            "COALESCE((SELECT id FROM creado), (SELECT id FROM recuperado)) AS id, " +
+            "COALESCE((SELECT nombre FROM creado), (SELECT nombre FROM recuperado)) AS nombre", nativeQuery = true)
+    ResultadoEscritura crearORecuperar(@Param("nombre") String nombre);
 }
@@ -0,0 +1,178 @@
+package com.tpi_pais.mega_store.products.repository;
+
+import com.tpi_pais.mega_store.products.model.Producto;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface ProductoRepository extends JpaRepository<Producto,Integer> {
+
+    /*
+     * Estado de los catalogos referenciados: true si existe y no esta eliminado, false si esta
+     * eliminado y null si no existe. Lo comparten el alta y la modificacion.
+     * Cada catalogo se bloquea con FOR KEY SHARE hasta confirmar: no frena los cambios de nombre
+     * ni otras escrituras de productos, pero si las bajas del catalogo, que primero toman FOR UPDATE
+     * sobre el registro (ver bloquearPorId en los repositorios de catalogos). Asi una baja no puede
+     * leer el contador de referencias_catalogo mientras un producto empieza a usar el registro, y
+     * un producto que espero a una baja ve el catalogo ya eliminado.
+     * */
+    String REFERENCIAS = "referencias AS (SELECT " +
+            "    (SELECT fecha_eliminacion IS NULL FROM marcas WHERE id = :marcaId FOR KEY SHARE) AS marca, " +
+            "    (SELECT fecha_eliminacion IS NULL FROM categorias WHERE id = :categoriaId FOR KEY SHARE) AS categoria, " +
+            "    (SELECT fecha_eliminacion IS NULL FROM colores WHERE id = :colorId FOR KEY SHARE) AS color, " +
+            "    (SELECT fecha_eliminacion IS NULL FROM talles WHERE id = :talleId FOR KEY SHARE) AS talle) ";
+
+    // Igual que REFERENCIAS pero con los catalogos que ya tiene el producto (CTE anterior)
+    String REFERENCIAS_ANTERIOR = "referencias AS (SELECT " +
+            "    (SELECT fecha_eliminacion IS NULL FROM marcas WHERE id = a.marca_id FOR KEY SHARE) AS marca, " +
+            "    (SELECT fecha_eliminacion IS NULL FROM categorias WHERE id = a.categoria_id FOR KEY SHARE) AS categoria, " +
+            "    (SELECT fecha_eliminacion IS NULL FROM colores WHERE id = a.color_id FOR KEY SHARE) AS color, " +
+            "    (SELECT fecha_eliminacion IS NULL FROM talles WHERE id = a.talle_id FOR KEY SHARE) AS talle " +
+            "    FROM anterior a) ";
+
+    /*
+     * Producto antes de escribirlo, bloqueado: si otra transaccion lo esta modificando se espera y
+     * se leen los valores que dejo, asi lo que se descuenta de los contadores es lo que realmente
+     * habia. La escritura lo usa en el FROM para que se evalue antes de modificar la fila.
+     * */
+    String ANTERIOR = "anterior AS (SELECT marca_id, categoria_id, color_id, talle_id, fecha_eliminacion " +
+            "    FROM productos WHERE id = :id FOR UPDATE) ";
+
+    String REFERENCIAS_VALIDAS = "r.marca AND r.categoria AND r.color AND r.talle";
+
+    String REFERENCIA_INVALIDA = "CASE WHEN r.marca IS NOT TRUE THEN 'marca' " +
+            "    WHEN r.categoria IS NOT TRUE THEN 'categoria' " +
+            "    WHEN r.color IS NOT TRUE THEN 'color' " +
+            "    WHEN r.talle IS NOT TRUE THEN 'talle' END";
+
+    // Columnas de ResultadoEscrituraProducto a partir del CTE escrito (a lo sumo una fila)
+    String COLUMNAS_ESCRITO = "e.id AS \"id\", e.nombre AS \"nombre\", e.precio AS \"precio\", " +
+            "e.marca_id AS \"marcaId\", e.categoria_id AS \"categoriaId\", e.color_id AS \"colorId\", " +
+            "e.talle_id AS \"talleId\", e.version AS \"version\"";
+
+    /*
+     * Contadores de referencias_catalogo (ver ReferenciaCatalogo). Cada escritura arma el CTE cambios
+     * con una fila (catalogo, catalogo_id, cambio) por referencia que suma o resta y CONTADORES los
+     * aplica en la misma sentencia. Las filas se agrupan (un mismo contador no puede modificarse dos
+     * veces en un INSERT) y se escriben ordenadas para que dos escrituras concurrentes bloqueen los
+     * contadores en el mismo orden.
+     * */
+    String SUMA_ESCRITO = "SELECT v.* FROM escrito e CROSS JOIN LATERAL (VALUES ('marca', e.marca_id, 1), " +
+            "    ('categoria', e.categoria_id, 1), ('color', e.color_id, 1), ('talle', e.talle_id, 1)) " +
+            "    AS v(catalogo, catalogo_id, cambio)";
+
+    String RESTA_ESCRITO = "SELECT v.* FROM escrito e CROSS JOIN LATERAL (VALUES ('marca', e.marca_id, -1), " +
+            "    ('categoria', e.categoria_id, -1), ('color', e.color_id, -1), ('talle', e.talle_id, -1)) " +
+            "    AS v(catalogo, catalogo_id, cambio)";
+
+    // Solo si la escritura se realizo (cruce con escrito)
+    String RESTA_ANTERIOR = "SELECT v.* FROM escrito e CROSS JOIN anterior a CROSS JOIN LATERAL (VALUES " +
+            "    ('marca', a.marca_id, -1), ('categoria', a.categoria_id, -1), ('color', a.color_id, -1), " +
+            "    ('talle', a.talle_id, -1)) AS v(catalogo, catalogo_id, cambio)";
+
+    String CONTADORES = "contadores AS (INSERT INTO referencias_catalogo (catalogo, catalogo_id, productos) " +
+            "    SELECT catalogo, catalogo_id, sum(cambio) FROM cambios GROUP BY catalogo, catalogo_id " +
+            "    HAVING sum(cambio) <> 0 ORDER BY catalogo, catalogo_id " +
+            "    ON CONFLICT (catalogo, catalogo_id) " +
+            "    DO UPDATE SET productos = referencias_catalogo.productos + EXCLUDED.productos) ";
+
+    List<Producto> findByIdInOrderByIdAsc(Collection<Integer> ids);
+
+    /*
+     * Recorre todos los productos (incluidos los eliminados) leyendo solo las columnas que usa el
+     * indice de facetas. Los ids de las referencias salen de las claves foraneas, sin joins.
+     * Se debe consumir dentro de una transaccion y cerrar el Stream al terminar.
+     * */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "5000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.tpi_pais.mega_store.products.repository.FacetasProducto(" +
+            "p.id, p.version, p.marca.id, p.categoria.id, p.color.id, p.talle.id, p.fechaEliminacion) " +
+            "from Producto p")
+    Stream<FacetasProducto> streamFacetas();
+
+    /*
+     * Escrituras condicionales: cada una es una unica sentencia que verifica en la bd que las
+     * referencias existan y no esten eliminadas y (al modificar) el estado del producto, y que
+     * actualiza los contadores de referencias_catalogo.
+     * El estado devuelto informa por que no se modifico ninguna fila. Cada escritura incrementa la
+     * version del producto (ver Producto.version).
+     * */
+    @Transactional
+    @Query(value = "WITH " + REFERENCIAS + ", " +
+            "escrito AS (INSERT INTO productos (id, nombre, precio, marca_id, categoria_id, color_id, talle_id, fecha_eliminacion, version) " +
+            "    SELECT nextval('productos_id_seq'), :nombre, :precio, :marcaId, :categoriaId, :colorId, :talleId, NULL, 0 " +
+            "    FROM referencias r WHERE " + REFERENCIAS_VALIDAS + " " +
+            "    RETURNING *), " +
+            "cambios AS (" + SUMA_ESCRITO + "), " +
+            CONTADORES +
+            "SELECT CASE WHEN e.id IS NOT NULL THEN 'CREADO' ELSE 'REFERENCIA_INVALIDA' END AS \"estado\", " +
+            COLUMNAS_ESCRITO + ", " + REFERENCIA_INVALIDA + " AS \"referencia\" " +
+            "FROM referencias r LEFT JOIN escrito e ON true", nativeQuery = true)
+    ResultadoEscrituraProducto crear(@Param("nombre") String nombre, @Param("precio") BigDecimal precio,
+                                     @Param("marcaId") Integer marcaId, @Param("categoriaId") Integer categoriaId,
+                                     @Param("colorId") Integer colorId, @Param("talleId") Integer talleId);
+
+    @Transactional
+    @Query(value = "WITH " + ANTERIOR + ", " +
+            REFERENCIAS + ", " +
+            "escrito AS (UPDATE productos SET nombre = :nombre, precio = :precio, marca_id = :marcaId, " +
+            "    categoria_id = :categoriaId, color_id = :colorId, talle_id = :talleId, version = productos.version + 1 " +
+            "    FROM referencias r, anterior a " +
+            "    WHERE productos.id = :id AND productos.fecha_eliminacion IS NULL AND " + REFERENCIAS_VALIDAS + " " +
+            "    RETURNING productos.*), " +
+            "cambios AS (" + SUMA_ESCRITO + " UNION ALL " + RESTA_ANTERIOR + "), " +
+            CONTADORES +
+            "SELECT CASE WHEN e.id IS NOT NULL THEN 'OK' " +
+            "    WHEN NOT EXISTS (SELECT 1 FROM anterior) THEN 'NO_ENCONTRADO' " +
+            "    WHEN (SELECT fecha_eliminacion FROM anterior) IS NOT NULL THEN 'ELIMINADO' " +
+            "    ELSE 'REFERENCIA_INVALIDA' END AS \"estado\", " +
+            COLUMNAS_ESCRITO + ", " + REFERENCIA_INVALIDA + " AS \"referencia\" " +
+            "FROM referencias r LEFT JOIN escrito e ON true", nativeQuery = true)
+    ResultadoEscrituraProducto actualizar(@Param("id") Integer id, @Param("nombre") String nombre,
+                                          @Param("precio") BigDecimal precio,
+                                          @Param("marcaId") Integer marcaId, @Param("categoriaId") Integer categoriaId,
+                                          @Param("colorId") Integer colorId, @Param("talleId") Integer talleId);
+
+    @Transactional
+    @Query(value = "WITH objetivo AS (SELECT id FROM productos WHERE id = :id), " +
+            "escrito AS (UPDATE productos SET fecha_eliminacion = :fecha, version = version + 1 " +
+            "    WHERE id = :id AND fecha_eliminacion IS NULL RETURNING *), " +
+            "cambios AS (" + RESTA_ESCRITO + "), " +
+            CONTADORES +
+            "SELECT CASE WHEN e.id IS NOT NULL THEN 'OK' " +
+            "    WHEN NOT EXISTS (SELECT 1 FROM objetivo) THEN 'NO_ENCONTRADO' " +
+            "    ELSE 'ELIMINADO' END AS \"estado\", " +
+            COLUMNAS_ESCRITO + ", NULL AS \"referencia\" " +
+            "FROM (SELECT 1) AS uno LEFT JOIN escrito e ON true", nativeQuery = true)
+    ResultadoEscrituraProducto eliminarPorId(@Param("id") Integer id, @Param("fecha") LocalDateTime fecha);
+
+    // Al recuperar se verifica que los catalogos del producto sigan sin eliminar
+    @Transactional
+    @Query(value = "WITH " + ANTERIOR + ", " +
+            REFERENCIAS_ANTERIOR + ", " +
+            "escrito AS (UPDATE productos SET fecha_eliminacion = NULL, version = productos.version + 1 " +
+            "    FROM referencias r, anterior a " +
+            "    WHERE productos.id = :id AND productos.fecha_eliminacion IS NOT NULL AND " + REFERENCIAS_VALIDAS + " " +
+            "    RETURNING productos.*), " +
+            "cambios AS (" + SUMA_ESCRITO + "), " +
+            CONTADORES +
+            "SELECT CASE WHEN e.id IS NOT NULL THEN 'OK' " +
+            "    WHEN NOT EXISTS (SELECT 1 FROM anterior) THEN 'NO_ENCONTRADO' " +
+            "    WHEN (SELECT fecha_eliminacion FROM anterior) IS NULL THEN 'NO_ELIMINADO' " +
+            "    ELSE 'REFERENCIA_INVALIDA' END AS \"estado\", " +
+            COLUMNAS_ESCRITO + ", " + REFERENCIA_INVALIDA + " AS \"referencia\" " +
+            "FROM (SELECT 1) AS uno LEFT JOIN escrito e ON true LEFT JOIN referencias r ON true", nativeQuery = true)
+    ResultadoEscrituraProducto recuperarPorId(@Param("id") Integer id);
+}
@@ -0,0 +1,47 @@
+package com.tpi_pais.mega_store.products.repository;
+
+import com.tpi_pais.mega_store.config.EsperaBloqueos;
+import com.tpi_pais.mega_store.products.model.ReferenciaCatalogo;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ReferenciaCatalogoRepository extends JpaRepository<ReferenciaCatalogo, ReferenciaCatalogo.Clave> {
+
+    // Ids del catalogo que tienen al menos un producto no eliminado
+    @Query("select r.catalogoId from ReferenciaCatalogo r " +
+            "where r.catalogo = :catalogo and r.catalogoId in :ids and r.productos > 0")
+    List<Integer> buscarIdsEnUso(@Param("catalogo") String catalogo, @Param("ids") Collection<Integer> ids);
+
+    /*
+     * Reconstruccion de los contadores: se bloquea la tabla de productos en modo SHARE, que espera a
+     * las escrituras de productos en curso y frena las nuevas hasta confirmar, asi el recuento no se
+     * mezcla con incrementos concurrentes. Las tres sentencias deben ejecutarse en la misma transaccion.
+     * */
+    @EsperaBloqueos
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Modifying
+    @Query(value = "LOCK TABLE productos IN SHARE MODE", nativeQuery = true)
+    void bloquearProductos();
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Modifying
+    @Query(value = "DELETE FROM referencias_catalogo", nativeQuery = true)
+    int borrarTodas();
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Modifying
+    @Query(value = "INSERT INTO referencias_catalogo (catalogo, catalogo_id, productos) " +
+            "SELECT v.catalogo, v.catalogo_id, count(*) " +
+            "FROM productos p CROSS JOIN LATERAL (VALUES ('marca', p.marca_id), ('categoria', p.categoria_id), " +
+            "    ('color', p.color_id), ('talle', p.talle_id)) AS v(catalogo, catalogo_id) " +
+            "WHERE p.fecha_eliminacion IS NULL " +
+            "GROUP BY v.catalogo, v.catalogo_id", nativeQuery = true)
+    int contarDesdeProductos();
+}
@@ -0,0 +1,87 @@
+package com.tpi_pais.mega_store.products.repository;
+
+import com.tpi_pais.mega_store.config.EsperaBloqueos;
+import com.tpi_pais.mega_store.products.model.Reserva;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.stream.Stream;
+
+public interface ReservaRepository extends JpaRepository<Reserva, Integer> {
+
+    /*
+     * Devolucion al stock de las reservas borradas (CTE borradas): se suman por producto y se
+     * agregan a la franja 0 de cada uno, que existe siempre que hubo stock para reservar. Las franjas
+     * se bloquean en orden, asi dos devoluciones con varios productos no se bloquean entre si.
+     * */
+    String DEVOLUCION = "devueltas AS (SELECT sucursal_id, producto_id, sum(cantidad) AS cantidad " +
+            "    FROM borradas GROUP BY sucursal_id, producto_id), " +
+            "bloqueadas AS (SELECT s.sucursal_id, s.producto_id, d.cantidad FROM stock_franjas s " +
+            "    JOIN devueltas d ON s.sucursal_id = d.sucursal_id AND s.producto_id = d.producto_id " +
+            "    WHERE s.franja = 0 ORDER BY s.sucursal_id, s.producto_id FOR UPDATE OF s), " +
+            "devuelto AS (UPDATE stock_franjas s SET cantidad = s.cantidad + b.cantidad FROM bloqueadas b " +
+            "    WHERE s.sucursal_id = b.sucursal_id AND s.producto_id = b.producto_id AND s.franja = 0 " +
+            "    RETURNING s.franja) ";
+
+    /*
+     * Vencimiento por lotes: borra las reservas de ids que siguen existiendo y ya vencieron, y
+     * devuelve su stock, todo en una sentencia que tambien registra cada devolucion en el diario de
+     * stock como RESERVA_VENCIDA. Si una reserva se confirmo o cancelo antes, ya no esta y no se
+     * devuelve nada por ella. Devuelve la cantidad de reservas vencidas.
+     * */
+    @EsperaBloqueos
+    @Transactional
+    @Query(value = "WITH borradas AS (DELETE FROM reservas_stock WHERE id IN (:ids) AND vence <= :ahora " +
+            "    RETURNING sucursal_id, producto_id, cantidad), " +
+            DEVOLUCION + ", " +
+            "diario AS (INSERT INTO diario_stock (sucursal_id, producto_id, tipo, cantidad, fecha) " +
+            "    SELECT sucursal_id, producto_id, 'RESERVA_VENCIDA', cantidad, :ahora FROM borradas RETURNING id) " +
+            "SELECT count(*) FROM borradas", nativeQuery = true)
+    int vencer(@Param("ids") Collection<Integer> ids, @Param("ahora") LocalDateTime ahora);
+
+    /*
+     * Cancelacion: borra la reserva de la sucursal, devuelve su stock y registra la devolucion en el
+     * diario como RESERVA_CANCELADA. Devuelve 0 si no estaba.
+     * */
+    @EsperaBloqueos
+    @Transactional
+    @Query(value = "WITH borradas AS (DELETE FROM reservas_stock WHERE id = :id AND sucursal_id = :sucursalId " +
+            "    RETURNING sucursal_id, producto_id, cantidad), " +
+            DEVOLUCION + ", " +
+            "diario AS (INSERT INTO diario_stock (sucursal_id, producto_id, tipo, cantidad, fecha) " +
+            "    SELECT sucursal_id, producto_id, 'RESERVA_CANCELADA', cantidad, :fecha FROM borradas RETURNING id) " +
+            "SELECT count(*) FROM borradas", nativeQuery = true)
+    int cancelar(@Param("id") Integer id, @Param("sucursalId") Integer sucursalId,
+                 @Param("fecha") LocalDateTime fecha);
+
+    /*
+     * Confirmacion: borra la reserva si es de la sucursal y todavia no vencio; el stock ya estaba
+     * descontado. Devuelve el id, o null si no estaba o ya vencio (en ese caso la devuelve el
+     * vencimiento).
+     * */
+    @EsperaBloqueos
+    @Transactional
+    @Query(value = "DELETE FROM reservas_stock WHERE id = :id AND sucursal_id = :sucursalId AND vence > :ahora " +
+            "RETURNING id", nativeQuery = true)
+    Integer confirmar(@Param("id") Integer id, @Param("sucursalId") Integer sucursalId,
+                      @Param("ahora") LocalDateTime ahora);
+
+    /*
+     * Recorre todas las reservas pendientes leyendo solo el id y el vencimiento.
+     * Se debe consumir dentro de una transaccion y cerrar el Stream al terminar.
+     * */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "5000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.tpi_pais.mega_store.products.repository.VencimientoReserva(r.id, r.vence) " +
+            "from Reserva r")
+    Stream<VencimientoReserva> streamVencimientos();
+}
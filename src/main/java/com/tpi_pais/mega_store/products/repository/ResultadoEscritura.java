@@ -0,0 +1,14 @@
+package com.tpi_pais.mega_store.products.repository;
+
+/*
+ * Proyeccion de las sentencias de escritura condicional de los repositorios de catalogos.
+ * estado es uno de los valores de ResultadoEscrituraDTO.Estado; id y nombre son los del
+ * registro modificado (null si no se modifico ninguno).
+ * */
+public interface ResultadoEscritura {
+    String getEstado();
+
+    Integer getId();
+
+    String getNombre();
+}
@@ -0,0 +1,31 @@
+package com.tpi_pais.mega_store.products.repository;
+
+import java.math.BigDecimal;
+
+/*
+ * Proyeccion de las sentencias de escritura condicional de ProductoRepository.
+ * estado es uno de los valores de ResultadoEscrituraDTO.Estado; las columnas del producto son las
+ * del registro modificado (null si no se modifico ninguno) y referencia es el catalogo que no
+ * existe o esta eliminado cuando el estado es REFERENCIA_INVALIDA.
+ * */
+public interface ResultadoEscrituraProducto {
+    String getEstado();
+
+    Integer getId();
+
+    String getNombre();
+
+    BigDecimal getPrecio();
+
+    Integer getMarcaId();
+
+    Integer getCategoriaId();
+
+    Integer getColorId();
+
+    Integer getTalleId();
+
+    Integer getVersion();
+
+    String getReferencia();
+}
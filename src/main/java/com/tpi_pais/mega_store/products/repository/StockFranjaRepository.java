@@ -0,0 +1,135 @@
+package com.tpi_pais.mega_store.products.repository;
+
+import com.tpi_pais.mega_store.config.EsperaBloqueos;
+import com.tpi_pais.mega_store.products.model.StockFranja;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface StockFranjaRepository extends JpaRepository<StockFranja, StockFranja.Clave> {
+
+    List<StockFranja> findBySucursalIdAndProductoIdOrderByFranjaAsc(Integer sucursalId, Integer productoId);
+
+    /*
+     * Descuento en una franja: un unico UPDATE condicional, que solo se aplica si la franja tiene
+     * stock suficiente. Devuelve lo que quedo en la franja, o null si no alcanzaba (en ese caso no
+     * se modifica ni se bloquea nada). El bloqueo de la fila dura solo la sentencia, se llama fuera
+     * de cualquier otra transaccion.
+     * */
+    @EsperaBloqueos
+    @Transactional
+    @Query(value = "UPDATE stock_franjas SET cantidad = cantidad - :cantidad " +
+            "WHERE sucursal_id = :sucursalId AND producto_id = :productoId AND franja = :franja " +
+            "AND cantidad >= :cantidad RETURNING cantidad", nativeQuery = true)
+    Integer descontar(@Param("sucursalId") Integer sucursalId, @Param("productoId") Integer productoId,
+                      @Param("franja") Integer franja, @Param("cantidad") Integer cantidad);
+
+    /*
+     * Descuento repartido entre todas las franjas, para cuando ninguna alcanza sola. Bloquea las
+     * franjas en orden (dos descuentos repartidos no se bloquean entre si), calcula con el total ya
+     * bloqueado si alcanza y descuenta de las primeras franjas hasta completar la cantidad.
+     * Devuelve el total que habia: si es menor a la cantidad no se modifico nada.
+     * La cantidad nueva se calcula con la leida al bloquear (r.cantidad) y no con s.cantidad: si otra
+     * transaccion modifico la franja despues del inicio de la sentencia, Postgres verifica el check
+     * (cantidad >= 0) con la version que ve la sentencia antes de releer la fila, y con una
+     * reposicion concurrente esa version puede tener menos de lo que se descuenta. Con la fila
+     * bloqueada las dos cantidades son la misma.
+     * */
+    @EsperaBloqueos
+    @Transactional
+    @Query(value = "WITH franjas AS (SELECT franja, cantidad FROM stock_franjas " +
+            "    WHERE sucursal_id = :sucursalId AND producto_id = :productoId ORDER BY franja FOR UPDATE), " +
+            "reparto AS (SELECT franja, cantidad, sum(cantidad) OVER () AS total, " +
+            "    least(cantidad, greatest(0, :cantidad - (sum(cantidad) OVER (ORDER BY franja) - cantidad))) AS quita " +
+            "    FROM franjas), " +
+            "escrito AS (UPDATE stock_franjas s SET cantidad = r.cantidad - r.quita FROM reparto r " +
+            "    WHERE r.total >= :cantidad AND r.quita > 0 AND s.sucursal_id = :sucursalId " +
+            "    AND s.producto_id = :productoId AND s.franja = r.franja RETURNING s.franja) " +
+            "SELECT coalesce((SELECT max(total) FROM reparto), 0)", nativeQuery = true)
+    Integer descontarRepartido(@Param("sucursalId") Integer sucursalId, @Param("productoId") Integer productoId,
+                               @Param("cantidad") Integer cantidad);
+
+    /*
+     * Por que no se pudo reponer: "sucursal" o "producto" si no existe o esta eliminado, o null si
+     * los dos son validos. Las reposiciones las aplica DiarioStockEscritor, que solo devuelve si se
+     * aplico o no; esta consulta arma la respuesta cuando no se aplico.
+     * */
+    @Query(value = "SELECT CASE " +
+            "    WHEN NOT EXISTS (SELECT 1 FROM sucursales WHERE id = :sucursalId AND fecha_eliminacion IS NULL) THEN 'sucursal' " +
+            "    WHEN NOT EXISTS (SELECT 1 FROM productos WHERE id = :productoId AND fecha_eliminacion IS NULL) THEN 'producto' " +
+            "    END", nativeQuery = true)
+    String referenciaInvalida(@Param("sucursalId") Integer sucursalId, @Param("productoId") Integer productoId);
+
+    /*
+     * Transferencias entre sucursales (ver TransferenciaService): una sentencia por sucursal con todos
+     * los productos de la transferencia, que llegan como dos arreglos paralelos (productos ordenados
+     * por id, sin repetidos, y cantidades). Ambas bloquean las franjas en orden de producto y franja,
+     * el mismo que usan las demas escrituras de stock, y registran los movimientos en el diario de la
+     * sucursal en la misma sentencia. Se llaman dentro de la transaccion de la transferencia.
+     * */
+    String PEDIDOS = "pedidos AS (SELECT producto_id, cantidad FROM " +
+            "    unnest(CAST(:productos AS integer[]), CAST(:cantidades AS integer[])) AS p(producto_id, cantidad)) ";
+
+    /*
+     * Salida: bloquea las franjas de los productos en la sucursal y, si todos tienen el total pedido,
+     * descuenta cada cantidad de las primeras franjas hasta completarla (igual que descontarRepartido).
+     * Devuelve los productos sin stock suficiente; si hay alguno no se modifico nada. La cantidad
+     * nueva se calcula con la leida al bloquear, por lo mismo que en descontarRepartido.
+     * */
+    @EsperaBloqueos
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Query(value = "WITH " + PEDIDOS + ", " +
+            "franjas AS (SELECT producto_id, franja, cantidad FROM stock_franjas " +
+            "    WHERE sucursal_id = :sucursalId AND producto_id = ANY(CAST(:productos AS integer[])) " +
+            "    ORDER BY producto_id, franja FOR UPDATE), " +
+            "faltantes AS (SELECT p.producto_id FROM pedidos p " +
+            "    LEFT JOIN (SELECT producto_id, sum(cantidad) AS total FROM franjas GROUP BY producto_id) t " +
+            "    ON t.producto_id = p.producto_id WHERE coalesce(t.total, 0) < p.cantidad), " +
+            "reparto AS (SELECT f.producto_id, f.franja, f.cantidad, least(f.cantidad, greatest(0, p.cantidad - " +
+            "    (sum(f.cantidad) OVER (PARTITION BY f.producto_id ORDER BY f.franja) - f.cantidad))) AS quita " +
+            "    FROM franjas f JOIN pedidos p ON p.producto_id = f.producto_id), " +
+            "escrito AS (UPDATE stock_franjas s SET cantidad = r.cantidad - r.quita FROM reparto r " +
+            "    WHERE NOT EXISTS (SELECT 1 FROM faltantes) AND r.quita > 0 AND s.sucursal_id = :sucursalId " +
+            "    AND s.producto_id = r.producto_id AND s.franja = r.franja RETURNING s.franja), " +
+            "diario AS (INSERT INTO diario_stock (sucursal_id, producto_id, tipo, cantidad, fecha) " +
+            "    SELECT :sucursalId, producto_id, 'TRANSFERENCIA_SALIDA', cantidad, :fecha FROM pedidos " +
+            "    WHERE NOT EXISTS (SELECT 1 FROM faltantes) RETURNING id) " +
+            "SELECT producto_id FROM faltantes ORDER BY producto_id", nativeQuery = true)
+    List<Integer> transferirSalida(@Param("sucursalId") Integer sucursalId, @Param("productos") Integer[] productos,
+                                   @Param("cantidades") Integer[] cantidades, @Param("fecha") LocalDateTime fecha);
+
+    /*
+     * Entrada: si la sucursal existe y no esta eliminada, suma cada cantidad repartida en partes
+     * iguales entre las franjas que ya tiene el producto en la sucursal, o entre :franjas nuevas si no
+     * tiene ninguna, igual que las reposiciones (ver DiarioStockEscritor).
+     * Devuelve null si se aplico o "sucursal" si la sucursal no es valida.
+     * */
+    @EsperaBloqueos
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Query(value = "WITH " + PEDIDOS + ", " +
+            "referencias AS (SELECT " +
+            "    (SELECT fecha_eliminacion IS NULL FROM sucursales WHERE id = :sucursalId FOR KEY SHARE) AS sucursal), " +
+            "escrito AS (INSERT INTO stock_franjas (sucursal_id, producto_id, franja, cantidad) " +
+            "    SELECT :sucursalId, p.producto_id, f, " +
+            "        p.cantidad / p.n + CASE WHEN f < p.cantidad % p.n THEN 1 ELSE 0 END " +
+            "    FROM referencias r, " +
+            "        (SELECT producto_id, cantidad, coalesce((SELECT max(s.franja) + 1 FROM stock_franjas s " +
+            "            WHERE s.sucursal_id = :sucursalId AND s.producto_id = pedidos.producto_id), :franjas) AS n " +
+            "        FROM pedidos) p, " +
+            "        generate_series(0, p.n - 1) AS f WHERE r.sucursal " +
+            "    ORDER BY p.producto_id, f " +
+            "    ON CONFLICT (sucursal_id, producto_id, franja) " +
+            "    DO UPDATE SET cantidad = stock_franjas.cantidad + EXCLUDED.cantidad RETURNING franja), " +
+            "diario AS (INSERT INTO diario_stock (sucursal_id, producto_id, tipo, cantidad, fecha) " +
+            "    SELECT :sucursalId, p.producto_id, 'TRANSFERENCIA_ENTRADA', p.cantidad, :fecha " +
+            "    FROM referencias r, pedidos p WHERE r.sucursal RETURNING id) " +
+            "SELECT CASE WHEN r.sucursal IS NOT TRUE THEN 'sucursal' END FROM referencias r", nativeQuery = true)
+    String transferirEntrada(@Param("sucursalId") Integer sucursalId, @Param("productos") Integer[] productos,
+                             @Param("cantidades") Integer[] cantidades, @Param("franjas") Integer franjas,
+                             @Param("fecha") LocalDateTime fecha);
+}
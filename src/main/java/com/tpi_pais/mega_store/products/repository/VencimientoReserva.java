@@ -0,0 +1,10 @@
+package com.tpi_pais.mega_store.products.repository;
+
+import java.time.LocalDateTime;
+
+/*
+ * Fila que lee ReservaRepository.streamVencimientos para reconstruir la rueda de vencimientos al
+ * arrancar. Es un record por lo mismo que FacetasProducto.
+ * */
+public record VencimientoReserva(Integer id, LocalDateTime vence) {
+}
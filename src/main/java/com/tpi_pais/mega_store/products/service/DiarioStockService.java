@@ -0,0 +1,259 @@
+package com.tpi_pais.mega_store.products.service;
+
+import com.tpi_pais.mega_store.exception.ServicioNoDisponibleExcepcion;
+import com.tpi_pais.mega_store.products.dto.MovimientoDiarioDTO;
+import com.tpi_pais.mega_store.products.dto.ResultadoEscrituraDTO;
+import com.tpi_pais.mega_store.products.mapper.MovimientoDiarioMapper;
+import com.tpi_pais.mega_store.products.model.MovimientoDiario;
+import com.tpi_pais.mega_store.products.repository.DiarioStockEscritor;
+import com.tpi_pais.mega_store.utils.lotes.BufferCircular;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Diario de movimientos de stock con escritura agrupada (group commit).
+ *
+ * Las ventas, reposiciones y devoluciones se aplican al stock por aca: registrar un movimiento no
+ * abre una transaccion, lo agrega a un buffer circular en memoria (utils.lotes.BufferCircular) y
+ * espera. Un unico hilo escritor toma los movimientos por lotes de hasta megastore.diario.lote, o los
+ * que haya cuando el mas viejo espero megastore.diario.latencia-ms, y los aplica en una sola
+ * transaccion: cada movimiento es una sentencia que cambia las franjas e inserta el movimiento en el
+ * diario (ver DiarioStockEscritor). Recien cuando esa transaccion se confirmo se le responde a cada
+ * peticion: un cambio de stock confirmado al cliente ya esta en la bd junto con su movimiento y no
+ * se pierde aunque la aplicacion se caiga; los que estaban en el buffer nunca se aplicaron.
+ *
+ * Si el buffer esta lleno (megastore.diario.capacidad) la peticion espera lugar hasta
+ * megastore.diario.espera-maxima-ms y despues responde 503. Si falla la transaccion de un lote se
+ * vuelve a aplicar cada movimiento en una transaccion propia, asi uno que falla no hace fallar a los
+ * demas; los que vuelven a fallar responden 503 y no cambian nada. Al detener la aplicacion se
+ * aplica lo que quedaba en el buffer.
+ *
+ * Las reservas y transferencias cambian el stock en su propia transaccion y registran sus
+ * movimientos en ella (ver ReservaRepository y StockFranjaRepository), no pasan por el buffer.
+ *
+ * Metricas: megastore.diario.lote (tamanio de los lotes), megastore.diario.escritura (duracion de
+ * cada lote), megastore.diario.movimientos con tag resultado (guardado, sin_stock,
+ * referencia_invalida, fallido, rechazado) y el gauge megastore.diario.pendientes.
+ * */
+@Service
+public class DiarioStockService implements IDiarioStockService {
+
+    private static final Logger log = LoggerFactory.getLogger(DiarioStockService.class);
+
+    @Autowired
+    private DiarioStockEscritor escritor;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Value("${megastore.diario.capacidad:65536}")
+    private int capacidad;
+
+    @Value("${megastore.diario.lote:500}")
+    private int tamanioLote;
+
+    @Value("${megastore.diario.latencia-ms:5}")
+    private long latenciaMs;
+
+    @Value("${megastore.diario.espera-maxima-ms:1000}")
+    private long esperaMaximaMs;
+
+    // Un movimiento en el buffer y la respuesta que espera la peticion: true si se aplico
+    private record Pendiente(MovimientoDiario movimiento, CompletableFuture<Boolean> guardado) {
+    }
+
+    private BufferCircular<Pendiente> buffer;
+    private TransactionTemplate transaccion;
+    private Thread hiloEscritor;
+
+    private DistributionSummary lotes;
+    private Timer escrituras;
+    private Counter guardados;
+    private Counter sinStock;
+    private Counter referenciasInvalidas;
+    private Counter fallidos;
+    private Counter rechazados;
+
+    @PostConstruct
+    void iniciar() {
+        buffer = new BufferCircular<>(capacidad);
+        transaccion = new TransactionTemplate(transactionManager);
+        lotes = DistributionSummary.builder("megastore.diario.lote")
+                .description("Movimientos aplicados por lote")
+                .publishPercentileHistogram()
+                .register(registry);
+        escrituras = Timer.builder("megastore.diario.escritura")
+                .description("Duracion de la aplicacion de cada lote, incluido el commit")
+                .publishPercentileHistogram()
+                .register(registry);
+        guardados = movimientos("guardado");
+        sinStock = movimientos("sin_stock");
+        referenciasInvalidas = movimientos("referencia_invalida");
+        fallidos = movimientos("fallido");
+        rechazados = movimientos("rechazado");
+        Gauge.builder("megastore.diario.pendientes", buffer, BufferCircular::tamanio)
+                .description("Movimientos en el buffer esperando ser escritos")
+                .register(registry);
+        // Un hilo de plataforma: escribe continuamente y es uno solo
+        hiloEscritor = Thread.ofPlatform().name("diario-escritor").daemon().start(this::escribir);
+    }
+
+    @PreDestroy
+    void detener() throws InterruptedException {
+        buffer.cerrar();
+        hiloEscritor.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    @Override
+    public ResultadoEscrituraDTO<MovimientoDiarioDTO> registrar(MovimientoDiarioDTO modelDTO) {
+        /*
+         * No es @Transactional a proposito: la peticion no usa una conexion mientras espera, la
+         * transaccion la abre el hilo escritor para todo el lote.
+         * Si no se aplico, una venta no tenia stock suficiente y una reposicion o devolucion tenia
+         * una sucursal o un producto inexistente o eliminado.
+         * */
+        modelDTO.setFecha(LocalDateTime.now());
+        Pendiente pendiente = pendiente(modelDTO);
+        encolar(pendiente);
+        if (!esperar(pendiente)) {
+            ResultadoEscrituraDTO.Estado estado = pendiente.movimiento().getTipo() == MovimientoDiario.Tipo.VENTA
+                    ? ResultadoEscrituraDTO.Estado.SIN_STOCK
+                    : ResultadoEscrituraDTO.Estado.REFERENCIA_INVALIDA;
+            return new ResultadoEscrituraDTO<>(estado, null);
+        }
+        return new ResultadoEscrituraDTO<>(ResultadoEscrituraDTO.Estado.CREADO, modelDTO);
+    }
+
+    @Override
+    public boolean[] registrarTodos(List<MovimientoDiarioDTO> modelDTOs) {
+        // Se encolan todos antes de esperar, asi van en el mismo lote o en lotes seguidos
+        LocalDateTime fecha = LocalDateTime.now();
+        List<Pendiente> pendientes = new ArrayList<>(modelDTOs.size());
+        for (MovimientoDiarioDTO modelDTO : modelDTOs) {
+            modelDTO.setFecha(fecha);
+            pendientes.add(pendiente(modelDTO));
+        }
+        pendientes.forEach(this::encolar);
+        boolean[] guardados = new boolean[pendientes.size()];
+        for (int i = 0; i < guardados.length; i++) {
+            guardados[i] = esperar(pendientes.get(i));
+        }
+        return guardados;
+    }
+
+    // Solo los tipos que aplica el escritor; los demas los registra el servicio que cambia el stock
+    private static Pendiente pendiente(MovimientoDiarioDTO modelDTO) {
+        MovimientoDiario movimiento = MovimientoDiarioMapper.toEntity(modelDTO);
+        if (!movimiento.getTipo().seAplicaPorLotes()) {
+            throw new IllegalArgumentException("El movimiento " + movimiento.getTipo() + " no se aplica por lotes");
+        }
+        return new Pendiente(movimiento, new CompletableFuture<>());
+    }
+
+    private void encolar(Pendiente pendiente) {
+        boolean agregado;
+        try {
+            agregado = buffer.agregar(pendiente, TimeUnit.MILLISECONDS.toNanos(esperaMaximaMs));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServicioNoDisponibleExcepcion("Se interrumpio la espera del diario de movimientos.");
+        } catch (IllegalStateException e) {
+            throw new ServicioNoDisponibleExcepcion("La aplicacion se esta deteniendo, intente nuevamente.");
+        }
+        if (!agregado) {
+            rechazados.increment();
+            throw new ServicioNoDisponibleExcepcion(
+                    "Hay demasiados movimientos pendientes de guardar, intente nuevamente en unos segundos.");
+        }
+    }
+
+    // Espera sin limite: el hilo escritor completa siempre cada movimiento que toma del buffer
+    private static boolean esperar(Pendiente pendiente) {
+        try {
+            return pendiente.guardado().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServicioNoDisponibleExcepcion("Se interrumpio la espera del diario de movimientos.");
+        } catch (ExecutionException e) {
+            throw new ServicioNoDisponibleExcepcion("No se pudo guardar el movimiento, intente nuevamente.");
+        }
+    }
+
+    // Ciclo del hilo escritor: termina cuando el buffer se cierra y queda vacio
+    private void escribir() {
+        long latenciaNanos = TimeUnit.MILLISECONDS.toNanos(latenciaMs);
+        List<Pendiente> lote = new ArrayList<>(tamanioLote);
+        while (true) {
+            lote.clear();
+            try {
+                if (buffer.tomarLote(lote, tamanioLote, latenciaNanos) == 0) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+            guardar(lote);
+        }
+    }
+
+    private void guardar(List<Pendiente> lote) {
+        List<MovimientoDiario> movimientos = lote.stream().map(Pendiente::movimiento).toList();
+        long inicio = System.nanoTime();
+        int[] filas;
+        try {
+            filas = transaccion.execute(estado -> escritor.aplicar(movimientos));
+        } catch (RuntimeException e) {
+            if (lote.size() > 1) {
+                log.warn("No se pudo aplicar un lote de {} movimientos, se aplican de a uno", lote.size(), e);
+                lote.forEach(pendiente -> guardar(List.of(pendiente)));
+                return;
+            }
+            log.warn("No se pudo aplicar el movimiento {}", movimientos.get(0), e);
+            fallidos.increment();
+            lote.get(0).guardado().completeExceptionally(e);
+            return;
+        }
+        escrituras.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        lotes.record(lote.size());
+        for (int i = 0; i < lote.size(); i++) {
+            boolean guardado = filas[i] > 0;
+            if (guardado) {
+                guardados.increment();
+            } else if (movimientos.get(i).getTipo() == MovimientoDiario.Tipo.VENTA) {
+                sinStock.increment();
+            } else {
+                referenciasInvalidas.increment();
+            }
+            lote.get(i).guardado().complete(guardado);
+        }
+    }
+
+    private Counter movimientos(String resultado) {
+        return Counter.builder("megastore.diario.movimientos")
+                .description("Movimientos del diario por resultado")
+                .tag("resultado", resultado)
+                .register(registry);
+    }
+}
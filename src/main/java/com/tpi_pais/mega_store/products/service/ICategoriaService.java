@@ -1,22 +1,47 @@
 package com.tpi_pais.mega_store.products.service;
 
+import com.tpi_pais.mega_store.products.dto.ResultadoEscrituraDTO;
+import com.tpi_pais.mega_store.products.dto.ResultadoItemDTO;
+import com.tpi_pais.mega_store.products.dto.ResultadoMasivoDTO;
 import com.tpi_pais.mega_store.products.dto.CategoriaDTO;
 import com.tpi_pais.mega_store.products.model.Categoria;
+import com.tpi_pais.mega_store.utils.EscritorNdjson;
+import com.tpi_pais.mega_store.utils.Pagina;
+import com.tpi_pais.mega_store.utils.cache.EstadisticasCache;
+import com.tpi_pais.mega_store.utils.cache.Instantanea;
 
+import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
 
 public interface ICategoriaService {
     public List<CategoriaDTO> listar();
 
+    public Instantanea<CategoriaDTO> instantanea();
+
+    public Pagina<CategoriaDTO> listarPagina(Integer despuesDe, int limite);
+
+    public void exportar(EscritorNdjson escritor) throws IOException;
+
+    public String etag();
+
     public Categoria buscarPorId(Integer id);
 
     public Categoria buscarPorNombre (String nombre);
 
-    public CategoriaDTO guardar(CategoriaDTO model);
+    public List<ResultadoItemDTO> guardarLote(List<CategoriaDTO> modelos);
+
+    public ResultadoEscrituraDTO<CategoriaDTO> crearORecuperar(CategoriaDTO model);
+
+    public ResultadoEscrituraDTO<CategoriaDTO> actualizar(CategoriaDTO model);
+
+    public ResultadoEscrituraDTO<CategoriaDTO> eliminarPorId(Integer id);
+
+    public ResultadoEscrituraDTO<CategoriaDTO> recuperarPorId(Integer id);
 
-    public Categoria guardar(Categoria model);
+    public ResultadoMasivoDTO eliminarPorIds(Collection<Integer> ids);
 
-    public void eliminar(Categoria model);
+    public ResultadoMasivoDTO recuperarPorIds(Collection<Integer> ids);
 
-    public void recuperar(Categoria model);
+    public EstadisticasCache estadisticasCache();
 }
@@ -1,24 +1,49 @@
 package com.tpi_pais.mega_store.products.service;
 
+import com.tpi_pais.mega_store.products.dto.ResultadoEscrituraDTO;
+import com.tpi_pais.mega_store.products.dto.ResultadoItemDTO;
+import com.tpi_pais.mega_store.products.dto.ResultadoMasivoDTO;
 import com.tpi_pais.mega_store.products.dto.CategoriaDTO;
 
 import com.tpi_pais.mega_store.products.dto.ColorDTO;
 import com.tpi_pais.mega_store.products.model.Color;
+import com.tpi_pais.mega_store.utils.EscritorNdjson;
+import com.tpi_pais.mega_store.utils.Pagina;
+import com.tpi_pais.mega_store.utils.cache.EstadisticasCache;
+import com.tpi_pais.mega_store.utils.cache.Instantanea;
 
+import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
 
 public interface IColorService {
     public List<ColorDTO> listar();
 
+    public Instantanea<ColorDTO> instantanea();
+
+    public Pagina<ColorDTO> listarPagina(Integer despuesDe, int limite);
+
+    public void exportar(EscritorNdjson escritor) throws IOException;
+
+    public String etag();
+
     public Color buscarPorId(Integer id);
 
     public Color buscarPorNombre (String nombre);
 
-    public ColorDTO guardar(ColorDTO model);
+    public List<ResultadoItemDTO> guardarLote(List<ColorDTO> modelos);
+
+    public ResultadoEscrituraDTO<ColorDTO> crearORecuperar(ColorDTO model);
+
+    public ResultadoEscrituraDTO<ColorDTO> actualizar(ColorDTO model);
+
+    public ResultadoEscrituraDTO<ColorDTO> eliminarPorId(Integer id);
+
+    public ResultadoEscrituraDTO<ColorDTO> recuperarPorId(Integer id);
 
-    public Color guardar(Color model);
+    public ResultadoMasivoDTO eliminarPorIds(Collection<Integer> ids);
 
-    public void eliminar(Color model);
+    public ResultadoMasivoDTO recuperarPorIds(Collection<Integer> ids);
 
-    public void recuperar(Color model);
+    public EstadisticasCache estadisticasCache();
 }
@@ -0,0 +1,12 @@
+package com.tpi_pais.mega_store.products.service;
+
+import com.tpi_pais.mega_store.products.dto.MovimientoDiarioDTO;
+import com.tpi_pais.mega_store.products.dto.ResultadoEscrituraDTO;
+
+import java.util.List;
+
+public interface IDiarioStockService {
+    public ResultadoEscrituraDTO<MovimientoDiarioDTO> registrar(MovimientoDiarioDTO modelDTO);
+
+    public boolean[] registrarTodos(List<MovimientoDiarioDTO> modelDTOs);
+}
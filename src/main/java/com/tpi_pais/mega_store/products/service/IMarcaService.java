@@ -1,22 +1,47 @@
 package com.tpi_pais.mega_store.products.service;
 
+import com.tpi_pais.mega_store.products.dto.ResultadoEscrituraDTO;
+import com.tpi_pais.mega_store.products.dto.ResultadoItemDTO;
+import com.tpi_pais.mega_store.products.dto.ResultadoMasivoDTO;
 import com.tpi_pais.mega_store.products.dto.MarcaDTO;
 import com.tpi_pais.mega_store.products.model.Marca;
+import com.tpi_pais.mega_store.utils.EscritorNdjson;
+import com.tpi_pais.mega_store.utils.Pagina;
+import com.tpi_pais.mega_store.utils.cache.EstadisticasCache;
+import com.tpi_pais.mega_store.utils.cache.Instantanea;
 
+import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
 
 public interface IMarcaService {
     public List<MarcaDTO> listar();
 
+    public Instantanea<MarcaDTO> instantanea();
+
+    public Pagina<MarcaDTO> listarPagina(Integer despuesDe, int limite);
+
+    public void exportar(EscritorNdjson escritor) throws IOException;
+
+    public String etag();
+
     public Marca buscarPorId(Integer id);
 
     public Marca buscarPorNombre (String nombre);
 
-    public MarcaDTO guardar(MarcaDTO model);
+    public List<ResultadoItemDTO> guardarLote(List<MarcaDTO> modelos);
+
+    public ResultadoEscrituraDTO<MarcaDTO> crearORecuperar(MarcaDTO model);
+
+    public ResultadoEscrituraDTO<MarcaDTO> actualizar(MarcaDTO model);
+
+    public ResultadoEscrituraDTO<MarcaDTO> eliminarPorId(Integer id);
+
+    public ResultadoEscrituraDTO<MarcaDTO> recuperarPorId(Integer id);
 
-    public Marca guardar(Marca model);
+    public ResultadoMasivoDTO eliminarPorIds(Collection<Integer> ids);
 
-    public void eliminar(Marca model);
+    public ResultadoMasivoDTO recuperarPorIds(Collection<Integer> ids);
 
-    public void recuperar(Marca model);
+    public EstadisticasCache estadisticasCache();
 }
@@ -0,0 +1,28 @@
+package com.tpi_pais.mega_store.products.service;
+
+import com.tpi_pais.mega_store.products.dto.ProductoDTO;
+import com.tpi_pais.mega_store.products.dto.ProductosFiltradosDTO;
+import com.tpi_pais.mega_store.products.dto.ResultadoEscrituraDTO;
+import com.tpi_pais.mega_store.products.model.Producto;
+import com.tpi_pais.mega_store.utils.facetas.EstadisticasFacetas;
+
+import java.util.List;
+
+public interface IProductoService {
+    public ProductosFiltradosDTO filtrar(List<Integer> marcas, List<Integer> categorias, List<Integer> colores,
+                                         List<Integer> talles, int despuesDe, int limite);
+
+    public Producto buscarPorId(Integer id);
+
+    public ResultadoEscrituraDTO<ProductoDTO> crear(ProductoDTO model);
+
+    public ResultadoEscrituraDTO<ProductoDTO> actualizar(ProductoDTO model);
+
+    public ResultadoEscrituraDTO<ProductoDTO> eliminarPorId(Integer id);
+
+    public ResultadoEscrituraDTO<ProductoDTO> recuperarPorId(Integer id);
+
+    public EstadisticasFacetas estadisticasIndice();
+
+    public int reconstruirReferencias();
+}
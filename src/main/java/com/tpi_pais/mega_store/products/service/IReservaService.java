@@ -0,0 +1,12 @@
+package com.tpi_pais.mega_store.products.service;
+
+import com.tpi_pais.mega_store.products.dto.ReservaDTO;
+import com.tpi_pais.mega_store.products.dto.ResultadoEscrituraDTO;
+
+public interface IReservaService {
+    public ResultadoEscrituraDTO<ReservaDTO> crear(ReservaDTO modelDTO);
+
+    public ResultadoEscrituraDTO<Integer> confirmar(Integer sucursalId, Integer id);
+
+    public ResultadoEscrituraDTO<Integer> cancelar(Integer sucursalId, Integer id);
+}
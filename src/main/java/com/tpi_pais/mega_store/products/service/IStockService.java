@@ -0,0 +1,15 @@
+package com.tpi_pais.mega_store.products.service;
+
+import com.tpi_pais.mega_store.products.dto.MovimientoStockDTO;
+import com.tpi_pais.mega_store.products.dto.ResultadoEscrituraDTO;
+import com.tpi_pais.mega_store.products.dto.StockDTO;
+
+public interface IStockService {
+    public StockDTO consultar(Integer sucursalId, Integer productoId);
+
+    public ResultadoEscrituraDTO<MovimientoStockDTO> descontar(MovimientoStockDTO movimiento);
+
+    public ResultadoEscrituraDTO<MovimientoStockDTO> descontarSinDiario(MovimientoStockDTO movimiento);
+
+    public ResultadoEscrituraDTO<StockDTO> reponer(MovimientoStockDTO movimiento);
+}
@@ -1,25 +1,50 @@
 package com.tpi_pais.mega_store.products.service;
 
+import com.tpi_pais.mega_store.products.dto.ResultadoEscrituraDTO;
+import com.tpi_pais.mega_store.products.dto.ResultadoItemDTO;
+import com.tpi_pais.mega_store.products.dto.ResultadoMasivoDTO;
 import com.tpi_pais.mega_store.products.dto.SucursalDTO;
 import com.tpi_pais.mega_store.products.dto.SucursalDTO;
 import com.tpi_pais.mega_store.products.model.Sucursal;
 import com.tpi_pais.mega_store.products.model.Sucursal;
+import com.tpi_pais.mega_store.utils.EscritorNdjson;
+import com.tpi_pais.mega_store.utils.Pagina;
+import com.tpi_pais.mega_store.utils.cache.EstadisticasCache;
+import com.tpi_pais.mega_store.utils.cache.Instantanea;
 
+import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
 
 public interface ISucursalService {
     
     public List<SucursalDTO> listar();
 
+    public Instantanea<SucursalDTO> instantanea();
+
+    public Pagina<SucursalDTO> listarPagina(Integer despuesDe, int limite);
+
+    public void exportar(EscritorNdjson escritor) throws IOException;
+
+    public String etag();
+
     public Sucursal buscarPorId(Integer id);
 
     public Sucursal buscarPorNombre (String nombre);
 
-    public SucursalDTO guardar(SucursalDTO model);
+    public List<ResultadoItemDTO> guardarLote(List<SucursalDTO> modelos);
+
+    public ResultadoEscrituraDTO<SucursalDTO> crearORecuperar(SucursalDTO model);
+
+    public ResultadoEscrituraDTO<SucursalDTO> actualizar(SucursalDTO model);
+
+    public ResultadoEscrituraDTO<SucursalDTO> eliminarPorId(Integer id);
+
+    public ResultadoEscrituraDTO<SucursalDTO> recuperarPorId(Integer id);
 
-    public Sucursal guardar(Sucursal model);
+    public ResultadoMasivoDTO eliminarPorIds(Collection<Integer> ids);
 
-    public void eliminar(Sucursal model);
+    public ResultadoMasivoDTO recuperarPorIds(Collection<Integer> ids);
 
-    public void recuperar(Sucursal model);
+    public EstadisticasCache estadisticasCache();
 }
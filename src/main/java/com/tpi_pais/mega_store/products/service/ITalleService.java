@@ -1,22 +1,47 @@
 package com.tpi_pais.mega_store.products.service;
 
+import com.tpi_pais.mega_store.products.dto.ResultadoEscrituraDTO;
+import com.tpi_pais.mega_store.products.dto.ResultadoItemDTO;
+import com.tpi_pais.mega_store.products.dto.ResultadoMasivoDTO;
 import com.tpi_pais.mega_store.products.dto.TalleDTO;
 import com.tpi_pais.mega_store.products.model.Talle;
+import com.tpi_pais.mega_store.utils.EscritorNdjson;
+import com.tpi_pais.mega_store.utils.Pagina;
+import com.tpi_pais.mega_store.utils.cache.EstadisticasCache;
+import com.tpi_pais.mega_store.utils.cache.Instantanea;
 
+import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
 
 public interface ITalleService {
     public List<TalleDTO> listar();
 
+    public Instantanea<TalleDTO> instantanea();
+
+    public Pagina<TalleDTO> listarPagina(Integer despuesDe, int limite);
+
+    public void exportar(EscritorNdjson escritor) throws IOException;
+
+    public String etag();
+
     public Talle buscarPorId(Integer id);
 
     public Talle buscarPorNombre (String nombre);
 
-    public TalleDTO guardar(TalleDTO model);
+    public List<ResultadoItemDTO> guardarLote(List<TalleDTO> modelos);
+
+    public ResultadoEscrituraDTO<TalleDTO> crearORecuperar(TalleDTO model);
+
+    public ResultadoEscrituraDTO<TalleDTO> actualizar(TalleDTO model);
+
+    public ResultadoEscrituraDTO<TalleDTO> eliminarPorId(Integer id);
+
+    public ResultadoEscrituraDTO<TalleDTO> recuperarPorId(Integer id);
 
-    public Talle guardar(Talle model);
+    public ResultadoMasivoDTO eliminarPorIds(Collection<Integer> ids);
 
-    public void eliminar(Talle model);
+    public ResultadoMasivoDTO recuperarPorIds(Collection<Integer> ids);
 
-    public void recuperar(Talle model);
+    public EstadisticasCache estadisticasCache();
 }
@@ -0,0 +1,8 @@
+package com.tpi_pais.mega_store.products.service;
+
+import com.tpi_pais.mega_store.products.dto.ResultadoEscrituraDTO;
+import com.tpi_pais.mega_store.products.dto.TransferenciaDTO;
+
+public interface ITransferenciaService {
+    public ResultadoEscrituraDTO<TransferenciaDTO> transferir(TransferenciaDTO modelDTO);
+}
@@ -1,57 +1,245 @@
 package com.tpi_pais.mega_store.products.service;
 
+import com.tpi_pais.mega_store.products.dto.ResultadoEscrituraDTO;
+import com.tpi_pais.mega_store.products.dto.ResultadoItemDTO;
+import com.tpi_pais.mega_store.products.dto.ResultadoMasivoDTO;
 import com.tpi_pais.mega_store.products.dto.MarcaDTO;
 import com.tpi_pais.mega_store.products.mapper.MarcaMapper;
 import com.tpi_pais.mega_store.products.model.Marca;
 import com.tpi_pais.mega_store.products.repository.MarcaRepository;
+import com.tpi_pais.mega_store.products.repository.ReferenciaCatalogoRepository;
+import com.tpi_pais.mega_store.products.repository.ResultadoEscritura;
+import com.tpi_pais.mega_store.utils.EscritorNdjson;
+import com.tpi_pais.mega_store.utils.NormalizadorNombre;
+import com.tpi_pais.mega_store.utils.Pagina;
+import com.tpi_pais.mega_store.utils.Transacciones;
+import com.tpi_pais.mega_store.utils.cache.CacheInstantanea;
+import com.tpi_pais.mega_store.utils.cache.EstadisticasCache;
+import com.tpi_pais.mega_store.utils.cache.Instantanea;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Service
 public class MarcaService implements IMarcaService {
 
+    // Nombre del catalogo en referencias_catalogo
+    private static final String CATALOGO = "marca";
+
     @Autowired
     private MarcaRepository modelRepository;
 
+    @Autowired
+    private ReferenciaCatalogoRepository referenciaRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final CacheInstantanea<MarcaDTO> cache = new CacheInstantanea<>("marca");
+
     @Override
     public List<MarcaDTO> listar() {
-        List<Marca> marcas = modelRepository.findByFechaEliminacionIsNullOrderByIdAsc();
-        return marcas.stream().map(MarcaMapper::toDTO).toList();
+        return instantanea().getDatos();
     }
 
     @Override
-    public Marca buscarPorId(Integer id) {
-        return modelRepository.findById(id).orElse(null);
+    public Instantanea<MarcaDTO> instantanea() {
+        return cache.obtener(() -> modelRepository.findByFechaEliminacionIsNullOrderByIdAsc()
+                .stream().map(MarcaMapper::toDTO).toList());
     }
 
     @Override
-    public Marca buscarPorNombre(String nombre) {
-        return modelRepository.findByNombre(nombre).orElse(null);
+    public Pagina<MarcaDTO> listarPagina(Integer despuesDe, int limite) {
+        List<MarcaDTO> filas = modelRepository
+                .findByFechaEliminacionIsNullAndIdGreaterThanOrderByIdAsc(despuesDe, Limit.of(limite + 1))
+                .stream().map(MarcaMapper::toDTO).toList();
+        return Pagina.desde(filas, limite, MarcaDTO::getId);
+    }
+
+    @Override
+    @Transactional
+    public List<ResultadoItemDTO> guardarLote(List<MarcaDTO> modelos) {
+        /*
+         * 1) Se normaliza y valida cada nombre igual que en el alta individual.
+         * 2) Se buscan todos los nombres validos con una sola consulta IN.
+         * 3) Los nombres eliminados se recuperan y los nuevos se insertan con saveAll, que
+         *    Hibernate envia en lotes JDBC al confirmar la transaccion.
+         * */
+        ResultadoItemDTO[] resultados = new ResultadoItemDTO[modelos.size()];
+        Map<String, Integer> pendientes = new LinkedHashMap<>();
+        for (int i = 0; i < modelos.size(); i++) {
+            MarcaDTO modelDTO = modelos.get(i);
+            if (modelDTO == null || modelDTO.noTieneNombre()) {
+                resultados[i] = new ResultadoItemDTO(i, null, ResultadoItemDTO.Estado.INVALIDO, null,
+                        "No se envio un nombre.");
+                continue;
+            }
+            String nombre = NormalizadorNombre.normalizar(modelDTO.getNombre());
+            if (nombre == null) {
+                resultados[i] = new ResultadoItemDTO(i, modelDTO.getNombre(), ResultadoItemDTO.Estado.INVALIDO, null,
+                        "El nombre debe estar formado unicamente por letras y numeros.");
+            } else if (pendientes.putIfAbsent(nombre, i) != null) {
+                resultados[i] = new ResultadoItemDTO(i, nombre, ResultadoItemDTO.Estado.DUPLICADO, null,
+                        "El nombre se repite dentro del lote.");
+            }
+        }
+        if (pendientes.isEmpty()) {
+            return List.of(resultados);
+        }
+
+        Map<String, Marca> existentes = new HashMap<>();
+        for (Marca model : modelRepository.findByNombreIn(pendientes.keySet())) {
+            existentes.put(model.getNombre(), model);
+        }
+        List<Marca> nuevos = new ArrayList<>();
+        for (Map.Entry<String, Integer> pendiente : pendientes.entrySet()) {
+            String nombre = pendiente.getKey();
+            int i = pendiente.getValue();
+            Marca existente = existentes.get(nombre);
+            if (existente == null) {
+                Marca model = new Marca();
+                model.setNombre(nombre);
+                nuevos.add(model);
+            } else if (existente.esEliminado()) {
+                // La entidad esta administrada, el UPDATE se envia al confirmar la transaccion.
+                existente.recuperar();
+                resultados[i] = new ResultadoItemDTO(i, nombre, ResultadoItemDTO.Estado.RECUPERADO, existente.getId(), null);
+            } else {
+                resultados[i] = new ResultadoItemDTO(i, nombre, ResultadoItemDTO.Estado.DUPLICADO, existente.getId(),
+                        "Ya existe un registro con este nombre.");
+            }
+        }
+        for (Marca model : modelRepository.saveAll(nuevos)) {
+            int i = pendientes.get(model.getNombre());
+            resultados[i] = new ResultadoItemDTO(i, model.getNombre(), ResultadoItemDTO.Estado.CREADO, model.getId(), null);
+        }
+
+        Transacciones.despuesDeConfirmar(cache::invalidar);
+        return List.of(resultados);
+    }
+
+    @Override
+    @Transactional
+    public ResultadoEscrituraDTO<MarcaDTO> actualizar(MarcaDTO modelDTO) {
+        ResultadoEscritura resultado = modelRepository.actualizarNombre(modelDTO.getId(), modelDTO.getNombre());
+        return resultadoEscritura(resultado, null);
+    }
+
+    @Override
+    @Transactional
+    public ResultadoEscrituraDTO<MarcaDTO> eliminarPorId(Integer id) {
+        // El bloqueo va en una sentencia aparte para que la baja lea los contadores ya confirmados
+        modelRepository.bloquearPorId(id);
+        LocalDateTime fecha = LocalDateTime.now();
+        ResultadoEscritura resultado = modelRepository.eliminarPorId(id, fecha);
+        return resultadoEscritura(resultado, fecha);
+    }
+
+    @Override
+    @Transactional
+    public ResultadoEscrituraDTO<MarcaDTO> recuperarPorId(Integer id) {
+        ResultadoEscritura resultado = modelRepository.recuperarPorId(id);
+        return resultadoEscritura(resultado, null);
     }
 
+    @Override
+    @Transactional
+    public ResultadoEscrituraDTO<MarcaDTO> crearORecuperar(MarcaDTO modelDTO) {
+        ResultadoEscritura resultado = modelRepository.crearORecuperar(modelDTO.getNombre());
+        return resultadoEscritura(resultado, null);
+    }
 
+    private ResultadoEscrituraDTO<MarcaDTO> resultadoEscritura(ResultadoEscritura resultado,
+                                                               LocalDateTime fechaEliminacion) {
+        ResultadoEscrituraDTO.Estado estado = ResultadoEscrituraDTO.Estado.valueOf(resultado.getEstado());
+        if (resultado.getId() == null) {
+            return new ResultadoEscrituraDTO<>(estado, null);
+        }
+        Integer id = resultado.getId();
+        MarcaDTO modelDTO = new MarcaDTO();
+        modelDTO.setId(id);
+        modelDTO.setNombre(resultado.getNombre());
+        modelDTO.setFechaEliminacion(fechaEliminacion);
+        Transacciones.despuesDeConfirmar(cache::invalidar);
+        return new ResultadoEscrituraDTO<>(estado, modelDTO);
+    }
 
     @Override
-    public MarcaDTO guardar(MarcaDTO modelDTO) {
-        Marca model = MarcaMapper.toEntity(modelDTO);
-        return MarcaMapper.toDTO(modelRepository.save(model));
+    @Transactional
+    public ResultadoMasivoDTO eliminarPorIds(Collection<Integer> ids) {
+        modelRepository.bloquearPorIds(ids);
+        List<Integer> modificados = modelRepository.eliminarPorIds(ids, LocalDateTime.now());
+        invalidarCache(modificados);
+        List<Integer> enUso = List.of();
+        if (modificados.size() < ids.size()) {
+            Set<Integer> restantes = new HashSet<>(ids);
+            modificados.forEach(restantes::remove);
+            enUso = referenciaRepository.buscarIdsEnUso(CATALOGO, restantes);
+        }
+        return ResultadoMasivoDTO.clasificar(ids, modificados, enUso, modelRepository::buscarIdsExistentes);
     }
+
     @Override
-    public Marca guardar(Marca model) {
-        return modelRepository.save(model);
+    @Transactional
+    public ResultadoMasivoDTO recuperarPorIds(Collection<Integer> ids) {
+        List<Integer> modificados = modelRepository.recuperarPorIds(ids);
+        invalidarCache(modificados);
+        return ResultadoMasivoDTO.clasificar(ids, modificados, modelRepository::buscarIdsExistentes);
+    }
+
+    private void invalidarCache(List<Integer> modificados) {
+        if (!modificados.isEmpty()) {
+            Transacciones.despuesDeConfirmar(cache::invalidar);
+        }
     }
 
     @Override
-    public void eliminar(Marca model) {
+    @Transactional(readOnly = true)
+    public void exportar(EscritorNdjson escritor) throws IOException {
+        try (Stream<Marca> modelos = modelRepository.streamAllByOrderByIdAsc()) {
+            Iterator<Marca> iterador = modelos.iterator();
+            while (iterador.hasNext()) {
+                Marca model = iterador.next();
+                escritor.escribir(MarcaMapper.toDTO(model));
+                // Se saca del contexto de persistencia para que la memoria no crezca con la tabla.
+                entityManager.detach(model);
+            }
+        }
+    }
 
-        model.eliminar();
-        modelRepository.save(model);
+    @Override
+    public String etag() {
+        return cache.etag();
     }
+
+    @Override
+    public Marca buscarPorId(Integer id) {
+        return modelRepository.findById(id).orElse(null);
+    }
+
+    @Override
+    public Marca buscarPorNombre(String nombre) {
+        return modelRepository.findByNombre(nombre).orElse(null);
+    }
+
     @Override
-    public void recuperar(Marca model) {
-        model.recuperar();
-        modelRepository.save(model);
+    public EstadisticasCache estadisticasCache() {
+        return cache.estadisticas();
     }
 }
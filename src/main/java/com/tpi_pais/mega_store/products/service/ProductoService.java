@@ -0,0 +1,161 @@
+package com.tpi_pais.mega_store.products.service;
+
+import com.tpi_pais.mega_store.products.dto.ProductoDTO;
+import com.tpi_pais.mega_store.products.dto.ProductosFiltradosDTO;
+import com.tpi_pais.mega_store.products.dto.ResultadoEscrituraDTO;
+import com.tpi_pais.mega_store.products.mapper.ProductoMapper;
+import com.tpi_pais.mega_store.products.model.Producto;
+import com.tpi_pais.mega_store.products.repository.FacetasProducto;
+import com.tpi_pais.mega_store.products.repository.ProductoRepository;
+import com.tpi_pais.mega_store.products.repository.ReferenciaCatalogoRepository;
+import com.tpi_pais.mega_store.products.repository.ResultadoEscrituraProducto;
+import com.tpi_pais.mega_store.utils.Transacciones;
+import com.tpi_pais.mega_store.utils.facetas.EstadisticasFacetas;
+import com.tpi_pais.mega_store.utils.facetas.IndiceFacetas;
+import com.tpi_pais.mega_store.utils.facetas.ResultadoFacetas;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public class ProductoService implements IProductoService {
+
+    // Facetas del indice, en el orden de FacetasProducto.valores()
+    public static final String[] FACETAS = {"marca", "categoria", "color", "talle"};
+
+    @Autowired
+    private ProductoRepository modelRepository;
+
+    @Autowired
+    private ReferenciaCatalogoRepository referenciaRepository;
+
+    private final IndiceFacetas indice = new IndiceFacetas(FACETAS);
+
+    @Override
+    @Transactional(readOnly = true)
+    public ProductosFiltradosDTO filtrar(List<Integer> marcas, List<Integer> categorias, List<Integer> colores,
+                                         List<Integer> talles, int despuesDe, int limite) {
+        /*
+         * 1) El indice de facetas resuelve el filtro, el total y los conteos en memoria.
+         *    La primera consulta lo carga leyendo todos los productos.
+         * 2) Solo los productos de la pagina se leen de la bd, con una consulta por ids.
+         * */
+        cargarIndice();
+        int[][] seleccion = {enteros(marcas), enteros(categorias), enteros(colores), enteros(talles)};
+        ResultadoFacetas resultado = indice.filtrar(seleccion, despuesDe, limite);
+
+        List<ProductoDTO> productos = new ArrayList<>(resultado.getIds().length);
+        if (resultado.getIds().length > 0) {
+            List<Integer> ids = new ArrayList<>(resultado.getIds().length);
+            for (int id : resultado.getIds()) {
+                ids.add(id);
+            }
+            for (Producto model : modelRepository.findByIdInOrderByIdAsc(ids)) {
+                // Un producto eliminado despues de consultar el indice no se devuelve
+                if (!model.esEliminado()) {
+                    productos.add(ProductoMapper.toDTO(model));
+                }
+            }
+        }
+        return new ProductosFiltradosDTO(resultado.getTotal(), productos, resultado.getConteos(),
+                resultado.getSiguienteCursor());
+    }
+
+    @Override
+    public Producto buscarPorId(Integer id) {
+        return modelRepository.findById(id).orElse(null);
+    }
+
+    @Override
+    @Transactional
+    public ResultadoEscrituraDTO<ProductoDTO> crear(ProductoDTO modelDTO) {
+        ResultadoEscrituraProducto resultado = modelRepository.crear(modelDTO.getNombre(), modelDTO.getPrecio(),
+                modelDTO.getMarcaId(), modelDTO.getCategoriaId(), modelDTO.getColorId(), modelDTO.getTalleId());
+        return resultadoEscritura(resultado, null);
+    }
+
+    @Override
+    @Transactional
+    public ResultadoEscrituraDTO<ProductoDTO> actualizar(ProductoDTO modelDTO) {
+        ResultadoEscrituraProducto resultado = modelRepository.actualizar(modelDTO.getId(), modelDTO.getNombre(),
+                modelDTO.getPrecio(), modelDTO.getMarcaId(), modelDTO.getCategoriaId(), modelDTO.getColorId(),
+                modelDTO.getTalleId());
+        return resultadoEscritura(resultado, null);
+    }
+
+    @Override
+    @Transactional
+    public ResultadoEscrituraDTO<ProductoDTO> eliminarPorId(Integer id) {
+        LocalDateTime fecha = LocalDateTime.now();
+        ResultadoEscrituraProducto resultado = modelRepository.eliminarPorId(id, fecha);
+        return resultadoEscritura(resultado, fecha);
+    }
+
+    @Override
+    @Transactional
+    public ResultadoEscrituraDTO<ProductoDTO> recuperarPorId(Integer id) {
+        ResultadoEscrituraProducto resultado = modelRepository.recuperarPorId(id);
+        return resultadoEscritura(resultado, null);
+    }
+
+    private ResultadoEscrituraDTO<ProductoDTO> resultadoEscritura(ResultadoEscrituraProducto resultado,
+                                                                  LocalDateTime fechaEliminacion) {
+        ResultadoEscrituraDTO.Estado estado = ResultadoEscrituraDTO.Estado.valueOf(resultado.getEstado());
+        if (resultado.getId() == null) {
+            return new ResultadoEscrituraDTO<>(estado, null, resultado.getReferencia());
+        }
+        ProductoDTO modelDTO = new ProductoDTO();
+        modelDTO.setId(resultado.getId());
+        modelDTO.setNombre(resultado.getNombre());
+        modelDTO.setPrecio(resultado.getPrecio());
+        modelDTO.setMarcaId(resultado.getMarcaId());
+        modelDTO.setCategoriaId(resultado.getCategoriaId());
+        modelDTO.setColorId(resultado.getColorId());
+        modelDTO.setTalleId(resultado.getTalleId());
+        modelDTO.setFechaEliminacion(fechaEliminacion);
+        /*
+         * El indice solo se actualiza con lo que efectivamente quedo guardado. Las acciones despues de
+         * confirmar de dos escrituras del mismo producto pueden ejecutarse en cualquier orden; la
+         * version hace que el indice descarte la mas vieja.
+         * */
+        int[] valores = {modelDTO.getMarcaId(), modelDTO.getCategoriaId(), modelDTO.getColorId(), modelDTO.getTalleId()};
+        int version = resultado.getVersion();
+        Transacciones.despuesDeConfirmar(() ->
+                indice.registrar(modelDTO.getId(), version, valores, fechaEliminacion != null));
+        return new ResultadoEscrituraDTO<>(estado, modelDTO);
+    }
+
+    private void cargarIndice() {
+        indice.cargar(modelRepository::streamFacetas, FacetasProducto::id, FacetasProducto::version,
+                FacetasProducto::valores, FacetasProducto::eliminado);
+    }
+
+    private static int[] enteros(List<Integer> valores) {
+        if (valores == null) {
+            return null;
+        }
+        return valores.stream().filter(valor -> valor != null).mapToInt(Integer::intValue).distinct().toArray();
+    }
+
+    @Override
+    public EstadisticasFacetas estadisticasIndice() {
+        return indice.estadisticas();
+    }
+
+    @Override
+    @Transactional
+    public int reconstruirReferencias() {
+        /*
+         * Recalcula desde cero los contadores de referencias_catalogo contando los productos no
+         * eliminados. Mientras dura, las escrituras de productos esperan (ver bloquearProductos).
+         * Devuelve la cantidad de registros de catalogos que quedaron en uso.
+         * */
+        referenciaRepository.bloquearProductos();
+        referenciaRepository.borrarTodas();
+        return referenciaRepository.contarDesdeProductos();
+    }
+}
@@ -0,0 +1,232 @@
+package com.tpi_pais.mega_store.products.service;
+
+import com.tpi_pais.mega_store.products.dto.MovimientoDiarioDTO;
+import com.tpi_pais.mega_store.products.dto.MovimientoStockDTO;
+import com.tpi_pais.mega_store.products.dto.ReservaDTO;
+import com.tpi_pais.mega_store.products.dto.ResultadoEscrituraDTO;
+import com.tpi_pais.mega_store.products.mapper.ReservaMapper;
+import com.tpi_pais.mega_store.products.model.MovimientoDiario;
+import com.tpi_pais.mega_store.products.model.Reserva;
+import com.tpi_pais.mega_store.products.mapper.MovimientoDiarioMapper;
+import com.tpi_pais.mega_store.products.repository.DiarioStockEscritor;
+import com.tpi_pais.mega_store.products.repository.ReservaRepository;
+import com.tpi_pais.mega_store.products.repository.VencimientoReserva;
+import com.tpi_pais.mega_store.utils.Transacciones;
+import com.tpi_pais.mega_store.utils.tiempos.RuedaDeTiempos;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/*
+ * Reservas de stock por sucursal (por ejemplo, mientras se completa el pago en una caja).
+ *
+ * Reservar descuenta el stock en el momento (StockService.descontarSinDiario) y guarda la reserva con
+ * su vencimiento. Confirmarla solo la borra; cancelarla o que venza la borra y devuelve el stock.
+ * Cada cambio de stock (reserva, cancelacion y vencimiento) se registra en el diario de la sucursal
+ * en la misma transaccion que lo aplica; la confirmacion no cambia el stock y no se registra.
+ * Los vencimientos no se buscan en la bd: cada reserva creada se agrega a una rueda de tiempos
+ * en memoria (utils.tiempos.RuedaDeTiempos), que a cada tick entrega las que vencieron sin recorrer
+ * las demas, y se vencen en la bd por lotes de hasta megastore.reservas.lote ids en una sentencia.
+ *
+ * La rueda no se entera de las confirmaciones y cancelaciones: el vencimiento en la bd solo borra
+ * las reservas que siguen existiendo y ya vencieron, asi que vencer un id que ya no esta no hace nada.
+ * Al arrancar la rueda se reconstruye con las reservas que hay en la bd (las ya vencidas se vencen
+ * en el primer tick). Con varias instancias cada una vence las reservas que creo; las de una
+ * instancia caida se vencen cuando vuelve a arrancar alguna.
+ *
+ * Metricas: megastore.reservas con tag resultado (creada, confirmada, cancelada, vencida, sin_stock)
+ * y el gauge megastore.reservas.pendientes (ids en la rueda, incluidos los ya confirmados o
+ * cancelados que todavia no llegaron a su vencimiento).
+ * */
+@Service
+public class ReservaService implements IReservaService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservaService.class);
+
+    @Autowired
+    private ReservaRepository modelRepository;
+
+    @Autowired
+    private IStockService stockService;
+
+    @Autowired
+    private DiarioStockEscritor diario;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Value("${megastore.reservas.duracion-segundos:600}")
+    private long duracionSegundos;
+
+    @Value("${megastore.reservas.tick-ms:1000}")
+    private long tickMs;
+
+    @Value("${megastore.reservas.lote:500}")
+    private int lote;
+
+    // Sin un bean Clock se usa el del sistema; las pruebas definen uno para manejar el tiempo
+    @Autowired(required = false)
+    private Clock reloj = Clock.systemDefaultZone();
+
+    private RuedaDeTiempos rueda;
+    private ScheduledExecutorService programador;
+    private TransactionTemplate transaccion;
+
+    private Counter creadas;
+    private Counter confirmadas;
+    private Counter canceladas;
+    private Counter vencidas;
+    private Counter sinStock;
+
+    @PostConstruct
+    void iniciar() {
+        rueda = new RuedaDeTiempos(tickMs, reloj.millis());
+        transaccion = new TransactionTemplate(transactionManager);
+        creadas = reservas("creada");
+        confirmadas = reservas("confirmada");
+        canceladas = reservas("cancelada");
+        vencidas = reservas("vencida");
+        sinStock = reservas("sin_stock");
+        Gauge.builder("megastore.reservas.pendientes", rueda, RuedaDeTiempos::tamanio)
+                .description("Reservas en la rueda de vencimientos")
+                .register(registry);
+    }
+
+    /*
+     * Carga en la rueda las reservas de la bd y arranca el reloj que la avanza. Se hace con la
+     * aplicacion ya levantada; las reservas creadas mientras tanto pueden quedar dos veces en la
+     * rueda, lo que no cambia nada.
+     * */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void reconstruir() {
+        int cargadas = 0;
+        try (Stream<VencimientoReserva> filas = modelRepository.streamVencimientos()) {
+            for (VencimientoReserva fila : (Iterable<VencimientoReserva>) filas::iterator) {
+                rueda.agregar(fila.id(), milisegundos(fila.vence()));
+                cargadas++;
+            }
+        }
+        log.info("Rueda de vencimientos de reservas reconstruida con {} reservas", cargadas);
+        // Un hilo de plataforma: el reloj corre siempre y casi todo el tiempo esta dormido
+        programador = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("reservas-vencimiento").daemon().factory());
+        programador.scheduleWithFixedDelay(this::vencer, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void detener() {
+        if (programador != null) {
+            programador.shutdownNow();
+        }
+    }
+
+    @Override
+    public ResultadoEscrituraDTO<ReservaDTO> crear(ReservaDTO modelDTO) {
+        /*
+         * El descuento, el alta de la reserva y su movimiento en el diario van en la misma
+         * transaccion: si el alta o el diario fallan el stock no queda descontado. La franja
+         * descontada queda bloqueada hasta confirmar, que son solo los dos INSERT.
+         * */
+        return transaccion.execute(estado -> reservar(modelDTO));
+    }
+
+    private ResultadoEscrituraDTO<ReservaDTO> reservar(ReservaDTO modelDTO) {
+        ResultadoEscrituraDTO<MovimientoStockDTO> descuento = stockService.descontarSinDiario(
+                new MovimientoStockDTO(modelDTO.getSucursalId(), modelDTO.getProductoId(), modelDTO.getCantidad()));
+        if (descuento.getEstado() != ResultadoEscrituraDTO.Estado.OK) {
+            sinStock.increment();
+            return new ResultadoEscrituraDTO<>(descuento.getEstado(), null);
+        }
+        Reserva model = ReservaMapper.toEntity(modelDTO);
+        model.setId(null);
+        // En milisegundos para que la bd guarde exactamente el vencimiento que usa la rueda
+        model.setVence(LocalDateTime.now(reloj).plusSeconds(duracionSegundos).truncatedTo(ChronoUnit.MILLIS));
+        model = modelRepository.save(model);
+        MovimientoDiarioDTO movimiento = MovimientoDiarioDTO.de(model.getSucursalId(), model.getProductoId(),
+                MovimientoDiario.Tipo.RESERVA, model.getCantidad());
+        movimiento.setFecha(LocalDateTime.now(reloj));
+        diario.registrar(MovimientoDiarioMapper.toEntity(movimiento));
+        Integer id = model.getId();
+        long vence = milisegundos(model.getVence());
+        Transacciones.despuesDeConfirmar(() -> {
+            rueda.agregar(id, vence);
+            creadas.increment();
+        });
+        return new ResultadoEscrituraDTO<>(ResultadoEscrituraDTO.Estado.CREADO, ReservaMapper.toDTO(model));
+    }
+
+    @Override
+    public ResultadoEscrituraDTO<Integer> confirmar(Integer sucursalId, Integer id) {
+        if (modelRepository.confirmar(id, sucursalId, LocalDateTime.now(reloj)) == null) {
+            return new ResultadoEscrituraDTO<>(ResultadoEscrituraDTO.Estado.NO_ENCONTRADO, null);
+        }
+        confirmadas.increment();
+        return new ResultadoEscrituraDTO<>(ResultadoEscrituraDTO.Estado.OK, id);
+    }
+
+    @Override
+    public ResultadoEscrituraDTO<Integer> cancelar(Integer sucursalId, Integer id) {
+        if (modelRepository.cancelar(id, sucursalId, LocalDateTime.now(reloj)) == 0) {
+            return new ResultadoEscrituraDTO<>(ResultadoEscrituraDTO.Estado.NO_ENCONTRADO, null);
+        }
+        canceladas.increment();
+        return new ResultadoEscrituraDTO<>(ResultadoEscrituraDTO.Estado.OK, id);
+    }
+
+    /*
+     * Un tick del reloj: avanza la rueda hasta ahora y vence en la bd las reservas que entrego, por
+     * lotes. Si un lote falla sus ids vuelven a la rueda y se reintentan en el proximo tick.
+     * */
+    void vencer() {
+        List<Integer> ids = new ArrayList<>();
+        rueda.avanzar(reloj.millis(), id -> ids.add((int) id));
+        LocalDateTime ahora = LocalDateTime.now(reloj);
+        for (int desde = 0; desde < ids.size(); desde += lote) {
+            List<Integer> parte = ids.subList(desde, Math.min(ids.size(), desde + lote));
+            try {
+                vencidas.increment(modelRepository.vencer(parte, ahora));
+            } catch (RuntimeException e) {
+                log.warn("No se pudieron vencer {} reservas, se reintenta en el proximo tick", parte.size(), e);
+                long reintento = reloj.millis();
+                parte.forEach(id -> rueda.agregar(id, reintento));
+            }
+        }
+    }
+
+    private long milisegundos(LocalDateTime fecha) {
+        return fecha.atZone(reloj.getZone()).toInstant().toEpochMilli();
+    }
+
+    private Counter reservas(String resultado) {
+        return Counter.builder("megastore.reservas")
+                .description("Reservas de stock por resultado")
+                .tag("resultado", resultado)
+                .register(registry);
+    }
+}
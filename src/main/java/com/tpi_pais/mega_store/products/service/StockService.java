@@ -0,0 +1,270 @@
+package com.tpi_pais.mega_store.products.service;
+
+import com.tpi_pais.mega_store.products.dto.MovimientoDiarioDTO;
+import com.tpi_pais.mega_store.products.dto.MovimientoStockDTO;
+import com.tpi_pais.mega_store.products.dto.ResultadoEscrituraDTO;
+import com.tpi_pais.mega_store.products.dto.StockDTO;
+import com.tpi_pais.mega_store.products.model.MovimientoDiario;
+import com.tpi_pais.mega_store.products.model.StockFranja;
+import com.tpi_pais.mega_store.products.repository.StockFranjaRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/*
+ * Stock por sucursal y producto, repartido en franjas (ver model.StockFranja).
+ *
+ * La bd es la unica fuente de verdad: cada descuento es un UPDATE condicional (cantidad >= pedida)
+ * que no puede dejar una franja en negativo, asi que nunca se vende mas de lo que hay aunque haya
+ * varias instancias de la aplicacion. En memoria solo se guarda una estimacion de lo que hay en cada
+ * franja, para elegir una franja que probablemente alcance sin consultar antes la bd. Si la
+ * estimacion esta desactualizada el UPDATE no modifica nada y se prueba otra franja. Las
+ * estimaciones son a lo sumo megastore.stock.estimaciones-maximas y no se guardan las de pares
+ * (sucursal, producto) sin stock cargado, asi los pedidos de pares inexistentes no llenan la memoria.
+ *
+ * Las ventas y reposiciones las aplica el escritor del diario de stock (IDiarioStockService) en la
+ * misma sentencia que registra el movimiento, agrupadas por lotes. Las reservas descuentan con
+ * descontarSinDiario dentro de su transaccion y registran ellas el movimiento.
+ *
+ * Metricas (ademas del timer megastore.servicio de MetricasAspect):
+ * - megastore.stock.descuentos con tag camino: lote (una venta aplicada por el escritor del
+ *   diario), franja (un UPDATE sobre una franja), repartido (entre varias franjas bloqueandolas) o
+ *   sin_stock.
+ * - megastore.stock.unidades con tag operacion: descontadas o repuestas.
+ * - megastore.stock.reintentos: franjas elegidas que resultaron no tener la cantidad estimada.
+ * */
+@Service
+public class StockService implements IStockService {
+
+    // Franjas que se prueban con un UPDATE condicional antes de ir al camino lento
+    private static final int INTENTOS_EN_FRANJA = 3;
+
+    @Autowired
+    private StockFranjaRepository modelRepository;
+
+    @Autowired
+    private IDiarioStockService diarioService;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Value("${megastore.stock.estimaciones-maximas:100000}")
+    private int estimacionesMaximas;
+
+    // Estimacion de la cantidad de cada franja por (sucursal, producto), ver clave
+    private final Map<Long, AtomicIntegerArray> estimaciones = new ConcurrentHashMap<>();
+
+    private Counter descuentosEnLote;
+    private Counter descuentosEnFranja;
+    private Counter descuentosRepartidos;
+    private Counter descuentosSinStock;
+    private Counter unidadesDescontadas;
+    private Counter unidadesRepuestas;
+    private Counter reintentos;
+
+    @PostConstruct
+    void registrarMetricas() {
+        descuentosEnLote = descuentos("lote");
+        descuentosEnFranja = descuentos("franja");
+        descuentosRepartidos = descuentos("repartido");
+        descuentosSinStock = descuentos("sin_stock");
+        unidadesDescontadas = unidades("descontadas");
+        unidadesRepuestas = unidades("repuestas");
+        reintentos = Counter.builder("megastore.stock.reintentos")
+                .description("Franjas elegidas que no tenian la cantidad estimada")
+                .register(registry);
+    }
+
+    @Override
+    public StockDTO consultar(Integer sucursalId, Integer productoId) {
+        List<StockFranja> filas = modelRepository.findBySucursalIdAndProductoIdOrderByFranjaAsc(sucursalId, productoId);
+        actualizarEstimacion(sucursalId, productoId, filas);
+        return stock(sucursalId, productoId, filas);
+    }
+
+    @Override
+    public ResultadoEscrituraDTO<MovimientoStockDTO> descontar(MovimientoStockDTO movimiento) {
+        /*
+         * Una venta: el escritor del diario la descuenta y la registra en la misma sentencia (ver
+         * DiarioStockEscritor). Sin stock cargado para el par se responde sin encolarla. La
+         * estimacion de las franjas no se actualiza: si quedo alta, el proximo descontarSinDiario
+         * sobre esa franja falla el UPDATE y la corrige.
+         * */
+        Integer sucursalId = movimiento.getSucursalId();
+        Integer productoId = movimiento.getProductoId();
+        if (estimacion(sucursalId, productoId).length() == 0) {
+            descuentosSinStock.increment();
+            return new ResultadoEscrituraDTO<>(ResultadoEscrituraDTO.Estado.SIN_STOCK, null);
+        }
+        ResultadoEscrituraDTO<MovimientoDiarioDTO> venta = diarioService.registrar(MovimientoDiarioDTO.de(
+                sucursalId, productoId, MovimientoDiario.Tipo.VENTA, movimiento.getCantidad()));
+        if (venta.getEstado() != ResultadoEscrituraDTO.Estado.CREADO) {
+            descuentosSinStock.increment();
+            return new ResultadoEscrituraDTO<>(ResultadoEscrituraDTO.Estado.SIN_STOCK, null);
+        }
+        descuentosEnLote.increment();
+        unidadesDescontadas.increment(movimiento.getCantidad());
+        return new ResultadoEscrituraDTO<>(ResultadoEscrituraDTO.Estado.OK, movimiento);
+    }
+
+    @Override
+    public ResultadoEscrituraDTO<MovimientoStockDTO> descontarSinDiario(MovimientoStockDTO movimiento) {
+        /*
+         * No es @Transactional a proposito: cada sentencia se confirma sola, asi el bloqueo de la
+         * fila de una franja dura solo lo que tarda el UPDATE. Si se llama dentro de una transaccion
+         * (al reservar) las sentencias se confirman con ella.
+         * 1) Se elige una franja que segun la estimacion alcance, empezando por una al azar para
+         *    repartir los compradores concurrentes entre las franjas, y se descuenta con un UPDATE
+         *    condicional. Hasta INTENTOS_EN_FRANJA franjas.
+         * 2) Si ninguna alcanzo se leen las franjas (sin bloquear). Si el total no alcanza se
+         *    responde SIN_STOCK; asi, con el producto agotado, los pedidos no bloquean nada.
+         * 3) Si el total alcanza pero esta repartido, se descuenta entre varias franjas
+         *    bloqueandolas (descontarRepartido), que vuelve a verificar el total ya bloqueado.
+         * */
+        Integer sucursalId = movimiento.getSucursalId();
+        Integer productoId = movimiento.getProductoId();
+        int cantidad = movimiento.getCantidad();
+
+        AtomicIntegerArray estimacion = estimacion(sucursalId, productoId);
+        if (estimacion.length() == 0) {
+            // Recien leida de la bd (las vacias no se guardan): no hay stock cargado para el producto
+            descuentosSinStock.increment();
+            return new ResultadoEscrituraDTO<>(ResultadoEscrituraDTO.Estado.SIN_STOCK, null);
+        }
+        for (int intento = 0; intento < INTENTOS_EN_FRANJA; intento++) {
+            int franja = elegirFranja(estimacion, cantidad);
+            if (franja < 0) {
+                break;
+            }
+            Integer restante = modelRepository.descontar(sucursalId, productoId, franja, cantidad);
+            if (restante != null) {
+                estimacion.set(franja, restante);
+                descuentosEnFranja.increment();
+                unidadesDescontadas.increment(cantidad);
+                return new ResultadoEscrituraDTO<>(ResultadoEscrituraDTO.Estado.OK, movimiento);
+            }
+            // Tiene menos de lo pedido: no se la vuelve a elegir hasta la proxima lectura
+            estimacion.set(franja, 0);
+            reintentos.increment();
+        }
+
+        List<StockFranja> filas = modelRepository.findBySucursalIdAndProductoIdOrderByFranjaAsc(sucursalId, productoId);
+        actualizarEstimacion(sucursalId, productoId, filas);
+        if (total(filas) < cantidad || modelRepository.descontarRepartido(sucursalId, productoId, cantidad) < cantidad) {
+            descuentosSinStock.increment();
+            return new ResultadoEscrituraDTO<>(ResultadoEscrituraDTO.Estado.SIN_STOCK, null);
+        }
+        actualizarEstimacion(sucursalId, productoId,
+                modelRepository.findBySucursalIdAndProductoIdOrderByFranjaAsc(sucursalId, productoId));
+        descuentosRepartidos.increment();
+        unidadesDescontadas.increment(cantidad);
+        return new ResultadoEscrituraDTO<>(ResultadoEscrituraDTO.Estado.OK, movimiento);
+    }
+
+    @Override
+    public ResultadoEscrituraDTO<StockDTO> reponer(MovimientoStockDTO movimiento) {
+        /*
+         * No es @Transactional: la reposicion la aplica el escritor del diario junto con el
+         * movimiento, en la transaccion de su lote. Si no se aplico se consulta cual de las
+         * referencias fallo para la respuesta.
+         * */
+        Integer sucursalId = movimiento.getSucursalId();
+        Integer productoId = movimiento.getProductoId();
+        int cantidad = movimiento.getCantidad();
+        ResultadoEscrituraDTO<MovimientoDiarioDTO> reposicion = diarioService.registrar(MovimientoDiarioDTO.de(
+                sucursalId, productoId, MovimientoDiario.Tipo.REPOSICION, cantidad));
+        if (reposicion.getEstado() != ResultadoEscrituraDTO.Estado.CREADO) {
+            return new ResultadoEscrituraDTO<>(ResultadoEscrituraDTO.Estado.REFERENCIA_INVALIDA, null,
+                    modelRepository.referenciaInvalida(sucursalId, productoId));
+        }
+        List<StockFranja> filas = modelRepository.findBySucursalIdAndProductoIdOrderByFranjaAsc(sucursalId, productoId);
+        actualizarEstimacion(sucursalId, productoId, filas);
+        unidadesRepuestas.increment(cantidad);
+        return new ResultadoEscrituraDTO<>(ResultadoEscrituraDTO.Estado.OK, stock(sucursalId, productoId, filas));
+    }
+
+    // Primera franja, desde una al azar, cuya estimacion alcanza para la cantidad; -1 si ninguna
+    private static int elegirFranja(AtomicIntegerArray estimacion, int cantidad) {
+        int largo = estimacion.length();
+        if (largo == 0) {
+            return -1;
+        }
+        int inicio = ThreadLocalRandom.current().nextInt(largo);
+        for (int i = 0; i < largo; i++) {
+            int franja = (inicio + i) % largo;
+            if (estimacion.get(franja) >= cantidad) {
+                return franja;
+            }
+        }
+        return -1;
+    }
+
+    private AtomicIntegerArray estimacion(Integer sucursalId, Integer productoId) {
+        AtomicIntegerArray estimacion = estimaciones.get(clave(sucursalId, productoId));
+        if (estimacion != null) {
+            return estimacion;
+        }
+        // Sin computeIfAbsent: la consulta no debe hacerse con el bloqueo del mapa tomado
+        return actualizarEstimacion(sucursalId, productoId,
+                modelRepository.findBySucursalIdAndProductoIdOrderByFranjaAsc(sucursalId, productoId));
+    }
+
+    private AtomicIntegerArray actualizarEstimacion(Integer sucursalId, Integer productoId, List<StockFranja> filas) {
+        long clave = clave(sucursalId, productoId);
+        if (filas.isEmpty()) {
+            estimaciones.remove(clave);
+            return new AtomicIntegerArray(0);
+        }
+        AtomicIntegerArray estimacion = new AtomicIntegerArray(filas.get(filas.size() - 1).getFranja() + 1);
+        for (StockFranja fila : filas) {
+            estimacion.set(fila.getFranja(), fila.getCantidad());
+        }
+        if (!estimaciones.containsKey(clave) && estimaciones.size() >= estimacionesMaximas) {
+            // Se descarta una cualquiera: perderla solo cuesta volver a leer sus franjas
+            Iterator<Long> claves = estimaciones.keySet().iterator();
+            if (claves.hasNext()) {
+                claves.next();
+                claves.remove();
+            }
+        }
+        estimaciones.put(clave, estimacion);
+        return estimacion;
+    }
+
+    private static long clave(Integer sucursalId, Integer productoId) {
+        return ((long) sucursalId << 32) | (productoId & 0xFFFFFFFFL);
+    }
+
+    private static int total(List<StockFranja> filas) {
+        return filas.stream().mapToInt(StockFranja::getCantidad).sum();
+    }
+
+    private static StockDTO stock(Integer sucursalId, Integer productoId, List<StockFranja> filas) {
+        return new StockDTO(sucursalId, productoId, total(filas),
+                filas.stream().map(StockFranja::getCantidad).toList());
+    }
+
+    private Counter descuentos(String camino) {
+        return Counter.builder("megastore.stock.descuentos")
+                .description("Descuentos de stock por camino")
+                .tag("camino", camino)
+                .register(registry);
+    }
+
+    private Counter unidades(String operacion) {
+        return Counter.builder("megastore.stock.unidades")
+                .description("Unidades de stock descontadas y repuestas")
+                .tag("operacion", operacion)
+                .register(registry);
+    }
+}
@@ -1,57 +1,245 @@
 package com.tpi_pais.mega_store.products.service;
 
+import com.tpi_pais.mega_store.products.dto.ResultadoEscrituraDTO;
+import com.tpi_pais.mega_store.products.dto.ResultadoItemDTO;
+import com.tpi_pais.mega_store.products.dto.ResultadoMasivoDTO;
 import com.tpi_pais.mega_store.products.dto.TalleDTO;
 import com.tpi_pais.mega_store.products.mapper.TalleMapper;
 import com.tpi_pais.mega_store.products.model.Talle;
 import com.tpi_pais.mega_store.products.repository.TalleRepository;
+import com.tpi_pais.mega_store.products.repository.ReferenciaCatalogoRepository;
+import com.tpi_pais.mega_store.products.repository.ResultadoEscritura;
+import com.tpi_pais.mega_store.utils.EscritorNdjson;
+import com.tpi_pais.mega_store.utils.NormalizadorNombre;
+import com.tpi_pais.mega_store.utils.Pagina;
+import com.tpi_pais.mega_store.utils.Transacciones;
+import com.tpi_pais.mega_store.utils.cache.CacheInstantanea;
+import com.tpi_pais.mega_store.utils.cache.EstadisticasCache;
+import com.tpi_pais.mega_store.utils.cache.Instantanea;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Service
 public class TalleService implements ITalleService {
 
+    // Nombre del catalogo en referencias_catalogo
+    private static final String CATALOGO = "talle";
+
     @Autowired
     private TalleRepository modelRepository;
 
+    @Autowired
+    private ReferenciaCatalogoRepository referenciaRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final CacheInstantanea<TalleDTO> cache = new CacheInstantanea<>("talle");
+
     @Override
     public List<TalleDTO> listar() {
-        List<Talle> talles = modelRepository.findByFechaEliminacionIsNullOrderByIdAsc();
-        return talles.stream().map(TalleMapper::toDTO).toList();
+        return instantanea().getDatos();
     }
 
     @Override
-    public Talle buscarPorId(Integer id) {
-        return modelRepository.findById(id).orElse(null);
+    public Instantanea<TalleDTO> instantanea() {
+        return cache.obtener(() -> modelRepository.findByFechaEliminacionIsNullOrderByIdAsc()
+                .stream().map(TalleMapper::toDTO).toList());
     }
 
     @Override
-    public Talle buscarPorNombre(String nombre) {
-        return modelRepository.findByNombre(nombre).orElse(null);
+    public Pagina<TalleDTO> listarPagina(Integer despuesDe, int limite) {
+        List<TalleDTO> filas = modelRepository
+                .findByFechaEliminacionIsNullAndIdGreaterThanOrderByIdAsc(despuesDe, Limit.of(limite + 1))
+                .stream().map(TalleMapper::toDTO).toList();
+        return Pagina.desde(filas, limite, TalleDTO::getId);
+    }
+
+    @Override
+    @Transactional
+    public List<ResultadoItemDTO> guardarLote(List<TalleDTO> modelos) {
+        /*
+         * 1) Se normaliza y valida cada nombre igual que en el alta individual.
+         * 2) Se buscan todos los nombres validos con una sola consulta IN.
+         * 3) Los nombres eliminados se recuperan y los nuevos se insertan con saveAll, que
+         *    Hibernate envia en lotes JDBC al confirmar la transaccion.
+         * */
+        ResultadoItemDTO[] resultados = new ResultadoItemDTO[modelos.size()];
+        Map<String, Integer> pendientes = new LinkedHashMap<>();
+        for (int i = 0; i < modelos.size(); i++) {
+            TalleDTO modelDTO = modelos.get(i);
+            if (modelDTO == null || modelDTO.noTieneNombre()) {
+                resultados[i] = new ResultadoItemDTO(i, null, ResultadoItemDTO.Estado.INVALIDO, null,
+                        "No se envio un nombre.");
+                continue;
+            }
+            String nombre = NormalizadorNombre.normalizar(modelDTO.getNombre());
+            if (nombre == null) {
+                resultados[i] = new ResultadoItemDTO(i, modelDTO.getNombre(), ResultadoItemDTO.Estado.INVALIDO, null,
+                        "El nombre debe estar formado unicamente por letras y numeros.");
+            } else if (pendientes.putIfAbsent(nombre, i) != null) {
+                resultados[i] = new ResultadoItemDTO(i, nombre, ResultadoItemDTO.Estado.DUPLICADO, null,
+                        "El nombre se repite dentro del lote.");
+            }
+        }
+        if (pendientes.isEmpty()) {
+            return List.of(resultados);
+        }
+
+        Map<String, Talle> existentes = new HashMap<>();
+        for (Talle model : modelRepository.findByNombreIn(pendientes.keySet())) {
+            existentes.put(model.getNombre(), model);
+        }
+        List<Talle> nuevos = new ArrayList<>();
+        for (Map.Entry<String, Integer> pendiente : pendientes.entrySet()) {
+            String nombre = pendiente.getKey();
+            int i = pendiente.getValue();
+            Talle existente = existentes.get(nombre);
+            if (existente == null) {
+                Talle model = new Talle();
+                model.setNombre(nombre);
+                nuevos.add(model);
+            } else if (existente.esEliminado()) {
+                // La entidad esta administrada, el UPDATE se envia al confirmar la transaccion.
+                existente.recuperar();
+                resultados[i] = new ResultadoItemDTO(i, nombre, ResultadoItemDTO.Estado.RECUPERADO, existente.getId(), null);
+            } else {
+                resultados[i] = new ResultadoItemDTO(i, nombre, ResultadoItemDTO.Estado.DUPLICADO, existente.getId(),
+                        "Ya existe un registro con este nombre.");
+            }
+        }
+        for (Talle model : modelRepository.saveAll(nuevos)) {
+            int i = pendientes.get(model.getNombre());
+            resultados[i] = new ResultadoItemDTO(i, model.getNombre(), ResultadoItemDTO.Estado.CREADO, model.getId(), null);
+        }
+
+        Transacciones.despuesDeConfirmar(cache::invalidar);
+        return List.of(resultados);
+    }
+
+    @Override
+    @Transactional
+    public ResultadoEscrituraDTO<TalleDTO> actualizar(TalleDTO modelDTO) {
+        ResultadoEscritura resultado = modelRepository.actualizarNombre(modelDTO.getId(), modelDTO.getNombre());
+        return resultadoEscritura(resultado, null);
+    }
+
+    @Override
+    @Transactional
+    public ResultadoEscrituraDTO<TalleDTO> eliminarPorId(Integer id) {
+        // El bloqueo va en una sentencia aparte para que la baja lea los contadores ya confirmados
+        modelRepository.bloquearPorId(id);
+        LocalDateTime fecha = LocalDateTime.now();
+        ResultadoEscritura resultado = modelRepository.eliminarPorId(id, fecha);
+        return resultadoEscritura(resultado, fecha);
+    }
+
+    @Override
+    @Transactional
+    public ResultadoEscrituraDTO<TalleDTO> recuperarPorId(Integer id) {
+        ResultadoEscritura resultado = modelRepository.recuperarPorId(id);
+        return resultadoEscritura(resultado, null);
     }
 
+    @Override
+    @Transactional
+    public ResultadoEscrituraDTO<TalleDTO> crearORecuperar(TalleDTO modelDTO) {
+        ResultadoEscritura resultado = modelRepository.crearORecuperar(modelDTO.getNombre());
+        return resultadoEscritura(resultado, null);
+    }
 
+    private ResultadoEscrituraDTO<TalleDTO> resultadoEscritura(ResultadoEscritura resultado,
+                                                               LocalDateTime fechaEliminacion) {
+        ResultadoEscrituraDTO.Estado estado = ResultadoEscrituraDTO.Estado.valueOf(resultado.getEstado());
+        if (resultado.getId() == null) {
+            return new ResultadoEscrituraDTO<>(estado, null);
+        }
+        Integer id = resultado.getId();
+        TalleDTO modelDTO = new TalleDTO();
+        modelDTO.setId(id);
+        modelDTO.setNombre(resultado.getNombre());
+        modelDTO.setFechaEliminacion(fechaEliminacion);
+        Transacciones.despuesDeConfirmar(cache::invalidar);
+        return new ResultadoEscrituraDTO<>(estado, modelDTO);
+    }
 
     @Override
-    public TalleDTO guardar(TalleDTO modelDTO) {
-        Talle model = TalleMapper.toEntity(modelDTO);
-        return TalleMapper.toDTO(modelRepository.save(model));
+    @Transactional
+    public ResultadoMasivoDTO eliminarPorIds(Collection<Integer> ids) {
+        modelRepository.bloquearPorIds(ids);
+        List<Integer> modificados = modelRepository.eliminarPorIds(ids, LocalDateTime.now());
+        invalidarCache(modificados);
+        List<Integer> enUso = List.of();
+        if (modificados.size() < ids.size()) {
+            Set<Integer> restantes = new HashSet<>(ids);
+            modificados.forEach(restantes::remove);
+            enUso = referenciaRepository.buscarIdsEnUso(CATALOGO, restantes);
+        }
+        return ResultadoMasivoDTO.clasificar(ids, modificados, enUso, modelRepository::buscarIdsExistentes);
     }
+
     @Override
-    public Talle guardar(Talle model) {
-        return modelRepository.save(model);
+    @Transactional
+    public ResultadoMasivoDTO recuperarPorIds(Collection<Integer> ids) {
+        List<Integer> modificados = modelRepository.recuperarPorIds(ids);
+        invalidarCache(modificados);
+        return ResultadoMasivoDTO.clasificar(ids, modificados, modelRepository::buscarIdsExistentes);
+    }
+
+    private void invalidarCache(List<Integer> modificados) {
+        if (!modificados.isEmpty()) {
+            Transacciones.despuesDeConfirmar(cache::invalidar);
+        }
     }
 
     @Override
-    public void eliminar(Talle model) {
+    @Transactional(readOnly = true)
+    public void exportar(EscritorNdjson escritor) throws IOException {
+        try (Stream<Talle> modelos = modelRepository.streamAllByOrderByIdAsc()) {
+            Iterator<Talle> iterador = modelos.iterator();
+            while (iterador.hasNext()) {
+                Talle model = iterador.next();
+                escritor.escribir(TalleMapper.toDTO(model));
+                // Se saca del contexto de persistencia para que la memoria no crezca con la tabla.
+                entityManager.detach(model);
+            }
+        }
+    }
 
-        model.eliminar();
-        modelRepository.save(model);
+    @Override
+    public String etag() {
+        return cache.etag();
     }
+
+    @Override
+    public Talle buscarPorId(Integer id) {
+        return modelRepository.findById(id).orElse(null);
+    }
+
+    @Override
+    public Talle buscarPorNombre(String nombre) {
+        return modelRepository.findByNombre(nombre).orElse(null);
+    }
+
     @Override
-    public void recuperar(Talle model) {
-        model.recuperar();
-        modelRepository.save(model);
+    public EstadisticasCache estadisticasCache() {
+        return cache.estadisticas();
     }
 }
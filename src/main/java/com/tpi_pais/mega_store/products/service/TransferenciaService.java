@@ -0,0 +1,159 @@
+package com.tpi_pais.mega_store.products.service;
+
+import com.tpi_pais.mega_store.products.dto.ResultadoEscrituraDTO;
+import com.tpi_pais.mega_store.products.dto.TransferenciaDTO;
+import com.tpi_pais.mega_store.products.repository.StockFranjaRepository;
+import com.tpi_pais.mega_store.utils.Transacciones;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/*
+ * Transferencias de stock entre sucursales.
+ *
+ * Una transferencia modifica las franjas (ver StockFranja) de dos sucursales en una transaccion.
+ * Si cada una bloqueara primero las de su origen, una de A a B y otra de B a A al mismo tiempo se
+ * esperarian entre si (deadlock). Por eso las filas se bloquean siempre en el mismo orden: primero
+ * la sucursal de menor id, y dentro de cada sucursal por producto y franja, el mismo orden que usan
+ * las demas escrituras de stock. Segun cual tenga menor id, primero va la salida del origen o la
+ * entrada del destino.
+ *
+ * Cada lado es una unica sentencia con todos los productos (StockFranjaRepository.transferirSalida
+ * y transferirEntrada), sin importar cuantos items tenga la transferencia. Si falta stock de algun
+ * producto o el destino no es valido no se transfiere nada. Cada sentencia registra los movimientos
+ * de su sucursal en el diario de stock, asi el diario se confirma o se deshace con la transferencia.
+ *
+ * Metricas (ademas del timer megastore.servicio de MetricasAspect):
+ * - megastore.transferencias con tag resultado: ok, sin_stock o referencia_invalida.
+ * - megastore.transferencias.items y megastore.transferencias.unidades transferidas.
+ * - megastore.transferencias.sentencia con tag lado (primero o segundo): duracion de cada sentencia.
+ *   Con transferencias concurrentes sobre las mismas sucursales casi todo es espera de bloqueos.
+ * */
+@Service
+public class TransferenciaService implements ITransferenciaService {
+
+    @Autowired
+    private StockFranjaRepository modelRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    // Mismas franjas que usa DiarioStockEscritor al reponer
+    @Value("${megastore.stock.franjas:8}")
+    private int franjas;
+
+    private Counter transferidas;
+    private Counter sinStock;
+    private Counter referenciasInvalidas;
+    private Counter items;
+    private Counter unidades;
+    private Timer primerLado;
+    private Timer segundoLado;
+    private TransactionTemplate transaccion;
+
+    @PostConstruct
+    void registrarMetricas() {
+        transaccion = new TransactionTemplate(transactionManager);
+        transferidas = transferencias("ok");
+        sinStock = transferencias("sin_stock");
+        referenciasInvalidas = transferencias("referencia_invalida");
+        items = Counter.builder("megastore.transferencias.items")
+                .description("Productos transferidos (items de las transferencias)")
+                .register(registry);
+        unidades = Counter.builder("megastore.transferencias.unidades")
+                .description("Unidades transferidas")
+                .register(registry);
+        primerLado = sentencia("primero");
+        segundoLado = sentencia("segundo");
+    }
+
+    @Override
+    public ResultadoEscrituraDTO<TransferenciaDTO> transferir(TransferenciaDTO modelDTO) {
+        /*
+         * Los items del mismo producto se suman y se ordenan por producto, el orden en que se
+         * bloquean las franjas. Los dos lados van en una transaccion. El controlador ya rechaza las transferencias cuya suma no entra
+         * en un int; addExact falla en lugar de desbordar si se llama al servicio sin esa validacion.
+         * */
+        TreeMap<Integer, Integer> cantidades = new TreeMap<>();
+        for (TransferenciaDTO.Item item : modelDTO.getItems()) {
+            cantidades.merge(item.getProductoId(), item.getCantidad(), Math::addExact);
+        }
+        return transaccion.execute(estado -> aplicar(modelDTO, cantidades, estado));
+    }
+
+    // Si el segundo lado falla hay que deshacer el primero: la transaccion se marca para rollback
+    private ResultadoEscrituraDTO<TransferenciaDTO> aplicar(TransferenciaDTO modelDTO, TreeMap<Integer, Integer> cantidades,
+                                                           TransactionStatus estado) {
+        Integer[] productos = cantidades.keySet().toArray(new Integer[0]);
+        Integer[] porProducto = cantidades.values().toArray(new Integer[0]);
+        Integer origenId = modelDTO.getOrigenId();
+        Integer destinoId = modelDTO.getDestinoId();
+        LocalDateTime fecha = LocalDateTime.now();
+
+        Supplier<List<Integer>> salida = () -> modelRepository.transferirSalida(origenId, productos, porProducto, fecha);
+        Supplier<String> entrada = () -> modelRepository.transferirEntrada(destinoId, productos, porProducto, franjas, fecha);
+        List<Integer> faltantes = List.of();
+        String referencia = null;
+        if (origenId < destinoId) {
+            faltantes = primerLado.record(salida);
+            if (faltantes.isEmpty()) {
+                referencia = segundoLado.record(entrada);
+            }
+        } else {
+            referencia = primerLado.record(entrada);
+            if (referencia == null) {
+                faltantes = segundoLado.record(salida);
+            }
+        }
+
+        if (referencia != null) {
+            estado.setRollbackOnly();
+            referenciasInvalidas.increment();
+            return new ResultadoEscrituraDTO<>(ResultadoEscrituraDTO.Estado.REFERENCIA_INVALIDA, null, referencia);
+        }
+        if (!faltantes.isEmpty()) {
+            estado.setRollbackOnly();
+            sinStock.increment();
+            return new ResultadoEscrituraDTO<>(ResultadoEscrituraDTO.Estado.SIN_STOCK, null,
+                    faltantes.stream().map(String::valueOf).collect(Collectors.joining(", ")));
+        }
+        long totalUnidades = cantidades.values().stream().mapToLong(Integer::longValue).sum();
+        Transacciones.despuesDeConfirmar(() -> {
+            transferidas.increment();
+            items.increment(productos.length);
+            unidades.increment(totalUnidades);
+        });
+        return new ResultadoEscrituraDTO<>(ResultadoEscrituraDTO.Estado.OK, modelDTO);
+    }
+
+    private Counter transferencias(String resultado) {
+        return Counter.builder("megastore.transferencias")
+                .description("Transferencias de stock por resultado")
+                .tag("resultado", resultado)
+                .register(registry);
+    }
+
+    private Timer sentencia(String lado) {
+        return Timer.builder("megastore.transferencias.sentencia")
+                .description("Duracion de la sentencia de cada lado de una transferencia, incluida la espera de bloqueos")
+                .tag("lado", lado)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
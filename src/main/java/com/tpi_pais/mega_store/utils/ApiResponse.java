@@ -1,5 +1,6 @@
 package com.tpi_pais.mega_store.utils;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -12,5 +13,10 @@ public class ApiResponse<T> {
     private String message;    // Mensaje de estado (éxito o error)
     private T data;            // Datos relevantes que se devuelven
     private String errors;     // En caso de error, detalles del mismo
-}
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer nextCursor; // En listados paginados, cursor (after) para pedir la pagina siguiente
 
+    public ApiResponse(int status, String message, T data, String errors) {
+        this(status, message, data, errors, null);
+    }
+}
@@ -0,0 +1,49 @@
+package com.tpi_pais.mega_store.utils;
+
+/*
+ * Conversion de texto a entero sin excepciones, para los ids que llegan en la url.
+ * Con @PathVariable Integer un valor invalido le cuesta a Spring una NumberFormatException envuelta
+ * en otras dos, cada una con su stack trace; aca un valor invalido es simplemente null.
+ * */
+public final class Enteros {
+
+    private Enteros() {
+    }
+
+    /*
+     * Devuelve el entero (con signo opcional) o null si el texto es null, vacio, tiene otros
+     * caracteres o no entra en un int. A diferencia de Integer.valueOf solo acepta digitos ASCII.
+     * */
+    public static Integer parsear(String texto) {
+        if (texto == null || texto.isEmpty()) {
+            return null;
+        }
+        int largo = texto.length();
+        int i = 0;
+        boolean negativo = false;
+        char primero = texto.charAt(0);
+        if (primero == '-' || primero == '+') {
+            if (largo == 1) {
+                return null;
+            }
+            negativo = primero == '-';
+            i = 1;
+        }
+        // Se acumula en negativo para poder representar Integer.MIN_VALUE
+        long valor = 0;
+        for (; i < largo; i++) {
+            char c = texto.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+            valor = valor * 10 - (c - '0');
+            if (valor < Integer.MIN_VALUE) {
+                return null;
+            }
+        }
+        if (negativo) {
+            return (int) valor;
+        }
+        return valor == Integer.MIN_VALUE ? null : (int) -valor;
+    }
+}
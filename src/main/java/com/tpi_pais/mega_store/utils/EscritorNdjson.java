@@ -0,0 +1,47 @@
+package com.tpi_pais.mega_store.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/*
+ * Escribe objetos como JSON delimitado por saltos de linea (NDJSON), un objeto por linea.
+ * No acumula nada en memoria: cada fila se serializa directo a la salida y se envia al
+ * cliente cada FILAS_POR_ENVIO filas.
+ * */
+public class EscritorNdjson implements Closeable {
+    private static final int FILAS_POR_ENVIO = 500;
+
+    private final JsonGenerator generador;
+    private final ObjectWriter writer;
+    private long filas = 0;
+
+    public EscritorNdjson(ObjectMapper objectMapper, OutputStream salida) throws IOException {
+        this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.generador = objectMapper.getFactory().createGenerator(salida);
+        this.generador.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.generador.setRootValueSeparator(null);
+    }
+
+    public void escribir(Object valor) throws IOException {
+        writer.writeValue(generador, valor);
+        generador.writeRaw('\n');
+        if (++filas % FILAS_POR_ENVIO == 0) {
+            generador.flush();
+        }
+    }
+
+    public long getFilas() {
+        return filas;
+    }
+
+    @Override
+    public void close() throws IOException {
+        generador.close();
+    }
+}
@@ -0,0 +1,35 @@
+package com.tpi_pais.mega_store.utils;
+
+import org.springframework.http.CacheControl;
+
+public class Etags {
+    /*
+     * Los listados de catalogos pueden ser almacenados por el navegador o por un proxy inverso,
+     * pero siempre se deben revalidar con If-None-Match antes de usarse.
+     * */
+    public static final CacheControl CACHE_CATALOGO = CacheControl.noCache().cachePublic();
+
+    /*
+     * Indica si el encabezado If-None-Match contiene el ETag indicado.
+     * Acepta "*", listas separadas por comas y ETags debiles (W/), ya que If-None-Match
+     * usa la comparacion debil. Sin ETag (etag null) nunca coincide, ni siquiera con "*".
+     * */
+    public static boolean coincide(String ifNoneMatch, String etag) {
+        if (etag == null || ifNoneMatch == null || ifNoneMatch.isEmpty()) {
+            return false;
+        }
+        for (String candidato : ifNoneMatch.split(",")) {
+            String valor = candidato.trim();
+            if (valor.equals("*")) {
+                return true;
+            }
+            if (valor.startsWith("W/")) {
+                valor = valor.substring(2);
+            }
+            if (valor.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -37,8 +37,7 @@ public class ExpresionesRegulares {
         return cadenaLimpia;
     }
     public String corregirCadena(String cadena) {
-        Pattern pattern = Pattern.compile(String.valueOf(PATRON_TEXTO_CON_ESPACIOS));
-        Matcher matcher = pattern.matcher(cadena);
+        Matcher matcher = PATRON_TEXTO_CON_ESPACIOS.matcher(cadena);
 
         // Si la cadena ya cumple con la expresión regular, la retornamos
         if (matcher.matches()) {
@@ -56,7 +55,7 @@ public class ExpresionesRegulares {
         }
 
         // Volvemos a verificar si la cadena corregida cumple con la expresión regular
-        matcher = pattern.matcher(cadenaCorregida.toString());
+        matcher = PATRON_TEXTO_CON_ESPACIOS.matcher(cadenaCorregida);
         if (matcher.matches()) {
             return cadenaCorregida.toString();
         }
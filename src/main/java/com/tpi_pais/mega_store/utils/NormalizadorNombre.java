@@ -0,0 +1,118 @@
+package com.tpi_pais.mega_store.utils;
+
+/*
+ * Normaliza los nombres de los catalogos en una sola pasada sobre los caracteres, sin expresiones
+ * regulares ni cadenas intermedias. Produce el mismo resultado que la secuencia que usaban los
+ * controladores:
+ *   1) ExpresionesRegulares.verificarCaracteres (solo letras, numeros, vocales acentuadas y espacios)
+ *   2) si no se cumple verificarTextoConEspacios (el nombre empieza con un espacio), corregirCadena:
+ *      quita los espacios de mas y los numeros, y el nombre es invalido si la primera palabra
+ *      queda sin letras
+ *   3) StringUtils.capitalizeWords: primera letra de cada palabra en mayuscula, el resto en
+ *      minuscula y un unico espacio entre palabras.
+ * */
+public final class NormalizadorNombre {
+
+    public enum Estado {
+        OK,
+        CARACTERES_INVALIDOS,   // Vacio o con caracteres fuera de los permitidos
+        SIN_CONTENIDO           // Al corregirlo no queda ninguna letra en la primera palabra
+    }
+
+    private static final int CAPACIDAD_INICIAL = 128;
+
+    private static final ThreadLocal<StringBuilder> BUFFER =
+            ThreadLocal.withInitial(() -> new StringBuilder(CAPACIDAD_INICIAL));
+
+    private NormalizadorNombre() {
+    }
+
+    /*
+     * Devuelve el nombre normalizado o null si no es valido (ver estado(String) para saber el motivo).
+     * Si el nombre ya estaba normalizado se devuelve la misma instancia.
+     * */
+    public static String normalizar(String nombre) {
+        StringBuilder buffer = BUFFER.get();
+        if (normalizar(nombre, buffer) != Estado.OK) {
+            return null;
+        }
+        return buffer.length() == nombre.length() && nombre.contentEquals(buffer) ? nombre : buffer.toString();
+    }
+
+    public static Estado estado(String nombre) {
+        return normalizar(nombre, BUFFER.get());
+    }
+
+    /*
+     * Deja en destino el nombre normalizado (si el estado es OK) y devuelve el estado.
+     * destino se vacia antes de escribir.
+     * */
+    public static Estado normalizar(CharSequence nombre, StringBuilder destino) {
+        destino.setLength(0);
+        if (nombre == null || nombre.length() == 0) {
+            return Estado.CARACTERES_INVALIDOS;
+        }
+        // corregirCadena solo se aplicaba cuando el nombre empieza con un espacio, y en ese caso quita los numeros
+        boolean corregir = esEspacio(nombre.charAt(0));
+        int palabras = 0;               // Palabras del nombre original (separadas por espacios)
+        boolean enPalabra = false;
+        int escritosEnPalabra = 0;      // Caracteres escritos en destino de la palabra actual
+        boolean primeraConLetras = false;
+        int largo = nombre.length();
+        for (int i = 0; i < largo; i++) {
+            char c = nombre.charAt(i);
+            if (esEspacio(c)) {
+                enPalabra = false;
+                escritosEnPalabra = 0;
+                continue;
+            }
+            if (!esPermitido(c)) {
+                destino.setLength(0);
+                return Estado.CARACTERES_INVALIDOS;
+            }
+            if (!enPalabra) {
+                enPalabra = true;
+                palabras++;
+            }
+            if (corregir && c >= '0' && c <= '9') {
+                // El numero se elimina sin cortar la palabra: "a1b" queda como "Ab"
+                continue;
+            }
+            if (palabras == 1) {
+                primeraConLetras = true;
+            }
+            if (escritosEnPalabra == 0) {
+                if (destino.length() > 0) {
+                    destino.append(' ');
+                }
+                destino.append(Character.toUpperCase(c));
+            } else {
+                destino.append(Character.toLowerCase(c));
+            }
+            escritosEnPalabra++;
+        }
+        if (corregir && !primeraConLetras) {
+            destino.setLength(0);
+            return Estado.SIN_CONTENIDO;
+        }
+        return Estado.OK;
+    }
+
+    // Mismos caracteres que \s en las expresiones regulares de Java
+    private static boolean esEspacio(char c) {
+        return c == ' ' || (c >= '\t' && c <= '\r');
+    }
+
+    private static boolean esPermitido(char c) {
+        if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')) {
+            return true;
+        }
+        switch (c) {
+            case 'á': case 'é': case 'í': case 'ó': case 'ú':
+            case 'Á': case 'É': case 'Í': case 'Ó': case 'Ú':
+                return true;
+            default:
+                return false;
+        }
+    }
+}
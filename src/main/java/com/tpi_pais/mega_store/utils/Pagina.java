@@ -0,0 +1,33 @@
+package com.tpi_pais.mega_store.utils;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.function.Function;
+
+/*
+ * Pagina de un listado recorrido por keyset: los elementos con id mayor al cursor recibido,
+ * ordenados por id. siguienteCursor es el id del ultimo elemento, o null si no hay mas.
+ * */
+@Data
+@AllArgsConstructor
+public class Pagina<T> {
+    public static final int LIMITE_POR_DEFECTO = 50;
+    public static final int LIMITE_MAXIMO = 500;
+
+    private List<T> datos;
+    private Integer siguienteCursor;
+
+    /*
+     * Arma la pagina a partir de una consulta que trajo hasta limite + 1 filas:
+     * la fila extra solo indica que existe una pagina siguiente.
+     * */
+    public static <T> Pagina<T> desde(List<T> filas, int limite, Function<T, Integer> id) {
+        if (filas.size() <= limite) {
+            return new Pagina<>(filas, null);
+        }
+        List<T> datos = filas.subList(0, limite);
+        return new Pagina<>(List.copyOf(datos), id.apply(datos.get(limite - 1)));
+    }
+}
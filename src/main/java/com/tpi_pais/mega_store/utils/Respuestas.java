@@ -0,0 +1,57 @@
+package com.tpi_pais.mega_store.utils;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/*
+ * Respuestas de error armadas una sola vez. Los controladores declaran como constantes las de su
+ * catalogo (con Respuestas.badRequest / notFound) y aca quedan las que son iguales para todos.
+ * Los ApiResponse de estas respuestas se comparten entre peticiones, no se deben modificar.
+ *
+ * Como hasta ahora, los errores de validacion se devuelven con status HTTP 400 aunque el status del
+ * ApiResponse sea 404.
+ * */
+public final class Respuestas {
+
+    public static final String BAD_REQUEST = "Error: Bad Request.";
+    public static final String NOT_FOUND = "Error: Not Found.";
+
+    public static final ResponseEntity<ApiResponse<Object>> NOMBRE_CARACTERES_INVALIDOS =
+            badRequest("El nombre debe estar formado únicamente por letras y números.");
+    public static final ResponseEntity<ApiResponse<Object>> NOMBRE_SIN_CONTENIDO =
+            badRequest("El nombre debe estar formado unicamente por letras y numeros.");
+    public static final ResponseEntity<ApiResponse<Object>> LIMIT_INVALIDO =
+            badRequest("El parámetro 'limit' debe estar entre 1 y " + Pagina.LIMITE_MAXIMO + ".");
+    public static final ResponseEntity<ApiResponse<Object>> AFTER_NEGATIVO =
+            badRequest("El parámetro 'after' no puede ser negativo.");
+    public static final ResponseEntity<ApiResponse<Object>> ID_INVALIDO =
+            error(400, "Error de tipo de argumento", "El parámetro 'id' debe ser un número entero válido.");
+    public static final ResponseEntity<ApiResponse<Object>> CUERPO_INVALIDO =
+            badRequest("El cuerpo de la petición no es un JSON válido para este recurso.");
+
+    private Respuestas() {
+    }
+
+    public static ResponseEntity<ApiResponse<Object>> badRequest(String error) {
+        return error(400, BAD_REQUEST, error);
+    }
+
+    public static ResponseEntity<ApiResponse<Object>> notFound(String error) {
+        return error(404, NOT_FOUND, error);
+    }
+
+    public static ResponseEntity<ApiResponse<Object>> error(int status, String mensaje, String error) {
+        return ResponseEntity.badRequest().body(new ApiResponse<>(status, mensaje, null, error));
+    }
+
+    public static ResponseEntity<ApiResponse<Object>> error(HttpStatus status, String mensaje, String error) {
+        return ResponseEntity.status(status).body(new ApiResponse<>(status.value(), mensaje, null, error));
+    }
+
+    // Respuesta para un nombre que NormalizadorNombre no acepta, segun el motivo
+    public static ResponseEntity<ApiResponse<Object>> nombreInvalido(String nombre) {
+        return NormalizadorNombre.estado(nombre) == NormalizadorNombre.Estado.CARACTERES_INVALIDOS
+                ? NOMBRE_CARACTERES_INVALIDOS
+                : NOMBRE_SIN_CONTENIDO;
+    }
+}
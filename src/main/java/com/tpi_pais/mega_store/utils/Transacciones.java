@@ -0,0 +1,24 @@
+package com.tpi_pais.mega_store.utils;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class Transacciones {
+    /*
+     * Ejecuta la accion cuando la transaccion actual se confirma, o en el momento si no hay
+     * ninguna transaccion activa. Se usa para actualizar caches en memoria solo con datos
+     * que efectivamente quedaron guardados en la bd.
+     * */
+    public static void despuesDeConfirmar(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,105 @@
+package com.tpi_pais.mega_store.utils.cache;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/*
+ * Cache copy-on-write del listado de un catalogo.
+ * Las lecturas devuelven siempre la misma instantanea inmutable hasta que el servicio
+ * informa una escritura exitosa (guardar, eliminar, recuperar) mediante invalidar().
+ * La siguiente lectura reconstruye la instantanea con una sola consulta a la bd.
+ * */
+public class CacheInstantanea<T> {
+    /*
+     * Identifica la ejecucion actual de la aplicacion dentro del ETag, para que un ETag emitido
+     * antes de un reinicio (cuando la version vuelve a 0) no coincida con uno nuevo.
+     * */
+    private static final String ARRANQUE = Long.toString(System.currentTimeMillis(), 36);
+
+    private final String catalogo;
+    private final AtomicReference<Instantanea<T>> actual = new AtomicReference<>();
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+    private final AtomicLong reconstrucciones = new AtomicLong();
+    // Evita que varias lecturas concurrentes reconstruyan la misma instantanea a la vez.
+    private final ReentrantLock bloqueoReconstruccion = new ReentrantLock();
+
+    public CacheInstantanea(String catalogo) {
+        this.catalogo = catalogo;
+    }
+
+    public Instantanea<T> obtener(Supplier<? extends List<T>> cargador) {
+        Instantanea<T> instantanea = actual.get();
+        if (instantanea != null) {
+            aciertos.incrementAndGet();
+            return instantanea;
+        }
+        fallos.incrementAndGet();
+        return reconstruir(cargador);
+    }
+
+    private Instantanea<T> reconstruir(Supplier<? extends List<T>> cargador) {
+        bloqueoReconstruccion.lock();
+        try {
+            Instantanea<T> instantanea = actual.get();
+            if (instantanea != null) {
+                return instantanea;
+            }
+            long versionLeida = version.get();
+            Instantanea<T> nueva = new Instantanea<>(versionLeida, etag(versionLeida), cargador.get());
+            reconstrucciones.incrementAndGet();
+            /*
+             * Si una escritura invalido la cache mientras se consultaba la bd, la instantanea
+             * puede estar desactualizada: se devuelve a quien la pidio pero no se publica.
+             * */
+            if (actual.compareAndSet(null, nueva) && version.get() != versionLeida) {
+                actual.compareAndSet(nueva, null);
+            }
+            return nueva;
+        } finally {
+            bloqueoReconstruccion.unlock();
+        }
+    }
+
+    public void invalidar() {
+        version.incrementAndGet();
+        actual.set(null);
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    /*
+     * ETag fuerte de la instantanea publicada, sin consultar la bd. Es null si no hay ninguna
+     * publicada (el listado la reconstruye) o si el catalogo esta vacio: esa respuesta es
+     * SIN_REGISTROS y no tiene ETag, asi que ningun If-None-Match debe responderse con 304.
+     * */
+    public String etag() {
+        Instantanea<T> instantanea = actual.get();
+        if (instantanea == null || instantanea.getDatos().isEmpty()) {
+            return null;
+        }
+        return instantanea.getEtag();
+    }
+
+    private String etag(long version) {
+        return "\"" + catalogo + "-" + ARRANQUE + "-" + version + "\"";
+    }
+
+    public EstadisticasCache estadisticas() {
+        Instantanea<T> instantanea = actual.get();
+        return new EstadisticasCache(
+                catalogo,
+                aciertos.get(),
+                fallos.get(),
+                reconstrucciones.get(),
+                version.get(),
+                instantanea == null ? 0 : instantanea.getDatos().size()
+        );
+    }
+}
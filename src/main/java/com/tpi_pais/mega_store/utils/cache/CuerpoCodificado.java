@@ -0,0 +1,97 @@
+package com.tpi_pais.mega_store.utils.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/*
+ * Cuerpo de una respuesta ya serializado a JSON y comprimido con gzip.
+ * Se guarda junto a la instantanea del catalogo, de modo que la serializacion y la compresion
+ * se hacen una sola vez por version del listado y no en cada GET.
+ * No se genera variante brotli porque el JDK no trae un codificador brotli; los clientes
+ * que no aceptan gzip reciben el JSON sin comprimir.
+ * */
+public class CuerpoCodificado {
+    private final byte[] json;
+    private final byte[] gzip;
+
+    private CuerpoCodificado(byte[] json, byte[] gzip) {
+        this.json = json;
+        this.gzip = gzip;
+    }
+
+    public static CuerpoCodificado codificar(ObjectMapper objectMapper, Object cuerpo) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(cuerpo);
+            ByteArrayOutputStream salida = new ByteArrayOutputStream(json.length / 4 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(salida)) {
+                gzip.write(json);
+            }
+            return new CuerpoCodificado(json, salida.toByteArray());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el listado.", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public ResponseEntity<byte[]> respuesta(String acceptEncoding, String etag, CacheControl cacheControl) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (aceptaGzip(acceptEncoding)) {
+            return builder
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .contentLength(gzip.length)
+                    .body(gzip);
+        }
+        return builder.contentLength(json.length).body(json);
+    }
+
+    public int getTamanoJson() {
+        return json.length;
+    }
+
+    public int getTamanoGzip() {
+        return gzip.length;
+    }
+
+    static boolean aceptaGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String codificacion : acceptEncoding.split(",")) {
+            String[] partes = codificacion.split(";");
+            String nombre = partes[0].trim();
+            if (!nombre.equalsIgnoreCase("gzip") && !nombre.equals("*")) {
+                continue;
+            }
+            // "gzip;q=0" indica explicitamente que el cliente no la acepta.
+            boolean rechazada = false;
+            for (int i = 1; i < partes.length; i++) {
+                String parametro = partes[i].trim();
+                if (parametro.startsWith("q=")) {
+                    try {
+                        rechazada = Double.parseDouble(parametro.substring(2).trim()) == 0;
+                    } catch (NumberFormatException e) {
+                        rechazada = false;
+                    }
+                }
+            }
+            if (!rechazada) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,15 @@
+package com.tpi_pais.mega_store.utils.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class EstadisticasCache {
+    private String catalogo;
+    private long aciertos;
+    private long fallos;
+    private long reconstrucciones;
+    private long version;
+    private int tamano;         // Cantidad de elementos de la instantanea publicada (0 si no hay)
+}
@@ -0,0 +1,48 @@
+package com.tpi_pais.mega_store.utils.cache;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/*
+ * Copia inmutable del listado de un catalogo junto con la version del catalogo
+ * en el momento en que se construyo.
+ * */
+public class Instantanea<T> {
+    private final long version;
+    private final String etag;
+    private final List<T> datos;
+    // Respuesta serializada del listado, se calcula la primera vez que se pide.
+    private final AtomicReference<CuerpoCodificado> cuerpo = new AtomicReference<>();
+
+    public Instantanea(long version, String etag, List<T> datos) {
+        this.version = version;
+        this.etag = etag;
+        this.datos = List.copyOf(datos);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public List<T> getDatos() {
+        return datos;
+    }
+
+    /*
+     * Devuelve el cuerpo serializado de esta version del listado. Como cada escritura reemplaza
+     * la instantanea, el cuerpo queda invalidado junto con ella.
+     * */
+    public CuerpoCodificado cuerpoCodificado(Supplier<CuerpoCodificado> codificador) {
+        CuerpoCodificado existente = cuerpo.get();
+        if (existente != null) {
+            return existente;
+        }
+        CuerpoCodificado nuevo = codificador.get();
+        return cuerpo.compareAndSet(null, nuevo) ? nuevo : cuerpo.get();
+    }
+}
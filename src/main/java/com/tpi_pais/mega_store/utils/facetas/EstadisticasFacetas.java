@@ -0,0 +1,14 @@
+package com.tpi_pais.mega_store.utils.facetas;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class EstadisticasFacetas {
+    private boolean cargado;
+    private int registros;      // Registros indexados, incluidos los eliminados
+    private int activos;
+    private int valores;        // Cantidad de valores distintos sumando todas las facetas
+    private long bytes;         // Tamaño de los bitmaps (sin los arreglos de valores por id)
+}
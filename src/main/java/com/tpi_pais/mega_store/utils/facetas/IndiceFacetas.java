@@ -0,0 +1,426 @@
+package com.tpi_pais.mega_store.utils.facetas;
+
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+
+/*
+ * Indice en memoria para filtrar registros por varias facetas a la vez (por ejemplo los productos
+ * por marca, categoria, color y talle). Por cada valor de cada faceta guarda un bitmap comprimido
+ * (RoaringBitmap) con los ids de los registros que lo tienen, y aparte el bitmap de los registros
+ * no eliminados. Un filtro "marca en {A, B} y talle M" es la union de los bitmaps de A y B
+ * intersectada con el de M y con el de activos, sin recorrer los registros.
+ *
+ * Los ids de los registros se usan directamente como posiciones de los bitmaps, por eso los
+ * resultados salen ordenados por id y se pueden paginar por keyset igual que los listados.
+ * Los valores de las facetas son ids de catalogos (positivos, 0 indica "sin valor"); cada faceta
+ * admite hasta 65535 valores distintos.
+ *
+ * Se carga con una unica lectura de la bd la primera vez que se usa y luego el servicio lo mantiene
+ * con cada escritura confirmada (registrar). Cada registro trae la version de la fila, que la bd
+ * incrementa en cada escritura, y el indice descarta las versiones menores a la que ya tiene: dos
+ * escrituras del mismo registro pueden registrarse en otro orden que el de confirmacion. La carga
+ * se hace con el bloqueo de escritura tomado: las escrituras que se confirman mientras tanto esperan
+ * y se aplican despues, las que ya estaban en la lectura se descartan por version, y como registrar
+ * deja el estado final del registro, aplicar dos veces la misma version no cambia nada.
+ * */
+public class IndiceFacetas {
+
+    /*
+     * Hasta esta cantidad de resultados los conteos se calculan recorriendo los resultados; con mas,
+     * intersectando el bitmap de cada valor con los resultados (andCardinality no arma bitmaps
+     * intermedios y no depende de la cantidad de resultados, pero si de la de valores).
+     * */
+    private static final int RECORRIDO_MAXIMO = 1 << 20;
+
+    // Las posiciones se guardan en un char y la 0 es "sin valor"
+    private static final int VALORES_MAXIMOS = Character.MAX_VALUE;
+
+    // Registros que tienen un valor de una faceta, y cuantos de ellos no estan eliminados
+    private static final class Valor {
+        final int id;
+        final int posicion;
+        final RoaringBitmap registros = new RoaringBitmap();
+        int activos;
+
+        Valor(int id, int posicion) {
+            this.id = id;
+            this.posicion = posicion;
+        }
+    }
+
+    /*
+     * Valores de una faceta. Cada valor tiene una posicion (1, 2, ... en el orden en que aparecio)
+     * para poder contar con un arreglo en vez de un mapa.
+     * */
+    private static final class Faceta {
+        final String nombre;
+        final Map<Integer, Valor> porId = new HashMap<>();
+        final List<Valor> porPosicion = new ArrayList<>(List.of(new Valor(0, 0)));
+
+        Faceta(String nombre) {
+            this.nombre = nombre;
+        }
+
+        Valor valor(int id) {
+            return porId.computeIfAbsent(id, v -> {
+                if (porPosicion.size() > VALORES_MAXIMOS) {
+                    throw new IllegalStateException("La faceta " + nombre + " supera los "
+                            + VALORES_MAXIMOS + " valores distintos");
+                }
+                Valor valor = new Valor(v, porPosicion.size());
+                porPosicion.add(valor);
+                return valor;
+            });
+        }
+
+        void limpiar() {
+            porId.clear();
+            porPosicion.subList(1, porPosicion.size()).clear();
+        }
+    }
+
+    private final Faceta[] facetas;
+    /*
+     * Posicion del valor de cada faceta por id de registro, con las facetas de un registro juntas
+     * (posiciones[id * facetas.length + f]): al contar, un solo acceso a memoria trae los valores de
+     * todas las facetas del registro. Tambien sirve para sacar el registro del bitmap anterior
+     * cuando cambia de valor. El arreglo ocupa segun el mayor id, no segun la cantidad de registros:
+     * los ids tienen que salir de una secuencia de a 1 (ver db/productos.sql) para que casi no tenga
+     * huecos.
+     * */
+    private char[] posiciones = new char[0];
+    // Ultima version aplicada de cada registro, por id
+    private int[] versiones = new int[0];
+    private final RoaringBitmap activos = new RoaringBitmap();
+    private final RoaringBitmap existentes = new RoaringBitmap();
+    private final ReentrantReadWriteLock bloqueo = new ReentrantReadWriteLock();
+    private volatile boolean cargado = false;
+
+    public IndiceFacetas(String... nombres) {
+        this.facetas = new Faceta[nombres.length];
+        for (int f = 0; f < nombres.length; f++) {
+            facetas[f] = new Faceta(nombres[f]);
+        }
+    }
+
+    /*
+     * Carga el indice si todavia no se cargo. cargador debe devolver todos los registros, incluidos
+     * los eliminados; valores devuelve el valor de cada faceta en el orden del constructor.
+     * Las consultas que llegan durante la carga esperan a que termine.
+     * */
+    public <T> void cargar(Supplier<Stream<T>> cargador, ToIntFunction<T> id, ToIntFunction<T> version,
+                           Function<T, int[]> valores, Predicate<T> eliminado) {
+        if (cargado) {
+            return;
+        }
+        bloqueo.writeLock().lock();
+        try {
+            if (cargado) {
+                return;
+            }
+            limpiar();
+            try (Stream<T> filas = cargador.get()) {
+                filas.forEach(fila -> aplicar(id.applyAsInt(fila), version.applyAsInt(fila), valores.apply(fila),
+                        eliminado.test(fila)));
+            } catch (RuntimeException e) {
+                limpiar();
+                throw e;
+            }
+            activos.runOptimize();
+            for (Faceta faceta : facetas) {
+                for (Valor valor : faceta.porPosicion) {
+                    valor.registros.runOptimize();
+                }
+            }
+            cargado = true;
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    public boolean estaCargado() {
+        return cargado;
+    }
+
+    /*
+     * Registra el estado de un registro luego de guardarlo (alta, modificacion, baja o recuperacion),
+     * salvo que el indice ya tenga una version posterior.
+     * */
+    public void registrar(int id, int version, int[] valores, boolean eliminado) {
+        bloqueo.writeLock().lock();
+        try {
+            if (cargado) {
+                aplicar(id, version, valores, eliminado);
+            }
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    /*
+     * Filtra los registros activos. seleccion tiene, por cada faceta, los valores aceptados (null o
+     * vacio: cualquiera); dentro de una faceta los valores se combinan con O y entre facetas con Y.
+     * Devuelve el total, los ids de la pagina (id mayor a despuesDe, hasta limite) y los conteos.
+     *
+     * Los conteos de cada faceta se calculan con los filtros de las demas facetas pero no con el de
+     * ella misma, asi cada opcion muestra cuantos resultados habria al agregarla a la seleccion.
+     * Se informan los valores con al menos un resultado y los seleccionados.
+     * */
+    public ResultadoFacetas filtrar(int[][] seleccion, int despuesDe, int limite) {
+        bloqueo.readLock().lock();
+        try {
+            int cantidad = facetas.length;
+            // Union de los valores seleccionados de cada faceta, null si la faceta no filtra
+            RoaringBitmap[] uniones = new RoaringBitmap[cantidad];
+            for (int f = 0; f < cantidad; f++) {
+                if (seleccion[f] != null && seleccion[f].length > 0) {
+                    uniones[f] = union(f, seleccion[f]);
+                }
+            }
+            RoaringBitmap resultado = interseccion(uniones, -1);
+
+            int[] pagina = new int[limite];
+            int enPagina = 0;
+            PeekableIntIterator iterador = resultado.getIntIterator();
+            iterador.advanceIfNeeded(despuesDe + 1);
+            while (enPagina < limite && iterador.hasNext()) {
+                pagina[enPagina++] = iterador.next();
+            }
+            Integer siguienteCursor = iterador.hasNext() && enPagina > 0 ? pagina[enPagina - 1] : null;
+
+            // Las facetas que no filtran se cuentan juntas sobre el resultado; las que filtran, cada
+            // una sobre la interseccion de las demas
+            int[][] conteos = new int[cantidad][];
+            boolean[] sinFiltro = new boolean[cantidad];
+            for (int f = 0; f < cantidad; f++) {
+                sinFiltro[f] = uniones[f] == null;
+            }
+            contar(resultado, sinFiltro, conteos);
+            for (int f = 0; f < cantidad; f++) {
+                if (uniones[f] != null) {
+                    boolean[] sola = new boolean[cantidad];
+                    sola[f] = true;
+                    contar(interseccion(uniones, f), sola, conteos);
+                }
+            }
+
+            Map<String, Map<Integer, Integer>> porFaceta = new LinkedHashMap<>();
+            for (int f = 0; f < cantidad; f++) {
+                porFaceta.put(facetas[f].nombre, conteosPorId(facetas[f], conteos[f], seleccion[f]));
+            }
+            return new ResultadoFacetas(resultado.getCardinality(),
+                    Arrays.copyOf(pagina, enPagina), siguienteCursor, porFaceta);
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    public EstadisticasFacetas estadisticas() {
+        bloqueo.readLock().lock();
+        try {
+            int cantidadValores = 0;
+            long bytes = activos.getSizeInBytes() + existentes.getSizeInBytes() + 2L * posiciones.length
+                    + 4L * versiones.length;
+            for (Faceta faceta : facetas) {
+                cantidadValores += faceta.porId.size();
+                for (Valor valor : faceta.porPosicion) {
+                    bytes += valor.registros.getSizeInBytes();
+                }
+            }
+            return new EstadisticasFacetas(cargado, existentes.getCardinality(), activos.getCardinality(),
+                    cantidadValores, bytes);
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    private RoaringBitmap union(int faceta, int[] seleccionados) {
+        Map<Integer, Valor> porId = facetas[faceta].porId;
+        List<RoaringBitmap> bitmaps = new ArrayList<>(seleccionados.length);
+        for (int seleccionado : seleccionados) {
+            Valor valor = porId.get(seleccionado);
+            if (valor != null) {
+                bitmaps.add(valor.registros);
+            }
+        }
+        if (bitmaps.size() == 1) {
+            // No se copia: las uniones solo se leen
+            return bitmaps.get(0);
+        }
+        return FastAggregation.or(bitmaps.iterator());
+    }
+
+    /*
+     * Activos intersectados con las uniones de las facetas que filtran, salvo la faceta excluida.
+     * Se empieza por la union mas chica para que los resultados intermedios sean chicos, y activos
+     * (que tiene casi todos los registros) va al final para no copiarlo nunca.
+     * */
+    private RoaringBitmap interseccion(RoaringBitmap[] uniones, int excluida) {
+        List<RoaringBitmap> filtros = new ArrayList<>(uniones.length);
+        for (int f = 0; f < uniones.length; f++) {
+            if (f != excluida && uniones[f] != null) {
+                filtros.add(uniones[f]);
+            }
+        }
+        if (filtros.isEmpty()) {
+            return activos;
+        }
+        filtros.sort(Comparator.comparingInt(RoaringBitmap::getCardinality));
+        RoaringBitmap resultado = RoaringBitmap.and(filtros.get(0),
+                filtros.size() > 1 ? filtros.get(1) : activos);
+        for (int i = 2; i < filtros.size(); i++) {
+            resultado.and(filtros.get(i));
+        }
+        if (filtros.size() > 1) {
+            resultado.and(activos);
+        }
+        return resultado;
+    }
+
+    // Completa conteos[f] (cantidad por posicion de valor) de las facetas marcadas, sobre base
+    private void contar(RoaringBitmap base, boolean[] marcadas, int[][] conteos) {
+        int cantidad = facetas.length;
+        int[] pendientes = new int[cantidad];
+        int cantidadPendientes = 0;
+        for (int f = 0; f < cantidad; f++) {
+            if (marcadas[f]) {
+                conteos[f] = new int[facetas[f].porPosicion.size()];
+                pendientes[cantidadPendientes++] = f;
+            }
+        }
+        pendientes = Arrays.copyOf(pendientes, cantidadPendientes);
+        if (pendientes.length == 0) {
+            return;
+        }
+        if (base == activos) {
+            // Sin filtros que las afecten: los conteos ya estan calculados
+            for (int f : pendientes) {
+                for (Valor valor : facetas[f].porPosicion) {
+                    conteos[f][valor.posicion] = valor.activos;
+                }
+            }
+        } else if (base.getCardinality() <= RECORRIDO_MAXIMO) {
+            char[] posiciones = this.posiciones;
+            IntIterator iterador = base.getIntIterator();
+            while (iterador.hasNext()) {
+                int inicio = iterador.next() * cantidad;
+                for (int f : pendientes) {
+                    conteos[f][posiciones[inicio + f]]++;
+                }
+            }
+        } else {
+            for (int f : pendientes) {
+                for (Valor valor : facetas[f].porPosicion) {
+                    if (valor.activos > 0) {
+                        conteos[f][valor.posicion] = RoaringBitmap.andCardinality(valor.registros, base);
+                    }
+                }
+            }
+        }
+    }
+
+    private static Map<Integer, Integer> conteosPorId(Faceta faceta, int[] conteo, int[] seleccionados) {
+        Map<Integer, Integer> resultado = new TreeMap<>();
+        // La posicion 0 es "sin valor", no se informa
+        for (int posicion = 1; posicion < conteo.length; posicion++) {
+            if (conteo[posicion] > 0) {
+                resultado.put(faceta.porPosicion.get(posicion).id, conteo[posicion]);
+            }
+        }
+        if (seleccionados != null) {
+            for (int seleccionado : seleccionados) {
+                resultado.putIfAbsent(seleccionado, 0);
+            }
+        }
+        return resultado;
+    }
+
+    private void aplicar(int id, int version, int[] nuevos, boolean eliminado) {
+        int inicio = asegurarCapacidad(id);
+        if (existentes.contains(id) && version < versiones[id]) {
+            return;
+        }
+        versiones[id] = version;
+        boolean estabaActivo = activos.contains(id);
+        existentes.add(id);
+        for (int f = 0; f < facetas.length; f++) {
+            Faceta faceta = facetas[f];
+            Valor anterior = faceta.porPosicion.get(posiciones[inicio + f]);
+            Valor nuevo = nuevos[f] == 0 ? faceta.porPosicion.get(0) : faceta.valor(nuevos[f]);
+            if (anterior == nuevo) {
+                continue;
+            }
+            if (anterior.posicion != 0) {
+                anterior.registros.remove(id);
+                if (estabaActivo) {
+                    anterior.activos--;
+                }
+            }
+            if (nuevo.posicion != 0) {
+                nuevo.registros.add(id);
+                if (estabaActivo) {
+                    nuevo.activos++;
+                }
+            }
+            posiciones[inicio + f] = (char) nuevo.posicion;
+        }
+        cambiarEstado(id, eliminado);
+    }
+
+    private void cambiarEstado(int id, boolean eliminado) {
+        boolean activo = !eliminado;
+        if (activos.contains(id) == activo) {
+            return;
+        }
+        if (activo) {
+            activos.add(id);
+        } else {
+            activos.remove(id);
+        }
+        int delta = activo ? 1 : -1;
+        int inicio = id * facetas.length;
+        for (int f = 0; f < facetas.length; f++) {
+            char posicion = posiciones[inicio + f];
+            if (posicion != 0) {
+                facetas[f].porPosicion.get(posicion).activos += delta;
+            }
+        }
+    }
+
+    // Indice de la primera faceta del registro en posiciones; agranda el arreglo si hace falta
+    private int asegurarCapacidad(int id) {
+        int fin = (id + 1) * facetas.length;
+        if (fin > posiciones.length) {
+            posiciones = Arrays.copyOf(posiciones, Math.max(fin, posiciones.length / 2 * 3));
+            versiones = Arrays.copyOf(versiones, posiciones.length / facetas.length);
+        }
+        return id * facetas.length;
+    }
+
+    private void limpiar() {
+        activos.clear();
+        existentes.clear();
+        posiciones = new char[0];
+        versiones = new int[0];
+        for (Faceta faceta : facetas) {
+            faceta.limpiar();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.tpi_pais.mega_store.utils.facetas;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+/*
+ * Resultado de IndiceFacetas.filtrar: total de registros que cumplen el filtro, ids de la pagina
+ * pedida (ordenados), cursor de la pagina siguiente (null si no hay mas) y, por cada faceta,
+ * la cantidad de resultados de cada valor.
+ * */
+@Data
+@AllArgsConstructor
+public class ResultadoFacetas {
+    private int total;
+    private int[] ids;
+    private Integer siguienteCursor;
+    private Map<String, Map<Integer, Integer>> conteos;
+}
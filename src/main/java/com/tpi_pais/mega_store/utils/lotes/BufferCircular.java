@@ -0,0 +1,152 @@
+package com.tpi_pais.mega_store.utils.lotes;
+
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Buffer circular acotado donde muchos productores agregan elementos y un unico consumidor los
+ * toma por lotes (escritura agrupada). El consumidor recibe un lote cuando se junta la cantidad
+ * pedida o cuando el elemento mas viejo espero la latencia maxima, lo que pase primero: con mucha
+ * carga los lotes salen llenos y con poca ningun elemento espera mas que la latencia.
+ *
+ * Si el buffer esta lleno los productores esperan (hasta un maximo), asi un consumidor mas lento
+ * que los productores frena a estos en lugar de acumular memoria sin limite. Una vez cerrado no
+ * acepta elementos nuevos y el consumidor recibe lo que quedaba sin esperar.
+ *
+ * Usa ReentrantLock y no synchronized para no fijar el hilo portador de los hilos virtuales.
+ * */
+public class BufferCircular<T> {
+
+    private final Object[] elementos;
+    // Instante (System.nanoTime) en que se agrego cada elemento
+    private final long[] llegadas;
+    private final int mascara;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition hayLugar = lock.newCondition();
+    private final Condition hayLote = lock.newCondition();
+
+    // Todos los campos siguientes se acceden con lock tomado
+    private long cabeza; // Proximo elemento a tomar
+    private long cola;   // Proxima posicion libre
+    private boolean cerrado;
+    // Cantidad con la que el consumidor que espera quiere que lo despierten
+    private int loteEsperado = Integer.MAX_VALUE;
+
+    // La capacidad se redondea a la potencia de 2 siguiente
+    public BufferCircular(int capacidad) {
+        if (capacidad < 1 || capacidad > 1 << 30) {
+            throw new IllegalArgumentException("Capacidad invalida: " + capacidad);
+        }
+        int tamanio = Integer.highestOneBit(capacidad);
+        if (tamanio < capacidad) {
+            tamanio <<= 1;
+        }
+        this.elementos = new Object[tamanio];
+        this.llegadas = new long[tamanio];
+        this.mascara = tamanio - 1;
+    }
+
+    /*
+     * Agrega el elemento, esperando hasta esperaMaximaNanos si el buffer esta lleno. Devuelve false
+     * si no hubo lugar a tiempo. Lanza IllegalStateException si el buffer esta cerrado.
+     * */
+    public boolean agregar(T elemento, long esperaMaximaNanos) throws InterruptedException {
+        lock.lock();
+        try {
+            long restante = esperaMaximaNanos;
+            while (!cerrado && cola - cabeza == elementos.length) {
+                if (restante <= 0) {
+                    return false;
+                }
+                restante = hayLugar.awaitNanos(restante);
+            }
+            if (cerrado) {
+                throw new IllegalStateException("El buffer esta cerrado");
+            }
+            int posicion = (int) (cola & mascara);
+            elementos[posicion] = elemento;
+            llegadas[posicion] = System.nanoTime();
+            cola++;
+            long tamanio = cola - cabeza;
+            // El primero arranca la cuenta de la latencia; al completar el lote ya no hay que esperar
+            if (tamanio == 1 || tamanio == loteEsperado) {
+                hayLote.signal();
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+     * Espera a que haya maximo elementos, a que el mas viejo haya esperado latenciaNanos o a que se
+     * cierre el buffer, y pasa a destino hasta maximo elementos. Devuelve cuantos paso: 0 solo si
+     * el buffer esta cerrado y vacio. Lo debe llamar un unico consumidor.
+     * */
+    @SuppressWarnings("unchecked")
+    public int tomarLote(List<T> destino, int maximo, long latenciaNanos) throws InterruptedException {
+        lock.lock();
+        try {
+            loteEsperado = maximo;
+            try {
+                while (!cerrado) {
+                    long tamanio = cola - cabeza;
+                    if (tamanio >= maximo) {
+                        break;
+                    }
+                    if (tamanio == 0) {
+                        hayLote.await();
+                        continue;
+                    }
+                    long restante = llegadas[(int) (cabeza & mascara)] + latenciaNanos - System.nanoTime();
+                    if (restante <= 0) {
+                        break;
+                    }
+                    hayLote.awaitNanos(restante);
+                }
+            } finally {
+                loteEsperado = Integer.MAX_VALUE;
+            }
+            int cantidad = (int) Math.min(cola - cabeza, maximo);
+            for (int i = 0; i < cantidad; i++) {
+                int posicion = (int) (cabeza & mascara);
+                destino.add((T) elementos[posicion]);
+                elementos[posicion] = null;
+                cabeza++;
+            }
+            if (cantidad > 0) {
+                hayLugar.signalAll();
+            }
+            return cantidad;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Deja de aceptar elementos y despierta al consumidor para que tome los que quedan
+    public void cerrar() {
+        lock.lock();
+        try {
+            cerrado = true;
+            hayLote.signalAll();
+            hayLugar.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int tamanio() {
+        lock.lock();
+        try {
+            return (int) (cola - cabeza);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int capacidad() {
+        return elementos.length;
+    }
+}
@@ -0,0 +1,169 @@
+package com.tpi_pais.mega_store.utils.tiempos;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+
+/*
+ * Rueda de tiempos jerarquica: guarda ids con su vencimiento y avisa cuales vencieron, con costo
+ * O(1) por id para agregarlo y para vencerlo (no se ordena ni se recorre nada por cada avance).
+ *
+ * El tiempo avanza de a ticks (tickMs). Hay NIVELES ruedas de RANURAS ranuras: en la del nivel 0
+ * cada ranura es un tick, en la del nivel 1 cada ranura son RANURAS ticks, y asi. Un id se guarda en
+ * el nivel mas bajo que alcanza a cubrir su vencimiento, en la ranura que corresponde a ese tick.
+ * Cada vez que la rueda de un nivel da una vuelta, la siguiente ranura del nivel de arriba se vacia
+ * y sus ids se reubican en los niveles de abajo (cada id baja a lo sumo NIVELES - 1 veces). Con
+ * 64 ranuras y 4 niveles cubre 64^4 ticks (194 dias con ticks de 1 segundo); los vencimientos mas
+ * lejanos se guardan en la ultima ranura y se reubican al llegar a ella.
+ *
+ * No permite quitar un id: el que lo usa tiene que tolerar que le avisen el vencimiento de un id
+ * que ya no existe (ver ReservaService). Los vencimientos se avisan con hasta un tick de atraso,
+ * nunca antes de tiempo.
+ *
+ * Usa un ReentrantLock y no synchronized para no fijar el hilo portador de los hilos virtuales.
+ * */
+public class RuedaDeTiempos {
+
+    private static final int BITS = 6;
+    private static final int RANURAS = 1 << BITS;
+    private static final int MASCARA = RANURAS - 1;
+    private static final int NIVELES = 4;
+    private static final long ALCANCE = 1L << (BITS * NIVELES);
+
+    // Por encima de esta capacidad una ranura que se vacia vuelve al tamanio inicial
+    private static final int CAPACIDAD_INICIAL = 16;
+    private static final int CAPACIDAD_RETENIDA = 4096;
+
+    // Ids y tick de vencimiento de una ranura, en dos arreglos paralelos
+    private static final class Ranura {
+        long[] ids = new long[CAPACIDAD_INICIAL];
+        long[] ticks = new long[CAPACIDAD_INICIAL];
+        int tamanio;
+
+        void agregar(long id, long tick) {
+            if (tamanio == ids.length) {
+                ids = Arrays.copyOf(ids, tamanio * 2);
+                ticks = Arrays.copyOf(ticks, tamanio * 2);
+            }
+            ids[tamanio] = id;
+            ticks[tamanio] = tick;
+            tamanio++;
+        }
+
+        void vaciar() {
+            tamanio = 0;
+            if (ids.length > CAPACIDAD_RETENIDA) {
+                ids = new long[CAPACIDAD_INICIAL];
+                ticks = new long[CAPACIDAD_INICIAL];
+            }
+        }
+    }
+
+    private final long tickMs;
+    private final Ranura[][] niveles = new Ranura[NIVELES][RANURAS];
+    private final ReentrantLock bloqueo = new ReentrantLock();
+    // Ultimo tick procesado: todo lo que vencia hasta este tick ya se aviso
+    private long tickActual;
+    private int tamanio;
+
+    public RuedaDeTiempos(long tickMs, long ahoraMs) {
+        if (tickMs < 1) {
+            throw new IllegalArgumentException("El tick debe ser de al menos 1 ms");
+        }
+        this.tickMs = tickMs;
+        this.tickActual = ahoraMs / tickMs;
+        for (Ranura[] nivel : niveles) {
+            for (int i = 0; i < RANURAS; i++) {
+                nivel[i] = new Ranura();
+            }
+        }
+    }
+
+    // Agrega un id que vence en vencimientoMs; si ya vencio se avisa en el proximo avance
+    public void agregar(long id, long vencimientoMs) {
+        // Redondeado hacia arriba: se avisa en el primer tick que no es anterior al vencimiento
+        long tick = Math.floorDiv(vencimientoMs + tickMs - 1, tickMs);
+        bloqueo.lock();
+        try {
+            // El tick actual ya se proceso: lo que vencia hasta ahi va al proximo
+            ubicar(id, Math.max(tick, tickActual + 1));
+            tamanio++;
+        } finally {
+            bloqueo.unlock();
+        }
+    }
+
+    /*
+     * Avanza la rueda hasta ahoraMs y le pasa a vencido cada id cuyo vencimiento llego. vencido se
+     * ejecuta con el bloqueo tomado, tiene que ser rapido (por ejemplo, agregar a una lista).
+     * Devuelve la cantidad de ids vencidos.
+     * */
+    public int avanzar(long ahoraMs, LongConsumer vencido) {
+        long destino = ahoraMs / tickMs;
+        int vencidos = 0;
+        bloqueo.lock();
+        try {
+            while (tickActual < destino) {
+                tickActual++;
+                bajar(1);
+                Ranura ranura = niveles[0][(int) (tickActual & MASCARA)];
+                for (int i = 0; i < ranura.tamanio; i++) {
+                    vencido.accept(ranura.ids[i]);
+                }
+                vencidos += ranura.tamanio;
+                ranura.vaciar();
+            }
+            tamanio -= vencidos;
+            return vencidos;
+        } finally {
+            bloqueo.unlock();
+        }
+    }
+
+    // Cantidad de ids pendientes de vencer
+    public int tamanio() {
+        bloqueo.lock();
+        try {
+            return tamanio;
+        } finally {
+            bloqueo.unlock();
+        }
+    }
+
+    /*
+     * Al empezar una vuelta de la rueda del nivel - 1 se reubica la ranura que corresponde del nivel.
+     * Primero se baja el nivel de arriba, que puede dejar ids en esa misma ranura.
+     * */
+    private void bajar(int nivel) {
+        if (nivel == NIVELES || (tickActual & ((1L << (BITS * nivel)) - 1)) != 0) {
+            return;
+        }
+        bajar(nivel + 1);
+        Ranura ranura = niveles[nivel][(int) ((tickActual >>> (BITS * nivel)) & MASCARA)];
+        if (ranura.tamanio == 0) {
+            return;
+        }
+        long[] ids = ranura.ids;
+        long[] ticks = ranura.ticks;
+        int cantidad = ranura.tamanio;
+        // Se reemplazan los arreglos porque ubicar puede volver a agregar en esta misma ranura
+        ranura.ids = new long[CAPACIDAD_INICIAL];
+        ranura.ticks = new long[CAPACIDAD_INICIAL];
+        ranura.tamanio = 0;
+        for (int i = 0; i < cantidad; i++) {
+            ubicar(ids[i], ticks[i]);
+        }
+    }
+
+    private void ubicar(long id, long tick) {
+        // Nunca es negativa: al bajar de nivel el tick es al menos el actual, que se procesa despues
+        long distancia = tick - tickActual;
+        // Lo que no entra en la rueda va a la ultima ranura y se vuelve a ubicar al llegar a ella
+        long lugar = distancia < ALCANCE ? tick : tickActual + ALCANCE - 1;
+        int nivel = 0;
+        while ((distancia >>> (BITS * (nivel + 1))) != 0 && nivel < NIVELES - 1) {
+            nivel++;
+        }
+        niveles[nivel][(int) ((lugar >>> (BITS * nivel)) & MASCARA)].agregar(id, tick);
+    }
+}
@@ -0,0 +1,12 @@
+-- Diario de movimientos de stock por sucursal (products.model.MovimientoDiario). Solo se agregan
+-- filas, por lotes (ver products.service.DiarioStockService). Ejecutar despues de db/stock.sql.
+CREATE TABLE IF NOT EXISTS diario_stock (
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    sucursal_id integer NOT NULL REFERENCES sucursales (id),
+    producto_id integer NOT NULL REFERENCES productos (id),
+    tipo varchar(30) NOT NULL,
+    cantidad integer NOT NULL CHECK (cantidad > 0),
+    fecha timestamp(6) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS diario_stock_sucursal_id_idx ON diario_stock (sucursal_id);
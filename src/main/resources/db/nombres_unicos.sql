@@ -0,0 +1,10 @@
+-- Las altas de los catalogos usan INSERT ... ON CONFLICT (nombre), que necesita un indice unico
+-- sobre el nombre. Los nombres ya se guardan normalizados (sin espacios de mas y capitalizados),
+-- por lo que el indice se crea directamente sobre la columna.
+-- Antes de ejecutarlo verificar que no haya nombres repetidos, por ejemplo:
+--   SELECT nombre, count(*) FROM colores GROUP BY nombre HAVING count(*) > 1;
+ALTER TABLE colores ADD CONSTRAINT colores_nombre_key UNIQUE (nombre);
+ALTER TABLE talles ADD CONSTRAINT talles_nombre_key UNIQUE (nombre);
+ALTER TABLE marcas ADD CONSTRAINT marcas_nombre_key UNIQUE (nombre);
+ALTER TABLE categorias ADD CONSTRAINT categorias_nombre_key UNIQUE (nombre);
+ALTER TABLE sucursales ADD CONSTRAINT sucursales_nombre_key UNIQUE (nombre);
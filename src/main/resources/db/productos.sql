@@ -0,0 +1,30 @@
+-- Tabla de productos (products.model.Producto). Cada producto referencia una marca, una categoria,
+-- un color y un talle. Las altas nativas toman el id con nextval de la secuencia, que a diferencia
+-- de las de los catalogos incrementa de a 1: el indice de facetas (utils.facetas.IndiceFacetas)
+-- guarda un arreglo por id y con ids de a 50 ocuparia 50 veces mas. Las bd creadas con la secuencia
+-- de a 50 se ajustan con el ALTER; los ids ya asignados no cambian.
+CREATE SEQUENCE IF NOT EXISTS productos_id_seq INCREMENT BY 1;
+ALTER SEQUENCE productos_id_seq INCREMENT BY 1;
+
+CREATE TABLE IF NOT EXISTS productos (
+    id integer PRIMARY KEY,
+    nombre varchar(100) NOT NULL,
+    precio numeric(12, 2) NOT NULL CHECK (precio >= 0),
+    marca_id integer NOT NULL REFERENCES marcas (id),
+    categoria_id integer NOT NULL REFERENCES categorias (id),
+    color_id integer NOT NULL REFERENCES colores (id),
+    talle_id integer NOT NULL REFERENCES talles (id),
+    fecha_eliminacion timestamp(6),
+    -- Se incrementa en cada escritura (ver products.model.Producto)
+    version integer NOT NULL DEFAULT 0
+);
+
+ALTER TABLE productos ADD COLUMN IF NOT EXISTS version integer NOT NULL DEFAULT 0;
+
+-- Postgres no indexa las claves foraneas: sin estos indices verificar si un catalogo tiene productos
+-- recorre toda la tabla. Los filtros por facetas no los usan, se resuelven en memoria
+-- (utils.facetas.IndiceFacetas).
+CREATE INDEX IF NOT EXISTS productos_marca_id_idx ON productos (marca_id);
+CREATE INDEX IF NOT EXISTS productos_categoria_id_idx ON productos (categoria_id);
+CREATE INDEX IF NOT EXISTS productos_color_id_idx ON productos (color_id);
+CREATE INDEX IF NOT EXISTS productos_talle_id_idx ON productos (talle_id);
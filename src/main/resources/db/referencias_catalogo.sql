@@ -0,0 +1,21 @@
+-- Contadores de productos no eliminados por registro de catalogo (products.model.ReferenciaCatalogo).
+-- Los mantienen las escrituras de productos y los consultan las bajas de marcas, categorias, colores
+-- y talles. Ejecutar despues de db/productos.sql; el INSERT los carga a partir de los productos que
+-- ya existan (lo mismo que POST /products/productos/referencias/reconstruir).
+CREATE TABLE IF NOT EXISTS referencias_catalogo (
+    catalogo varchar(20) NOT NULL,
+    catalogo_id integer NOT NULL,
+    productos integer NOT NULL,
+    PRIMARY KEY (catalogo, catalogo_id)
+);
+
+BEGIN;
+LOCK TABLE productos IN SHARE MODE;
+DELETE FROM referencias_catalogo;
+INSERT INTO referencias_catalogo (catalogo, catalogo_id, productos)
+SELECT v.catalogo, v.catalogo_id, count(*)
+FROM productos p CROSS JOIN LATERAL (VALUES ('marca', p.marca_id), ('categoria', p.categoria_id),
+    ('color', p.color_id), ('talle', p.talle_id)) AS v(catalogo, catalogo_id)
+WHERE p.fecha_eliminacion IS NULL
+GROUP BY v.catalogo, v.catalogo_id;
+COMMIT;
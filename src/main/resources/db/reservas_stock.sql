@@ -0,0 +1,13 @@
+-- Reservas de stock por sucursal (products.model.Reserva). Ejecutar despues de db/stock.sql.
+-- Los vencimientos los maneja la aplicacion en memoria y la tabla se lee entera al arrancar.
+CREATE SEQUENCE IF NOT EXISTS reservas_stock_id_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS reservas_stock (
+    id integer PRIMARY KEY,
+    sucursal_id integer NOT NULL REFERENCES sucursales (id),
+    producto_id integer NOT NULL REFERENCES productos (id),
+    cantidad integer NOT NULL CHECK (cantidad > 0),
+    vence timestamp(6) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS reservas_stock_sucursal_id_idx ON reservas_stock (sucursal_id);
@@ -0,0 +1,10 @@
+-- Los catalogos generan sus ids con secuencias de a 50 valores (allocationSize = 50) para que
+-- Hibernate pueda agrupar los INSERT en lotes. Las columnas id se crearon como IDENTITY con
+-- incremento 1, por lo que hay que ajustar el incremento una vez en cada bd.
+-- Si la columna se creo como serial en lugar de identity, usar:
+--   ALTER SEQUENCE colores_id_seq INCREMENT BY 50;
+ALTER TABLE colores ALTER COLUMN id SET INCREMENT BY 50;
+ALTER TABLE talles ALTER COLUMN id SET INCREMENT BY 50;
+ALTER TABLE marcas ALTER COLUMN id SET INCREMENT BY 50;
+ALTER TABLE categorias ALTER COLUMN id SET INCREMENT BY 50;
+ALTER TABLE sucursales ALTER COLUMN id SET INCREMENT BY 50;
@@ -0,0 +1,10 @@
+-- Stock por sucursal y producto repartido en franjas (products.model.StockFranja).
+-- El total de un producto en una sucursal es la suma de sus franjas; la cantidad de franjas de los
+-- productos nuevos sale de megastore.stock.franjas. Ejecutar despues de db/productos.sql.
+CREATE TABLE IF NOT EXISTS stock_franjas (
+    sucursal_id integer NOT NULL REFERENCES sucursales (id),
+    producto_id integer NOT NULL REFERENCES productos (id),
+    franja integer NOT NULL,
+    cantidad integer NOT NULL CHECK (cantidad >= 0),
+    PRIMARY KEY (sucursal_id, producto_id, franja)
+);
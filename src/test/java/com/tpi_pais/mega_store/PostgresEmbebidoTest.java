@@ -0,0 +1,74 @@
+package com.tpi_pais.mega_store;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/*
+ * Base de las pruebas que levantan la aplicacion contra un Postgres embebido. Se inicia un solo
+ * Postgres para todas las clases de prueba y se detiene al terminar la JVM: los contextos de Spring
+ * que se reutilizan entre clases siguen apuntando a el. Las tablas las crea Hibernate al iniciar
+ * cada contexto, y cada prueba deja los datos como los necesita con reiniciarCatalogos.
+ * Las subclases pueden agregar sus propiedades con otro metodo @DynamicPropertySource.
+ * */
+@SpringBootTest
+public abstract class PostgresEmbebidoTest {
+
+    private static final EmbeddedPostgres POSTGRES = iniciarPostgres();
+
+    @Autowired
+    protected JdbcTemplate jdbc;
+
+    @DynamicPropertySource
+    static void baseDeDatos(DynamicPropertyRegistry registro) {
+        registro.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+        registro.add("spring.datasource.username", () -> "postgres");
+        registro.add("spring.datasource.password", () -> "postgres");
+        registro.add("spring.jpa.hibernate.ddl-auto", () -> "create");
+    }
+
+    /*
+     * Borra el stock, las reservas, el diario, los productos y sus contadores de referencias, y deja
+     * una sola sucursal, marca, categoria, color y talle, todos con id 1.
+     * */
+    protected void reiniciarCatalogos() {
+        jdbc.update("DELETE FROM diario_stock");
+        jdbc.update("DELETE FROM reservas_stock");
+        jdbc.update("DELETE FROM stock_franjas");
+        jdbc.update("DELETE FROM productos");
+        jdbc.update("DELETE FROM referencias_catalogo");
+        for (String tabla : List.of("sucursales", "marcas", "categorias", "colores", "talles")) {
+            jdbc.update("DELETE FROM " + tabla);
+            jdbc.update("INSERT INTO " + tabla + " (id, nombre) VALUES (1, 'uno')");
+        }
+    }
+
+    // Producto con los catalogos de id 1
+    protected void insertarProducto(int id) {
+        jdbc.update("INSERT INTO productos (id, nombre, precio, marca_id, categoria_id, color_id, talle_id) " +
+                "VALUES (?, 'remera', 10, 1, 1, 1, 1)", id);
+    }
+
+    private static EmbeddedPostgres iniciarPostgres() {
+        try {
+            EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    postgres.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+            return postgres;
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo iniciar el Postgres embebido", e);
+        }
+    }
+}
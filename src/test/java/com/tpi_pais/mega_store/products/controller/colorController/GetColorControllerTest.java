@@ -0,0 +1,76 @@
+package com.tpi_pais.mega_store.products.controller.colorController;
+
+import com.tpi_pais.mega_store.PostgresEmbebidoTest;
+import com.tpi_pais.mega_store.products.dto.ColorDTO;
+import com.tpi_pais.mega_store.products.service.IColorService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/*
+ * ETag y 304 del listado de colores, llamando al controlador sin pasar por HTTP. Los listados de
+ * los demas catalogos responden igual.
+ * */
+class GetColorControllerTest extends PostgresEmbebidoTest {
+
+    @Autowired
+    private GetColorController controller;
+
+    @Autowired
+    private IColorService colorService;
+
+    @BeforeEach
+    void cargarCatalogos() {
+        reiniciarCatalogos();
+        jdbc.queryForObject("SELECT setval('colores_id_seq', 1000)", Long.class);
+        // reiniciarCatalogos escribe sin el servicio: una escritura por el servicio invalida la cache
+        colorService.crearORecuperar(color(null, "Rojo"));
+    }
+
+    @Test
+    void conElEtagVigenteSeResponde304() {
+        ResponseEntity<?> listado = listar(null);
+        assertEquals(HttpStatus.OK, listado.getStatusCode());
+        String etag = listado.getHeaders().getETag();
+        assertNotNull(etag);
+
+        for (String ifNoneMatch : List.of(etag, "W/" + etag, "\"otro\", " + etag, "*")) {
+            ResponseEntity<?> noModificado = listar(ifNoneMatch);
+            assertEquals(HttpStatus.NOT_MODIFIED, noModificado.getStatusCode(), ifNoneMatch);
+            assertEquals(etag, noModificado.getHeaders().getETag());
+        }
+        assertEquals(HttpStatus.OK, listar("\"otro\"").getStatusCode());
+
+        // Despues de una escritura el ETag anterior ya no coincide
+        colorService.actualizar(color(1, "Azul"));
+        ResponseEntity<?> actualizado = listar(etag);
+        assertEquals(HttpStatus.OK, actualizado.getStatusCode());
+        assertNotEquals(etag, actualizado.getHeaders().getETag());
+    }
+
+    @Test
+    void unCatalogoVacioNuncaResponde304() {
+        colorService.eliminarPorIds(jdbc.queryForList("SELECT id FROM colores", Integer.class));
+        assertEquals(HttpStatus.BAD_REQUEST, listar(null).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, listar("*").getStatusCode());
+    }
+
+    private ResponseEntity<?> listar(String ifNoneMatch) {
+        return controller.getAll(ifNoneMatch, null, null, null);
+    }
+
+    private static ColorDTO color(Integer id, String nombre) {
+        ColorDTO modelDTO = new ColorDTO();
+        modelDTO.setId(id);
+        modelDTO.setNombre(nombre);
+        return modelDTO;
+    }
+}
@@ -0,0 +1,257 @@
+package com.tpi_pais.mega_store.products.service;
+
+import com.tpi_pais.mega_store.PostgresEmbebidoTest;
+import com.tpi_pais.mega_store.products.dto.ColorDTO;
+import com.tpi_pais.mega_store.products.dto.ProductoDTO;
+import com.tpi_pais.mega_store.products.dto.ResultadoEscrituraDTO;
+import com.tpi_pais.mega_store.products.dto.ResultadoItemDTO;
+import com.tpi_pais.mega_store.products.dto.ResultadoMasivoDTO;
+import com.tpi_pais.mega_store.utils.Pagina;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ * Escrituras del catalogo de colores contra un Postgres embebido. Los demas catalogos (marcas,
+ * categorias, talles y sucursales) tienen las mismas sentencias con otra tabla. Cada prueba parte
+ * del color 1 'uno' que deja reiniciarCatalogos.
+ * */
+class ColorServiceTest extends PostgresEmbebidoTest {
+
+    @Autowired
+    private IColorService colorService;
+
+    @Autowired
+    private IProductoService productoService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void cargarCatalogos() {
+        reiniciarCatalogos();
+        // El color 1 se inserta sin la secuencia: los ids que den Hibernate y nextval deben ser otros
+        jdbc.queryForObject("SELECT setval('colores_id_seq', 1000)", Long.class);
+        jdbc.queryForObject("SELECT setval('productos_id_seq', 1000)", Long.class);
+    }
+
+    @Test
+    void actualizarInformaPorQueNoSeModifico() {
+        insertarColor(2, "Rojo");
+
+        ResultadoEscrituraDTO<ColorDTO> resultado = colorService.actualizar(color(1, "Azul"));
+        assertEquals(ResultadoEscrituraDTO.Estado.OK, resultado.getEstado());
+        assertEquals("Azul", resultado.getModelo().getNombre());
+        assertEquals("Azul", nombre(1));
+
+        assertEquals(ResultadoEscrituraDTO.Estado.DUPLICADO, colorService.actualizar(color(1, "Rojo")).getEstado());
+        assertEquals(ResultadoEscrituraDTO.Estado.NO_ENCONTRADO, colorService.actualizar(color(99, "Verde")).getEstado());
+        colorService.eliminarPorId(2);
+        ResultadoEscrituraDTO<ColorDTO> eliminado = colorService.actualizar(color(2, "Verde"));
+        assertEquals(ResultadoEscrituraDTO.Estado.ELIMINADO, eliminado.getEstado());
+        assertNull(eliminado.getModelo());
+        assertEquals("Rojo", nombre(2));
+    }
+
+    @Test
+    void eliminarYRecuperarInformanPorQueNoSeModifico() {
+        ResultadoEscrituraDTO<ColorDTO> eliminado = colorService.eliminarPorId(1);
+        assertEquals(ResultadoEscrituraDTO.Estado.OK, eliminado.getEstado());
+        assertNotNull(eliminado.getModelo().getFechaEliminacion());
+        assertEquals(ResultadoEscrituraDTO.Estado.ELIMINADO, colorService.eliminarPorId(1).getEstado());
+        assertEquals(ResultadoEscrituraDTO.Estado.NO_ENCONTRADO, colorService.eliminarPorId(99).getEstado());
+
+        assertEquals(ResultadoEscrituraDTO.Estado.OK, colorService.recuperarPorId(1).getEstado());
+        assertEquals(ResultadoEscrituraDTO.Estado.NO_ELIMINADO, colorService.recuperarPorId(1).getEstado());
+        assertEquals(ResultadoEscrituraDTO.Estado.NO_ENCONTRADO, colorService.recuperarPorId(99).getEstado());
+        assertNull(jdbc.queryForObject("SELECT fecha_eliminacion FROM colores WHERE id = 1", Object.class));
+    }
+
+    @Test
+    void unColorConProductosNoSeElimina() {
+        insertarColor(2, "Rojo");
+        ResultadoEscrituraDTO<ProductoDTO> creado = productoService.crear(producto(2));
+        assertEquals(ResultadoEscrituraDTO.Estado.CREADO, creado.getEstado());
+
+        ResultadoEscrituraDTO<ColorDTO> enUso = colorService.eliminarPorId(2);
+        assertEquals(ResultadoEscrituraDTO.Estado.EN_USO, enUso.getEstado());
+        assertNull(enUso.getModelo());
+        ResultadoMasivoDTO masivo = colorService.eliminarPorIds(List.of(1, 2));
+        assertEquals(List.of(1), masivo.getModificados());
+        assertEquals(List.of(2), masivo.getEnUso());
+
+        // Un color eliminado no se puede usar en un producto
+        ResultadoEscrituraDTO<ProductoDTO> invalido = productoService.crear(producto(1));
+        assertEquals(ResultadoEscrituraDTO.Estado.REFERENCIA_INVALIDA, invalido.getEstado());
+        assertEquals("color", invalido.getReferencia());
+
+        // Sin productos que lo usen, se puede eliminar
+        assertEquals(ResultadoEscrituraDTO.Estado.OK, productoService.eliminarPorId(creado.getModelo().getId()).getEstado());
+        assertEquals(ResultadoEscrituraDTO.Estado.OK, colorService.eliminarPorId(2).getEstado());
+    }
+
+    @Test
+    void crearORecuperarSoloUsaLaSecuenciaParaNombresNuevos() {
+        ResultadoEscrituraDTO<ColorDTO> creado = colorService.crearORecuperar(color(null, "Rojo"));
+        assertEquals(ResultadoEscrituraDTO.Estado.CREADO, creado.getEstado());
+        Integer id = creado.getModelo().getId();
+        assertTrue(id > 1000);
+        long secuencia = ultimoValorSecuencia();
+
+        // Un duplicado no inserta nada ni avanza la secuencia
+        ResultadoEscrituraDTO<ColorDTO> duplicado = colorService.crearORecuperar(color(null, "Rojo"));
+        assertEquals(ResultadoEscrituraDTO.Estado.DUPLICADO, duplicado.getEstado());
+        assertNull(duplicado.getModelo());
+        assertEquals(ResultadoEscrituraDTO.Estado.DUPLICADO, colorService.crearORecuperar(color(null, "uno")).getEstado());
+        assertEquals(secuencia, ultimoValorSecuencia());
+
+        // Un nombre eliminado se recupera con su id
+        colorService.eliminarPorId(id);
+        ResultadoEscrituraDTO<ColorDTO> recuperado = colorService.crearORecuperar(color(null, "Rojo"));
+        assertEquals(ResultadoEscrituraDTO.Estado.RECUPERADO, recuperado.getEstado());
+        assertEquals(id, recuperado.getModelo().getId());
+        assertEquals(secuencia, ultimoValorSecuencia());
+        assertEquals(2, jdbc.queryForObject("SELECT count(*) FROM colores WHERE fecha_eliminacion IS NULL", Integer.class));
+    }
+
+    @Test
+    void guardarLoteInformaCadaElemento() {
+        insertarColor(2, "Rojo");
+        insertarColor(3, "Blanco");
+        colorService.eliminarPorId(2);
+        List<ResultadoItemDTO> resultados = colorService.guardarLote(List.of(
+                color(null, "  azul  marino "), color(null, "blanco"), color(null, "rojo"),
+                color(null, "Azul Marino"), color(null, "verde 2!"), color(null, null)));
+
+        assertEquals(List.of(ResultadoItemDTO.Estado.CREADO, ResultadoItemDTO.Estado.DUPLICADO,
+                        ResultadoItemDTO.Estado.RECUPERADO, ResultadoItemDTO.Estado.DUPLICADO,
+                        ResultadoItemDTO.Estado.INVALIDO, ResultadoItemDTO.Estado.INVALIDO),
+                resultados.stream().map(ResultadoItemDTO::getEstado).toList());
+        assertEquals(List.of(0, 1, 2, 3, 4, 5), resultados.stream().map(ResultadoItemDTO::getIndice).toList());
+        assertEquals("Azul Marino", resultados.get(0).getNombre());
+        assertTrue(resultados.get(0).getId() > 1000);
+        assertEquals(3, resultados.get(1).getId());
+        assertEquals(2, resultados.get(2).getId());
+        // El repetido dentro del lote no tiene id: no se inserto
+        assertNull(resultados.get(3).getId());
+        assertEquals(4, jdbc.queryForObject("SELECT count(*) FROM colores WHERE fecha_eliminacion IS NULL", Integer.class));
+    }
+
+    @Test
+    void lasBajasMasivasToleranIdsRepetidos() {
+        insertarColor(2, "Rojo");
+        insertarColor(3, "Azul");
+        colorService.eliminarPorId(3);
+
+        // Cada id aparece una sola vez en el resultado, aunque se haya pedido varias veces
+        ResultadoMasivoDTO eliminados = colorService.eliminarPorIds(List.of(2, 99, 2, 3, 1, 99, 3));
+        assertEquals(List.of(1, 2), eliminados.getModificados());
+        assertEquals(List.of(3), eliminados.getSinCambios());
+        assertEquals(List.of(99), eliminados.getNoEncontrados());
+        assertEquals(List.of(), eliminados.getEnUso());
+
+        ResultadoMasivoDTO recuperados = colorService.recuperarPorIds(List.of(3, 3, 1, 99, 99));
+        assertEquals(List.of(1, 3), recuperados.getModificados());
+        assertEquals(List.of(), recuperados.getSinCambios());
+        assertEquals(List.of(99), recuperados.getNoEncontrados());
+        assertEquals(1, jdbc.queryForObject("SELECT count(*) FROM colores WHERE fecha_eliminacion IS NOT NULL", Integer.class));
+    }
+
+    @Test
+    void elCursorNoSaltaNiRepiteAunqueSeEliminenRegistros() {
+        List<String> nombres = List.of("Rojo", "Azul", "Verde", "Negro", "Gris", "Rosa");
+        for (int i = 0; i < nombres.size(); i++) {
+            insertarColor(i + 2, nombres.get(i));
+        }
+
+        Pagina<ColorDTO> primera = colorService.listarPagina(0, 3);
+        assertEquals(List.of(1, 2, 3), ids(primera));
+        assertEquals(3, primera.getSiguienteCursor());
+
+        // Se eliminan uno ya leido y uno de la pagina siguiente: el cursor es un id, no una posicion
+        colorService.eliminarPorId(2);
+        colorService.eliminarPorId(5);
+        Pagina<ColorDTO> segunda = colorService.listarPagina(primera.getSiguienteCursor(), 3);
+        assertEquals(List.of(4, 6, 7), ids(segunda));
+        // Quedaban exactamente limite registros: no se anuncia una pagina siguiente vacia
+        assertNull(segunda.getSiguienteCursor());
+        assertEquals(List.of(), ids(colorService.listarPagina(7, 3)));
+    }
+
+    @Test
+    void laCacheSeInvalidaRecienAlConfirmar() {
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        // reiniciarCatalogos escribe sin el servicio: se descarta lo que haya quedado de otra prueba
+        colorService.eliminarPorId(1);
+        colorService.recuperarPorId(1);
+        colorService.listar();
+        String etag = colorService.etag();
+        assertNotNull(etag);
+        long version = colorService.estadisticasCache().getVersion();
+
+        // Una escritura que se revierte no invalida nada
+        transaccion.executeWithoutResult(estado -> {
+            assertEquals(ResultadoEscrituraDTO.Estado.OK, colorService.actualizar(color(1, "Azul")).getEstado());
+            estado.setRollbackOnly();
+        });
+        assertEquals(version, colorService.estadisticasCache().getVersion());
+        assertEquals(etag, colorService.etag());
+
+        // Antes de confirmar, los demas siguen viendo la instantanea anterior
+        transaccion.executeWithoutResult(estado -> {
+            colorService.actualizar(color(1, "Azul"));
+            assertEquals(version, colorService.estadisticasCache().getVersion());
+            assertEquals(etag, colorService.etag());
+        });
+        assertEquals(version + 1, colorService.estadisticasCache().getVersion());
+        assertNull(colorService.etag());
+        assertEquals(List.of("Azul"), colorService.listar().stream().map(ColorDTO::getNombre).toList());
+        assertNotEquals(etag, colorService.etag());
+    }
+
+    private static List<Integer> ids(Pagina<ColorDTO> pagina) {
+        return pagina.getDatos().stream().map(ColorDTO::getId).toList();
+    }
+
+    private long ultimoValorSecuencia() {
+        return jdbc.queryForObject("SELECT last_value FROM colores_id_seq", Long.class);
+    }
+
+    private void insertarColor(int id, String nombre) {
+        jdbc.update("INSERT INTO colores (id, nombre) VALUES (?, ?)", id, nombre);
+    }
+
+    private String nombre(int id) {
+        return jdbc.queryForObject("SELECT nombre FROM colores WHERE id = ?", String.class, id);
+    }
+
+    // Un producto con el color y los demas catalogos de id 1
+    private static ProductoDTO producto(int colorId) {
+        ProductoDTO modelDTO = new ProductoDTO();
+        modelDTO.setNombre("Remera");
+        modelDTO.setPrecio(BigDecimal.TEN);
+        modelDTO.setMarcaId(1);
+        modelDTO.setCategoriaId(1);
+        modelDTO.setColorId(colorId);
+        modelDTO.setTalleId(1);
+        return modelDTO;
+    }
+
+    private static ColorDTO color(Integer id, String nombre) {
+        ColorDTO modelDTO = new ColorDTO();
+        modelDTO.setId(id);
+        modelDTO.setNombre(nombre);
+        return modelDTO;
+    }
+}
@@ -0,0 +1,347 @@
+package com.tpi_pais.mega_store.products.service;
+
+import com.tpi_pais.mega_store.PostgresEmbebidoTest;
+import com.tpi_pais.mega_store.exception.ServicioNoDisponibleExcepcion;
+import com.tpi_pais.mega_store.products.dto.MovimientoDiarioDTO;
+import com.tpi_pais.mega_store.products.dto.ResultadoEscrituraDTO;
+import com.tpi_pais.mega_store.products.model.MovimientoDiario;
+import com.tpi_pais.mega_store.products.repository.DiarioStockEscritor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ * Escritura agrupada del diario contra un Postgres embebido, con lotes de 4, 200 ms de latencia y
+ * lugar para 8 movimientos en el buffer. Para ver que pasa mientras un lote se escribe, el escritor
+ * se reemplaza por uno que aplica el lote y deja la transaccion abierta hasta que la prueba lo suelta.
+ * Los movimientos son reposiciones, que siempre se aplican si las referencias son validas.
+ * */
+class DiarioStockServiceTest extends PostgresEmbebidoTest {
+
+    private static final int LOTE = 4;
+    private static final long LATENCIA_MS = 200;
+    private static final int CAPACIDAD = 8;
+
+    @Autowired
+    private IDiarioStockService diarioService;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    private DiarioStockService servicio;
+    private DiarioStockEscritor escritorReal;
+
+    /*
+     * Aplica con el escritor real y espera a que la prueba lo suelte antes de confirmar (o fallar).
+     * El commit ademas se demora LATENCIA_MS y marca confirmado al terminar, asi una respuesta dada
+     * antes del commit se ve siempre y no depende de cual hilo corra primero.
+     * */
+    static class EscritorDetenido extends DiarioStockEscritor {
+        private final DiarioStockEscritor real;
+        private final boolean fallar;
+        final CountDownLatch insertado = new CountDownLatch(1);
+        final CountDownLatch soltar = new CountDownLatch(1);
+        volatile boolean confirmado;
+
+        EscritorDetenido(DiarioStockEscritor real, boolean fallar) {
+            this.real = real;
+            this.fallar = fallar;
+        }
+
+        @Override
+        public int[] aplicar(List<MovimientoDiario> movimientos) {
+            int[] filas = real.aplicar(movimientos);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    try {
+                        Thread.sleep(LATENCIA_MS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+
+                @Override
+                public void afterCommit() {
+                    confirmado = true;
+                }
+            });
+            insertado.countDown();
+            try {
+                soltar.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (fallar) {
+                throw new IllegalStateException("Falla de prueba despues de aplicar");
+            }
+            return filas;
+        }
+    }
+
+    @DynamicPropertySource
+    static void propiedades(DynamicPropertyRegistry registro) {
+        registro.add("megastore.diario.lote", () -> LOTE);
+        registro.add("megastore.diario.latencia-ms", () -> LATENCIA_MS);
+        registro.add("megastore.diario.capacidad", () -> CAPACIDAD);
+        registro.add("megastore.diario.espera-maxima-ms", () -> 100);
+    }
+
+    @BeforeEach
+    void cargarCatalogos() {
+        servicio = AopTestUtils.getUltimateTargetObject(diarioService);
+        escritorReal = (DiarioStockEscritor) ReflectionTestUtils.getField(servicio, "escritor");
+        reiniciarCatalogos();
+        insertarProducto(1);
+    }
+
+    @AfterEach
+    void restaurarEscritor() {
+        ReflectionTestUtils.setField(servicio, "escritor", escritorReal);
+    }
+
+    @Test
+    void losLotesSalenPorTamanioYPorLatencia() {
+        long lotesAntes = lotes();
+
+        // Diez encolados juntos: dos lotes llenos y el resto cuando se cumple la latencia
+        List<MovimientoDiarioDTO> movimientos = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            movimientos.add(movimiento(i == 6 ? 99 : 1));
+        }
+        boolean[] guardados = diarioService.registrarTodos(movimientos);
+        // El de producto inexistente se rechaza solo, sin hacer fallar su lote
+        boolean[] esperados = new boolean[10];
+        Arrays.fill(esperados, true);
+        esperados[6] = false;
+        assertArrayEquals(esperados, guardados);
+        assertEquals(3, lotes() - lotesAntes);
+        assertEquals(9, filas());
+
+        // Uno solo espera la latencia y sale en un lote de uno
+        long inicio = System.nanoTime();
+        assertEquals(ResultadoEscrituraDTO.Estado.CREADO, diarioService.registrar(movimiento(1)).getEstado());
+        assertTrue(System.nanoTime() - inicio >= TimeUnit.MILLISECONDS.toNanos(LATENCIA_MS));
+        assertEquals(4, lotes() - lotesAntes);
+        assertEquals(10, filas());
+    }
+
+    @Test
+    void seRespondeRecienDespuesDelCommit() throws Exception {
+        EscritorDetenido escritor = new EscritorDetenido(escritorReal, false);
+        ReflectionTestUtils.setField(servicio, "escritor", escritor);
+        try (ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            // Al responder se anota si el commit ya habia terminado
+            Future<Boolean> respuesta = ejecutor.submit(() -> {
+                assertEquals(ResultadoEscrituraDTO.Estado.CREADO, diarioService.registrar(movimiento(1)).getEstado());
+                return escritor.confirmado;
+            });
+            assertTrue(escritor.insertado.await(10, TimeUnit.SECONDS));
+
+            // Insertado pero sin confirmar: la peticion sigue esperando y otra conexion no lo ve
+            Thread.sleep(LATENCIA_MS);
+            assertFalse(respuesta.isDone());
+            assertEquals(0, filas());
+
+            escritor.soltar.countDown();
+            assertTrue(respuesta.get(10, TimeUnit.SECONDS), "Se respondio antes del commit");
+            // Una vez respondida, cualquier otra conexion la ve
+            assertEquals(1, filas());
+        }
+    }
+
+    @Test
+    void unLoteFallidoFallaTodasSusPeticiones() throws Exception {
+        EscritorDetenido escritor = new EscritorDetenido(escritorReal, true);
+        ReflectionTestUtils.setField(servicio, "escritor", escritor);
+        double fallidosAntes = movimientos("fallido");
+        try (ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> respuestas = IntStream.range(0, LOTE)
+                    .<Future<?>>mapToObj(i -> ejecutor.submit(() -> diarioService.registrar(movimiento(1))))
+                    .toList();
+            assertTrue(escritor.insertado.await(10, TimeUnit.SECONDS));
+            escritor.soltar.countDown();
+            for (Future<?> respuesta : respuestas) {
+                ExecutionException error = assertThrows(ExecutionException.class, () -> respuesta.get(10, TimeUnit.SECONDS));
+                assertTrue(error.getCause() instanceof ServicioNoDisponibleExcepcion, error::toString);
+            }
+        }
+        // Se deshizo el lote entero (y cada reintento de a uno) y ninguna peticion se confirmo
+        assertEquals(0, filas());
+        assertEquals(0, stock(1));
+        assertEquals(LOTE, movimientos("fallido") - fallidosAntes);
+    }
+
+    @Test
+    void unMovimientoQueFallaNoHaceFallarASuLote() {
+        // Reponer el producto 2 desborda su unica franja: la bd rechaza la sentencia y con ella el lote
+        insertarProducto(2);
+        jdbc.update("INSERT INTO stock_franjas (sucursal_id, producto_id, franja, cantidad) VALUES (1, 2, 0, ?)",
+                Integer.MAX_VALUE - 1);
+        double fallidosAntes = movimientos("fallido");
+        List<MovimientoDiarioDTO> movimientos = new ArrayList<>();
+        for (int i = 0; i < LOTE; i++) {
+            movimientos.add(movimiento(1));
+        }
+        movimientos.set(1, MovimientoDiarioDTO.de(1, 2, MovimientoDiario.Tipo.REPOSICION, 2));
+        assertThrows(ServicioNoDisponibleExcepcion.class, () -> diarioService.registrarTodos(movimientos));
+
+        // Los demas se reintentaron de a uno y quedaron aplicados con su movimiento. El escritor es uno
+        // solo: cuando responde al siguiente ya termino los reintentos del lote anterior
+        assertEquals(ResultadoEscrituraDTO.Estado.CREADO, diarioService.registrar(movimiento(1)).getEstado());
+        assertEquals(1, movimientos("fallido") - fallidosAntes);
+        assertEquals(LOTE, filas());
+        assertEquals(LOTE, stock(1));
+        assertEquals(Integer.MAX_VALUE - 1, stock(2));
+    }
+
+    @Test
+    void elStockYElDiarioCambianJuntos() {
+        assertEquals(ResultadoEscrituraDTO.Estado.CREADO, diarioService.registrar(
+                MovimientoDiarioDTO.de(1, 1, MovimientoDiario.Tipo.REPOSICION, 5)).getEstado());
+        assertEquals(ResultadoEscrituraDTO.Estado.CREADO, diarioService.registrar(
+                MovimientoDiarioDTO.de(1, 1, MovimientoDiario.Tipo.VENTA, 3)).getEstado());
+        // Sin stock suficiente no se descuenta nada ni se registra el movimiento
+        assertEquals(ResultadoEscrituraDTO.Estado.SIN_STOCK, diarioService.registrar(
+                MovimientoDiarioDTO.de(1, 1, MovimientoDiario.Tipo.VENTA, 3)).getEstado());
+        // Una devolucion vuelve al stock
+        assertEquals(ResultadoEscrituraDTO.Estado.CREADO, diarioService.registrar(
+                MovimientoDiarioDTO.de(1, 1, MovimientoDiario.Tipo.DEVOLUCION, 2)).getEstado());
+        assertEquals(ResultadoEscrituraDTO.Estado.REFERENCIA_INVALIDA, diarioService.registrar(
+                MovimientoDiarioDTO.de(1, 99, MovimientoDiario.Tipo.DEVOLUCION, 2)).getEstado());
+        assertEquals(4, stock(1));
+        assertEquals(3, filas());
+        assertEquals(4, jdbc.queryForObject("SELECT sum(CASE WHEN tipo = 'VENTA' THEN -cantidad ELSE cantidad END) " +
+                "FROM diario_stock", Integer.class));
+
+        // Los movimientos de reservas y transferencias los registra su propia transaccion
+        assertThrows(IllegalArgumentException.class, () -> diarioService.registrar(
+                MovimientoDiarioDTO.de(1, 1, MovimientoDiario.Tipo.RESERVA, 1)));
+    }
+
+    @Test
+    void conElBufferLlenoSeRechazaYAlLiberarseSeEscribeTodo() throws Exception {
+        EscritorDetenido escritor = new EscritorDetenido(escritorReal, false);
+        ReflectionTestUtils.setField(servicio, "escritor", escritor);
+        double rechazadosAntes = movimientos("rechazado");
+        try (ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            // Un lote tomado por el escritor detenido y el buffer lleno detras de el
+            Future<boolean[]> lote = tomarLoteDetenido(ejecutor, escritor);
+            List<Future<ResultadoEscrituraDTO<MovimientoDiarioDTO>>> respuestas = new ArrayList<>();
+            for (int i = 0; i < CAPACIDAD; i++) {
+                respuestas.add(ejecutor.submit(() -> diarioService.registrar(movimiento(1))));
+            }
+            esperarPendientes(CAPACIDAD);
+
+            // El siguiente espera megastore.diario.espera-maxima-ms y se rechaza
+            assertThrows(ServicioNoDisponibleExcepcion.class, () -> diarioService.registrar(movimiento(1)));
+            assertEquals(1, movimientos("rechazado") - rechazadosAntes);
+
+            escritor.soltar.countDown();
+            assertArrayEquals(new boolean[]{true, true, true, true}, lote.get(10, TimeUnit.SECONDS));
+            for (Future<ResultadoEscrituraDTO<MovimientoDiarioDTO>> respuesta : respuestas) {
+                assertEquals(ResultadoEscrituraDTO.Estado.CREADO, respuesta.get(10, TimeUnit.SECONDS).getEstado());
+            }
+        }
+        assertEquals(LOTE + CAPACIDAD, filas());
+    }
+
+    // Detiene el servicio: el contexto no se reutiliza en las demas pruebas
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void alDetenerseEscribeLoQueQuedabaEnElBuffer() throws Exception {
+        EscritorDetenido escritor = new EscritorDetenido(escritorReal, false);
+        ReflectionTestUtils.setField(servicio, "escritor", escritor);
+        try (ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            // Con el escritor detenido en un lote, el buffer lleno queda pendiente al detener
+            Future<boolean[]> lote = tomarLoteDetenido(ejecutor, escritor);
+            List<Future<ResultadoEscrituraDTO<MovimientoDiarioDTO>>> respuestas = new ArrayList<>();
+            for (int i = 0; i < CAPACIDAD; i++) {
+                respuestas.add(ejecutor.submit(() -> diarioService.registrar(movimiento(1))));
+            }
+            esperarPendientes(CAPACIDAD);
+
+            Future<?> detencion = ejecutor.submit(() -> {
+                servicio.detener();
+                return null;
+            });
+            // Cerrado el buffer, no se aceptan movimientos nuevos
+            Thread.sleep(LATENCIA_MS);
+            assertThrows(ServicioNoDisponibleExcepcion.class, () -> diarioService.registrar(movimiento(1)));
+            assertFalse(detencion.isDone());
+
+            escritor.soltar.countDown();
+            detencion.get(10, TimeUnit.SECONDS);
+            assertArrayEquals(new boolean[]{true, true, true, true}, lote.get(10, TimeUnit.SECONDS));
+            for (Future<ResultadoEscrituraDTO<MovimientoDiarioDTO>> respuesta : respuestas) {
+                assertEquals(ResultadoEscrituraDTO.Estado.CREADO, respuesta.get(10, TimeUnit.SECONDS).getEstado());
+            }
+        }
+        assertEquals(LOTE + CAPACIDAD, filas());
+    }
+
+    // Encola un lote completo de una vez (asi el escritor lo toma entero) y espera a que quede detenido
+    private Future<boolean[]> tomarLoteDetenido(ExecutorService ejecutor, EscritorDetenido escritor)
+            throws InterruptedException {
+        Future<boolean[]> lote = ejecutor.submit(() -> diarioService.registrarTodos(
+                IntStream.range(0, LOTE).mapToObj(i -> movimiento(1)).toList()));
+        assertTrue(escritor.insertado.await(10, TimeUnit.SECONDS));
+        assertEquals(0, registry.get("megastore.diario.pendientes").gauge().value());
+        return lote;
+    }
+
+    private void esperarPendientes(int cantidad) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (registry.get("megastore.diario.pendientes").gauge().value() < cantidad) {
+            assertTrue(System.nanoTime() < limite, "El buffer no llego a " + cantidad + " pendientes");
+            Thread.sleep(10);
+        }
+    }
+
+    private static MovimientoDiarioDTO movimiento(int productoId) {
+        return MovimientoDiarioDTO.de(1, productoId, MovimientoDiario.Tipo.REPOSICION, 1);
+    }
+
+    private int stock(int productoId) {
+        return jdbc.queryForObject("SELECT coalesce(sum(cantidad), 0) FROM stock_franjas " +
+                "WHERE sucursal_id = 1 AND producto_id = ?", Integer.class, productoId);
+    }
+
+    private int filas() {
+        return jdbc.queryForObject("SELECT count(*) FROM diario_stock", Integer.class);
+    }
+
+    private long lotes() {
+        return registry.get("megastore.diario.lote").summary().count();
+    }
+
+    private double movimientos(String resultado) {
+        return registry.get("megastore.diario.movimientos").tag("resultado", resultado).counter().count();
+    }
+}
@@ -0,0 +1,229 @@
+package com.tpi_pais.mega_store.products.service;
+
+import com.tpi_pais.mega_store.PostgresEmbebidoTest;
+import com.tpi_pais.mega_store.products.dto.MovimientoStockDTO;
+import com.tpi_pais.mega_store.products.dto.ReservaDTO;
+import com.tpi_pais.mega_store.products.dto.ResultadoEscrituraDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.AopTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/*
+ * Vencimiento de reservas con un reloj de prueba: el tiempo solo avanza cuando la prueba lo mueve
+ * y cada tick del reloj de vencimientos se ejecuta a mano (vencer). El tick es de una hora para que
+ * el reloj real no llegue a ejecutar ninguno durante la prueba.
+ * */
+class ReservaServiceTest extends PostgresEmbebidoTest {
+
+    private static final int SUCURSAL = 1;
+    private static final int PRODUCTO = 1;
+    private static final Duration TICK = Duration.ofHours(1);
+    private static final Duration DURACION = Duration.ofHours(2);
+
+    private static final RelojDePrueba RELOJ = new RelojDePrueba(Instant.parse("2030-01-01T00:00:00Z"));
+
+    @Autowired
+    private IReservaService reservaService;
+
+    @Autowired
+    private IStockService stockService;
+
+    private ReservaService servicio;
+
+    // Reloj que solo avanza a pedido
+    static class RelojDePrueba extends Clock {
+        private volatile Instant ahora;
+
+        RelojDePrueba(Instant ahora) {
+            this.ahora = ahora;
+        }
+
+        void avanzar(Duration duracion) {
+            ahora = ahora.plus(duracion);
+        }
+
+        // Avanza hasta el comienzo del tick que esta cantidad de ticks despues del actual
+        void avanzarTicks(int ticks) {
+            long tick = TICK.toMillis();
+            ahora = Instant.ofEpochMilli((ahora.toEpochMilli() / tick + ticks) * tick);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.systemDefault();
+        }
+
+        @Override
+        public Clock withZone(ZoneId zona) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return ahora;
+        }
+    }
+
+    @TestConfiguration
+    static class Configuracion {
+        @Bean
+        Clock reloj() {
+            return RELOJ;
+        }
+    }
+
+    @DynamicPropertySource
+    static void propiedades(DynamicPropertyRegistry registro) {
+        registro.add("megastore.reservas.tick-ms", () -> TICK.toMillis());
+        registro.add("megastore.reservas.duracion-segundos", () -> DURACION.toSeconds());
+    }
+
+    @BeforeEach
+    void cargarStock() {
+        servicio = AopTestUtils.getUltimateTargetObject(reservaService);
+        // Cada prueba empieza al comienzo de un tick, con lo pendiente de la anterior ya vencido
+        RELOJ.avanzarTicks(10);
+        servicio.vencer();
+
+        reiniciarCatalogos();
+        insertarProducto(PRODUCTO);
+        stockService.reponer(new MovimientoStockDTO(SUCURSAL, PRODUCTO, 10));
+    }
+
+    @Test
+    void venceEnSuTickYDevuelveElStock() {
+        Integer id = reservar(3);
+        assertEquals(7, stock());
+
+        // Un milisegundo antes del vencimiento sigue reservada
+        RELOJ.avanzar(DURACION.minusMillis(1));
+        servicio.vencer();
+        assertEquals(List.of(id), reservas());
+        assertEquals(7, stock());
+
+        RELOJ.avanzar(Duration.ofMillis(1));
+        servicio.vencer();
+        assertEquals(List.of(), reservas());
+        assertEquals(10, stock());
+        assertEquals(3, diario("RESERVA"));
+        assertEquals(3, diario("RESERVA_VENCIDA"));
+    }
+
+    @Test
+    void venceConHastaUnTickDeAtraso() {
+        // Creada a mitad de un tick: vence a mitad de otro y se vence al empezar el siguiente
+        RELOJ.avanzar(TICK.dividedBy(2));
+        Integer id = reservar(2);
+        RELOJ.avanzar(DURACION);
+        servicio.vencer();
+        assertEquals(List.of(id), reservas());
+
+        RELOJ.avanzar(TICK.dividedBy(2));
+        servicio.vencer();
+        assertEquals(List.of(), reservas());
+        assertEquals(10, stock());
+    }
+
+    @Test
+    void lasConfirmadasYCanceladasNoSeVencen() {
+        Integer confirmada = reservar(3);
+        Integer cancelada = reservar(2);
+        assertEquals(ResultadoEscrituraDTO.Estado.OK, reservaService.confirmar(SUCURSAL, confirmada).getEstado());
+        assertEquals(ResultadoEscrituraDTO.Estado.OK, reservaService.cancelar(SUCURSAL, cancelada).getEstado());
+        assertEquals(7, stock());
+
+        // Siguen en la rueda, pero vencerlas no devuelve nada
+        RELOJ.avanzar(DURACION);
+        servicio.vencer();
+        assertEquals(7, stock());
+        assertEquals(5, diario("RESERVA"));
+        assertEquals(2, diario("RESERVA_CANCELADA"));
+        assertEquals(0, diario("RESERVA_VENCIDA"));
+    }
+
+    @Test
+    void reconstruirCargaLasReservasDeLaBd() {
+        // Reservas que la rueda no conoce: una ya vencida y otra que vence en dos ticks
+        LocalDateTime ahora = LocalDateTime.now(RELOJ);
+        jdbc.update("INSERT INTO reservas_stock (id, sucursal_id, producto_id, cantidad, vence) VALUES (9001, ?, ?, 2, ?)",
+                SUCURSAL, PRODUCTO, ahora.minusMinutes(1));
+        jdbc.update("INSERT INTO reservas_stock (id, sucursal_id, producto_id, cantidad, vence) VALUES (9002, ?, ?, 3, ?)",
+                SUCURSAL, PRODUCTO, ahora.plus(TICK.multipliedBy(2)));
+        servicio.detener();
+        ((ReservaService) reservaService).reconstruir();
+        servicio.detener();
+
+        // La vencida se vence en el tick siguiente, no en el que ya se proceso
+        servicio.vencer();
+        assertEquals(List.of(9001, 9002), reservas());
+        RELOJ.avanzar(TICK);
+        servicio.vencer();
+        assertEquals(List.of(9002), reservas());
+        assertEquals(12, stock());
+
+        RELOJ.avanzar(TICK);
+        servicio.vencer();
+        assertEquals(List.of(), reservas());
+        assertEquals(15, stock());
+    }
+
+    @Test
+    void unLoteFallidoSeReintentaEnElTickSiguiente() {
+        Integer id = reservar(4);
+        RELOJ.avanzar(DURACION);
+        // Sin la tabla la sentencia del lote falla y sus ids vuelven a la rueda
+        jdbc.execute("ALTER TABLE reservas_stock RENAME TO reservas_stock_fuera");
+        try {
+            servicio.vencer();
+        } finally {
+            jdbc.execute("ALTER TABLE reservas_stock_fuera RENAME TO reservas_stock");
+        }
+        assertEquals(List.of(id), reservas());
+
+        // No se reintenta en el mismo tick, si en el siguiente
+        servicio.vencer();
+        assertEquals(List.of(id), reservas());
+        RELOJ.avanzar(TICK);
+        servicio.vencer();
+        assertEquals(List.of(), reservas());
+        assertEquals(10, stock());
+    }
+
+    private Integer reservar(int cantidad) {
+        ResultadoEscrituraDTO<ReservaDTO> resultado = reservaService.crear(
+                new ReservaDTO(null, SUCURSAL, PRODUCTO, cantidad, null));
+        assertEquals(ResultadoEscrituraDTO.Estado.CREADO, resultado.getEstado());
+        assertEquals(LocalDateTime.now(RELOJ).plus(DURACION).truncatedTo(ChronoUnit.MILLIS),
+                resultado.getModelo().getVence());
+        return resultado.getModelo().getId();
+    }
+
+    private List<Integer> reservas() {
+        return jdbc.queryForList("SELECT id FROM reservas_stock ORDER BY id", Integer.class);
+    }
+
+    // Unidades registradas en el diario con el tipo
+    private int diario(String tipo) {
+        return jdbc.queryForObject("SELECT coalesce(sum(cantidad), 0) FROM diario_stock WHERE tipo = ?",
+                Integer.class, tipo);
+    }
+
+    private int stock() {
+        return stockService.consultar(SUCURSAL, PRODUCTO).getCantidad();
+    }
+}
@@ -0,0 +1,167 @@
+package com.tpi_pais.mega_store.products.service;
+
+import com.tpi_pais.mega_store.PostgresEmbebidoTest;
+import com.tpi_pais.mega_store.products.dto.MovimientoStockDTO;
+import com.tpi_pais.mega_store.products.dto.ResultadoEscrituraDTO;
+import com.tpi_pais.mega_store.products.dto.StockDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ * Muchos compradores concurrentes (hilos virtuales) comprando el mismo producto en la misma sucursal
+ * hasta agotarlo: no se puede vender ni una unidad mas de las repuestas y ninguna franja puede quedar
+ * en negativo. Usa un Postgres embebido, las tablas las crea Hibernate.
+ * */
+class StockServiceStressTest extends PostgresEmbebidoTest {
+
+    private static final int SUCURSAL = 1;
+    private static final int PRODUCTO = 1;
+    private static final int STOCK_INICIAL = 1_000;
+    private static final int COMPRADORES = 200;
+    private static final int ESTIMACIONES_MAXIMAS = 3;
+    private static final int FRANJAS = 4;
+
+    @Autowired
+    private IStockService stockService;
+
+    @DynamicPropertySource
+    static void propiedades(DynamicPropertyRegistry registro) {
+        // Los compradores esperan por una conexion del pool mucho mas de lo normal
+        registro.add("megastore.limitador.espera-maxima-ms", () -> "60000");
+        registro.add("megastore.stock.estimaciones-maximas", () -> ESTIMACIONES_MAXIMAS);
+        registro.add("megastore.stock.franjas", () -> FRANJAS);
+    }
+
+    @BeforeEach
+    void cargarCatalogos() {
+        reiniciarCatalogos();
+        insertarProducto(PRODUCTO);
+    }
+
+    @Test
+    void noSeVendeMasQueElStock() throws Exception {
+        ResultadoEscrituraDTO<StockDTO> repuesto = stockService.reponer(movimiento(STOCK_INICIAL));
+        assertEquals(ResultadoEscrituraDTO.Estado.OK, repuesto.getEstado());
+        assertEquals(STOCK_INICIAL, repuesto.getModelo().getCantidad());
+
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<Integer>> compras = new ArrayList<>();
+        try (ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < COMPRADORES; i++) {
+                compras.add(ejecutor.submit(() -> {
+                    largada.await();
+                    // Cada comprador compra de a 1 a 3 unidades hasta que le responden SIN_STOCK
+                    int comprado = 0;
+                    while (true) {
+                        int cantidad = ThreadLocalRandom.current().nextInt(1, 4);
+                        ResultadoEscrituraDTO<MovimientoStockDTO> resultado = stockService.descontar(movimiento(cantidad));
+                        if (resultado.getEstado() == ResultadoEscrituraDTO.Estado.SIN_STOCK) {
+                            return comprado;
+                        }
+                        comprado += cantidad;
+                    }
+                }));
+            }
+            largada.countDown();
+        }
+
+        int vendido = 0;
+        for (Future<Integer> compra : compras) {
+            vendido += compra.get();
+        }
+        // Puede sobrar alguna unidad si el ultimo pedido fue de mas de lo que quedaba
+        StockDTO stock = stockService.consultar(SUCURSAL, PRODUCTO);
+        assertEquals(STOCK_INICIAL, vendido + stock.getCantidad());
+        assertEquals(0, jdbc.queryForObject("SELECT count(*) FROM stock_franjas WHERE cantidad < 0", Integer.class));
+        assertEquals(stock.getCantidad(), jdbc.queryForObject(
+                "SELECT sum(cantidad) FROM stock_franjas WHERE sucursal_id = ? AND producto_id = ?",
+                Integer.class, SUCURSAL, PRODUCTO));
+        assertTrue(stock.getCantidad() < 3);
+        // Cada venta confirmada quedo en el diario
+        assertEquals(vendido, jdbc.queryForObject(
+                "SELECT sum(cantidad) FROM diario_stock WHERE tipo = 'VENTA'", Integer.class));
+        assertEquals(STOCK_INICIAL, jdbc.queryForObject(
+                "SELECT sum(cantidad) FROM diario_stock WHERE tipo = 'REPOSICION'", Integer.class));
+    }
+
+    @Test
+    void reponerValidaLasReferencias() {
+        ResultadoEscrituraDTO<StockDTO> resultado = stockService.reponer(new MovimientoStockDTO(99, PRODUCTO, 5));
+        assertEquals(ResultadoEscrituraDTO.Estado.REFERENCIA_INVALIDA, resultado.getEstado());
+        assertEquals("sucursal", resultado.getReferencia());
+        resultado = stockService.reponer(new MovimientoStockDTO(SUCURSAL, 99, 5));
+        assertEquals("producto", resultado.getReferencia());
+        assertNull(resultado.getModelo());
+        assertEquals(0, stockService.consultar(SUCURSAL, PRODUCTO).getCantidad());
+    }
+
+    @Test
+    void reponerReparteEntreLasFranjasQueYaTiene() {
+        // Un par con dos franjas, por ejemplo creadas con otra configuracion, las conserva
+        jdbc.update("INSERT INTO stock_franjas (sucursal_id, producto_id, franja, cantidad) VALUES (?, ?, 0, 3), (?, ?, 1, 3)",
+                SUCURSAL, PRODUCTO, SUCURSAL, PRODUCTO);
+        assertEquals(ResultadoEscrituraDTO.Estado.OK, stockService.reponer(movimiento(5)).getEstado());
+        assertEquals(List.of(6, 5), jdbc.queryForList("SELECT cantidad FROM stock_franjas " +
+                "WHERE sucursal_id = ? AND producto_id = ? ORDER BY franja", Integer.class, SUCURSAL, PRODUCTO));
+
+        // Un par sin franjas se reparte entre las configuradas
+        insertarProducto(PRODUCTO + 1);
+        stockService.reponer(new MovimientoStockDTO(SUCURSAL, PRODUCTO + 1, 5));
+        assertEquals(FRANJAS, jdbc.queryForObject("SELECT count(*) FROM stock_franjas " +
+                "WHERE sucursal_id = ? AND producto_id = ?", Integer.class, SUCURSAL, PRODUCTO + 1));
+        assertEquals(5, stockService.consultar(SUCURSAL, PRODUCTO + 1).getCantidad());
+    }
+
+    @Test
+    void lasEstimacionesEstanAcotadas() {
+        Map<?, ?> estimaciones = (Map<?, ?>) ReflectionTestUtils.getField(
+                AopTestUtils.<Object>getUltimateTargetObject(stockService), "estimaciones");
+        estimaciones.clear();
+
+        // Los pares sin stock cargado (o inexistentes) no se guardan
+        for (int producto = 100; producto < 110; producto++) {
+            assertEquals(ResultadoEscrituraDTO.Estado.SIN_STOCK,
+                    stockService.descontar(new MovimientoStockDTO(SUCURSAL, producto, 1)).getEstado());
+            stockService.consultar(SUCURSAL, producto);
+        }
+        assertEquals(0, estimaciones.size());
+
+        int productos = ESTIMACIONES_MAXIMAS + 3;
+        for (int producto = PRODUCTO + 1; producto <= productos; producto++) {
+            insertarProducto(producto);
+        }
+        for (int producto = PRODUCTO; producto <= productos; producto++) {
+            stockService.reponer(new MovimientoStockDTO(SUCURSAL, producto, 10));
+            assertTrue(estimaciones.size() <= ESTIMACIONES_MAXIMAS);
+        }
+        // Los descartados se vuelven a leer de la bd
+        for (int producto = PRODUCTO; producto <= productos; producto++) {
+            assertEquals(ResultadoEscrituraDTO.Estado.OK,
+                    stockService.descontar(new MovimientoStockDTO(SUCURSAL, producto, 4)).getEstado());
+            assertEquals(6, stockService.consultar(SUCURSAL, producto).getCantidad());
+        }
+        assertEquals(ESTIMACIONES_MAXIMAS, estimaciones.size());
+    }
+
+    private static MovimientoStockDTO movimiento(int cantidad) {
+        return new MovimientoStockDTO(SUCURSAL, PRODUCTO, cantidad);
+    }
+}
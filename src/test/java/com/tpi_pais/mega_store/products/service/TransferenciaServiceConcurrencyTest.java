@@ -0,0 +1,184 @@
+package com.tpi_pais.mega_store.products.service;
+
+import com.tpi_pais.mega_store.PostgresEmbebidoTest;
+import com.tpi_pais.mega_store.products.dto.MovimientoStockDTO;
+import com.tpi_pais.mega_store.products.dto.ResultadoEscrituraDTO;
+import com.tpi_pais.mega_store.products.dto.TransferenciaDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ * Transferencias concurrentes en los dos sentidos entre las mismas dos sucursales (de A a B y de B a
+ * A a la vez, con varios productos cada una): ninguna puede terminar en deadlock, el total de cada
+ * producto entre las dos sucursales se conserva, ninguna franja queda en negativo y el diario de
+ * cada sucursal suma el stock que tiene. Usa un Postgres embebido, las tablas las crea Hibernate.
+ * */
+class TransferenciaServiceConcurrencyTest extends PostgresEmbebidoTest {
+
+    private static final int SUCURSAL_A = 1;
+    private static final int SUCURSAL_B = 2;
+    private static final int PRODUCTOS = 5;
+    private static final int STOCK_INICIAL = 200;
+    private static final int HILOS_POR_SENTIDO = 50;
+    private static final int TRANSFERENCIAS_POR_HILO = 20;
+
+    @Autowired
+    private ITransferenciaService transferenciaService;
+
+    @Autowired
+    private IStockService stockService;
+
+    @DynamicPropertySource
+    static void propiedades(DynamicPropertyRegistry registro) {
+        // Los hilos esperan por una conexion del pool mucho mas de lo normal
+        registro.add("megastore.limitador.espera-maxima-ms", () -> "60000");
+    }
+
+    @BeforeEach
+    void cargarCatalogos() {
+        reiniciarCatalogos();
+        jdbc.update("INSERT INTO sucursales (id, nombre) VALUES (?, 'dos')", SUCURSAL_B);
+        for (int producto = 1; producto <= PRODUCTOS; producto++) {
+            insertarProducto(producto);
+        }
+    }
+
+    @Test
+    void transferenciasCruzadasSinDeadlockNiPerdidas() throws Exception {
+        for (int producto = 1; producto <= PRODUCTOS; producto++) {
+            for (int sucursal : List.of(SUCURSAL_A, SUCURSAL_B)) {
+                assertEquals(ResultadoEscrituraDTO.Estado.OK,
+                        stockService.reponer(new MovimientoStockDTO(sucursal, producto, STOCK_INICIAL)).getEstado());
+            }
+        }
+
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<Integer>> hilos = new ArrayList<>();
+        try (ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 2 * HILOS_POR_SENTIDO; i++) {
+                int origen = i % 2 == 0 ? SUCURSAL_A : SUCURSAL_B;
+                int destino = origen == SUCURSAL_A ? SUCURSAL_B : SUCURSAL_A;
+                hilos.add(ejecutor.submit(() -> {
+                    largada.await();
+                    // Devuelve cuantas transferencias se hicieron; las demas fueron SIN_STOCK
+                    int hechas = 0;
+                    for (int t = 0; t < TRANSFERENCIAS_POR_HILO; t++) {
+                        ResultadoEscrituraDTO<TransferenciaDTO> resultado =
+                                transferenciaService.transferir(transferenciaAlAzar(origen, destino));
+                        if (resultado.getEstado() == ResultadoEscrituraDTO.Estado.OK) {
+                            hechas++;
+                        } else {
+                            assertEquals(ResultadoEscrituraDTO.Estado.SIN_STOCK, resultado.getEstado());
+                        }
+                    }
+                    return hechas;
+                }));
+            }
+            largada.countDown();
+        }
+
+        // Un deadlock o cualquier otro error de la bd sale aca como ExecutionException
+        int hechas = 0;
+        for (Future<Integer> hilo : hilos) {
+            hechas += hilo.get();
+        }
+        assertTrue(hechas > 0);
+        assertEquals(0, jdbc.queryForObject("SELECT count(*) FROM stock_franjas WHERE cantidad < 0", Integer.class));
+        for (int producto = 1; producto <= PRODUCTOS; producto++) {
+            int enA = stockService.consultar(SUCURSAL_A, producto).getCantidad();
+            int enB = stockService.consultar(SUCURSAL_B, producto).getCantidad();
+            assertEquals(2 * STOCK_INICIAL, enA + enB);
+            // La reposicion inicial mas lo que entro menos lo que salio segun el diario de cada una
+            assertEquals(enA, neto(SUCURSAL_A, producto));
+            assertEquals(enB, neto(SUCURSAL_B, producto));
+        }
+        assertEquals(jdbc.queryForObject(
+                        "SELECT count(*) FROM diario_stock WHERE tipo = 'TRANSFERENCIA_SALIDA'", Integer.class),
+                jdbc.queryForObject(
+                        "SELECT count(*) FROM diario_stock WHERE tipo = 'TRANSFERENCIA_ENTRADA'", Integer.class));
+    }
+
+    @Test
+    void sinStockNoDejaLaEntradaAplicada() {
+        // El destino tiene menor id: su entrada se aplica primero y se deshace al faltar stock en el origen
+        stockService.reponer(new MovimientoStockDTO(SUCURSAL_B, 1, 10));
+        TransferenciaDTO transferencia = new TransferenciaDTO(SUCURSAL_B, SUCURSAL_A, List.of(
+                new TransferenciaDTO.Item(1, 5), new TransferenciaDTO.Item(2, 1)));
+        ResultadoEscrituraDTO<TransferenciaDTO> resultado = transferenciaService.transferir(transferencia);
+        assertEquals(ResultadoEscrituraDTO.Estado.SIN_STOCK, resultado.getEstado());
+        assertEquals("2", resultado.getReferencia());
+        assertNull(resultado.getModelo());
+        assertEquals(0, stockService.consultar(SUCURSAL_A, 1).getCantidad());
+        assertEquals(10, stockService.consultar(SUCURSAL_B, 1).getCantidad());
+        assertEquals(0, jdbc.queryForObject(
+                "SELECT count(*) FROM diario_stock WHERE tipo LIKE 'TRANSFERENCIA_%'", Integer.class));
+
+        // Los items del mismo producto se suman
+        transferencia.setItems(List.of(new TransferenciaDTO.Item(1, 4), new TransferenciaDTO.Item(1, 3)));
+        assertEquals(ResultadoEscrituraDTO.Estado.OK, transferenciaService.transferir(transferencia).getEstado());
+        assertEquals(7, stockService.consultar(SUCURSAL_A, 1).getCantidad());
+        assertEquals(3, stockService.consultar(SUCURSAL_B, 1).getCantidad());
+        assertEquals(7, neto(SUCURSAL_A, 1));
+        assertEquals(3, neto(SUCURSAL_B, 1));
+    }
+
+    @Test
+    void destinoInvalidoNoDescuentaElOrigen() {
+        stockService.reponer(new MovimientoStockDTO(SUCURSAL_A, 1, 10));
+        ResultadoEscrituraDTO<TransferenciaDTO> resultado = transferenciaService.transferir(
+                new TransferenciaDTO(SUCURSAL_A, 99, List.of(new TransferenciaDTO.Item(1, 5))));
+        assertEquals(ResultadoEscrituraDTO.Estado.REFERENCIA_INVALIDA, resultado.getEstado());
+        assertEquals("sucursal", resultado.getReferencia());
+        assertEquals(10, stockService.consultar(SUCURSAL_A, 1).getCantidad());
+        assertEquals(10, neto(SUCURSAL_A, 1));
+    }
+
+    @Test
+    void cantidadesQueDesbordanNoSeTransfieren() {
+        stockService.reponer(new MovimientoStockDTO(SUCURSAL_A, 1, 10));
+        // Cada item entra en un int pero la suma no: el controlador la rechaza con el total en un long
+        TransferenciaDTO transferencia = new TransferenciaDTO(SUCURSAL_A, SUCURSAL_B, List.of(
+                new TransferenciaDTO.Item(1, Integer.MAX_VALUE), new TransferenciaDTO.Item(1, 2)));
+        assertEquals(Integer.MAX_VALUE + 2L, transferencia.cantidadTotal());
+        // Y el servicio falla antes de tocar el stock en lugar de transferir una cantidad negativa
+        assertThrows(ArithmeticException.class, () -> transferenciaService.transferir(transferencia));
+        assertEquals(10, stockService.consultar(SUCURSAL_A, 1).getCantidad());
+        assertEquals(0, stockService.consultar(SUCURSAL_B, 1).getCantidad());
+        assertEquals(10, neto(SUCURSAL_A, 1));
+    }
+
+    // Stock segun el diario: lo que entro menos lo que salio
+    private int neto(int sucursal, int producto) {
+        return jdbc.queryForObject("SELECT coalesce(sum(CASE WHEN tipo IN ('VENTA', 'RESERVA', 'TRANSFERENCIA_SALIDA') " +
+                        "THEN -cantidad ELSE cantidad END), 0) FROM diario_stock " +
+                        "WHERE sucursal_id = ? AND producto_id = ?",
+                Integer.class, sucursal, producto);
+    }
+
+    // De 1 a 4 items de productos al azar (puede repetir producto), de 1 a 10 unidades cada uno
+    private static TransferenciaDTO transferenciaAlAzar(int origen, int destino) {
+        ThreadLocalRandom azar = ThreadLocalRandom.current();
+        List<TransferenciaDTO.Item> items = new ArrayList<>();
+        int cantidadItems = azar.nextInt(1, 5);
+        for (int i = 0; i < cantidadItems; i++) {
+            items.add(new TransferenciaDTO.Item(azar.nextInt(1, PRODUCTOS + 1), azar.nextInt(1, 11)));
+        }
+        return new TransferenciaDTO(origen, destino, items);
+    }
+}
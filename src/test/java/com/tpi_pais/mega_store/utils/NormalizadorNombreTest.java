@@ -0,0 +1,119 @@
+package com.tpi_pais.mega_store.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class NormalizadorNombreTest {
+
+    private static final int CANTIDAD_CORPUS = 200_000;
+
+    // Caracteres con los que se arma el corpus: los permitidos aparecen con mas frecuencia
+    private static final String LETRAS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZáéíóúÁÉÍÓÚ";
+    private static final String NUMEROS = "0123456789";
+    private static final String ESPACIOS = "  \t\n\u000B\f\r";
+    private static final String INVALIDOS = "ñÑüÜ-_.,$#'\"/ ́ İı";
+
+    /*
+     * Secuencia de validaciones y correcciones que hacian los controladores antes de guardar un nombre.
+     * Devuelve el nombre resultante o el nombre del estado de error.
+     * */
+    private static String secuenciaOriginal(String nombre) {
+        ExpresionesRegulares expReg = new ExpresionesRegulares();
+        if (!expReg.verificarCaracteres(nombre)) {
+            return NormalizadorNombre.Estado.CARACTERES_INVALIDOS.name();
+        }
+        if (!expReg.verificarTextoConEspacios(nombre)) {
+            nombre = expReg.corregirCadena(nombre);
+            if (nombre.isEmpty()) {
+                return NormalizadorNombre.Estado.SIN_CONTENIDO.name();
+            }
+        }
+        return new StringUtils().capitalizeWords(nombre);
+    }
+
+    private static String normalizado(String nombre) {
+        String resultado = NormalizadorNombre.normalizar(nombre);
+        return resultado != null ? resultado : NormalizadorNombre.estado(nombre).name();
+    }
+
+    private static void verificar(String nombre) {
+        assertEquals(secuenciaOriginal(nombre), normalizado(nombre), () -> "Nombre: [" + visible(nombre) + "]");
+    }
+
+    private static String visible(String nombre) {
+        StringBuilder sb = new StringBuilder();
+        for (char c : nombre.toCharArray()) {
+            if (c < ' ' || c > '~') {
+                sb.append(String.format("\\u%04X", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    @Test
+    void casosConocidos() {
+        String[] casos = {
+                "", " ", "   ", "\t\n", "rojo", "Rojo", "ROJO", "rojo oscuro", "rojo   oscuro", "rojo oscuro ",
+                " rojo oscuro", "  rojo   oscuro  ", " 123", " 123 rojo", " rojo 123", " r0j0", " 1a", "a1",
+                "azul 2", " azul 2", "12 monos", "árbol ÁRBOL", " ÉxitO  último", "talle\txl", " talle\txl",
+                "x\u000Bl", "rojo-oscuro", "rojo_oscuro", "ñandú", "camión ", " \u000B\f\r", "1", " 1 2 3 a"
+        };
+        for (String caso : casos) {
+            verificar(caso);
+        }
+    }
+
+    @Test
+    void corpusAleatorioEquivalente() {
+        Random random = new Random(20241017L);
+        for (int i = 0; i < CANTIDAD_CORPUS; i++) {
+            verificar(generarNombre(random));
+        }
+    }
+
+    @Test
+    void devuelveLaMismaInstanciaSiYaEstaNormalizado() {
+        String nombre = "Rojo Oscuro";
+        assertSame(nombre, NormalizadorNombre.normalizar(nombre));
+    }
+
+    @Test
+    void nombreNuloEsInvalido() {
+        assertNull(NormalizadorNombre.normalizar(null));
+        assertEquals(NormalizadorNombre.Estado.CARACTERES_INVALIDOS, NormalizadorNombre.estado(null));
+    }
+
+    private static String generarNombre(Random random) {
+        int largo = random.nextInt(25);
+        boolean conInvalidos = random.nextInt(10) == 0;
+        StringBuilder sb = new StringBuilder(largo);
+        if (largo > 0 && random.nextInt(3) == 0) {
+            // Un tercio empieza con espacios para ejercitar corregirCadena
+            sb.append(caracter(random, ESPACIOS));
+        }
+        while (sb.length() < largo) {
+            int tipo = random.nextInt(100);
+            if (conInvalidos && tipo < 5) {
+                sb.append(caracter(random, INVALIDOS));
+            } else if (tipo < 60) {
+                sb.append(caracter(random, LETRAS));
+            } else if (tipo < 80) {
+                sb.append(caracter(random, NUMEROS));
+            } else {
+                sb.append(caracter(random, ESPACIOS));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static char caracter(Random random, String caracteres) {
+        return caracteres.charAt(random.nextInt(caracteres.length()));
+    }
+}
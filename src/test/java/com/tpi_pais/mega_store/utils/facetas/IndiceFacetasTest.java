@@ -0,0 +1,256 @@
+package com.tpi_pais.mega_store.utils.facetas;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ * Compara los resultados del indice con un filtro por fuerza bruta sobre los mismos registros:
+ * total, paginas, cursor y conteos de cada faceta (con los filtros de las demas facetas).
+ * */
+class IndiceFacetasTest {
+
+    private static final String[] FACETAS = {"marca", "categoria", "color", "talle"};
+
+    // Mismo valor que IndiceFacetas.RECORRIDO_MAXIMO
+    private static final int RECORRIDO_MAXIMO = 1 << 20;
+
+    private record Fila(int id, int version, int[] valores, boolean eliminado) {
+    }
+
+    // Estado esperado: la ultima version de cada registro, por id (null si no existe)
+    private static final class Modelo {
+        final Fila[] filas;
+
+        Modelo(int idMaximo) {
+            filas = new Fila[idMaximo + 1];
+        }
+
+        void registrar(Fila fila) {
+            Fila actual = filas[fila.id()];
+            if (actual == null || fila.version() >= actual.version()) {
+                filas[fila.id()] = fila;
+            }
+        }
+
+        ResultadoFacetas filtrar(int[][] seleccion, int despuesDe, int limite) {
+            int total = 0;
+            List<Integer> pagina = new ArrayList<>();
+            boolean hayMas = false;
+            List<Map<Integer, Integer>> conteos = new ArrayList<>();
+            for (int f = 0; f < FACETAS.length; f++) {
+                conteos.add(new TreeMap<>());
+            }
+            for (Fila fila : filas) {
+                if (fila == null || fila.eliminado()) {
+                    continue;
+                }
+                int noCumplidas = 0;
+                int faceta = -1;
+                for (int f = 0; f < FACETAS.length; f++) {
+                    if (!cumple(seleccion[f], fila.valores()[f])) {
+                        noCumplidas++;
+                        faceta = f;
+                    }
+                }
+                if (noCumplidas == 0) {
+                    total++;
+                    if (fila.id() > despuesDe) {
+                        if (pagina.size() < limite) {
+                            pagina.add(fila.id());
+                        } else {
+                            hayMas = true;
+                        }
+                    }
+                }
+                // Cada faceta se cuenta con los filtros de las demas
+                for (int f = 0; f < FACETAS.length; f++) {
+                    boolean cuenta = noCumplidas == 0 || (noCumplidas == 1 && faceta == f);
+                    if (cuenta && fila.valores()[f] != 0) {
+                        conteos.get(f).merge(fila.valores()[f], 1, Integer::sum);
+                    }
+                }
+            }
+            Map<String, Map<Integer, Integer>> porFaceta = new LinkedHashMap<>();
+            for (int f = 0; f < FACETAS.length; f++) {
+                if (seleccion[f] != null) {
+                    for (int valor : seleccion[f]) {
+                        conteos.get(f).putIfAbsent(valor, 0);
+                    }
+                }
+                porFaceta.put(FACETAS[f], conteos.get(f));
+            }
+            int[] ids = pagina.stream().mapToInt(Integer::intValue).toArray();
+            Integer cursor = hayMas && ids.length > 0 ? ids[ids.length - 1] : null;
+            return new ResultadoFacetas(total, ids, cursor, porFaceta);
+        }
+
+        private static boolean cumple(int[] seleccionados, int valor) {
+            if (seleccionados == null || seleccionados.length == 0) {
+                return true;
+            }
+            for (int seleccionado : seleccionados) {
+                if (seleccionado == valor) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static void comparar(Modelo modelo, IndiceFacetas indice, int[][] seleccion, int despuesDe, int limite) {
+        ResultadoFacetas esperado = modelo.filtrar(seleccion, despuesDe, limite);
+        ResultadoFacetas obtenido = indice.filtrar(seleccion, despuesDe, limite);
+        String filtro = Arrays.deepToString(seleccion) + " despues de " + despuesDe + " limite " + limite;
+        assertEquals(esperado.getTotal(), obtenido.getTotal(), () -> "Total de " + filtro);
+        assertArrayEquals(esperado.getIds(), obtenido.getIds(), () -> "Pagina de " + filtro);
+        assertEquals(esperado.getSiguienteCursor(), obtenido.getSiguienteCursor(), () -> "Cursor de " + filtro);
+        assertEquals(esperado.getConteos(), obtenido.getConteos(), () -> "Conteos de " + filtro);
+    }
+
+    private static int[] valoresAlAzar(SplittableRandom azar, int[] cantidadValores) {
+        int[] valores = new int[cantidadValores.length];
+        for (int f = 0; f < valores.length; f++) {
+            // Algunos registros sin valor (0) en alguna faceta
+            valores[f] = azar.nextInt(20) == 0 ? 0 : 1 + azar.nextInt(cantidadValores[f]);
+        }
+        return valores;
+    }
+
+    private static int[][] seleccionAlAzar(SplittableRandom azar, int[] cantidadValores) {
+        int[][] seleccion = new int[cantidadValores.length][];
+        for (int f = 0; f < seleccion.length; f++) {
+            int cantidad = azar.nextInt(4);
+            if (cantidad > 0) {
+                // Puede incluir valores que no tiene ningun registro (cantidadValores + 1)
+                int valores = cantidadValores[f] + 1;
+                seleccion[f] = IntStream.generate(() -> 1 + azar.nextInt(valores))
+                        .limit(cantidad).distinct().toArray();
+            }
+        }
+        return seleccion;
+    }
+
+    @Test
+    void coincideConFuerzaBrutaLuegoDeModificaciones() {
+        SplittableRandom azar = new SplittableRandom(7);
+        int[] cantidadValores = {12, 6, 5, 3};
+        int idMaximo = 3_000;
+        Modelo modelo = new Modelo(idMaximo);
+
+        // Carga con la mitad de los ids, con huecos y algunos eliminados
+        List<Fila> iniciales = new ArrayList<>();
+        for (int id = 1; id <= idMaximo; id++) {
+            if (azar.nextBoolean()) {
+                Fila fila = new Fila(id, azar.nextInt(3), valoresAlAzar(azar, cantidadValores), azar.nextInt(10) == 0);
+                iniciales.add(fila);
+                modelo.registrar(fila);
+            }
+        }
+        IndiceFacetas indice = new IndiceFacetas(FACETAS);
+        indice.cargar(iniciales::stream, Fila::id, Fila::version, Fila::valores, Fila::eliminado);
+        assertTrue(indice.estaCargado());
+
+        for (int ronda = 0; ronda < 300; ronda++) {
+            // Altas, modificaciones, bajas y recuperaciones, y versiones viejas que se tienen que descartar
+            for (int i = 0; i < 20; i++) {
+                int id = 1 + azar.nextInt(idMaximo);
+                Fila actual = modelo.filas[id];
+                int version = actual == null ? 0 : actual.version() + (azar.nextInt(5) == 0 ? -1 : 1);
+                int[] valores = actual != null && azar.nextBoolean()
+                        ? actual.valores() : valoresAlAzar(azar, cantidadValores);
+                boolean eliminado = actual != null && azar.nextBoolean() ? !actual.eliminado() : azar.nextInt(10) == 0;
+                Fila fila = new Fila(id, version, valores, eliminado);
+                modelo.registrar(fila);
+                indice.registrar(fila.id(), fila.version(), fila.valores(), fila.eliminado());
+            }
+            for (int i = 0; i < 5; i++) {
+                comparar(modelo, indice, seleccionAlAzar(azar, cantidadValores),
+                        azar.nextInt(4) == 0 ? azar.nextInt(idMaximo) : 0, 1 + azar.nextInt(100));
+            }
+        }
+
+        // Recorrer todas las paginas siguiendo el cursor devuelve cada resultado una vez
+        int[][] seleccion = {{1, 2, 3}, null, null, null};
+        int total = modelo.filtrar(seleccion, 0, idMaximo).getTotal();
+        int recorridos = 0;
+        Integer cursor = 0;
+        while (cursor != null) {
+            comparar(modelo, indice, seleccion, cursor, 17);
+            ResultadoFacetas pagina = indice.filtrar(seleccion, cursor, 17);
+            recorridos += pagina.getIds().length;
+            cursor = pagina.getSiguienteCursor();
+        }
+        assertEquals(total, recorridos);
+    }
+
+    @Test
+    void descartaVersionesAnterioresAunAntesDeLaCarga() {
+        IndiceFacetas indice = new IndiceFacetas(FACETAS);
+        // Sin cargar, registrar no hace nada: la carga va a leer el estado de la bd
+        indice.registrar(1, 5, new int[]{9, 9, 9, 9}, false);
+        indice.cargar(() -> List.of(new Fila(1, 3, new int[]{1, 1, 1, 1}, false)).stream(),
+                Fila::id, Fila::version, Fila::valores, Fila::eliminado);
+        assertEquals(Map.of(1, 1), indice.filtrar(new int[4][], 0, 10).getConteos().get("marca"));
+
+        // Una baja confirmada antes que una modificacion anterior a ella
+        indice.registrar(1, 5, new int[]{2, 1, 1, 1}, true);
+        indice.registrar(1, 4, new int[]{3, 1, 1, 1}, false);
+        assertEquals(0, indice.filtrar(new int[4][], 0, 10).getTotal());
+
+        // La recuperacion posterior si se aplica, con los valores de la baja
+        indice.registrar(1, 6, new int[]{2, 1, 1, 1}, false);
+        ResultadoFacetas resultado = indice.filtrar(new int[][]{{2}, null, null, null}, 0, 10);
+        assertArrayEquals(new int[]{1}, resultado.getIds());
+    }
+
+    @Test
+    void coincideConFuerzaBrutaConMasResultadosQueElRecorridoMaximo() {
+        SplittableRandom azar = new SplittableRandom(11);
+        int[] cantidadValores = {4, 3, 3, 2};
+        int idMaximo = RECORRIDO_MAXIMO + RECORRIDO_MAXIMO / 2;
+        Modelo modelo = new Modelo(idMaximo);
+        List<Fila> iniciales = new ArrayList<>(idMaximo);
+        for (int id = 1; id <= idMaximo; id++) {
+            Fila fila = new Fila(id, 0, valoresAlAzar(azar, cantidadValores), azar.nextInt(50) == 0);
+            iniciales.add(fila);
+            modelo.registrar(fila);
+        }
+        IndiceFacetas indice = new IndiceFacetas(FACETAS);
+        indice.cargar(iniciales::stream, Fila::id, Fila::version, Fila::valores, Fila::eliminado);
+
+        // Con tres de cuatro marcas el resultado supera RECORRIDO_MAXIMO y se cuenta con andCardinality
+        int[][] amplio = {{1, 2, 3}, null, null, null};
+        assertTrue(modelo.filtrar(amplio, 0, 1).getTotal() > RECORRIDO_MAXIMO);
+        comparar(modelo, indice, amplio, 0, 50);
+        // Con dos facetas filtradas, cada una se cuenta sobre la otra (tambien mas que RECORRIDO_MAXIMO)
+        comparar(modelo, indice, new int[][]{{1, 2, 3, 4}, null, null, {1, 2}}, RECORRIDO_MAXIMO, 50);
+        // Y un filtro angosto, que se cuenta recorriendo los resultados
+        int[][] angosto = {{1}, {2}, null, {1}};
+        assertFalse(modelo.filtrar(angosto, 0, 1).getTotal() > RECORRIDO_MAXIMO);
+        comparar(modelo, indice, angosto, 0, 50);
+
+        // Luego de modificar registros los conteos siguen coincidiendo
+        for (int i = 0; i < 10_000; i++) {
+            int id = 1 + azar.nextInt(idMaximo);
+            Fila fila = new Fila(id, modelo.filas[id].version() + 1, valoresAlAzar(azar, cantidadValores),
+                    azar.nextInt(3) == 0);
+            modelo.registrar(fila);
+            indice.registrar(fila.id(), fila.version(), fila.valores(), fila.eliminado());
+        }
+        comparar(modelo, indice, amplio, 0, 50);
+        comparar(modelo, indice, new int[][]{{1, 2, 3, 4}, null, null, {1, 2}}, 0, 50);
+    }
+}
@@ -0,0 +1,140 @@
+package com.tpi_pais.mega_store.utils.lotes;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ * Un productor y un consumidor sobre el buffer: los lotes salen al juntarse la cantidad pedida o al
+ * cumplirse la latencia del mas viejo, los productores esperan o se rechazan con el buffer lleno y
+ * al cerrarlo el consumidor recibe lo que quedaba. Las esperas que no deben terminar se prueban con
+ * latencias de un minuto, asi una prueba que pasa no depende de la velocidad de la maquina.
+ * */
+class BufferCircularTest {
+
+    private static final long UN_MINUTO = TimeUnit.MINUTES.toNanos(1);
+
+    private static List<Integer> tomar(BufferCircular<Integer> buffer, int maximo, long latenciaNanos)
+            throws InterruptedException {
+        List<Integer> lote = new ArrayList<>();
+        int cantidad = buffer.tomarLote(lote, maximo, latenciaNanos);
+        assertEquals(cantidad, lote.size());
+        return lote;
+    }
+
+    @Test
+    void laCapacidadSeRedondeaALaPotenciaDeDosSiguiente() {
+        assertEquals(1, new BufferCircular<Integer>(1).capacidad());
+        assertEquals(8, new BufferCircular<Integer>(5).capacidad());
+        assertEquals(8, new BufferCircular<Integer>(8).capacidad());
+        assertThrows(IllegalArgumentException.class, () -> new BufferCircular<Integer>(0));
+    }
+
+    @Test
+    void elLoteSaleAlJuntarseElTamanio() throws Exception {
+        BufferCircular<Integer> buffer = new BufferCircular<>(16);
+        try (ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            // El consumidor espera antes de que lleguen: lo despierta el elemento que completa el lote
+            Future<List<Integer>> lote = ejecutor.submit(() -> tomar(buffer, 3, UN_MINUTO));
+            buffer.agregar(1, 0);
+            buffer.agregar(2, 0);
+            assertThrows(TimeoutException.class, () -> lote.get(100, TimeUnit.MILLISECONDS));
+            buffer.agregar(3, 0);
+            assertEquals(List.of(1, 2, 3), lote.get(10, TimeUnit.SECONDS));
+        }
+
+        // Con mas elementos que el tamanio se entregan los primeros, en orden
+        for (int i = 4; i <= 8; i++) {
+            buffer.agregar(i, 0);
+        }
+        assertEquals(List.of(4, 5, 6), tomar(buffer, 3, UN_MINUTO));
+        assertEquals(2, buffer.tamanio());
+    }
+
+    @Test
+    void elLoteSaleAlCumplirseLaLatenciaDelMasViejo() throws Exception {
+        BufferCircular<Integer> buffer = new BufferCircular<>(16);
+        long latencia = TimeUnit.MILLISECONDS.toNanos(1500);
+        long agregado = System.nanoTime();
+        buffer.agregar(1, 0);
+        Thread.sleep(1000);
+        buffer.agregar(2, 0);
+
+        // La latencia se cuenta desde el primero (sale a los 1500 ms) y no desde el ultimo (2500 ms)
+        assertEquals(List.of(1, 2), tomar(buffer, 10, latencia));
+        long espera = System.nanoTime() - agregado;
+        assertTrue(espera >= latencia, () -> "El lote salio a los " + espera + " ns");
+        assertTrue(espera < TimeUnit.MILLISECONDS.toNanos(2400), () -> "El lote salio a los " + espera + " ns");
+    }
+
+    @Test
+    void conElBufferLlenoLosProductoresEsperanORechazan() throws Exception {
+        BufferCircular<Integer> buffer = new BufferCircular<>(4);
+        for (int i = 1; i <= 4; i++) {
+            assertTrue(buffer.agregar(i, 0));
+        }
+        // Sin espera, o con una corta, se rechaza
+        assertFalse(buffer.agregar(5, 0));
+        long inicio = System.nanoTime();
+        assertFalse(buffer.agregar(5, TimeUnit.MILLISECONDS.toNanos(50)));
+        assertTrue(System.nanoTime() - inicio >= TimeUnit.MILLISECONDS.toNanos(50));
+
+        try (ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            // Con espera larga el productor queda bloqueado hasta que el consumidor libera lugar
+            Future<Boolean> productor = ejecutor.submit(() -> buffer.agregar(5, UN_MINUTO));
+            assertThrows(TimeoutException.class, () -> productor.get(100, TimeUnit.MILLISECONDS));
+            assertEquals(List.of(1, 2), tomar(buffer, 2, UN_MINUTO));
+            assertTrue(productor.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(List.of(3, 4, 5), tomar(buffer, 3, UN_MINUTO));
+        assertEquals(0, buffer.tamanio());
+    }
+
+    @Test
+    void alCerrarseEntregaLoQueQuedaSinEsperar() throws Exception {
+        BufferCircular<Integer> buffer = new BufferCircular<>(4);
+        for (int i = 1; i <= 4; i++) {
+            buffer.agregar(i, 0);
+        }
+        try (ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            // Un productor esperando lugar cuando se cierra no agrega su elemento
+            Future<Boolean> productor = ejecutor.submit(() -> buffer.agregar(5, UN_MINUTO));
+            assertThrows(TimeoutException.class, () -> productor.get(100, TimeUnit.MILLISECONDS));
+            buffer.cerrar();
+            Exception error = assertThrows(Exception.class, () -> productor.get(10, TimeUnit.SECONDS));
+            assertTrue(error.getCause() instanceof IllegalStateException, error::toString);
+        }
+        assertThrows(IllegalStateException.class, () -> buffer.agregar(6, 0));
+
+        // Aunque el lote no este completo ni se haya cumplido la latencia
+        assertEquals(List.of(1, 2, 3), tomar(buffer, 3, UN_MINUTO));
+        assertEquals(List.of(4), tomar(buffer, 3, UN_MINUTO));
+        // Cerrado y vacio: 0 sin esperar
+        assertEquals(List.of(), tomar(buffer, 3, UN_MINUTO));
+    }
+
+    @Test
+    void cerrarDespiertaAlConsumidorQueEspera() throws Exception {
+        BufferCircular<Integer> buffer = new BufferCircular<>(4);
+        try (ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<List<Integer>> vacio = ejecutor.submit(() -> tomar(buffer, 3, UN_MINUTO));
+            assertThrows(TimeoutException.class, () -> vacio.get(100, TimeUnit.MILLISECONDS));
+            buffer.agregar(1, 0);
+            // Con un elemento esperando la latencia de un minuto, cerrar lo entrega en el momento
+            assertThrows(TimeoutException.class, () -> vacio.get(100, TimeUnit.MILLISECONDS));
+            buffer.cerrar();
+            assertEquals(List.of(1), vacio.get(10, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.tpi_pais.mega_store.utils.tiempos;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ * La rueda recibe la hora en cada llamada, asi que las pruebas manejan el tiempo a mano: cada id
+ * se tiene que avisar en el primer avance que llega al tick de su vencimiento (redondeado hacia
+ * arriba), nunca antes, y los ya vencidos en el tick siguiente al ultimo procesado.
+ * */
+class RuedaDeTiemposTest {
+
+    private static final long RANURAS = 64;
+    private static final long ALCANCE = RANURAS * RANURAS * RANURAS * RANURAS;
+
+    // Avanza de a un tick (de 1 ms) de desde a hasta y devuelve en que tick se aviso cada id
+    private static Map<Long, Long> avanzarDeAUno(RuedaDeTiempos rueda, long desde, long hasta) {
+        Map<Long, Long> avisos = new HashMap<>();
+        for (long tick = desde; tick <= hasta; tick++) {
+            long ahora = tick;
+            rueda.avanzar(ahora, id -> assertNull(avisos.put(id, ahora), () -> "Id avisado dos veces: " + id));
+        }
+        return avisos;
+    }
+
+    private static List<Long> avanzar(RuedaDeTiempos rueda, long ahora) {
+        List<Long> vencidos = new ArrayList<>();
+        rueda.avanzar(ahora, vencidos::add);
+        return vencidos;
+    }
+
+    @Test
+    void bajaDeNivelJustoEnLosLimites() {
+        // Vencimientos a uno y otro lado de las vueltas de los niveles 0, 1 y 2
+        long[] vencimientos = {1, 63, 64, 65, 127, 128, 129, 4095, 4096, 4097, 4159, 4160, 8191, 8192,
+                262143, 262144, 262145};
+        for (long inicio : new long[]{0, 1, 37, 63, 64, 4095, 4096, 4097, 262143}) {
+            RuedaDeTiempos rueda = new RuedaDeTiempos(1, inicio);
+            for (long vencimiento : vencimientos) {
+                rueda.agregar(vencimiento, inicio + vencimiento);
+            }
+            Map<Long, Long> avisos = avanzarDeAUno(rueda, inicio + 1, inicio + 262145);
+            for (long vencimiento : vencimientos) {
+                assertEquals(inicio + vencimiento, avisos.get(vencimiento),
+                        "Vencimiento " + vencimiento + " desde " + inicio);
+            }
+            assertEquals(0, rueda.tamanio());
+        }
+    }
+
+    @Test
+    void vencimientosMasAllaDelAlcance() {
+        long inicio = 1_000;
+        RuedaDeTiempos rueda = new RuedaDeTiempos(1, inicio);
+        long[] distancias = {ALCANCE - 1, ALCANCE, ALCANCE + 1, 3 * ALCANCE + 5};
+        for (long distancia : distancias) {
+            rueda.agregar(distancia, inicio + distancia);
+        }
+        for (long distancia : distancias) {
+            // Justo antes no se avisa, y en el tick del vencimiento se avisa solo ese
+            assertEquals(List.of(), avanzar(rueda, inicio + distancia - 1), "Distancia " + distancia);
+            assertEquals(List.of(distancia), avanzar(rueda, inicio + distancia), "Distancia " + distancia);
+        }
+        assertEquals(0, rueda.tamanio());
+    }
+
+    @Test
+    void losYaVencidosSeAvisanEnElTickSiguiente() {
+        RuedaDeTiempos rueda = new RuedaDeTiempos(100, 10_000);
+        rueda.agregar(1, 0);
+        rueda.agregar(2, 9_999);
+        rueda.agregar(3, 10_000);
+        // El tick 100 ya se proceso al crear la rueda: nada vence sin que avance el tiempo
+        assertEquals(List.of(), avanzar(rueda, 10_099));
+        assertEquals(List.of(1L, 2L, 3L), avanzar(rueda, 10_100));
+
+        // Lo mismo despues de procesar ticks
+        rueda.agregar(4, 10_050);
+        assertEquals(List.of(), avanzar(rueda, 10_150));
+        assertEquals(List.of(4L), avanzar(rueda, 10_200));
+    }
+
+    @Test
+    void reagregarLosDeUnLoteFallido() {
+        RuedaDeTiempos rueda = new RuedaDeTiempos(10, 0);
+        for (long id = 1; id <= 5; id++) {
+            rueda.agregar(id, 100);
+        }
+        // Como ReservaService: el lote falla despues de avanzar y sus ids vuelven con vencimiento ahora
+        List<Long> lote = avanzar(rueda, 100);
+        assertEquals(5, lote.size());
+        lote.forEach(id -> rueda.agregar(id, 100));
+        assertEquals(5, rueda.tamanio());
+        assertEquals(List.of(), avanzar(rueda, 109));
+        assertEquals(lote, avanzar(rueda, 110));
+
+        // Reagregado desde el mismo aviso (con el bloqueo tomado): va al tick siguiente, no se pierde
+        rueda.agregar(6, 120);
+        List<Long> avisos = new ArrayList<>();
+        rueda.avanzar(120, id -> {
+            avisos.add(id);
+            rueda.agregar(id, 120);
+        });
+        assertEquals(List.of(6L), avisos);
+        assertEquals(1, rueda.tamanio());
+        assertEquals(List.of(6L), avanzar(rueda, 130));
+        assertEquals(0, rueda.tamanio());
+    }
+
+    @Test
+    void nuncaAntesYConHastaUnTickDeAtraso() {
+        SplittableRandom azar = new SplittableRandom(3);
+        long tickMs = 10;
+        long ahora = 123_457;
+        RuedaDeTiempos rueda = new RuedaDeTiempos(tickMs, ahora);
+        long ultimoTick = ahora / tickMs;
+        // Tick en el que se tiene que avisar cada id pendiente
+        Map<Long, Long> esperados = new HashMap<>();
+        Map<Long, Long> vencimientos = new HashMap<>();
+        long siguienteId = 0;
+
+        for (int paso = 0; paso < 20_000; paso++) {
+            for (int i = azar.nextInt(4); i > 0; i--) {
+                long id = siguienteId++;
+                // Algunos ya vencidos, la mayoria a menos de 5000 ticks y algunos mucho mas lejos
+                long vencimiento = switch (azar.nextInt(10)) {
+                    case 0 -> ahora - azar.nextLong(1, 10_000);
+                    case 1 -> ahora + azar.nextLong(5_000_000);
+                    default -> ahora + azar.nextLong(50_000);
+                };
+                vencimientos.put(id, vencimiento);
+                esperados.put(id, Math.max(Math.floorDiv(vencimiento + tickMs - 1, tickMs), ultimoTick + 1));
+                rueda.agregar(id, vencimiento);
+            }
+            // Avances de menos de un tick, de varios y de muchos
+            ahora += switch (azar.nextInt(10)) {
+                case 0 -> azar.nextLong(100_000);
+                case 1, 2 -> azar.nextLong(tickMs);
+                default -> azar.nextLong(200);
+            };
+            long tick = ahora / tickMs;
+            long momento = ahora;
+            rueda.avanzar(ahora, id -> {
+                long esperado = esperados.remove(id);
+                assertTrue(esperado <= tick, () -> "Id " + id + " avisado antes de tiempo");
+                assertTrue(momento >= vencimientos.get(id), () -> "Id " + id + " avisado antes de su vencimiento");
+            });
+            // Los que llegaron a su tick ya se avisaron
+            long procesado = ultimoTick;
+            esperados.forEach((id, esperado) -> assertTrue(esperado > tick,
+                    () -> "Id " + id + " no avisado en su tick " + esperado + " (avance de " + procesado + " a " + tick + ")"));
+            ultimoTick = tick;
+            assertEquals(esperados.size(), rueda.tamanio());
+        }
+    }
+}